@@ -51,7 +51,12 @@ dependencies {
 
     // AWS
     implementation("software.amazon.awssdk:s3")
+    implementation("software.amazon.awssdk:sqs")
     implementation("software.amazon.awssdk:bedrockruntime")
+    implementation("software.amazon.awssdk:netty-nio-client")
+
+    // PDF text extraction for AI contexts
+    implementation("org.apache.pdfbox:pdfbox:3.0.3")
 
     // Lombok
     compileOnly("org.projectlombok:lombok")
@@ -0,0 +1,9 @@
+package com.suncorp.securehub.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(AiProperties.class)
+public class AiConfig {
+}
@@ -0,0 +1,203 @@
+package com.suncorp.securehub.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "app.ai")
+public class AiProperties {
+
+    /**
+     * Deadline for fetching all attachments of one AI context build. Attachments
+     * still downloading when it passes are left out of the context.
+     */
+    @NotNull
+    private Duration contextFetchTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Attachments larger than this are not downloaded into an AI context.
+     */
+    @Min(1)
+    private long contextAttachmentMaxBytes = 10 * 1024 * 1024L;
+
+    /**
+     * Maximum concurrent attachment downloads per AI context build.
+     */
+    @Min(1)
+    private int contextFetchConcurrency = 8;
+
+    /**
+     * Node-wide cap on downloaded attachment bytes held by AI contexts until the
+     * provider call finishes.
+     */
+    @Min(1024)
+    private long contextMemoryBudgetBytes = 256 * 1024 * 1024L;
+
+    /**
+     * How long a context build queues for budget before leaving an attachment out.
+     * Zero skips at once; the wait never extends past {@code context-fetch-timeout}.
+     */
+    @NotNull
+    private Duration contextMemoryWait = Duration.ZERO;
+
+    /**
+     * Estimated tokens of the request description sent to the model; longer
+     * descriptions are cut.
+     */
+    @Min(1)
+    private int contextDescriptionMaxTokens = 2000;
+
+    /**
+     * Estimated tokens of comments sent to the model, newest first; older comments
+     * are cut or left out.
+     */
+    @Min(1)
+    private int contextCommentsMaxTokens = 8000;
+
+    /**
+     * Estimated tokens of text attachments sent to the model, shared between them.
+     */
+    @Min(1)
+    private int contextAttachmentsMaxTokens = 16000;
+
+    /**
+     * Send PDFs with a text layer as extracted text instead of the document.
+     */
+    private boolean contextPdfTextEnabled = true;
+
+    /**
+     * Longer side in pixels of images sent to the model; larger PNG and JPEG
+     * images are downscaled.
+     */
+    @Min(1)
+    private int contextImageMaxDimension = 1568;
+
+    /**
+     * Images with more pixels than this are sent unchanged rather than decoded.
+     */
+    @Min(1)
+    private long contextImageMaxPixels = 50_000_000L;
+
+    /**
+     * Node-local cap on preprocessed attachment content kept for later AI runs.
+     */
+    @Min(0)
+    private long contextPreprocessCacheMaxBytes = 64 * 1024 * 1024L;
+
+    /**
+     * Largest derived attachment content (extracted text, downscaled image) kept
+     * in the database for later AI runs; zero keeps none.
+     */
+    @Min(0)
+    private long contextExtractedContentMaxBytes = 2 * 1024 * 1024L;
+
+    /**
+     * Worker threads executing async AI runs on this node.
+     */
+    @Min(1)
+    private int asyncWorkers = 4;
+
+    /**
+     * Async runs waiting for a worker on this node; further submissions get 429.
+     */
+    @Min(1)
+    private int asyncQueueCapacity = 100;
+
+    /**
+     * Async runs one user may have waiting at once, so a single user cannot fill the queue.
+     */
+    @Min(1)
+    private int asyncMaxQueuedPerUser = 5;
+
+    /**
+     * Runs still PENDING or RUNNING this long after submission are marked FAILED,
+     * e.g. because the node executing them was stopped.
+     */
+    @NotNull
+    private Duration asyncRunTimeout = Duration.ofMinutes(15);
+
+    /**
+     * How long a streamed AI response may stay open before the server-sent event
+     * stream is closed.
+     */
+    @NotNull
+    private Duration streamTimeout = Duration.ofMinutes(2);
+
+    /**
+     * Reuse the result of an earlier identical action (same request context, prompt
+     * version and model) instead of calling the provider again.
+     */
+    private boolean resultCacheEnabled = true;
+
+    /**
+     * Results kept in the node-local LRU in front of ai_assist_runs.
+     */
+    @Min(1)
+    private int resultCacheMaxEntries = 1000;
+
+    /**
+     * How long a result may be reused after it was generated.
+     */
+    @NotNull
+    private Duration resultCacheTtl = Duration.ofHours(24);
+
+    /**
+     * Summarize by extending the previous summary with the comments and
+     * attachments added since, instead of sending the whole thread again.
+     */
+    private boolean summaryIncrementalEnabled = true;
+
+    /**
+     * Oldest full summary an incremental chain may start from. Once a chain's
+     * full summary is older, the next summary is rebuilt from the whole thread,
+     * so deleted comments drop out of summaries eventually.
+     */
+    @NotNull
+    private Duration summaryIncrementalMaxAge = Duration.ofHours(24);
+
+    /**
+     * Summarize requests over the context token budget in parts and combine the
+     * partial summaries, instead of truncating them.
+     */
+    private boolean summaryMapReduceEnabled = true;
+
+    /**
+     * Estimated tokens of request text per part of a map-reduce summary.
+     */
+    @Min(1)
+    private int summaryPartMaxTokens = 8000;
+
+    /**
+     * Most parts summarized per request; beyond it, comments between the first part
+     * and the newest ones are left out.
+     */
+    @Min(1)
+    private int summaryMaxParts = 32;
+
+    /**
+     * Part summaries of one request generated at once.
+     */
+    @Min(1)
+    private int summaryMapConcurrency = 4;
+
+    /**
+     * Full AI run inputs not used by any run for this long are deleted; the
+     * summary kept on each run stays.
+     */
+    @NotNull
+    private Duration inputSnapshotRetention = Duration.ofDays(30);
+
+    /**
+     * Snapshots deleted per transaction by the prune job.
+     */
+    @Min(1)
+    private int inputSnapshotPruneBatchSize = 500;
+}
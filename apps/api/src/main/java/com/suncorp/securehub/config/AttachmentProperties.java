@@ -1,5 +1,6 @@
 package com.suncorp.securehub.config;
 
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
@@ -19,6 +20,30 @@ import java.util.Set;
 @ConfigurationProperties(prefix = "app.attachments")
 public class AttachmentProperties {
 
+    /**
+     * Attachment storage backend: {@code s3} (default) or {@code local}.
+     */
+    @NotBlank
+    private String storage = "s3";
+
+    /**
+     * Object key layout for new uploads: {@code legacy} ({@code requests/...}) or
+     * {@code hashed} (short hash prefix for S3 request-rate partitioning).
+     */
+    @NotBlank
+    private String objectKeyLayout = "legacy";
+
+    @Min(1)
+    @Max(16)
+    private int objectKeyHashPrefixLength = 4;
+
+    @Min(1)
+    private int keyMigrationBatchSize = 100;
+
+    /** Objects copied concurrently by the key migration. */
+    @Min(1)
+    private int keyMigrationParallelism = 4;
+
     @NotBlank
     private String bucketName = "securehub-attachments-local";
 
@@ -26,12 +51,51 @@ public class AttachmentProperties {
     private String awsRegion = "ap-southeast-2";
 
     private String awsS3Endpoint;
+    private String awsSqsEndpoint;
     private String awsAccessKeyId;
     private String awsSecretAccessKey;
 
+    @NotBlank
+    private String localStorageRoot = System.getProperty("java.io.tmpdir") + "/securehub-attachments";
+
+    @NotBlank
+    private String localPublicBaseUrl = "http://localhost:8080";
+
+    @NotBlank
+    private String localSigningSecret = "localAttachmentSigningSecretForDevelopmentOnly";
+
+    @Min(0)
+    private long localMmapThresholdBytes = 1024 * 1024L;
+
     @Min(1)
     private long maxFileSizeBytes = 10 * 1024 * 1024L;
 
+    /**
+     * Upper bound for multipart uploads; {@code max-file-size-bytes} still caps single PUT uploads.
+     */
+    @Min(1)
+    private long multipartMaxFileSizeBytes = 1024 * 1024 * 1024L;
+
+    /**
+     * Size of every part but the last. S3 rejects parts below 5 MiB.
+     */
+    @Min(5 * 1024 * 1024)
+    private long multipartPartSizeBytes = 16 * 1024 * 1024L;
+
+    /**
+     * Upper bound for whole attachments read into memory.
+     */
+    @Min(1)
+    private long downloadMaxBytes = 10 * 1024 * 1024L;
+
+    /**
+     * Upper bound for bytes streamed through the API, including the proxy content
+     * endpoint. Keep at or above {@code multipart-max-file-size-bytes} so every
+     * uploadable file can be read back.
+     */
+    @Min(1)
+    private long streamMaxBytes = 1024 * 1024 * 1024L;
+
     @Min(1)
     private int requestMaxCount = 10;
 
@@ -41,18 +105,110 @@ public class AttachmentProperties {
     @NotNull
     private Duration uploadUrlTtl = Duration.ofMinutes(5);
 
+    /**
+     * Lifetime of multipart part URLs. Keep below {@code pending-upload-max-age} so the
+     * cleanup job never aborts an upload whose URLs are still valid.
+     */
+    @NotNull
+    private Duration multipartUploadUrlTtl = Duration.ofMinutes(30);
+
     @NotNull
     private Duration downloadUrlTtl = Duration.ofMinutes(5);
 
+    /**
+     * How long a presigned download URL is reused after signing; must be shorter than
+     * {@code download-url-ttl}. Zero disables the cache.
+     */
+    @NotNull
+    private Duration downloadUrlCacheTtl = Duration.ofMinutes(2);
+
+    @Min(1)
+    private int downloadUrlCacheMaxEntries = 10_000;
+
     @NotNull
     private Duration pendingUploadMaxAge = Duration.ofHours(1);
 
     @NotBlank
     private String pendingCleanupCron = "0 */10 * * * *";
 
+    @Min(1)
+    private int pendingCleanupBatchSize = 200;
+
+    @NotNull
+    private Duration pendingCleanupMaxRunDuration = Duration.ofMinutes(2);
+
     @Min(1)
     private int s3DeleteMaxAttempts = 2;
 
+    /**
+     * Activates attachments from S3 ObjectCreated notifications delivered to
+     * {@code upload-events-queue-url}, so clients need not call confirm.
+     */
+    private boolean uploadEventsEnabled = false;
+
+    private String uploadEventsQueueUrl;
+
+    @NotNull
+    private Duration uploadEventsPollInterval = Duration.ofSeconds(1);
+
+    /**
+     * SQS long-poll wait per receive; at most 20 seconds.
+     */
+    @NotNull
+    private Duration uploadEventsWaitTime = Duration.ofSeconds(10);
+
+    /**
+     * Maximum concurrent storage calls per node when a batch fans out, e.g. batch confirm.
+     */
+    @Min(1)
+    private int storageCallParallelism = 8;
+
+    /**
+     * Generate JPEG previews for PNG/JPEG attachments in the background once they
+     * become ACTIVE.
+     */
+    private boolean thumbnailsEnabled = true;
+
+    @Min(16)
+    private int thumbnailMaxDimension = 256;
+
+    @Min(1)
+    private int thumbnailWorkers = 2;
+
+    /**
+     * Pending thumbnail jobs per node; jobs arriving at a full queue are dropped
+     * and picked up again by the sweep.
+     */
+    @Min(1)
+    private int thumbnailQueueCapacity = 200;
+
+    /**
+     * How often each node re-queues ACTIVE images still without a thumbnail, within
+     * the free queue capacity. Covers dropped and failed jobs and older images.
+     */
+    @NotNull
+    private Duration thumbnailSweepInterval = Duration.ofMinutes(5);
+
+    @Min(1)
+    private long thumbnailMaxSourceBytes = 20 * 1024 * 1024L;
+
+    /**
+     * Images with more pixels are not decoded, which guards against decompression bombs.
+     */
+    @Min(1)
+    private long thumbnailMaxSourcePixels = 100_000_000L;
+
+    private boolean contentCacheEnabled = false;
+
+    @NotBlank
+    private String contentCacheDir = System.getProperty("java.io.tmpdir") + "/securehub-attachment-cache";
+
+    @Min(1)
+    private long contentCacheMaxBytes = 512 * 1024 * 1024L;
+
+    @Min(1)
+    private long contentCacheMaxEntryBytes = 10 * 1024 * 1024L;
+
     @NotEmpty
     private Set<String> allowedMimeTypes = new LinkedHashSet<>(
             Set.of(
@@ -1,5 +1,6 @@
 package com.suncorp.securehub.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,6 +12,7 @@ import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3Configuration;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.sqs.SqsClient;
 
 import java.net.URI;
 
@@ -46,6 +48,20 @@ public class S3Config {
         return builder.build();
     }
 
+    @Bean
+    @ConditionalOnProperty(name = "app.attachments.upload-events-enabled", havingValue = "true")
+    public SqsClient sqsClient(AttachmentProperties properties) {
+        var builder = SqsClient.builder()
+                .credentialsProvider(credentialsProvider(properties))
+                .region(Region.of(properties.getAwsRegion()));
+
+        if (StringUtils.hasText(properties.getAwsSqsEndpoint())) {
+            builder.endpointOverride(URI.create(properties.getAwsSqsEndpoint()));
+        }
+
+        return builder.build();
+    }
+
     private software.amazon.awssdk.auth.credentials.AwsCredentialsProvider credentialsProvider(
             AttachmentProperties properties) {
         if (StringUtils.hasText(properties.getAwsAccessKeyId())
@@ -1,6 +1,7 @@
 package com.suncorp.securehub.config;
 
 import com.suncorp.securehub.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -46,8 +47,12 @@ public class SecurityConfig {
                 .sessionManagement(session ->
                     session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                    // Async dispatches (deferred and streamed AI responses) complete a request already authorised
+                    .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                     .requestMatchers(HttpMethod.POST, "/api/v1/auth/**").permitAll()
                     .requestMatchers("/actuator/**").permitAll()
+                    // Signed URLs issued by local attachment storage carry their own authorisation
+                    .requestMatchers("/api/v1/storage/local/**").permitAll()
                     .requestMatchers("/swagger-ui/**", "/swagger-ui.html", "/api-docs/**").permitAll()
                     .anyRequest().authenticated()
                 )
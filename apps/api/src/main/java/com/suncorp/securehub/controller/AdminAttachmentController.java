@@ -0,0 +1,35 @@
+package com.suncorp.securehub.controller;
+
+import com.suncorp.securehub.dto.AttachmentKeyMigrationStatusDto;
+import com.suncorp.securehub.service.AttachmentKeyMigrationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/admin/attachments")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Admin Attachments", description = "Attachment storage maintenance endpoints (ADMIN only)")
+@SecurityRequirement(name = "Bearer Authentication")
+public class AdminAttachmentController {
+
+    private final AttachmentKeyMigrationService keyMigrationService;
+
+    @PostMapping("/key-migration")
+    @Operation(summary = "Start migrating stored objects to the configured key layout")
+    public ResponseEntity<AttachmentKeyMigrationStatusDto> startKeyMigration() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(keyMigrationService.start());
+    }
+
+    @GetMapping("/key-migration")
+    @Operation(summary = "Get the progress of the current or last key migration")
+    public ResponseEntity<AttachmentKeyMigrationStatusDto> getKeyMigrationStatus() {
+        return ResponseEntity.ok(keyMigrationService.status());
+    }
+}
@@ -1,20 +1,36 @@
 package com.suncorp.securehub.controller;
 
+import com.suncorp.securehub.config.AiProperties;
 import com.suncorp.securehub.dto.AiActionRequestDto;
+import com.suncorp.securehub.dto.AiAssistRunDto;
 import com.suncorp.securehub.dto.AiDraftResponseDto;
+import com.suncorp.securehub.dto.AiRunRequestDto;
 import com.suncorp.securehub.dto.AiSuggestTagsResponseDto;
 import com.suncorp.securehub.dto.AiSummarizeResponseDto;
+import com.suncorp.securehub.exception.GlobalExceptionHandler.ErrorResponse;
 import com.suncorp.securehub.service.AiAssistService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.MDC;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.validation.Valid;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RestController
@@ -24,10 +40,11 @@ import java.util.stream.Collectors;
 public class AiAssistController {
 
     private final AiAssistService aiAssistService;
+    private final AiProperties aiProperties;
 
     @PostMapping("/summarize")
     @Operation(summary = "Summarize request")
-    public AiSummarizeResponseDto summarize(
+    public CompletableFuture<AiSummarizeResponseDto> summarize(
             @PathVariable Long id,
             @Valid @RequestBody(required = false) AiActionRequestDto reqDto,
             Authentication auth) {
@@ -36,7 +53,7 @@ public class AiAssistController {
 
     @PostMapping("/suggest-tags")
     @Operation(summary = "Suggest tags for request")
-    public AiSuggestTagsResponseDto suggestTags(
+    public CompletableFuture<AiSuggestTagsResponseDto> suggestTags(
             @PathVariable Long id,
             @Valid @RequestBody(required = false) AiActionRequestDto reqDto,
             Authentication auth) {
@@ -45,13 +62,100 @@ public class AiAssistController {
 
     @PostMapping("/draft-response")
     @Operation(summary = "Draft a response for request")
-    public AiDraftResponseDto draftResponse(
+    public CompletableFuture<AiDraftResponseDto> draftResponse(
             @PathVariable Long id,
             @Valid @RequestBody(required = false) AiActionRequestDto reqDto,
             Authentication auth) {
         return aiAssistService.draftResponse(id, reqDto, auth.getName(), extractRoles(auth));
     }
 
+    @PostMapping("/runs")
+    @Operation(summary = "Queue an AI action and poll its run for the result")
+    public ResponseEntity<AiAssistRunDto> submitRun(
+            @PathVariable Long id,
+            @Valid @RequestBody AiRunRequestDto reqDto,
+            Authentication auth) {
+        AiAssistRunDto run = aiAssistService.submitRun(id, reqDto, auth.getName(), extractRoles(auth));
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header("Location", "/api/v1/requests/" + id + "/ai/runs/" + run.getRunId())
+                .body(run);
+    }
+
+    @GetMapping("/runs/{runId}")
+    @Operation(summary = "Get AI run status and result")
+    public AiAssistRunDto getRun(
+            @PathVariable Long id,
+            @PathVariable UUID runId,
+            Authentication auth) {
+        return aiAssistService.getRun(id, runId, auth.getName(), extractRoles(auth));
+    }
+
+    @PostMapping(value = "/summarize/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Summarize request, streaming the summary as server-sent events")
+    public SseEmitter streamSummarize(
+            @PathVariable Long id,
+            @Valid @RequestBody(required = false) AiActionRequestDto reqDto,
+            Authentication auth) {
+        return relay(onDelta -> aiAssistService.streamSummarize(
+                id, reqDto, auth.getName(), extractRoles(auth), onDelta));
+    }
+
+    @PostMapping(value = "/draft-response/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Draft a response for request, streaming the draft as server-sent events")
+    public SseEmitter streamDraftResponse(
+            @PathVariable Long id,
+            @Valid @RequestBody(required = false) AiActionRequestDto reqDto,
+            Authentication auth) {
+        return relay(onDelta -> aiAssistService.streamDraftResponse(
+                id, reqDto, auth.getName(), extractRoles(auth), onDelta));
+    }
+
+    /**
+     * Relays a streamed AI action as {@code delta} events carrying text, then one
+     * {@code done} event with the full response or an {@code error} event. If the
+     * client goes away, generation continues so the run is still recorded.
+     */
+    private SseEmitter relay(Function<Consumer<String>, CompletableFuture<?>> stream) {
+        SseEmitter emitter = new SseEmitter(aiProperties.getStreamTimeout().toMillis());
+        AtomicBoolean open = new AtomicBoolean(true);
+        emitter.onCompletion(() -> open.set(false));
+        emitter.onTimeout(() -> open.set(false));
+        emitter.onError(ex -> open.set(false));
+        String requestId = MDC.get("requestId");
+
+        stream.apply(delta -> {
+            if (open.get()) {
+                send(emitter, open, SseEmitter.event().name("delta").data(delta));
+            }
+        }).whenComplete((response, ex) -> {
+            if (!open.get()) {
+                return;
+            }
+            if (ex == null) {
+                send(emitter, open, SseEmitter.event().name("done").data(response, MediaType.APPLICATION_JSON));
+            } else {
+                send(emitter, open, SseEmitter.event().name("error").data(ErrorResponse.builder()
+                        .code("AI_PROVIDER_ERROR")
+                        .message("AI generation failed")
+                        .requestId(requestId)
+                        .timestamp(LocalDateTime.now())
+                        .build(), MediaType.APPLICATION_JSON));
+            }
+            if (open.get()) {
+                emitter.complete();
+            }
+        });
+        return emitter;
+    }
+
+    private static void send(SseEmitter emitter, AtomicBoolean open, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException ex) {
+            open.set(false);
+        }
+    }
+
     private Set<String> extractRoles(Authentication auth) {
         return auth.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
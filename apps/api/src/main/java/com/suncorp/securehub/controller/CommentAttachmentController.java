@@ -1,17 +1,20 @@
 package com.suncorp.securehub.controller;
 
 import com.suncorp.securehub.dto.*;
+import com.suncorp.securehub.service.AttachmentContentService;
 import com.suncorp.securehub.service.AttachmentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Set;
@@ -25,6 +28,7 @@ import java.util.stream.Collectors;
 public class CommentAttachmentController {
 
     private final AttachmentService attachmentService;
+    private final AttachmentContentService attachmentContentService;
 
     @PostMapping("/upload-url")
     @Operation(summary = "Create upload URL for comment attachment")
@@ -50,15 +54,64 @@ public class CommentAttachmentController {
                 requestId, commentId, attachmentId, principal.getUsername(), roles(principal)));
     }
 
+    @PostMapping("/batch/upload-url")
+    @Operation(summary = "Create upload URLs for several comment attachments")
+    public ResponseEntity<List<AttachmentUploadUrlResponseDto>> createUploadUrls(
+            @PathVariable Long requestId,
+            @PathVariable Long commentId,
+            @Valid @RequestBody AttachmentBatchUploadUrlRequestDto dto,
+            @AuthenticationPrincipal UserDetails principal
+    ) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(attachmentService.createCommentUploadUrls(
+                requestId, commentId, dto, principal.getUsername(), roles(principal)));
+    }
+
+    @PostMapping("/batch/confirm")
+    @Operation(summary = "Confirm several comment attachment uploads")
+    public ResponseEntity<List<AttachmentBatchConfirmResultDto>> confirmUploads(
+            @PathVariable Long requestId,
+            @PathVariable Long commentId,
+            @Valid @RequestBody AttachmentBatchConfirmRequestDto dto,
+            @AuthenticationPrincipal UserDetails principal
+    ) {
+        return ResponseEntity.ok(attachmentService.confirmCommentAttachments(
+                requestId, commentId, dto, principal.getUsername(), roles(principal)));
+    }
+
+    @PostMapping("/multipart-upload")
+    @Operation(summary = "Start multipart upload for a large comment attachment")
+    public ResponseEntity<AttachmentMultipartUploadResponseDto> createMultipartUpload(
+            @PathVariable Long requestId,
+            @PathVariable Long commentId,
+            @Valid @RequestBody AttachmentUploadUrlRequestDto dto,
+            @AuthenticationPrincipal UserDetails principal
+    ) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(attachmentService.createCommentMultipartUpload(
+                requestId, commentId, dto, principal.getUsername(), roles(principal)));
+    }
+
+    @PostMapping("/{attachmentId}/multipart-upload/complete")
+    @Operation(summary = "Complete multipart upload and confirm comment attachment")
+    public ResponseEntity<AttachmentDto> completeMultipartUpload(
+            @PathVariable Long requestId,
+            @PathVariable Long commentId,
+            @PathVariable Long attachmentId,
+            @AuthenticationPrincipal UserDetails principal
+    ) {
+        return ResponseEntity.ok(attachmentService.completeCommentMultipartUpload(
+                requestId, commentId, attachmentId, principal.getUsername(), roles(principal)));
+    }
+
     @GetMapping
     @Operation(summary = "List comment attachments")
     public ResponseEntity<List<AttachmentDto>> listAttachments(
             @PathVariable Long requestId,
             @PathVariable Long commentId,
+            @RequestParam(defaultValue = "false") boolean includeDownloadUrls,
             @AuthenticationPrincipal UserDetails principal
     ) {
         return ResponseEntity.ok(attachmentService.listCommentAttachments(
-                requestId, commentId, principal.getUsername(), roles(principal)));
+                requestId, commentId, includeDownloadUrls, principal.getUsername(), roles(principal)));
     }
 
     @GetMapping("/{attachmentId}/download-url")
@@ -73,6 +126,19 @@ public class CommentAttachmentController {
                 requestId, commentId, attachmentId, principal.getUsername(), roles(principal)));
     }
 
+    @GetMapping("/{attachmentId}/content")
+    @Operation(summary = "Stream comment attachment content through the API (supports HTTP Range)")
+    public ResponseEntity<StreamingResponseBody> getContent(
+            @PathVariable Long requestId,
+            @PathVariable Long commentId,
+            @PathVariable Long attachmentId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @AuthenticationPrincipal UserDetails principal
+    ) {
+        return attachmentContentService.getCommentAttachmentContent(
+                requestId, commentId, attachmentId, range, principal.getUsername(), roles(principal));
+    }
+
     @DeleteMapping("/{attachmentId}")
     @Operation(summary = "Delete comment attachment")
     public ResponseEntity<Void> deleteAttachment(
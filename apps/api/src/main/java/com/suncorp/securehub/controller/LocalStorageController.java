@@ -0,0 +1,64 @@
+package com.suncorp.securehub.controller;
+
+import com.suncorp.securehub.service.storage.LocalFileSystemAttachmentStorage;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Serves the HMAC-signed upload and download URLs issued by local filesystem
+ * storage. These requests carry no bearer token; the URL signature is the
+ * authorisation, exactly as with S3 presigned URLs.
+ */
+@RestController
+@RequestMapping(LocalFileSystemAttachmentStorage.URL_PATH)
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.attachments.storage", havingValue = "local")
+@Tag(name = "Local Storage", description = "Signed object URLs for filesystem-backed attachment storage")
+public class LocalStorageController {
+
+    private final LocalFileSystemAttachmentStorage storage;
+
+    @PutMapping
+    @Operation(summary = "Upload an attachment body to a signed local URL")
+    public ResponseEntity<Void> upload(
+            @RequestParam String key,
+            @RequestParam long expires,
+            @RequestParam long length,
+            @RequestParam String signature,
+            HttpServletRequest request
+    ) throws IOException {
+        try (InputStream body = request.getInputStream()) {
+            storage.writeUpload(key, expires, length, signature, body);
+        }
+        return ResponseEntity.ok().build();
+    }
+
+    @GetMapping
+    @Operation(summary = "Download an attachment body from a signed local URL")
+    public ResponseEntity<StreamingResponseBody> download(
+            @RequestParam String key,
+            @RequestParam long expires,
+            @RequestParam String contentType,
+            @RequestParam String signature
+    ) throws IOException {
+        InputStream body = storage.openSignedDownload(key, expires, contentType, signature);
+        StreamingResponseBody stream = out -> {
+            try (body) {
+                body.transferTo(out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(contentType))
+                .body(stream);
+    }
+}
@@ -1,17 +1,20 @@
 package com.suncorp.securehub.controller;
 
 import com.suncorp.securehub.dto.*;
+import com.suncorp.securehub.service.AttachmentContentService;
 import com.suncorp.securehub.service.AttachmentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Set;
@@ -25,6 +28,7 @@ import java.util.stream.Collectors;
 public class RequestAttachmentController {
 
     private final AttachmentService attachmentService;
+    private final AttachmentContentService attachmentContentService;
 
     @PostMapping("/upload-url")
     @Operation(summary = "Create upload URL for request attachment")
@@ -48,14 +52,59 @@ public class RequestAttachmentController {
                 requestId, attachmentId, principal.getUsername(), roles(principal)));
     }
 
+    @PostMapping("/batch/upload-url")
+    @Operation(summary = "Create upload URLs for several request attachments")
+    public ResponseEntity<List<AttachmentUploadUrlResponseDto>> createUploadUrls(
+            @PathVariable Long requestId,
+            @Valid @RequestBody AttachmentBatchUploadUrlRequestDto dto,
+            @AuthenticationPrincipal UserDetails principal
+    ) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(attachmentService.createRequestUploadUrls(
+                requestId, dto, principal.getUsername(), roles(principal)));
+    }
+
+    @PostMapping("/batch/confirm")
+    @Operation(summary = "Confirm several request attachment uploads")
+    public ResponseEntity<List<AttachmentBatchConfirmResultDto>> confirmUploads(
+            @PathVariable Long requestId,
+            @Valid @RequestBody AttachmentBatchConfirmRequestDto dto,
+            @AuthenticationPrincipal UserDetails principal
+    ) {
+        return ResponseEntity.ok(attachmentService.confirmRequestAttachments(
+                requestId, dto, principal.getUsername(), roles(principal)));
+    }
+
+    @PostMapping("/multipart-upload")
+    @Operation(summary = "Start multipart upload for a large request attachment")
+    public ResponseEntity<AttachmentMultipartUploadResponseDto> createMultipartUpload(
+            @PathVariable Long requestId,
+            @Valid @RequestBody AttachmentUploadUrlRequestDto dto,
+            @AuthenticationPrincipal UserDetails principal
+    ) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(attachmentService.createRequestMultipartUpload(
+                requestId, dto, principal.getUsername(), roles(principal)));
+    }
+
+    @PostMapping("/{attachmentId}/multipart-upload/complete")
+    @Operation(summary = "Complete multipart upload and confirm request attachment")
+    public ResponseEntity<AttachmentDto> completeMultipartUpload(
+            @PathVariable Long requestId,
+            @PathVariable Long attachmentId,
+            @AuthenticationPrincipal UserDetails principal
+    ) {
+        return ResponseEntity.ok(attachmentService.completeRequestMultipartUpload(
+                requestId, attachmentId, principal.getUsername(), roles(principal)));
+    }
+
     @GetMapping
     @Operation(summary = "List request attachments")
     public ResponseEntity<List<AttachmentDto>> listAttachments(
             @PathVariable Long requestId,
+            @RequestParam(defaultValue = "false") boolean includeDownloadUrls,
             @AuthenticationPrincipal UserDetails principal
     ) {
         return ResponseEntity.ok(attachmentService.listRequestAttachments(
-                requestId, principal.getUsername(), roles(principal)));
+                requestId, includeDownloadUrls, principal.getUsername(), roles(principal)));
     }
 
     @GetMapping("/{attachmentId}/download-url")
@@ -69,6 +118,18 @@ public class RequestAttachmentController {
                 requestId, attachmentId, principal.getUsername(), roles(principal)));
     }
 
+    @GetMapping("/{attachmentId}/content")
+    @Operation(summary = "Stream request attachment content through the API (supports HTTP Range)")
+    public ResponseEntity<StreamingResponseBody> getContent(
+            @PathVariable Long requestId,
+            @PathVariable Long attachmentId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @AuthenticationPrincipal UserDetails principal
+    ) {
+        return attachmentContentService.getRequestAttachmentContent(
+                requestId, attachmentId, range, principal.getUsername(), roles(principal));
+    }
+
     @DeleteMapping("/{attachmentId}")
     @Operation(summary = "Delete request attachment")
     public ResponseEntity<Void> deleteAttachment(
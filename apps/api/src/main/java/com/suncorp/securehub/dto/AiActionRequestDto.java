@@ -13,4 +13,6 @@ import lombok.NoArgsConstructor;
 public class AiActionRequestDto {
     @Size(max = 2000)
     private String promptOverride; // optional extra instructions for the AI
+
+    private boolean bypassCache; // always call the provider, even if a cached result exists
 }
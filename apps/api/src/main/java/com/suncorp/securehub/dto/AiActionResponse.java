@@ -0,0 +1,20 @@
+package com.suncorp.securehub.dto;
+
+/**
+ * Fields shared by every AI action response, so runs can be recorded without
+ * knowing the action type.
+ */
+public interface AiActionResponse {
+
+    String getRunId();
+
+    void setRunId(String runId);
+
+    Long getLatencyMs();
+
+    void setLatencyMs(Long latencyMs);
+
+    boolean isCached();
+
+    void setCached(boolean cached);
+}
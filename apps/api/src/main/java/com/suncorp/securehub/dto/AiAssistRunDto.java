@@ -0,0 +1,28 @@
+package com.suncorp.securehub.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AiAssistRunDto {
+    private UUID runId;
+    private Long requestId;
+    private String actionType;
+    private String status; // PENDING, RUNNING, SUCCESS, FAILED
+    private JsonNode result; // action response once SUCCESS
+    private String errorCode;
+    private String errorMessage;
+    private Long latencyMs;
+    private OffsetDateTime createdAt;
+    private OffsetDateTime startedAt;
+    private OffsetDateTime completedAt;
+}
@@ -1,9 +1,12 @@
 package com.suncorp.securehub.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
 import java.util.List;
 
 @Data
@@ -16,6 +19,38 @@ public class AiContextDto {
     private List<CommentContext> comments;
     private List<AttachmentContext> attachments;
     private String userPrompt;
+    private int omittedComments; // oldest comments dropped to fit the token budget
+
+    /**
+     * Set for incremental summaries: the previous summary, with comments and
+     * attachments limited to those added after it and the description left out
+     * unless the request changed.
+     */
+    private String priorSummary;
+    private String summaryMode; // FULL, INCREMENTAL, MAP_REDUCE; summaries only
+    private OffsetDateTime contextAsOf; // when the request was read
+
+    /**
+     * Set for incremental summaries: when the full summary the chain started
+     * from read the request. Never serialised.
+     */
+    @JsonIgnore
+    private OffsetDateTime summaryBaseAsOf;
+
+    /**
+     * Set on the provider calls of a map-reduce summary: {@code part} ("2/7") when
+     * summarizing one part of a long request, {@code partialSummaries} when
+     * combining the summaries of consecutive parts.
+     */
+    private String part;
+    private List<String> partialSummaries;
+
+    /**
+     * Attachment bytes reserved from the AI context memory budget; returned by
+     * {@code AiContextBuilder.releaseContent}. Never serialised.
+     */
+    @JsonIgnore
+    private long reservedBytes;
 
     @Data
     @Builder
@@ -34,6 +69,7 @@ public class AiContextDto {
     public static class AttachmentContext {
         private String fileName;
         private String contentType;
+        private String checksumSha256; // verified upload checksum, if recorded
         private byte[] contentBytes; // For multimodal models (PDFs/Images)
         private String textContent; // For text-based files
         private boolean included;
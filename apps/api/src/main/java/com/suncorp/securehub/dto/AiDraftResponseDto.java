@@ -11,11 +11,12 @@ import java.time.OffsetDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class AiDraftResponseDto {
+public class AiDraftResponseDto implements AiActionResponse {
     private String draft;
     private String runId;
     private String provider;
     private String model;
     private Long latencyMs;
     private OffsetDateTime generatedAt;
+    private boolean cached; // true when reused from an earlier run on the same context
 }
@@ -0,0 +1,24 @@
+package com.suncorp.securehub.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AiRunRequestDto {
+    @NotBlank
+    @Pattern(regexp = "SUMMARIZE|SUGGEST_TAGS|DRAFT_RESPONSE")
+    private String actionType;
+
+    @Size(max = 2000)
+    private String promptOverride; // optional extra instructions for the AI
+
+    private boolean bypassCache; // always call the provider, even if a cached result exists
+}
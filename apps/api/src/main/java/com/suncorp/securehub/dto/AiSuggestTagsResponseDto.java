@@ -13,13 +13,14 @@ import java.util.List;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class AiSuggestTagsResponseDto {
+public class AiSuggestTagsResponseDto implements AiActionResponse {
     private List<TagSuggestion> tags;
     private String runId;
     private String provider;
     private String model;
     private Long latencyMs;
     private OffsetDateTime generatedAt;
+    private boolean cached; // true when reused from an earlier run on the same context
 
     @Data
     @Builder
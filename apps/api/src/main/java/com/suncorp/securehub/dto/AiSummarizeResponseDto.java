@@ -11,11 +11,13 @@ import java.time.OffsetDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class AiSummarizeResponseDto {
+public class AiSummarizeResponseDto implements AiActionResponse {
     private String summary;
     private String runId;
     private String provider;
     private String model;
     private Long latencyMs;
     private OffsetDateTime generatedAt;
+    private boolean cached; // true when reused from an earlier run on the same context
+    private String summaryMode; // FULL, or INCREMENTAL when an earlier summary was extended
 }
@@ -0,0 +1,15 @@
+package com.suncorp.securehub.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class AttachmentBatchConfirmRequestDto {
+    @NotEmpty(message = "At least one attachment id is required")
+    @Size(max = 20, message = "At most 20 attachments can be confirmed per batch")
+    private List<@NotNull Long> attachmentIds;
+}
@@ -0,0 +1,17 @@
+package com.suncorp.securehub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttachmentBatchConfirmResultDto {
+    private Long attachmentId;
+    private boolean confirmed;
+    private AttachmentDto attachment;
+    private String error;
+}
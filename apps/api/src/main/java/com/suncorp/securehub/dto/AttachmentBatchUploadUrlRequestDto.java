@@ -0,0 +1,15 @@
+package com.suncorp.securehub.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class AttachmentBatchUploadUrlRequestDto {
+    @NotEmpty(message = "At least one file is required")
+    @Size(max = 20, message = "At most 20 files can be uploaded per batch")
+    private List<@Valid AttachmentUploadUrlRequestDto> files;
+}
@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 
 @Data
@@ -22,4 +23,8 @@ public class AttachmentDto {
     private AttachmentState state;
     private UserDto uploadedBy;
     private LocalDateTime createdAt;
+    private String downloadUrl;
+    private Instant downloadUrlExpiresAt;
+    private String thumbnailUrl;
+    private Instant thumbnailUrlExpiresAt;
 }
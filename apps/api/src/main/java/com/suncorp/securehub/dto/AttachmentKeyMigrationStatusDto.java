@@ -0,0 +1,23 @@
+package com.suncorp.securehub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttachmentKeyMigrationStatusDto {
+    private boolean running;
+    private String layout;
+    private long scanned;
+    private long migrated;
+    private long skipped;
+    private long failed;
+    private Instant startedAt;
+    private Instant finishedAt;
+}
@@ -0,0 +1,20 @@
+package com.suncorp.securehub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttachmentMultipartUploadResponseDto {
+    private Long attachmentId;
+    private Long partSize;
+    private List<AttachmentUploadPartUrlDto> parts;
+    private Instant expiresAt;
+}
@@ -0,0 +1,16 @@
+package com.suncorp.securehub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttachmentUploadPartUrlDto {
+    private Integer partNumber;
+    private Long partSize;
+    private String uploadUrl;
+}
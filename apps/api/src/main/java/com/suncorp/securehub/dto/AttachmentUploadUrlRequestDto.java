@@ -2,6 +2,7 @@ package com.suncorp.securehub.dto;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
 import lombok.Data;
 
@@ -16,4 +17,8 @@ public class AttachmentUploadUrlRequestDto {
     @NotNull(message = "File size is required")
     @Positive(message = "File size must be positive")
     private Long fileSize;
+
+    /** Optional base64 SHA-256 of the file; enables upload verification and deduplication. */
+    @Pattern(regexp = "^[A-Za-z0-9+/]{43}=$", message = "Checksum must be a base64-encoded SHA-256 digest")
+    private String checksumSha256;
 }
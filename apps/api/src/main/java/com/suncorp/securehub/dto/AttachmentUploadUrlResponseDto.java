@@ -15,4 +15,6 @@ public class AttachmentUploadUrlResponseDto {
     private Long attachmentId;
     private String uploadUrl;
     private Instant expiresAt;
+    /** True when identical content was already stored; no upload or confirm is needed. */
+    private boolean deduplicated;
 }
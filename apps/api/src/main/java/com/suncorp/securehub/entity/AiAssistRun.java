@@ -42,14 +42,17 @@ public class AiAssistRun {
 
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "input_snapshot", columnDefinition = "jsonb")
-    private String inputSnapshot;
+    private String inputSnapshot; // summary of the input; the full context is in ai_input_snapshots
+
+    @Column(name = "input_snapshot_hash", length = 64)
+    private String inputSnapshotHash;
 
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "output_payload", columnDefinition = "jsonb")
     private String outputPayload;
 
     @Column(name = "status", nullable = false)
-    private String status; // SUCCESS, FAILED
+    private String status; // PENDING, RUNNING, SUCCESS, FAILED
 
     @Column(name = "error_code")
     private String errorCode;
@@ -65,4 +68,22 @@ public class AiAssistRun {
 
     @Column(name = "created_at", nullable = false)
     private OffsetDateTime createdAt;
+
+    @Column(name = "started_at")
+    private OffsetDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private OffsetDateTime completedAt;
+
+    @Column(name = "context_hash", length = 64)
+    private String contextHash; // SHA-256 of the AI context, see AiResultCache
+
+    @Column(name = "summary_mode", length = 16)
+    private String summaryMode; // FULL, INCREMENTAL, MAP_REDUCE; SUMMARIZE runs only
+
+    @Column(name = "context_as_of")
+    private OffsetDateTime contextAsOf; // when the request was read; set on summaries that can be extended
+
+    @Column(name = "summary_base_as_of")
+    private OffsetDateTime summaryBaseAsOf; // contextAsOf of the full summary an incremental chain started from
 }
@@ -0,0 +1,41 @@
+package com.suncorp.securehub.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+/**
+ * The full AI context of one or more runs, gzip-compressed JSON keyed by the
+ * SHA-256 of that JSON, so runs over an identical context share one row.
+ */
+@Entity
+@Table(name = "ai_input_snapshots")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AiInputSnapshot {
+
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "compressed", nullable = false)
+    private byte[] compressed;
+
+    @Column(name = "original_bytes", nullable = false)
+    private int originalBytes;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "last_used_at", nullable = false)
+    private OffsetDateTime lastUsedAt; // bumped by every run storing the same context
+}
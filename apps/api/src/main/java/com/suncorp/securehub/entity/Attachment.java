@@ -35,9 +35,24 @@ public class Attachment {
     @Column(name = "file_size", nullable = false)
     private Long fileSize;
 
-    @Column(name = "s3_object_key", nullable = false, length = 1024, unique = true)
+    @Column(name = "s3_object_key", nullable = false, length = 1024)
     private String s3ObjectKey;
 
+    /** Base64 SHA-256 declared by the client at upload time, verified on confirm. */
+    @Column(name = "checksum_sha256", length = 44)
+    private String checksumSha256;
+
+    /** Shared object this ACTIVE attachment holds a reference to, if deduplicated. */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "blob_sha256")
+    private AttachmentBlob blob;
+
+    @Column(name = "multipart_upload_id", length = 1024)
+    private String multipartUploadId;
+
+    @Column(name = "thumbnail_key", length = 1024)
+    private String thumbnailKey;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
     private AttachmentState state;
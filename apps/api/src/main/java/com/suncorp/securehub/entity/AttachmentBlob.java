@@ -0,0 +1,50 @@
+package com.suncorp.securehub.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One stored attachment object shared by every ACTIVE attachment with the same
+ * content. {@code refCount} is the number of attachments referencing it; the
+ * object is deleted when it drops to zero.
+ */
+@Entity
+@Table(name = "attachment_blobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AttachmentBlob {
+
+    @Id
+    @Column(name = "sha256", length = 44)
+    private String sha256;
+
+    @Column(name = "s3_object_key", nullable = false, length = 1024, unique = true)
+    private String s3ObjectKey;
+
+    @Column(name = "file_size", nullable = false)
+    private Long fileSize;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
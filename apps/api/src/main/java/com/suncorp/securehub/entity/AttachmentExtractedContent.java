@@ -0,0 +1,50 @@
+package com.suncorp.securehub.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Content of one attachment as prepared for the AI provider, so later AI runs
+ * read it from here instead of downloading and processing the object again.
+ * Holds either extracted text or preprocessed bytes. Valid only while the
+ * attachment still has {@code sourceChecksum} and {@code s3ObjectKey}; deleted
+ * with the attachment.
+ */
+@Entity
+@Table(name = "attachment_extracted_content")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AttachmentExtractedContent {
+
+    @Id
+    @Column(name = "attachment_id")
+    private Long attachmentId;
+
+    @Column(name = "source_checksum", length = 44)
+    private String sourceChecksum;
+
+    @Column(name = "s3_object_key", nullable = false, length = 1024)
+    private String s3ObjectKey;
+
+    @Column(name = "content_type", nullable = false, length = 255)
+    private String contentType;
+
+    @Column(name = "text_content", columnDefinition = "TEXT")
+    private String textContent;
+
+    @Column(name = "content_bytes")
+    private byte[] contentBytes;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
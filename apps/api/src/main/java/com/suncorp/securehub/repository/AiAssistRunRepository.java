@@ -2,12 +2,66 @@ package com.suncorp.securehub.repository;
 
 import com.suncorp.securehub.entity.AiAssistRun;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface AiAssistRunRepository extends JpaRepository<AiAssistRun, UUID> {
     List<AiAssistRun> findByRequestId(Long requestId);
+
+    Optional<AiAssistRun> findByIdAndRequestId(UUID id, Long requestId);
+
+    /**
+     * Newest SUCCESS run computed from the same context after {@code createdAfter};
+     * the persistent tier of the AI result cache.
+     */
+    @Query("SELECT r FROM AiAssistRun r WHERE r.requestId = :requestId AND r.actionType = :actionType " +
+            "AND r.promptVersion = :promptVersion AND r.modelId = :modelId AND r.contextHash = :contextHash " +
+            "AND r.status = 'SUCCESS' AND r.createdAt > :createdAfter ORDER BY r.createdAt DESC LIMIT 1")
+    Optional<AiAssistRun> findLatestSuccess(
+            @Param("requestId") Long requestId,
+            @Param("actionType") String actionType,
+            @Param("promptVersion") String promptVersion,
+            @Param("modelId") String modelId,
+            @Param("contextHash") String contextHash,
+            @Param("createdAfter") OffsetDateTime createdAfter);
+
+    /**
+     * Newest SUCCESS summary read after {@code asOfAfter} that an incremental
+     * summary can extend.
+     */
+    @Query("SELECT r FROM AiAssistRun r WHERE r.requestId = :requestId AND r.actionType = 'SUMMARIZE' " +
+            "AND r.promptVersion = :promptVersion AND r.modelId = :modelId AND r.status = 'SUCCESS' " +
+            "AND r.contextAsOf IS NOT NULL AND r.summaryBaseAsOf > :baseAsOfAfter AND r.outputPayload IS NOT NULL " +
+            "ORDER BY r.contextAsOf DESC LIMIT 1")
+    Optional<AiAssistRun> findLatestSummaryBase(
+            @Param("requestId") Long requestId,
+            @Param("promptVersion") String promptVersion,
+            @Param("modelId") String modelId,
+            @Param("baseAsOfAfter") OffsetDateTime baseAsOfAfter);
+
+    /**
+     * Claims a queued run for execution; returns 0 if it is no longer PENDING.
+     */
+    @Modifying
+    @Query("UPDATE AiAssistRun r SET r.status = 'RUNNING', r.startedAt = :startedAt " +
+            "WHERE r.id = :id AND r.status = 'PENDING'")
+    int markRunning(@Param("id") UUID id, @Param("startedAt") OffsetDateTime startedAt);
+
+    @Modifying
+    @Query("UPDATE AiAssistRun r SET r.status = 'FAILED', r.errorCode = :errorCode, " +
+            "r.errorMessage = :errorMessage, r.completedAt = :completedAt " +
+            "WHERE r.status IN ('PENDING', 'RUNNING') AND r.createdAt < :createdBefore")
+    int failUnfinishedCreatedBefore(
+            @Param("createdBefore") OffsetDateTime createdBefore,
+            @Param("errorCode") String errorCode,
+            @Param("errorMessage") String errorMessage,
+            @Param("completedAt") OffsetDateTime completedAt);
 }
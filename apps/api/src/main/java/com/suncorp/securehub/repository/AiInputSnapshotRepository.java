@@ -0,0 +1,36 @@
+package com.suncorp.securehub.repository;
+
+import com.suncorp.securehub.entity.AiInputSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
+
+public interface AiInputSnapshotRepository extends JpaRepository<AiInputSnapshot, String> {
+
+    /**
+     * Stores a snapshot, or marks the identical one already stored as used now.
+     * Must run inside a transaction.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO ai_input_snapshots " +
+            "(content_hash, compressed, original_bytes, created_at, last_used_at) " +
+            "VALUES (:contentHash, :compressed, :originalBytes, now(), now()) " +
+            "ON CONFLICT (content_hash) DO UPDATE SET last_used_at = now()", nativeQuery = true)
+    int upsert(
+            @Param("contentHash") String contentHash,
+            @Param("compressed") byte[] compressed,
+            @Param("originalBytes") int originalBytes);
+
+    /**
+     * Deletes up to {@code limit} snapshots last used before {@code cutoff}. Rows
+     * locked by another node's prune are skipped. Must run inside a transaction.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM ai_input_snapshots WHERE content_hash IN (" +
+            "SELECT content_hash FROM ai_input_snapshots WHERE last_used_at < :cutoff " +
+            "ORDER BY last_used_at LIMIT :limit FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int deleteUnusedBefore(@Param("cutoff") OffsetDateTime cutoff, @Param("limit") int limit);
+}
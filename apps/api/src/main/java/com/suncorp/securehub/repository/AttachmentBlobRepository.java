@@ -0,0 +1,37 @@
+package com.suncorp.securehub.repository;
+
+import com.suncorp.securehub.entity.AttachmentBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface AttachmentBlobRepository extends JpaRepository<AttachmentBlob, String> {
+
+    /**
+     * Registers {@code objectKey} as the object for {@code sha256} with no references,
+     * unless another object already holds that hash. Concurrent inserts of the same
+     * hash wait for each other instead of failing. Must run inside a transaction.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO attachment_blobs " +
+            "(sha256, s3_object_key, file_size, ref_count, created_at, updated_at) " +
+            "VALUES (:sha256, :objectKey, :fileSize, 0, now(), now()) " +
+            "ON CONFLICT (sha256) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(
+            @Param("sha256") String sha256,
+            @Param("objectKey") String objectKey,
+            @Param("fileSize") long fileSize);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM AttachmentBlob b WHERE b.sha256 = :sha256")
+    Optional<AttachmentBlob> findBySha256ForUpdate(@Param("sha256") String sha256);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM AttachmentBlob b WHERE b.s3ObjectKey = :objectKey")
+    Optional<AttachmentBlob> findByS3ObjectKeyForUpdate(@Param("objectKey") String objectKey);
+}
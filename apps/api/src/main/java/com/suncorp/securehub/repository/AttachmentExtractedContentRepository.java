@@ -0,0 +1,20 @@
+package com.suncorp.securehub.repository;
+
+import com.suncorp.securehub.entity.AttachmentExtractedContent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+public interface AttachmentExtractedContentRepository extends JpaRepository<AttachmentExtractedContent, Long> {
+
+    /**
+     * Drops the derived content of attachments about to be deleted. Must run
+     * inside the transaction deleting them.
+     */
+    @Modifying
+    @Query("DELETE FROM AttachmentExtractedContent e WHERE e.attachmentId IN :attachmentIds")
+    int deleteByAttachmentIds(@Param("attachmentIds") Collection<Long> attachmentIds);
+}
@@ -2,7 +2,11 @@ package com.suncorp.securehub.repository;
 
 import com.suncorp.securehub.entity.Attachment;
 import com.suncorp.securehub.entity.AttachmentState;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
@@ -12,11 +16,68 @@ import java.util.Optional;
 public interface AttachmentRepository extends JpaRepository<Attachment, Long> {
     Optional<Attachment> findByIdAndRequest_Id(Long id, Long requestId);
     Optional<Attachment> findByIdAndComment_Id(Long id, Long commentId);
+    List<Attachment> findByIdInAndRequest_Id(Collection<Long> ids, Long requestId);
+    List<Attachment> findByIdInAndComment_Id(Collection<Long> ids, Long commentId);
+    List<Attachment> findByS3ObjectKeyInAndState(Collection<String> s3ObjectKeys, AttachmentState state);
 
     List<Attachment> findByRequest_IdOrderByCreatedAtAsc(Long requestId);
     List<Attachment> findByComment_Request_IdOrderByCreatedAtAsc(Long requestId);
     List<Attachment> findByComment_IdOrderByCreatedAtAsc(Long commentId);
-    List<Attachment> findByStateAndCreatedAtBefore(AttachmentState state, LocalDateTime createdAt);
+
+    /**
+     * Claims the next keyset page of expired PENDING attachments for cleanup.
+     * Rows locked by another node are skipped so concurrent runs split the work
+     * instead of deleting the same rows twice. Must run inside a transaction.
+     */
+    @Query(value = "SELECT * FROM attachments " +
+            "WHERE state = 'PENDING' AND created_at < :cutoff " +
+            "AND (created_at, id) > (:afterCreatedAt, :afterId) " +
+            "ORDER BY created_at, id " +
+            "LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Attachment> claimExpiredPendingBatch(
+            @Param("cutoff") LocalDateTime cutoff,
+            @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+            @Param("afterId") Long afterId,
+            @Param("limit") int limit);
+
+    List<Attachment> findByStateAndIdGreaterThanOrderByIdAsc(AttachmentState state, Long afterId, Pageable page);
+
+    boolean existsByUploadedBy_IdAndBlob_Sha256AndState(Long uploaderId, String sha256, AttachmentState state);
+
+    /**
+     * Re-points every attachment still stored under {@code oldKey}, including all
+     * attachments sharing a deduplicated object, so rows deleted or re-keyed
+     * concurrently are left alone. Must run inside a transaction.
+     */
+    @Modifying
+    @Query("UPDATE Attachment a SET a.s3ObjectKey = :newKey WHERE a.s3ObjectKey = :oldKey")
+    int updateObjectKey(@Param("oldKey") String oldKey, @Param("newKey") String newKey);
+
+    /**
+     * Records a generated thumbnail unless the attachment was deleted, deactivated or
+     * already has one. Must run inside a transaction.
+     */
+    @Modifying
+    @Query("UPDATE Attachment a SET a.thumbnailKey = :thumbnailKey " +
+            "WHERE a.id = :id AND a.state = :state AND a.thumbnailKey IS NULL")
+    int setThumbnailKey(
+            @Param("id") Long id,
+            @Param("thumbnailKey") String thumbnailKey,
+            @Param("state") AttachmentState state);
+
+    /**
+     * Attachments in {@code state} of the given content types and size that still
+     * have no thumbnail, in id order after {@code afterId}.
+     */
+    @Query("SELECT a FROM Attachment a WHERE a.state = :state AND a.thumbnailKey IS NULL " +
+            "AND a.contentType IN :contentTypes AND a.fileSize <= :maxFileSize AND a.id > :afterId ORDER BY a.id")
+    List<Attachment> findMissingThumbnails(
+            @Param("state") AttachmentState state,
+            @Param("contentTypes") Collection<String> contentTypes,
+            @Param("maxFileSize") long maxFileSize,
+            @Param("afterId") Long afterId,
+            Pageable page);
 
     long countByRequest_IdAndStateIn(Long requestId, Collection<AttachmentState> states);
     long countByComment_IdAndStateIn(Long commentId, Collection<AttachmentState> states);
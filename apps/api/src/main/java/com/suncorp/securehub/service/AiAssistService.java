@@ -1,79 +1,463 @@
 package com.suncorp.securehub.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.suncorp.securehub.config.AiProperties;
 import com.suncorp.securehub.dto.*;
 import com.suncorp.securehub.entity.AiAssistRun;
 import com.suncorp.securehub.entity.Tag;
+import com.suncorp.securehub.exception.ResourceNotFoundException;
+import com.suncorp.securehub.exception.TooManyRequestsException;
 import com.suncorp.securehub.repository.AiAssistRunRepository;
 import com.suncorp.securehub.repository.TagRepository;
 import com.suncorp.securehub.service.ai.AiAssistProvider;
+import com.suncorp.securehub.service.ai.AiCallCoalescer;
 import com.suncorp.securehub.service.ai.AiContextBuilder;
+import com.suncorp.securehub.service.ai.AiInputSnapshotStore;
+import com.suncorp.securehub.service.ai.AiJobScheduler;
+import com.suncorp.securehub.service.ai.AiMapReduceSummarizer;
+import com.suncorp.securehub.service.ai.AiResultCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+/**
+ * Runs AI actions without holding a database connection across the provider
+ * call: authorisation and context building use their own short read
+ * transactions, the provider is called outside any transaction, and the
+ * {@code AiAssistRun} is saved in a transaction of its own afterwards.
+ * <p>
+ * The request-scoped actions return futures: access is checked on the calling
+ * thread, the context is built on a virtual thread, the provider call is
+ * non-blocking and the run is recorded on a virtual thread again, so a request
+ * waiting on the model holds no platform thread. The streaming variants pass
+ * text to the caller as the provider generates it. Via {@link #submitRun},
+ * actions run as async runs on the {@link AiJobScheduler}: the run row is
+ * inserted as PENDING, claimed as RUNNING by a worker and completed as SUCCESS
+ * or FAILED.
+ * <p>
+ * Every path first consults the {@link AiResultCache}: an identical earlier
+ * result is returned with {@code cached=true} (and recorded as a run) unless the
+ * caller asks to bypass the cache. A cached streamed result arrives as the final
+ * event only. On a miss, request-scoped actions and async runs join an identical
+ * provider call already in flight ({@link AiCallCoalescer}) and record their own
+ * run from its result; streams always make their own call so they get deltas.
+ * <p>
+ * Summaries without extra instructions are incremental where possible: the
+ * latest summary within {@code summary-incremental-max-age} is extended with the
+ * comments and attachments added since it was made, and returned as is (marked
+ * cached) when nothing was added. Otherwise a request over the context token
+ * budget is summarized in parts by the {@link AiMapReduceSummarizer}. Each run
+ * records the summary mode used.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class AiAssistService {
 
+    static final String SUMMARIZE = "SUMMARIZE";
+    static final String SUGGEST_TAGS = "SUGGEST_TAGS";
+    static final String DRAFT_RESPONSE = "DRAFT_RESPONSE";
+    static final String PROMPT_VERSION = "v1";
+
     private final AiContextBuilder contextBuilder;
     private final AiAssistProvider provider;
     private final SupportRequestService supportRequestService;
     private final AiAssistRunRepository aiAssistRunRepository;
     private final TagRepository tagRepository;
     private final ObjectMapper objectMapper;
+    private final AiJobScheduler jobScheduler;
+    private final AiResultCache resultCache;
+    private final AiCallCoalescer callCoalescer;
+    private final AiMapReduceSummarizer summarizer;
+    private final AiInputSnapshotStore inputSnapshotStore;
+    private final AiProperties aiProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
 
     private static final int MAX_TAG_NAME_LENGTH = 100;
 
-    @Transactional
-    public AiSummarizeResponseDto summarize(Long requestId, AiActionRequestDto reqDto, String username,
-            Set<String> roles) {
+    public CompletableFuture<AiSummarizeResponseDto> summarize(Long requestId, AiActionRequestDto reqDto,
+            String username, Set<String> roles) {
         // Enforce RBAC by fetching the request first
         supportRequestService.getRequest(requestId, username, roles);
-        AiContextDto context = contextBuilder.buildContext(requestId,
-                reqDto != null ? reqDto.getPromptOverride() : null);
+        return executeAsync(new RunSpec(requestId, SUMMARIZE, promptOverride(reqDto), username, null,
+                bypassCache(reqDto)), AiSummarizeResponseDto.class, summarizer::summarizeAsync);
+    }
 
-        AiSummarizeResponseDto response;
-        try {
-            response = provider.summarize(context);
-            saveRun(requestId, "SUMMARIZE", context, response, "SUCCESS", null, null, response.getLatencyMs(), username,
-                    response.getRunId());
-        } catch (Exception e) {
-            log.error("AI summarize failed", e);
-            saveRun(requestId, "SUMMARIZE", context, null, "FAILED", "AI_PROVIDER_ERROR", e.getMessage(), 0L, username,
-                    UUID.randomUUID().toString());
-            throw new RuntimeException("AI summarize failed: " + e.getMessage(), e);
+    public CompletableFuture<AiSuggestTagsResponseDto> suggestTags(Long requestId, AiActionRequestDto reqDto,
+            String username, Set<String> roles) {
+        supportRequestService.getRequest(requestId, username, roles);
+        return executeAsync(new RunSpec(requestId, SUGGEST_TAGS, promptOverride(reqDto), username, null,
+                bypassCache(reqDto)), AiSuggestTagsResponseDto.class,
+                context -> provider.suggestTagsAsync(context)
+                        // Post-process: reconcile provider output against the tag dictionary
+                        .thenApplyAsync(this::reconcileWithDictionary, virtualThreads));
+    }
+
+    public CompletableFuture<AiDraftResponseDto> draftResponse(Long requestId, AiActionRequestDto reqDto,
+            String username, Set<String> roles) {
+        supportRequestService.getRequest(requestId, username, roles);
+        return executeAsync(new RunSpec(requestId, DRAFT_RESPONSE, promptOverride(reqDto), username, null,
+                bypassCache(reqDto)), AiDraftResponseDto.class, provider::draftResponseAsync);
+    }
+
+    /**
+     * Streaming variant of {@link #summarize}. Access is checked on the calling
+     * thread, so 403/404 are thrown before anything is streamed; generation then
+     * runs in the background, passing each text delta to {@code onDelta}. The run
+     * is recorded exactly as for the blocking call.
+     */
+    public CompletableFuture<AiSummarizeResponseDto> streamSummarize(Long requestId, AiActionRequestDto reqDto,
+            String username, Set<String> roles, Consumer<String> onDelta) {
+        supportRequestService.getRequest(requestId, username, roles);
+        return stream(new RunSpec(requestId, SUMMARIZE, promptOverride(reqDto), username, null,
+                bypassCache(reqDto)), AiSummarizeResponseDto.class, onDelta, summarizer::summarize);
+    }
+
+    /**
+     * Streaming variant of {@link #draftResponse}; see {@link #streamSummarize}.
+     */
+    public CompletableFuture<AiDraftResponseDto> streamDraftResponse(Long requestId, AiActionRequestDto reqDto,
+            String username, Set<String> roles, Consumer<String> onDelta) {
+        supportRequestService.getRequest(requestId, username, roles);
+        return stream(new RunSpec(requestId, DRAFT_RESPONSE, promptOverride(reqDto), username, null,
+                bypassCache(reqDto)), AiDraftResponseDto.class, onDelta, provider::draftResponse);
+    }
+
+    /**
+     * Records a PENDING run and queues it for a worker. The caller polls
+     * {@link #getRun} for the result.
+     *
+     * @throws TooManyRequestsException if the node queue or the user's share of it is full
+     */
+    public AiAssistRunDto submitRun(Long requestId, AiRunRequestDto dto, String username, Set<String> roles) {
+        supportRequestService.getRequest(requestId, username, roles);
+
+        AiAssistRun run = aiAssistRunRepository.save(AiAssistRun.builder()
+                .id(UUID.randomUUID())
+                .requestId(requestId)
+                .actionType(dto.getActionType())
+                .provider(provider.getProviderName())
+                .modelId(provider.getModelId())
+                .promptVersion(PROMPT_VERSION)
+                .status("PENDING")
+                .createdBy(username)
+                .createdAt(OffsetDateTime.now())
+                .build());
+
+        RunSpec spec = new RunSpec(requestId, dto.getActionType(), dto.getPromptOverride(), username, run.getId(),
+                dto.isBypassCache());
+        if (!jobScheduler.trySubmit(username, () -> runQueued(spec))) {
+            aiAssistRunRepository.delete(run);
+            throw new TooManyRequestsException("Too many AI runs are queued; try again shortly");
         }
-        return response;
+        return toRunDto(run);
     }
 
-    @Transactional
-    public AiSuggestTagsResponseDto suggestTags(Long requestId, AiActionRequestDto reqDto, String username,
-            Set<String> roles) {
+    public AiAssistRunDto getRun(Long requestId, UUID runId, String username, Set<String> roles) {
         supportRequestService.getRequest(requestId, username, roles);
-        AiContextDto context = contextBuilder.buildContext(requestId,
-                reqDto != null ? reqDto.getPromptOverride() : null);
+        return aiAssistRunRepository.findByIdAndRequestId(runId, requestId)
+                .map(this::toRunDto)
+                .orElseThrow(() -> new ResourceNotFoundException("AiAssistRun", "id", runId));
+    }
+
+    /**
+     * Fails runs left PENDING or RUNNING past {@code app.ai.async-run-timeout},
+     * typically because the node holding them in memory stopped.
+     */
+    @Scheduled(fixedDelayString = "${app.ai.async-sweep-interval:PT1M}")
+    public void failAbandonedRuns() {
+        OffsetDateTime now = OffsetDateTime.now();
+        Integer failed = transactionTemplate.execute(status -> aiAssistRunRepository.failUnfinishedCreatedBefore(
+                now.minus(aiProperties.getAsyncRunTimeout()), "ABANDONED",
+                "Run did not finish within " + aiProperties.getAsyncRunTimeout(), now));
+        if (failed != null && failed > 0) {
+            log.warn("Marked {} abandoned AI runs as FAILED", failed);
+        }
+    }
+
+    void runQueued(RunSpec spec) {
+        Integer claimed = transactionTemplate.execute(status ->
+                aiAssistRunRepository.markRunning(spec.runId(), OffsetDateTime.now()));
+        if (claimed == null || claimed == 0) {
+            log.info("Skipping AI run {}; it is no longer pending", spec.runId());
+            return;
+        }
+
+        AiContextDto context;
+        try {
+            context = buildContext(spec);
+        } catch (RuntimeException e) {
+            log.warn("Failed to build AI context for run {}", spec.runId(), e);
+            saveRun(spec, null, null, null, "FAILED", "AI_CONTEXT_ERROR", e.getMessage(), 0L, null);
+            return;
+        }
+        try {
+            switch (spec.actionType()) {
+                case SUMMARIZE -> invoke(spec, context, AiSummarizeResponseDto.class, true, summarizer::summarize);
+                case SUGGEST_TAGS -> invoke(spec, context, AiSuggestTagsResponseDto.class, true,
+                        this::suggestAndReconcileTags);
+                case DRAFT_RESPONSE -> invoke(spec, context, AiDraftResponseDto.class, true,
+                        provider::draftResponse);
+                default -> throw new IllegalArgumentException("Unknown AI action type " + spec.actionType());
+            }
+        } catch (RuntimeException e) {
+            // Already recorded on the run by invoke.
+        }
+    }
+
+    private <T extends AiActionResponse> CompletableFuture<T> stream(RunSpec spec, Class<T> type,
+            Consumer<String> onDelta, BiFunction<AiContextDto, Consumer<String>, T> action) {
+        long startNanos = System.nanoTime();
+        AtomicBoolean firstDelta = new AtomicBoolean(true);
+        Consumer<String> timedDelta = delta -> {
+            if (firstDelta.compareAndSet(true, false)) {
+                meterRegistry.timer("ai.stream.time_to_first_token", "action", spec.actionType())
+                        .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            }
+            onDelta.accept(delta);
+        };
+        return CompletableFuture.supplyAsync(
+                () -> execute(spec, type, context -> action.apply(context, timedDelta)), virtualThreads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        virtualThreads.shutdownNow();
+    }
+
+    /**
+     * The provider input for {@code spec}: an incremental summary context when
+     * a summary whose chain started from a recent full summary can be extended,
+     * otherwise the whole request; for a summary, unbudgeted if it is too long
+     * for one call.
+     */
+    private AiContextDto buildContext(RunSpec spec) {
+        if (SUMMARIZE.equals(spec.actionType()) && aiProperties.isSummaryIncrementalEnabled()
+                && (spec.promptOverride() == null || spec.promptOverride().isBlank()) && !spec.bypassCache()) {
+            Optional<AiAssistRun> base = aiAssistRunRepository.findLatestSummaryBase(spec.requestId(),
+                    PROMPT_VERSION, provider.getModelId(),
+                    OffsetDateTime.now().minus(aiProperties.getSummaryIncrementalMaxAge()));
+            String priorSummary = base.map(this::summaryOf).orElse(null);
+            if (priorSummary != null) {
+                AiContextDto context = contextBuilder.buildIncrementalSummaryContext(spec.requestId(),
+                        base.get().getContextAsOf(), priorSummary);
+                context.setSummaryBaseAsOf(base.get().getSummaryBaseAsOf());
+                return context;
+            }
+        }
+        if (SUMMARIZE.equals(spec.actionType()) && aiProperties.isSummaryMapReduceEnabled()) {
+            return contextBuilder.buildSummaryContext(spec.requestId(), spec.promptOverride());
+        }
+        return contextBuilder.buildContext(spec.requestId(), spec.promptOverride());
+    }
+
+    private String summaryOf(AiAssistRun run) {
+        try {
+            return objectMapper.readValue(run.getOutputPayload(), AiSummarizeResponseDto.class).getSummary();
+        } catch (JsonProcessingException e) {
+            log.warn("Stored summary of run {} is unreadable; summarizing the whole request", run.getId());
+            return null;
+        }
+    }
+
+    /**
+     * An incremental summary context in which nothing changed since the summary
+     * it extends.
+     */
+    private static boolean unchangedSinceSummary(AiContextDto context) {
+        return context.getPriorSummary() != null
+                && context.getRequestDescription() == null
+                && (context.getComments() == null || context.getComments().isEmpty())
+                && (context.getAttachments() == null || context.getAttachments().isEmpty());
+    }
+
+    private <T extends AiActionResponse> T execute(RunSpec spec, Class<T> type, Function<AiContextDto, T> action) {
+        AiContextDto context = buildContext(spec);
+        return invoke(spec, context, type, false, action);
+    }
+
+    private <T extends AiActionResponse> CompletableFuture<T> executeAsync(RunSpec spec, Class<T> type,
+            Function<AiContextDto, CompletableFuture<T>> action) {
+        return CompletableFuture.supplyAsync(
+                        () -> buildContext(spec), virtualThreads)
+                .thenCompose(context -> {
+                    String contextHash = AiResultCache.contextHash(context);
+                    T cached = cachedResult(spec, context, contextHash, type);
+                    if (cached != null) {
+                        return CompletableFuture.completedFuture(complete(spec, context, contextHash, cached, null));
+                    }
+                    AiCallCoalescer.Flight<T> flight =
+                            callCoalescer.join(cacheKey(spec, contextHash), () -> action.apply(context));
+                    return flight.result().handleAsync((response, ex) ->
+                            completeJoined(spec, context, contextHash, type, flight.leader(), response, ex),
+                            virtualThreads);
+                });
+    }
+
+    /**
+     * Synchronous equivalent of {@link #executeAsync}. With {@code coalesce}, a
+     * caller joining an identical call in flight waits for it on this thread.
+     */
+    private <T extends AiActionResponse> T invoke(RunSpec spec, AiContextDto context, Class<T> type,
+            boolean coalesce, Function<AiContextDto, T> action) {
+        String contextHash = AiResultCache.contextHash(context);
+        T response = cachedResult(spec, context, contextHash, type);
+        if (response != null) {
+            return complete(spec, context, contextHash, response, null);
+        }
+        if (!coalesce) {
+            try {
+                response = action.apply(context);
+            } catch (RuntimeException e) {
+                return complete(spec, context, contextHash, null, e);
+            }
+            return complete(spec, context, contextHash, response, null);
+        }
 
-        AiSuggestTagsResponseDto response;
+        AiCallCoalescer.Flight<T> flight = callCoalescer.join(cacheKey(spec, contextHash),
+                () -> CompletableFuture.completedFuture(action.apply(context)));
         try {
-            response = provider.suggestTags(context);
-            // Post-process: reconcile provider output against the tag dictionary
-            response = reconcileWithDictionary(response);
-            saveRun(requestId, "SUGGEST_TAGS", context, response, "SUCCESS", null, null, response.getLatencyMs(),
-                    username, response.getRunId());
+            response = flight.result().join();
+        } catch (RuntimeException e) {
+            return complete(spec, context, contextHash, null, e);
+        }
+        return completeJoined(spec, context, contextHash, type, flight.leader(), response, null);
+    }
+
+    /**
+     * {@link #complete} for a possibly coalesced call. The leader records the
+     * shared response itself; a caller that joined records its own copy under a
+     * new run id, so no two runs share a response object or a row.
+     */
+    private <T extends AiActionResponse> T completeJoined(RunSpec spec, AiContextDto context, String contextHash,
+            Class<T> type, boolean leader, T response, Throwable failure) {
+        if (failure == null && !leader && response != null) {
+            try {
+                response = objectMapper.convertValue(response, type);
+                response.setRunId(UUID.randomUUID().toString());
+            } catch (RuntimeException e) {
+                response = null;
+                failure = e;
+            }
+        }
+        return complete(spec, context, contextHash, response, failure);
+    }
+
+    /**
+     * A copy of an earlier result for the same context, marked cached, or
+     * {@code null} on a miss, a bypass or a cache failure. An incremental summary
+     * with nothing new reuses the summary it extends.
+     */
+    private <T extends AiActionResponse> T cachedResult(RunSpec spec, AiContextDto context, String contextHash,
+            Class<T> type) {
+        if (type == AiSummarizeResponseDto.class && unchangedSinceSummary(context)) {
+            return type.cast(AiSummarizeResponseDto.builder()
+                    .summary(context.getPriorSummary())
+                    .runId(UUID.randomUUID().toString())
+                    .provider(provider.getProviderName())
+                    .model(provider.getModelId())
+                    .latencyMs(0L)
+                    .generatedAt(OffsetDateTime.now())
+                    .cached(true)
+                    .build());
+        }
+        if (spec.bypassCache()) {
+            resultCache.recordBypass(spec.actionType());
+            return null;
+        }
+        try {
+            Optional<String> outputJson = resultCache.get(cacheKey(spec, contextHash));
+            if (outputJson.isEmpty()) {
+                return null;
+            }
+            T response = objectMapper.readValue(outputJson.get(), type);
+            if (response instanceof AiSuggestTagsResponseDto tags) {
+                // The tag dictionary may have changed since the result was generated
+                response = type.cast(reconcileWithDictionary(tags));
+            }
+            response.setRunId(UUID.randomUUID().toString());
+            response.setLatencyMs(0L);
+            response.setCached(true);
+            return response;
         } catch (Exception e) {
-            log.error("AI suggest tags failed", e);
-            saveRun(requestId, "SUGGEST_TAGS", context, null, "FAILED", "AI_PROVIDER_ERROR", e.getMessage(), 0L,
-                    username, UUID.randomUUID().toString());
-            throw new RuntimeException("AI suggest tags failed: " + e.getMessage(), e);
+            log.warn("AI result cache lookup failed for request {}; calling the provider", spec.requestId(), e);
+            return null;
+        }
+    }
+
+    private AiResultCache.Key cacheKey(RunSpec spec, String contextHash) {
+        return new AiResultCache.Key(spec.requestId(), spec.actionType(), PROMPT_VERSION, provider.getModelId(),
+                contextHash);
+    }
+
+    /**
+     * Records the outcome of a provider call (or cache hit) and releases the
+     * context. Returns the response, or throws if the call failed.
+     */
+    private <T extends AiActionResponse> T complete(RunSpec spec, AiContextDto context, String contextHash,
+            T response, Throwable failure) {
+        String label = spec.actionType().toLowerCase(Locale.ROOT).replace('_', ' ');
+        try {
+            if (failure == null && response == null) {
+                failure = new IllegalStateException("Provider returned no response");
+            }
+            if (failure == null) {
+                if (spec.runId() != null) {
+                    response.setRunId(spec.runId().toString());
+                }
+                if (response instanceof AiSummarizeResponseDto summary && context != null) {
+                    summary.setSummaryMode(context.getSummaryMode());
+                }
+                String outputJson = saveRun(spec, context, contextHash, response, "SUCCESS", null, null,
+                        response.getLatencyMs(), response.getRunId());
+                if (!response.isCached()) {
+                    resultCache.put(cacheKey(spec, contextHash), outputJson);
+                }
+                return response;
+            }
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause()
+                    : failure;
+            log.error("AI {} failed", label, cause);
+            saveRun(spec, context, contextHash, null, "FAILED", "AI_PROVIDER_ERROR", cause.getMessage(), 0L,
+                    UUID.randomUUID().toString());
+            throw new RuntimeException("AI " + label + " failed: " + cause.getMessage(), cause);
+        } finally {
+            contextBuilder.releaseContent(context);
         }
-        return response;
+    }
+
+    private AiSuggestTagsResponseDto suggestAndReconcileTags(AiContextDto context) {
+        // Post-process: reconcile provider output against the tag dictionary
+        return reconcileWithDictionary(provider.suggestTags(context));
+    }
+
+    private static String promptOverride(AiActionRequestDto reqDto) {
+        return reqDto != null ? reqDto.getPromptOverride() : null;
+    }
+
+    private static boolean bypassCache(AiActionRequestDto reqDto) {
+        return reqDto != null && reqDto.isBypassCache();
     }
 
     /**
@@ -137,38 +521,14 @@ public class AiAssistService {
                 .build();
     }
 
-    @Transactional
-    public AiDraftResponseDto draftResponse(Long requestId, AiActionRequestDto reqDto, String username,
-            Set<String> roles) {
-        supportRequestService.getRequest(requestId, username, roles);
-        AiContextDto context = contextBuilder.buildContext(requestId,
-                reqDto != null ? reqDto.getPromptOverride() : null);
-
-        AiDraftResponseDto response;
-        try {
-            response = provider.draftResponse(context);
-            saveRun(requestId, "DRAFT_RESPONSE", context, response, "SUCCESS", null, null, response.getLatencyMs(),
-                    username, response.getRunId());
-        } catch (Exception e) {
-            log.error("AI draft response failed", e);
-            saveRun(requestId, "DRAFT_RESPONSE", context, null, "FAILED", "AI_PROVIDER_ERROR", e.getMessage(), 0L,
-                    username, UUID.randomUUID().toString());
-            throw new RuntimeException("AI draft response failed: " + e.getMessage(), e);
-        }
-        return response;
-    }
-
-    private void saveRun(Long requestId, String actionType, AiContextDto context, Object response,
-            String status, String errorCode, String errorMessage, Long latencyMs,
-            String username, String runIdStr) {
-        UUID runId;
-        try {
-            runId = UUID.fromString(runIdStr);
-        } catch (Exception e) {
-            runId = UUID.randomUUID();
-        }
-
-        String inputJson = null;
+    /**
+     * Records the outcome on the run row: updates the PENDING/RUNNING row of an
+     * async run, or inserts a new row for an inline run. Returns the serialised
+     * response.
+     */
+    private String saveRun(RunSpec spec, AiContextDto context, String contextHash, Object response, String status,
+            String errorCode, String errorMessage, Long latencyMs, String runIdStr) {
+        AiInputSnapshotStore.Snapshot input = null;
         String outputJson = null;
         try {
             // Strip raw bytes from payload before saving
@@ -176,30 +536,86 @@ public class AiAssistService {
                 context.getAttachments().forEach(att -> att.setContentBytes(null));
             }
             if (context != null)
-                inputJson = objectMapper.writeValueAsString(context);
+                input = inputSnapshotStore.store(context);
             if (response != null)
                 outputJson = objectMapper.writeValueAsString(response);
         } catch (JsonProcessingException e) {
             log.warn("Failed to serialize AI payload", e);
         }
 
-        AiAssistRun run = AiAssistRun.builder()
-                .id(runId)
-                .requestId(requestId)
-                .actionType(actionType)
-                .provider(provider.getProviderName())
-                .modelId(provider.getModelId())
-                .promptVersion("v1")
-                .inputSnapshot(inputJson)
-                .outputPayload(outputJson)
-                .status(status)
-                .errorCode(errorCode)
-                .errorMessage(errorMessage)
-                .latencyMs(latencyMs)
-                .createdBy(username)
-                .createdAt(OffsetDateTime.now())
-                .build();
+        AiAssistRun run = spec.runId() != null
+                ? aiAssistRunRepository.findById(spec.runId()).orElse(null)
+                : null;
+        if (run == null) {
+            run = AiAssistRun.builder()
+                    .id(spec.runId() != null ? spec.runId() : parseRunId(runIdStr))
+                    .requestId(spec.requestId())
+                    .actionType(spec.actionType())
+                    .createdBy(spec.username())
+                    .createdAt(OffsetDateTime.now())
+                    .build();
+        }
+        run.setProvider(provider.getProviderName());
+        run.setModelId(provider.getModelId());
+        run.setPromptVersion(PROMPT_VERSION);
+        run.setInputSnapshot(input != null ? input.summaryJson() : null);
+        run.setInputSnapshotHash(input != null ? input.contentHash() : null);
+        run.setOutputPayload(outputJson);
+        run.setStatus(status);
+        run.setErrorCode(errorCode);
+        run.setErrorMessage(errorMessage);
+        run.setLatencyMs(latencyMs);
+        run.setContextHash(contextHash);
+        if (context != null && SUMMARIZE.equals(spec.actionType())) {
+            run.setSummaryMode(context.getSummaryMode());
+            // A summary shaped by extra instructions is no base for later ones
+            boolean extendable = context.getUserPrompt() == null || context.getUserPrompt().isBlank();
+            run.setContextAsOf(extendable ? context.getContextAsOf() : null);
+            run.setSummaryBaseAsOf(!extendable ? null
+                    : context.getPriorSummary() != null ? context.getSummaryBaseAsOf() : context.getContextAsOf());
+        }
+        run.setCompletedAt(OffsetDateTime.now());
 
         aiAssistRunRepository.save(run);
+        return outputJson;
+    }
+
+    private static UUID parseRunId(String runIdStr) {
+        try {
+            return UUID.fromString(runIdStr);
+        } catch (Exception e) {
+            return UUID.randomUUID();
+        }
+    }
+
+    private AiAssistRunDto toRunDto(AiAssistRun run) {
+        JsonNode result = null;
+        if (run.getOutputPayload() != null) {
+            try {
+                result = objectMapper.readTree(run.getOutputPayload());
+            } catch (JsonProcessingException e) {
+                log.warn("Stored AI output for run {} is not valid JSON", run.getId());
+            }
+        }
+        return AiAssistRunDto.builder()
+                .runId(run.getId())
+                .requestId(run.getRequestId())
+                .actionType(run.getActionType())
+                .status(run.getStatus())
+                .result(result)
+                .errorCode(run.getErrorCode())
+                .errorMessage(run.getErrorMessage())
+                .latencyMs(run.getLatencyMs())
+                .createdAt(run.getCreatedAt())
+                .startedAt(run.getStartedAt())
+                .completedAt(run.getCompletedAt())
+                .build();
+    }
+
+    /**
+     * One AI action; {@code runId} is set for async runs whose row already exists.
+     */
+    record RunSpec(Long requestId, String actionType, String promptOverride, String username, UUID runId,
+            boolean bypassCache) {
     }
 }
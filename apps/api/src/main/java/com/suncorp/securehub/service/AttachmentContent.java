@@ -0,0 +1,28 @@
+package com.suncorp.securehub.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An open, incrementally readable attachment body. The caller owns the stream and
+ * must close it; no database connection is held while it is being consumed.
+ */
+@Getter
+@AllArgsConstructor
+public class AttachmentContent implements Closeable {
+
+    private final Long attachmentId;
+    private final String fileName;
+    private final String contentType;
+    private final long contentLength;
+    private final InputStream stream;
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+}
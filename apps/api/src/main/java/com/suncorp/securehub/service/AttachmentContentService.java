@@ -0,0 +1,175 @@
+package com.suncorp.securehub.service;
+
+import com.suncorp.securehub.config.AttachmentProperties;
+import com.suncorp.securehub.entity.Attachment;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Serves attachment bytes through the API for clients that cannot reach S3
+ * presigned URLs. Supports a single HTTP byte range per request; multi-range
+ * requests are answered with the full body, which RFC 9110 permits.
+ * <p>
+ * The {@code stream-max-bytes} cap applies to the requested range and is
+ * checked before any header is sent, so an oversized read gets a bodiless 413
+ * rather than a truncated 200/206.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AttachmentContentService {
+
+    private final AttachmentService attachmentService;
+    private final AttachmentDiskCache diskCache;
+    private final AttachmentProperties attachmentProperties;
+
+    public ResponseEntity<StreamingResponseBody> getRequestAttachmentContent(
+            Long requestId,
+            Long attachmentId,
+            String rangeHeader,
+            String username,
+            Set<String> roles) {
+        Attachment attachment = attachmentService.getRequestAttachmentForContent(
+                requestId, attachmentId, username, roles);
+        return buildResponse(attachment, rangeHeader);
+    }
+
+    public ResponseEntity<StreamingResponseBody> getCommentAttachmentContent(
+            Long requestId,
+            Long commentId,
+            Long attachmentId,
+            String rangeHeader,
+            String username,
+            Set<String> roles) {
+        Attachment attachment = attachmentService.getCommentAttachmentForContent(
+                requestId, commentId, attachmentId, username, roles);
+        return buildResponse(attachment, rangeHeader);
+    }
+
+    private ResponseEntity<StreamingResponseBody> buildResponse(Attachment attachment, String rangeHeader) {
+        long total = attachment.getFileSize();
+        long start = 0;
+        long length = total;
+        boolean partial = false;
+
+        if (StringUtils.hasText(rangeHeader)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException ex) {
+                return rangeNotSatisfiable(total);
+            }
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                try {
+                    start = range.getRangeStart(total);
+                    length = range.getRangeEnd(total) - start + 1;
+                } catch (IllegalArgumentException ex) {
+                    return rangeNotSatisfiable(total);
+                }
+                partial = true;
+            }
+        }
+
+        if (length > attachmentProperties.getStreamMaxBytes()) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .build();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setContentType(MediaType.parseMediaType(attachment.getContentType()));
+        headers.setContentLength(length);
+        headers.setContentDisposition(ContentDisposition.attachment().filename(attachment.getFileName()).build());
+        if (partial) {
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (start + length - 1) + "/" + total);
+        }
+
+        long bodyStart = start;
+        long bodyLength = length;
+        StreamingResponseBody body = out -> writeBody(attachment, bodyStart, bodyLength, out);
+        return ResponseEntity.status(partial ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                .headers(headers)
+                .body(body);
+    }
+
+    private void writeBody(Attachment attachment, long start, long length, OutputStream out) throws IOException {
+        if (length == 0) {
+            return;
+        }
+
+        Path cached = diskCache.lookup(attachment.getId()).orElse(null);
+        if (cached == null && diskCache.isCacheable(attachment.getFileSize())
+                && attachment.getFileSize() <= attachmentProperties.getStreamMaxBytes()) {
+            try (AttachmentContent content = attachmentService.openAttachmentContent(attachment)) {
+                cached = diskCache.store(attachment.getId(), content.getStream());
+            } catch (IOException | UncheckedIOException ex) {
+                log.warn("Failed to populate content cache for attachmentId={}; streaming from storage",
+                        attachment.getId(), ex);
+            }
+        }
+
+        if (cached != null) {
+            try {
+                transferFromFile(cached, start, length, out);
+                return;
+            } catch (NoSuchFileException ex) {
+                log.debug("Cached attachment file evicted mid-request for attachmentId={}", attachment.getId());
+            }
+        }
+
+        try (AttachmentContent content = attachmentService.openAttachmentRange(attachment, start, length)) {
+            InputStream in = content.getStream();
+            in.transferTo(out);
+        }
+    }
+
+    /**
+     * Sends the cached range with {@link FileChannel#transferTo} in bounded chunks,
+     * so a hot attachment is never materialised on heap and no S3 round trip is made.
+     */
+    private void transferFromFile(Path file, long start, long length, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) {
+                    throw new IOException("Cached attachment file is shorter than expected: " + file);
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> rangeNotSatisfiable(long total) {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + total)
+                .build();
+    }
+}
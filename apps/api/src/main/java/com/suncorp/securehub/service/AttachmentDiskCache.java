@@ -0,0 +1,148 @@
+package com.suncorp.securehub.service;
+
+import com.suncorp.securehub.config.AttachmentProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded, node-local disk cache of attachment bodies used by the proxy content
+ * endpoint. Entries are keyed by attachment id and evicted least-recently-used
+ * once the total size exceeds {@code content-cache-max-bytes}.
+ * <p>
+ * Attachment bodies are immutable once ACTIVE and ids are never reused, so entries
+ * never go stale; deleting an attachment evicts its entry once the delete commits.
+ * Cache files left in the directory are removed on startup because the in-memory
+ * index is not persisted.
+ */
+@Slf4j
+@Component
+public class AttachmentDiskCache {
+
+    private final AttachmentProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Path directory;
+    private final LinkedHashMap<Long, Long> entrySizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public AttachmentDiskCache(AttachmentProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.directory = Paths.get(properties.getContentCacheDir());
+        if (properties.isContentCacheEnabled()) {
+            resetDirectory();
+            Gauge.builder("attachments.content_cache.bytes", this, AttachmentDiskCache::currentBytes)
+                    .register(meterRegistry);
+        }
+    }
+
+    public boolean isCacheable(long fileSize) {
+        return properties.isContentCacheEnabled() && fileSize <= properties.getContentCacheMaxEntryBytes()
+                && fileSize <= properties.getContentCacheMaxBytes();
+    }
+
+    public Optional<Path> lookup(Long attachmentId) {
+        if (!properties.isContentCacheEnabled()) {
+            return Optional.empty();
+        }
+        boolean hit;
+        synchronized (this) {
+            hit = entrySizes.get(attachmentId) != null;
+        }
+        meterRegistry.counter("attachments.content_cache.requests", "result", hit ? "hit" : "miss").increment();
+        return hit ? Optional.of(pathFor(attachmentId)) : Optional.empty();
+    }
+
+    /**
+     * Copies {@code body} into the cache and returns the cached file. The body is
+     * written to a temp file first and atomically moved into place, so readers
+     * never observe a partial entry.
+     */
+    public Path store(Long attachmentId, InputStream body) throws IOException {
+        Path temp = Files.createTempFile(directory, attachmentId + "-", ".part");
+        try {
+            long size = Files.copy(body, temp, StandardCopyOption.REPLACE_EXISTING);
+            Path target = pathFor(attachmentId);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            List<Long> evicted;
+            synchronized (this) {
+                Long previous = entrySizes.put(attachmentId, size);
+                totalBytes += size - (previous != null ? previous : 0L);
+                evicted = evictOverBudget(attachmentId);
+            }
+            for (Long id : evicted) {
+                Files.deleteIfExists(pathFor(id));
+            }
+            return target;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public void evict(Long attachmentId) {
+        synchronized (this) {
+            Long size = entrySizes.remove(attachmentId);
+            if (size == null) {
+                return;
+            }
+            totalBytes -= size;
+        }
+        try {
+            Files.deleteIfExists(pathFor(attachmentId));
+        } catch (IOException ex) {
+            log.warn("Failed to delete cached attachment file for attachmentId={}", attachmentId, ex);
+        }
+    }
+
+    synchronized long currentBytes() {
+        return totalBytes;
+    }
+
+    private List<Long> evictOverBudget(Long keep) {
+        List<Long> evicted = new ArrayList<>();
+        Iterator<Map.Entry<Long, Long>> it = entrySizes.entrySet().iterator();
+        while (totalBytes > properties.getContentCacheMaxBytes() && it.hasNext()) {
+            Map.Entry<Long, Long> eldest = it.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            totalBytes -= eldest.getValue();
+            evicted.add(eldest.getKey());
+            it.remove();
+        }
+        return evicted;
+    }
+
+    private Path pathFor(Long attachmentId) {
+        return directory.resolve(attachmentId + ".bin");
+    }
+
+    private void resetDirectory() {
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, "*.{bin,part}")) {
+                for (Path leftover : leftovers) {
+                    Files.deleteIfExists(leftover);
+                }
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot initialise attachment content cache at " + directory, ex);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.suncorp.securehub.service;
+
+import com.suncorp.securehub.config.AttachmentProperties;
+import com.suncorp.securehub.entity.Attachment;
+import com.suncorp.securehub.service.storage.AttachmentStorage;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Node-local cache of presigned GET URLs keyed by attachment id, so repeated
+ * listings and download-url calls reuse a signature instead of re-signing. The
+ * original object and its thumbnail are cached as separate entries. An entry
+ * only counts as a hit while the row still points at the object key it was
+ * signed for, so a row re-keyed by the key migration (on any node, and for every
+ * deduplicated row sharing the old key) is re-signed instead of getting a URL to
+ * the deleted object.
+ * <p>
+ * A URL is only handed out again during {@code download-url-cache-ttl} after it
+ * was signed, which guarantees every caller receives at least
+ * {@code download-url-ttl - download-url-cache-ttl} of remaining validity. Callers
+ * must authorise the attachment before asking for its URL.
+ */
+@Component
+public class AttachmentDownloadUrlCache {
+
+    private final AttachmentStorage attachmentStorage;
+    private final AttachmentProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final LinkedHashMap<Key, CachedUrl> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, CachedUrl> eldest) {
+            return size() > properties.getDownloadUrlCacheMaxEntries();
+        }
+    };
+
+    public AttachmentDownloadUrlCache(
+            AttachmentStorage attachmentStorage,
+            AttachmentProperties properties,
+            MeterRegistry meterRegistry) {
+        this.attachmentStorage = attachmentStorage;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public DownloadUrl urlFor(Attachment attachment) {
+        return urlFor(new Key(attachment.getId(), false), attachment.getS3ObjectKey(), attachment.getContentType());
+    }
+
+    /**
+     * Signed URL of the attachment's thumbnail; the attachment must have one.
+     */
+    public DownloadUrl thumbnailUrlFor(Attachment attachment) {
+        return urlFor(new Key(attachment.getId(), true), attachment.getThumbnailKey(), ThumbnailRenderer.CONTENT_TYPE);
+    }
+
+    private DownloadUrl urlFor(Key key, String objectKey, String contentType) {
+        Instant now = Instant.now();
+        Duration reuseWindow = properties.getDownloadUrlCacheTtl();
+        if (reuseWindow.isZero() || reuseWindow.compareTo(properties.getDownloadUrlTtl()) >= 0) {
+            return sign(objectKey, contentType, now);
+        }
+
+        CachedUrl cached;
+        synchronized (this) {
+            cached = entries.get(key);
+        }
+        if (cached != null && cached.objectKey().equals(objectKey)
+                && now.isBefore(cached.signedAt().plus(reuseWindow))) {
+            meterRegistry.counter("attachments.download_url_cache.requests", "result", "hit").increment();
+            return cached.url();
+        }
+
+        meterRegistry.counter("attachments.download_url_cache.requests", "result", "miss").increment();
+        DownloadUrl url = sign(objectKey, contentType, now);
+        synchronized (this) {
+            entries.put(key, new CachedUrl(url, objectKey, now));
+        }
+        return url;
+    }
+
+    /**
+     * Drops the cached URLs of the attachment and of its thumbnail.
+     */
+    public synchronized void evict(Long attachmentId) {
+        entries.remove(new Key(attachmentId, false));
+        entries.remove(new Key(attachmentId, true));
+    }
+
+    private DownloadUrl sign(String objectKey, String contentType, Instant now) {
+        String url = attachmentStorage.createDownloadUrl(objectKey, contentType, properties.getDownloadUrlTtl());
+        return new DownloadUrl(url, now.plus(properties.getDownloadUrlTtl()));
+    }
+
+    public record DownloadUrl(String url, Instant expiresAt) {
+    }
+
+    private record Key(Long attachmentId, boolean thumbnail) {
+    }
+
+    private record CachedUrl(DownloadUrl url, String objectKey, Instant signedAt) {
+    }
+}
@@ -0,0 +1,228 @@
+package com.suncorp.securehub.service;
+
+import com.suncorp.securehub.config.AttachmentProperties;
+import com.suncorp.securehub.dto.AttachmentKeyMigrationStatusDto;
+import com.suncorp.securehub.entity.Attachment;
+import com.suncorp.securehub.entity.AttachmentBlob;
+import com.suncorp.securehub.entity.AttachmentState;
+import com.suncorp.securehub.exception.BadRequestException;
+import com.suncorp.securehub.repository.AttachmentBlobRepository;
+import com.suncorp.securehub.repository.AttachmentRepository;
+import com.suncorp.securehub.service.storage.AttachmentKeyLayout;
+import com.suncorp.securehub.service.storage.AttachmentStorage;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rewrites ACTIVE attachments stored under an older key layout to the configured
+ * one. Rows are walked in id order in batches; each object is copied server-side,
+ * the row is re-pointed with a conditional update, and only then is the old object
+ * deleted, so every committed row always references a readable object.
+ * <p>
+ * Runs on a background thread with at most {@code key-migration-parallelism}
+ * copies in flight. One run per node at a time; run it from a single node.
+ * Download URLs signed before an object moved stop working once the old object is
+ * deleted, as do proxy streams opened against it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AttachmentKeyMigrationService {
+
+    private static final String LOGICAL_KEY_ROOT = "requests/";
+
+    private final AttachmentRepository attachmentRepository;
+    private final AttachmentBlobRepository blobRepository;
+    private final AttachmentStorage attachmentStorage;
+    private final AttachmentKeyLayout keyLayout;
+    private final AttachmentDownloadUrlCache downloadUrlCache;
+    private final AttachmentProperties attachmentProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private MigrationRun currentRun;
+
+    public synchronized AttachmentKeyMigrationStatusDto start() {
+        if ("legacy".equals(attachmentProperties.getObjectKeyLayout())) {
+            throw new BadRequestException("Key migration requires a non-legacy object key layout");
+        }
+        if (currentRun != null && currentRun.finishedAt == null) {
+            return currentRun.toDto();
+        }
+
+        MigrationRun run = new MigrationRun(Instant.now());
+        currentRun = run;
+        Thread.ofPlatform()
+                .name("attachment-key-migration")
+                .daemon()
+                .start(() -> migrate(run));
+        return run.toDto();
+    }
+
+    public synchronized AttachmentKeyMigrationStatusDto status() {
+        if (currentRun == null) {
+            return AttachmentKeyMigrationStatusDto.builder()
+                    .layout(attachmentProperties.getObjectKeyLayout())
+                    .build();
+        }
+        return currentRun.toDto();
+    }
+
+    private void migrate(MigrationRun run) {
+        log.info("Attachment key migration started, layout={}", attachmentProperties.getObjectKeyLayout());
+        ExecutorService workers = newWorkerPool();
+        try {
+            long afterId = 0;
+            while (true) {
+                List<Attachment> batch = attachmentRepository.findByStateAndIdGreaterThanOrderByIdAsc(
+                        AttachmentState.ACTIVE, afterId,
+                        PageRequest.of(0, attachmentProperties.getKeyMigrationBatchSize()));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                afterId = batch.get(batch.size() - 1).getId();
+
+                List<CompletableFuture<Void>> moves = new ArrayList<>();
+                Set<String> batchKeys = new HashSet<>();
+                for (Attachment attachment : batch) {
+                    run.scanned.incrementAndGet();
+                    // Deduplicated attachments share a key; the first move re-points them all.
+                    if (keyLayout.isCurrentLayout(attachment.getS3ObjectKey())
+                            || !batchKeys.add(attachment.getS3ObjectKey())) {
+                        continue;
+                    }
+                    Long attachmentId = attachment.getId();
+                    String sourceKey = attachment.getS3ObjectKey();
+                    moves.add(CompletableFuture.runAsync(() -> moveObject(run, attachmentId, sourceKey), workers));
+                }
+                CompletableFuture.allOf(moves.toArray(CompletableFuture[]::new)).join();
+            }
+        } catch (RuntimeException ex) {
+            log.error("Attachment key migration aborted", ex);
+        } finally {
+            workers.shutdown();
+            run.finish();
+            log.info("Attachment key migration finished: scanned={} migrated={} skipped={} failed={}",
+                    run.scanned.get(), run.migrated.get(), run.skipped.get(), run.failed.get());
+        }
+    }
+
+    private void moveObject(MigrationRun run, Long attachmentId, String sourceKey) {
+        String targetKey = keyLayout.objectKey(attachmentId, logicalKey(sourceKey));
+        try {
+            attachmentStorage.copy(sourceKey, targetKey);
+            Integer updated = transactionTemplate.execute(status -> repointObject(sourceKey, targetKey));
+            if (updated == null || updated == 0) {
+                // Deleted or re-keyed while copying. Keep the copy only if another run
+                // already pointed the row at the same target.
+                boolean targetInUse = attachmentRepository.findById(attachmentId)
+                        .map(attachment -> targetKey.equals(attachment.getS3ObjectKey()))
+                        .orElse(false);
+                if (!targetInUse) {
+                    attachmentStorage.delete(targetKey);
+                }
+                record(run.skipped, "skipped");
+                return;
+            }
+
+            // Cached URLs of sibling rows and on other nodes miss because the key changed
+            downloadUrlCache.evict(attachmentId);
+            try {
+                attachmentStorage.delete(sourceKey);
+            } catch (RuntimeException ex) {
+                log.warn("Migrated attachmentId={} but failed to delete old object key={}",
+                        attachmentId, sourceKey, ex);
+            }
+            record(run.migrated, "migrated");
+        } catch (RuntimeException ex) {
+            log.warn("Failed to migrate attachmentId={} from key={}", attachmentId, sourceKey, ex);
+            record(run.failed, "failed");
+        }
+    }
+
+    /**
+     * Moves every attachment on {@code sourceKey}, and the shared blob if there is
+     * one. The blob row is locked first so a concurrent dedup cannot attach a new
+     * row to the old key after the update.
+     */
+    private int repointObject(String sourceKey, String targetKey) {
+        Optional<AttachmentBlob> blob = blobRepository.findByS3ObjectKeyForUpdate(sourceKey);
+        int updated = attachmentRepository.updateObjectKey(sourceKey, targetKey);
+        blob.ifPresent(shared -> {
+            shared.setS3ObjectKey(targetKey);
+            blobRepository.save(shared);
+        });
+        return updated;
+    }
+
+    private void record(AtomicLong counter, String result) {
+        counter.incrementAndGet();
+        meterRegistry.counter("attachments.key_migration.objects", "result", result).increment();
+    }
+
+    /**
+     * Strips any earlier layout prefix; the logical key always starts at {@code requests/}.
+     */
+    private static String logicalKey(String objectKey) {
+        int root = objectKey.indexOf(LOGICAL_KEY_ROOT);
+        return root > 0 ? objectKey.substring(root) : objectKey;
+    }
+
+    private ExecutorService newWorkerPool() {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "attachment-key-migration-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(attachmentProperties.getKeyMigrationParallelism(), threadFactory);
+    }
+
+    private final class MigrationRun {
+
+        private final Instant startedAt;
+        private final AtomicLong scanned = new AtomicLong();
+        private final AtomicLong migrated = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private volatile Instant finishedAt;
+
+        private MigrationRun(Instant startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        private void finish() {
+            finishedAt = Instant.now();
+        }
+
+        private AttachmentKeyMigrationStatusDto toDto() {
+            return AttachmentKeyMigrationStatusDto.builder()
+                    .running(finishedAt == null)
+                    .layout(attachmentProperties.getObjectKeyLayout())
+                    .scanned(scanned.get())
+                    .migrated(migrated.get())
+                    .skipped(skipped.get())
+                    .failed(failed.get())
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+    }
+}
@@ -6,37 +6,43 @@ import com.suncorp.securehub.entity.*;
 import com.suncorp.securehub.exception.AccessDeniedException;
 import com.suncorp.securehub.exception.BadRequestException;
 import com.suncorp.securehub.exception.ResourceNotFoundException;
+import com.suncorp.securehub.repository.AttachmentBlobRepository;
+import com.suncorp.securehub.repository.AttachmentExtractedContentRepository;
 import com.suncorp.securehub.repository.AttachmentRepository;
 import com.suncorp.securehub.repository.CommentRepository;
 import com.suncorp.securehub.repository.SupportRequestRepository;
 import com.suncorp.securehub.repository.UserRepository;
+import com.suncorp.securehub.service.storage.AttachmentKeyLayout;
+import com.suncorp.securehub.service.storage.AttachmentStorage;
+import com.suncorp.securehub.service.storage.AttachmentStorageExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import lombok.RequiredArgsConstructor;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
-import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
-import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
-import software.amazon.awssdk.services.s3.model.S3Exception;
-import software.amazon.awssdk.services.s3.presigner.S3Presigner;
-import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
-import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
-import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
-import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -47,14 +53,24 @@ public class AttachmentService {
     private static final Set<String> TRIAGE_ROLES = Set.of("ROLE_TRIAGE", "ROLE_ADMIN");
     private static final Set<AttachmentState> COUNTED_STATES = Set.of(AttachmentState.PENDING, AttachmentState.ACTIVE);
     private static final int MAX_FILE_NAME_LENGTH = 120;
+    private static final int MAX_MULTIPART_PARTS = 10_000;
+    private static final LocalDateTime CLEANUP_CURSOR_START = LocalDateTime.of(1970, 1, 1, 0, 0);
 
     private final AttachmentRepository attachmentRepository;
+    private final AttachmentBlobRepository blobRepository;
+    private final AttachmentExtractedContentRepository extractedContentRepository;
     private final SupportRequestRepository requestRepository;
     private final CommentRepository commentRepository;
     private final UserRepository userRepository;
-    private final S3Client s3Client;
-    private final S3Presigner s3Presigner;
+    private final AttachmentStorage attachmentStorage;
+    private final AttachmentKeyLayout keyLayout;
+    private final AttachmentStorageExecutor storageExecutor;
+    private final AttachmentDownloadUrlCache downloadUrlCache;
+    private final AttachmentDiskCache diskCache;
+    private final AttachmentThumbnailService thumbnailService;
     private final AttachmentProperties attachmentProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
 
     @Transactional
     public AttachmentUploadUrlResponseDto createRequestUploadUrl(
@@ -64,8 +80,8 @@ public class AttachmentService {
             Set<String> roles) {
         SupportRequest request = findRequestAndAuthorize(requestId, username, roles);
         User uploader = findUserByUsername(username);
-        String contentType = validateUploadRequest(dto);
-        enforceRequestAttachmentLimit(requestId);
+        String contentType = validateUploadRequest(dto, attachmentProperties.getMaxFileSizeBytes());
+        enforceRequestAttachmentLimit(requestId, 1);
         return createUploadUrlAttachment(request.getId(), request, null, uploader, dto, contentType);
     }
 
@@ -78,11 +94,136 @@ public class AttachmentService {
             Set<String> roles) {
         Comment comment = findCommentAndAuthorize(requestId, commentId, username, roles);
         User uploader = findUserByUsername(username);
-        String contentType = validateUploadRequest(dto);
-        enforceCommentAttachmentLimit(commentId);
+        String contentType = validateUploadRequest(dto, attachmentProperties.getMaxFileSizeBytes());
+        enforceCommentAttachmentLimit(commentId, 1);
         return createUploadUrlAttachment(comment.getRequest().getId(), null, comment, uploader, dto, contentType);
     }
 
+    @Transactional
+    public AttachmentMultipartUploadResponseDto createRequestMultipartUpload(
+            Long requestId,
+            AttachmentUploadUrlRequestDto dto,
+            String username,
+            Set<String> roles) {
+        SupportRequest request = findRequestAndAuthorize(requestId, username, roles);
+        User uploader = findUserByUsername(username);
+        String contentType = validateMultipartUploadRequest(dto);
+        enforceRequestAttachmentLimit(requestId, 1);
+        return createMultipartAttachment(request.getId(), request, null, uploader, dto, contentType);
+    }
+
+    @Transactional
+    public AttachmentMultipartUploadResponseDto createCommentMultipartUpload(
+            Long requestId,
+            Long commentId,
+            AttachmentUploadUrlRequestDto dto,
+            String username,
+            Set<String> roles) {
+        Comment comment = findCommentAndAuthorize(requestId, commentId, username, roles);
+        User uploader = findUserByUsername(username);
+        String contentType = validateMultipartUploadRequest(dto);
+        enforceCommentAttachmentLimit(commentId, 1);
+        return createMultipartAttachment(comment.getRequest().getId(), null, comment, uploader, dto, contentType);
+    }
+
+    @Transactional
+    public AttachmentDto completeRequestMultipartUpload(Long requestId, Long attachmentId, String username,
+            Set<String> roles) {
+        findRequestAndAuthorize(requestId, username, roles);
+        Attachment attachment = attachmentRepository.findByIdAndRequest_Id(attachmentId, requestId)
+                .orElseThrow(() -> new ResourceNotFoundException("Attachment", "id", attachmentId));
+        return toDto(completeMultipartAttachment(attachment));
+    }
+
+    @Transactional
+    public AttachmentDto completeCommentMultipartUpload(
+            Long requestId,
+            Long commentId,
+            Long attachmentId,
+            String username,
+            Set<String> roles) {
+        findCommentAndAuthorize(requestId, commentId, username, roles);
+        Attachment attachment = attachmentRepository.findByIdAndComment_Id(attachmentId, commentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Attachment", "id", attachmentId));
+        return toDto(completeMultipartAttachment(attachment));
+    }
+
+    /**
+     * Creates upload URLs for several request attachments at once. Authorisation and
+     * the attachment quota are checked once for the whole batch, which either
+     * succeeds as a unit or fails without creating any attachment.
+     */
+    @Transactional
+    public List<AttachmentUploadUrlResponseDto> createRequestUploadUrls(
+            Long requestId,
+            AttachmentBatchUploadUrlRequestDto dto,
+            String username,
+            Set<String> roles) {
+        SupportRequest request = findRequestAndAuthorize(requestId, username, roles);
+        User uploader = findUserByUsername(username);
+        List<String> contentTypes = dto.getFiles().stream()
+                .map(file -> validateUploadRequest(file, attachmentProperties.getMaxFileSizeBytes()))
+                .toList();
+        enforceRequestAttachmentLimit(requestId, dto.getFiles().size());
+
+        List<AttachmentUploadUrlResponseDto> responses = new ArrayList<>(dto.getFiles().size());
+        for (int i = 0; i < dto.getFiles().size(); i++) {
+            responses.add(createUploadUrlAttachment(request.getId(), request, null, uploader, dto.getFiles().get(i),
+                    contentTypes.get(i)));
+        }
+        return responses;
+    }
+
+    @Transactional
+    public List<AttachmentUploadUrlResponseDto> createCommentUploadUrls(
+            Long requestId,
+            Long commentId,
+            AttachmentBatchUploadUrlRequestDto dto,
+            String username,
+            Set<String> roles) {
+        Comment comment = findCommentAndAuthorize(requestId, commentId, username, roles);
+        User uploader = findUserByUsername(username);
+        List<String> contentTypes = dto.getFiles().stream()
+                .map(file -> validateUploadRequest(file, attachmentProperties.getMaxFileSizeBytes()))
+                .toList();
+        enforceCommentAttachmentLimit(commentId, dto.getFiles().size());
+
+        List<AttachmentUploadUrlResponseDto> responses = new ArrayList<>(dto.getFiles().size());
+        for (int i = 0; i < dto.getFiles().size(); i++) {
+            responses.add(createUploadUrlAttachment(comment.getRequest().getId(), null, comment, uploader,
+                    dto.getFiles().get(i), contentTypes.get(i)));
+        }
+        return responses;
+    }
+
+    /**
+     * Confirms several request attachments, returning one result per requested id
+     * in request order. Storage lookups run in parallel on the bounded storage
+     * executor. A failed item does not affect the others.
+     */
+    @Transactional
+    public List<AttachmentBatchConfirmResultDto> confirmRequestAttachments(
+            Long requestId,
+            AttachmentBatchConfirmRequestDto dto,
+            String username,
+            Set<String> roles) {
+        findRequestAndAuthorize(requestId, username, roles);
+        List<Attachment> found = attachmentRepository.findByIdInAndRequest_Id(dto.getAttachmentIds(), requestId);
+        return confirmBatch(dto.getAttachmentIds(), found);
+    }
+
+    @Transactional
+    public List<AttachmentBatchConfirmResultDto> confirmCommentAttachments(
+            Long requestId,
+            Long commentId,
+            AttachmentBatchConfirmRequestDto dto,
+            String username,
+            Set<String> roles) {
+        findCommentAndAuthorize(requestId, commentId, username, roles);
+        List<Attachment> found = attachmentRepository.findByIdInAndComment_Id(dto.getAttachmentIds(), commentId);
+        return confirmBatch(dto.getAttachmentIds(), found);
+    }
+
     @Transactional
     public AttachmentDto confirmRequestAttachment(Long requestId, Long attachmentId, String username,
             Set<String> roles) {
@@ -105,20 +246,26 @@ public class AttachmentService {
         return toDto(confirmAttachment(attachment));
     }
 
+    /**
+     * Lists request attachments. With {@code includeDownloadUrls}, every ACTIVE
+     * attachment also carries a presigned download URL, served from the URL cache
+     * where possible, so clients need no per-file download-url call.
+     */
     @Transactional(readOnly = true)
-    public List<AttachmentDto> listRequestAttachments(Long requestId, String username, Set<String> roles) {
+    public List<AttachmentDto> listRequestAttachments(Long requestId, boolean includeDownloadUrls, String username,
+            Set<String> roles) {
         findRequestAndAuthorize(requestId, username, roles);
         return attachmentRepository.findByRequest_IdOrderByCreatedAtAsc(requestId).stream()
-                .map(this::toDto)
+                .map(attachment -> toListingDto(attachment, includeDownloadUrls))
                 .toList();
     }
 
     @Transactional(readOnly = true)
-    public List<AttachmentDto> listCommentAttachments(Long requestId, Long commentId, String username,
-            Set<String> roles) {
+    public List<AttachmentDto> listCommentAttachments(Long requestId, Long commentId, boolean includeDownloadUrls,
+            String username, Set<String> roles) {
         findCommentAndAuthorize(requestId, commentId, username, roles);
         return attachmentRepository.findByComment_IdOrderByCreatedAtAsc(commentId).stream()
-                .map(this::toDto)
+                .map(attachment -> toListingDto(attachment, includeDownloadUrls))
                 .toList();
     }
 
@@ -134,25 +281,98 @@ public class AttachmentService {
         return toDownloadUrlResponse(attachment);
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Opens an ACTIVE attachment for incremental reading. The metadata lookup runs in
+     * its own short repository transaction, so the pooled DB connection is released
+     * before the storage read starts. Reads beyond {@code stream-max-bytes} fail.
+     */
+    public AttachmentContent openAttachmentContent(Long attachmentId) {
+        return openAttachmentContent(findAttachment(attachmentId));
+    }
+
+    public AttachmentContent openAttachmentContent(Attachment attachment) {
+        return openAttachmentRange(attachment, 0, attachment.getFileSize());
+    }
+
+    /**
+     * Opens {@code length} bytes of an ACTIVE attachment starting at {@code start}
+     * using a ranged read against attachment storage. The {@code stream-max-bytes}
+     * cap applies to {@code length}, so small ranges of a large object can be read.
+     */
+    public AttachmentContent openAttachmentRange(Attachment attachment, long start, long length) {
+        return openRange(attachment, start, length, attachmentProperties.getStreamMaxBytes());
+    }
+
+    /**
+     * Reads a whole attachment into memory; bounded by {@code download-max-bytes},
+     * which is meant to stay far below {@code stream-max-bytes}.
+     */
     public byte[] downloadAttachmentBytes(Long attachmentId) {
-        Attachment attachment = attachmentRepository.findById(attachmentId)
+        Attachment attachment = findAttachment(attachmentId);
+        try (AttachmentContent content = openRange(attachment, 0, attachment.getFileSize(),
+                attachmentProperties.getDownloadMaxBytes())) {
+            return content.getStream().readAllBytes();
+        } catch (BadRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to download attachment bytes for attachmentId={}", attachmentId, e);
+            throw new RuntimeException("Failed to download attachment bytes", e);
+        }
+    }
+
+    private Attachment findAttachment(Long attachmentId) {
+        return attachmentRepository.findById(attachmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Attachment", "id", attachmentId));
+    }
 
+    private AttachmentContent openRange(Attachment attachment, long start, long length, long maxBytes) {
         if (attachment.getState() != AttachmentState.ACTIVE) {
             throw new BadRequestException("Attachment is not ready for download");
         }
+        if (length > maxBytes) {
+            throw new BadRequestException("Attachment exceeds max download size of " + maxBytes + " bytes");
+        }
 
+        boolean fullObject = start == 0 && length == attachment.getFileSize();
+        InputStream objectStream;
         try {
-            return s3Client.getObject(GetObjectRequest.builder()
-                    .bucket(attachmentProperties.getBucketName())
-                    .key(attachment.getS3ObjectKey())
-                    .build())
-                    .readAllBytes();
-        } catch (Exception e) {
-            log.error("Failed to download attachment bytes for attachmentId={}", attachment.getId(), e);
-            throw new RuntimeException("Failed to download attachment bytes", e);
+            objectStream = attachmentStorage.openStream(attachment.getS3ObjectKey(), start,
+                    fullObject ? null : length);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to open attachment object", ex);
         }
+
+        return new AttachmentContent(
+                attachment.getId(),
+                attachment.getFileName(),
+                attachment.getContentType(),
+                length,
+                new MaxBytesInputStream(objectStream, Math.min(length, maxBytes)));
+    }
+
+    @Transactional(readOnly = true)
+    public Attachment getRequestAttachmentForContent(
+            Long requestId,
+            Long attachmentId,
+            String username,
+            Set<String> roles) {
+        findRequestAndAuthorize(requestId, username, roles);
+        Attachment attachment = attachmentRepository.findByIdAndRequest_Id(attachmentId, requestId)
+                .orElseThrow(() -> new ResourceNotFoundException("Attachment", "id", attachmentId));
+        return requireActive(attachment);
+    }
+
+    @Transactional(readOnly = true)
+    public Attachment getCommentAttachmentForContent(
+            Long requestId,
+            Long commentId,
+            Long attachmentId,
+            String username,
+            Set<String> roles) {
+        findCommentAndAuthorize(requestId, commentId, username, roles);
+        Attachment attachment = attachmentRepository.findByIdAndComment_Id(attachmentId, commentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Attachment", "id", attachmentId));
+        return requireActive(attachment);
     }
 
     @Transactional(readOnly = true)
@@ -173,7 +393,7 @@ public class AttachmentService {
         findRequestAndAuthorize(requestId, username, roles);
         Attachment attachment = attachmentRepository.findByIdAndRequest_Id(attachmentId, requestId)
                 .orElseThrow(() -> new ResourceNotFoundException("Attachment", "id", attachmentId));
-        deleteSingleAttachmentWithBestEffortS3(attachment);
+        deleteSingleAttachmentWithBestEffortStorage(attachment);
     }
 
     @Transactional
@@ -186,7 +406,7 @@ public class AttachmentService {
         findCommentAndAuthorize(requestId, commentId, username, roles);
         Attachment attachment = attachmentRepository.findByIdAndComment_Id(attachmentId, commentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Attachment", "id", attachmentId));
-        deleteSingleAttachmentWithBestEffortS3(attachment);
+        deleteSingleAttachmentWithBestEffortStorage(attachment);
     }
 
     @Transactional
@@ -203,25 +423,112 @@ public class AttachmentService {
         }
         List<Attachment> deduplicated = new ArrayList<>(deduplicatedMap.values());
 
-        deleteManyAttachmentsWithBestEffortS3(deduplicated);
+        deleteManyAttachmentsWithBestEffortStorage(deduplicated);
     }
 
     @Transactional
     public void deleteAllForComment(Long commentId) {
         List<Attachment> attachments = attachmentRepository.findByComment_IdOrderByCreatedAtAsc(commentId);
-        deleteManyAttachmentsWithBestEffortS3(attachments);
+        deleteManyAttachmentsWithBestEffortStorage(attachments);
     }
 
+    /**
+     * Removes PENDING attachments whose upload never completed. Work is split into
+     * keyset-paginated chunks, each claimed with FOR UPDATE SKIP LOCKED and committed
+     * in its own transaction, so every node can run the job without duplicating work
+     * and no single transaction grows with the backlog. A run stops once
+     * {@code pending-cleanup-max-run-duration} has elapsed; leftovers are picked up
+     * by the next run. Multipart uploads started before the same cutoff are aborted
+     * afterwards, which also catches uploads whose attachment row was rolled back.
+     */
     @Scheduled(cron = "${app.attachments.pending-cleanup-cron:0 */10 * * * *}")
-    @Transactional
     public void cleanupOrphanedPendingAttachments() {
         LocalDateTime cutoff = LocalDateTime.now().minus(attachmentProperties.getPendingUploadMaxAge());
-        List<Attachment> expiredPending = attachmentRepository.findByStateAndCreatedAtBefore(AttachmentState.PENDING,
-                cutoff);
-        if (expiredPending.isEmpty()) {
-            return;
+        Instant deadline = Instant.now().plus(attachmentProperties.getPendingCleanupMaxRunDuration());
+        int batchSize = attachmentProperties.getPendingCleanupBatchSize();
+
+        LocalDateTime afterCreatedAt = CLEANUP_CURSOR_START;
+        long afterId = 0L;
+        long processed = 0;
+        long failed = 0;
+
+        while (Instant.now().isBefore(deadline)) {
+            PendingCleanupChunk chunk;
+            try {
+                LocalDateTime chunkAfterCreatedAt = afterCreatedAt;
+                long chunkAfterId = afterId;
+                chunk = transactionTemplate.execute(status ->
+                        cleanupPendingChunk(cutoff, chunkAfterCreatedAt, chunkAfterId, batchSize));
+            } catch (Exception ex) {
+                log.warn("Pending attachment cleanup chunk failed; remaining rows are left for the next run", ex);
+                meterRegistry.counter("attachments.cleanup.failed", "reason", "chunk_rollback").increment();
+                failed++;
+                break;
+            }
+
+            if (chunk == null) {
+                break;
+            }
+
+            processed += chunk.claimed();
+            failed += chunk.deleteFailures();
+            meterRegistry.counter("attachments.cleanup.processed").increment(chunk.claimed());
+            meterRegistry.counter("attachments.cleanup.failed", "reason", "storage_delete")
+                    .increment(chunk.deleteFailures());
+
+            if (chunk.claimed() < batchSize) {
+                break;
+            }
+            afterCreatedAt = chunk.lastCreatedAt();
+            afterId = chunk.lastId();
+        }
+
+        int abortedUploads = abortStaleMultipartUploads(cutoff);
+
+        if (processed > 0 || failed > 0 || abortedUploads > 0) {
+            log.info("Pending attachment cleanup finished: processed={}, failed={}, abortedMultipartUploads={}",
+                    processed, failed, abortedUploads);
+        }
+    }
+
+    private int abortStaleMultipartUploads(LocalDateTime cutoff) {
+        if (!attachmentStorage.supportsMultipartUpload()) {
+            return 0;
+        }
+        try {
+            int aborted = attachmentStorage.abortMultipartUploadsInitiatedBefore(
+                    cutoff.atZone(ZoneId.systemDefault()).toInstant());
+            meterRegistry.counter("attachments.cleanup.multipart_aborted").increment(aborted);
+            return aborted;
+        } catch (Exception ex) {
+            log.warn("Failed to abort stale multipart uploads; they are retried on the next run", ex);
+            meterRegistry.counter("attachments.cleanup.failed", "reason", "multipart_abort").increment();
+            return 0;
         }
-        deleteManyAttachmentsWithBestEffortS3(expiredPending);
+    }
+
+    private PendingCleanupChunk cleanupPendingChunk(
+            LocalDateTime cutoff,
+            LocalDateTime afterCreatedAt,
+            long afterId,
+            int batchSize) {
+        List<Attachment> claimed = attachmentRepository.claimExpiredPendingBatch(cutoff, afterCreatedAt, afterId,
+                batchSize);
+        if (claimed.isEmpty()) {
+            return null;
+        }
+
+        int deleteFailures = 0;
+        for (Attachment attachment : claimed) {
+            if (!deleteStoredObjectBestEffort(attachment)) {
+                deleteFailures++;
+            }
+        }
+        deleteExtractedContent(claimed);
+        attachmentRepository.deleteAllInBatch(claimed);
+
+        Attachment last = claimed.get(claimed.size() - 1);
+        return new PendingCleanupChunk(claimed.size(), deleteFailures, last.getCreatedAt(), last.getId());
     }
 
     private AttachmentUploadUrlResponseDto createUploadUrlAttachment(
@@ -231,6 +538,38 @@ public class AttachmentService {
             User uploader,
             AttachmentUploadUrlRequestDto dto,
             String normalizedContentType) {
+        Attachment attachment = savePendingAttachment(requestId, request, comment, uploader, dto,
+                normalizedContentType);
+        if (attachExistingBlob(attachment, uploader)) {
+            return AttachmentUploadUrlResponseDto.builder()
+                    .attachmentId(attachment.getId())
+                    .deduplicated(true)
+                    .build();
+        }
+        String objectKey = attachment.getS3ObjectKey();
+
+        String uploadUrl = attachmentStorage.createUploadUrl(objectKey, normalizedContentType, dto.getFileSize(),
+                dto.getChecksumSha256(), attachmentProperties.getUploadUrlTtl());
+
+        return AttachmentUploadUrlResponseDto.builder()
+                .attachmentId(attachment.getId())
+                .uploadUrl(uploadUrl)
+                .expiresAt(Instant.now().plus(attachmentProperties.getUploadUrlTtl()))
+                .build();
+    }
+
+    /**
+     * Inserts the PENDING row, then sets the object key derived from its id under the
+     * configured key layout. The placeholder key is unique so several attachments can
+     * be created in one transaction without tripping the s3_object_key unique constraint.
+     */
+    private Attachment savePendingAttachment(
+            Long requestId,
+            SupportRequest request,
+            Comment comment,
+            User uploader,
+            AttachmentUploadUrlRequestDto dto,
+            String normalizedContentType) {
         String sanitizedFileName = sanitizeFileName(dto.getFileName());
 
         Attachment attachment = Attachment.builder()
@@ -241,109 +580,330 @@ public class AttachmentService {
                 .fileSize(dto.getFileSize())
                 .state(AttachmentState.PENDING)
                 .uploadedBy(uploader)
-                .s3ObjectKey("pending")
+                .checksumSha256(dto.getChecksumSha256())
+                .s3ObjectKey("pending/" + UUID.randomUUID())
                 .build();
         attachment = attachmentRepository.save(attachment);
 
-        String objectKey = buildObjectKey(requestId, comment != null ? comment.getId() : null,
+        String logicalKey = buildObjectKey(requestId, comment != null ? comment.getId() : null,
                 attachment.getId(), sanitizedFileName);
-        attachment.setS3ObjectKey(objectKey);
-        attachment = attachmentRepository.save(attachment);
+        attachment.setS3ObjectKey(keyLayout.objectKey(attachment.getId(), logicalKey));
+        return attachmentRepository.save(attachment);
+    }
 
-        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                .bucket(attachmentProperties.getBucketName())
-                .key(objectKey)
-                .contentType(normalizedContentType)
-                .contentLength(dto.getFileSize())
-                .build();
+    private AttachmentMultipartUploadResponseDto createMultipartAttachment(
+            Long requestId,
+            SupportRequest request,
+            Comment comment,
+            User uploader,
+            AttachmentUploadUrlRequestDto dto,
+            String normalizedContentType) {
+        Attachment attachment = savePendingAttachment(requestId, request, comment, uploader, dto,
+                normalizedContentType);
+        String objectKey = attachment.getS3ObjectKey();
+        String uploadId = attachmentStorage.initiateMultipartUpload(objectKey, normalizedContentType);
+        attachment.setMultipartUploadId(uploadId);
+        attachment = attachmentRepository.save(attachment);
 
-        PresignedPutObjectRequest presignedRequest = s3Presigner.presignPutObject(PutObjectPresignRequest.builder()
-                .signatureDuration(attachmentProperties.getUploadUrlTtl())
-                .putObjectRequest(putObjectRequest)
-                .build());
+        long partSize = attachmentProperties.getMultipartPartSizeBytes();
+        int partCount = (int) ((dto.getFileSize() + partSize - 1) / partSize);
+        List<AttachmentUploadPartUrlDto> parts = new ArrayList<>(partCount);
+        for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+            long partLength = Math.min(partSize, dto.getFileSize() - (partNumber - 1) * partSize);
+            parts.add(AttachmentUploadPartUrlDto.builder()
+                    .partNumber(partNumber)
+                    .partSize(partLength)
+                    .uploadUrl(attachmentStorage.createUploadPartUrl(objectKey, uploadId, partNumber, partLength,
+                            attachmentProperties.getMultipartUploadUrlTtl()))
+                    .build());
+        }
 
-        return AttachmentUploadUrlResponseDto.builder()
+        return AttachmentMultipartUploadResponseDto.builder()
                 .attachmentId(attachment.getId())
-                .uploadUrl(presignedRequest.url().toString())
-                .expiresAt(Instant.now().plus(attachmentProperties.getUploadUrlTtl()))
+                .partSize(partSize)
+                .parts(parts)
+                .expiresAt(Instant.now().plus(attachmentProperties.getMultipartUploadUrlTtl()))
                 .build();
     }
 
+    private Attachment completeMultipartAttachment(Attachment attachment) {
+        if (attachment.getState() == AttachmentState.ACTIVE) {
+            return attachment;
+        }
+        if (attachment.getMultipartUploadId() == null) {
+            throw new BadRequestException("Attachment was not created as a multipart upload");
+        }
+
+        attachmentStorage.completeMultipartUpload(attachment.getS3ObjectKey(), attachment.getMultipartUploadId());
+        attachment.setMultipartUploadId(null);
+        return confirmAttachment(attachment);
+    }
+
     private Attachment confirmAttachment(Attachment attachment) {
         if (attachment.getState() == AttachmentState.ACTIVE) {
             return attachment;
         }
+        requireConfirmable(attachment);
+        return applyUpload(attachment, inspectUpload(attachment.getS3ObjectKey(), attachment.getChecksumSha256()));
+    }
+
+    private List<AttachmentBatchConfirmResultDto> confirmBatch(List<Long> attachmentIds, List<Attachment> found) {
+        Map<Long, Attachment> attachmentsById = found.stream()
+                .collect(Collectors.toMap(Attachment::getId, Function.identity()));
+
+        Map<Long, CompletableFuture<UploadedObject>> uploads = new LinkedHashMap<>();
+        for (Long attachmentId : attachmentIds) {
+            Attachment attachment = attachmentsById.get(attachmentId);
+            if (attachment != null && attachment.getState() == AttachmentState.PENDING
+                    && attachment.getMultipartUploadId() == null && !uploads.containsKey(attachmentId)) {
+                String objectKey = attachment.getS3ObjectKey();
+                String checksum = attachment.getChecksumSha256();
+                uploads.put(attachmentId, storageExecutor.submit(() -> inspectUpload(objectKey, checksum)));
+            }
+        }
+
+        List<AttachmentBatchConfirmResultDto> results = new ArrayList<>(attachmentIds.size());
+        for (Long attachmentId : attachmentIds) {
+            Attachment attachment = attachmentsById.get(attachmentId);
+            if (attachment == null) {
+                results.add(failedConfirmResult(attachmentId, "Attachment not found"));
+                continue;
+            }
+            try {
+                CompletableFuture<UploadedObject> upload = uploads.get(attachmentId);
+                Attachment confirmed = upload != null && attachment.getState() == AttachmentState.PENDING
+                        ? applyUpload(attachment, upload.join())
+                        : confirmAttachment(attachment);
+                results.add(AttachmentBatchConfirmResultDto.builder()
+                        .attachmentId(attachmentId)
+                        .confirmed(true)
+                        .attachment(toDto(confirmed))
+                        .build());
+            } catch (BadRequestException ex) {
+                results.add(failedConfirmResult(attachmentId, ex.getMessage()));
+            } catch (CompletionException ex) {
+                log.warn("Storage lookup failed during batch confirm for attachmentId={}", attachmentId,
+                        ex.getCause());
+                results.add(failedConfirmResult(attachmentId, "Attachment object could not be verified"));
+            }
+        }
+        return results;
+    }
+
+    private AttachmentBatchConfirmResultDto failedConfirmResult(Long attachmentId, String error) {
+        return AttachmentBatchConfirmResultDto.builder()
+                .attachmentId(attachmentId)
+                .confirmed(false)
+                .error(error)
+                .build();
+    }
+
+    private void requireConfirmable(Attachment attachment) {
         if (attachment.getState() == AttachmentState.FAILED) {
             throw new BadRequestException("Attachment is in FAILED state and cannot be confirmed");
         }
+        if (attachment.getMultipartUploadId() != null) {
+            throw new BadRequestException("Multipart uploads must be finished with the complete endpoint");
+        }
+    }
 
-        try {
-            HeadObjectResponse headObjectResponse = s3Client.headObject(HeadObjectRequest.builder()
-                    .bucket(attachmentProperties.getBucketName())
-                    .key(attachment.getS3ObjectKey())
-                    .build());
+    /**
+     * Storage half of confirm. Touches no persistence state, so batch confirm can run
+     * it on the storage executor. The checksum is only read when one was declared.
+     */
+    private UploadedObject inspectUpload(String objectKey, String expectedChecksum) {
+        Optional<Long> size = attachmentStorage.confirmUpload(objectKey);
+        String checksum = size.isPresent() && expectedChecksum != null
+                ? attachmentStorage.checksumSha256(objectKey)
+                : null;
+        return new UploadedObject(size, checksum);
+    }
 
-            if (headObjectResponse.contentLength() == null
-                    || !headObjectResponse.contentLength().equals(attachment.getFileSize())) {
-                markAsFailed(attachment);
-                throw new BadRequestException("Uploaded file size does not match metadata");
-            }
-        } catch (NoSuchKeyException ex) {
+    private Attachment applyUpload(Attachment attachment, UploadedObject uploaded) {
+        if (uploaded.size().isEmpty()) {
             markAsFailed(attachment);
-            throw new BadRequestException("Attachment object was not found in S3");
-        } catch (S3Exception ex) {
-            if (ex.statusCode() == 404) {
+            throw new BadRequestException("Attachment object was not found in storage");
+        }
+        if (!uploaded.size().get().equals(attachment.getFileSize())) {
+            markAsFailed(attachment);
+            throw new BadRequestException("Uploaded file size does not match metadata");
+        }
+        if (attachment.getChecksumSha256() != null) {
+            if (!attachment.getChecksumSha256().equals(uploaded.checksumSha256())) {
                 markAsFailed(attachment);
-                throw new BadRequestException("Attachment object was not found in S3");
+                throw new BadRequestException("Uploaded file checksum does not match metadata");
             }
-            throw ex;
+            shareBlob(attachment);
         }
 
         attachment.setState(AttachmentState.ACTIVE);
-        return attachmentRepository.save(attachment);
+        Attachment saved = attachmentRepository.save(attachment);
+        afterCommit(() -> thumbnailService.enqueue(saved));
+        return saved;
     }
 
-    private void deleteManyAttachmentsWithBestEffortS3(List<Attachment> attachments) {
+    /**
+     * Takes a reference on the blob for the attachment's content, registering the
+     * just-uploaded object as that blob if it is the first copy. A duplicate is
+     * re-pointed at the existing object and its own copy is deleted after commit.
+     */
+    private void shareBlob(Attachment attachment) {
+        String sha256 = attachment.getChecksumSha256();
+        String uploadedKey = attachment.getS3ObjectKey();
+        blobRepository.insertIfAbsent(sha256, uploadedKey, attachment.getFileSize());
+        AttachmentBlob blob = blobRepository.findBySha256ForUpdate(sha256)
+                .orElseThrow(() -> new IllegalStateException("Attachment blob vanished during confirm"));
+        blob.setRefCount(blob.getRefCount() + 1);
+        blobRepository.save(blob);
+        attachment.setBlob(blob);
+
+        if (!blob.getS3ObjectKey().equals(uploadedKey)) {
+            attachment.setS3ObjectKey(blob.getS3ObjectKey());
+            Long attachmentId = attachment.getId();
+            afterCommit(() -> deleteStoredObjectBestEffort(uploadedKey, null, attachmentId));
+            meterRegistry.counter("attachments.dedup", "result", "shared").increment();
+        }
+    }
+
+    /**
+     * Skips the upload when the uploader already has an ACTIVE attachment with the
+     * same content: the new row takes a reference on that blob and is ACTIVE at once.
+     * Limited to the uploader's own content, so knowing a hash never grants access to
+     * another user's file.
+     */
+    private boolean attachExistingBlob(Attachment attachment, User uploader) {
+        String sha256 = attachment.getChecksumSha256();
+        if (sha256 == null || !attachmentRepository.existsByUploadedBy_IdAndBlob_Sha256AndState(
+                uploader.getId(), sha256, AttachmentState.ACTIVE)) {
+            return false;
+        }
+        AttachmentBlob blob = blobRepository.findBySha256ForUpdate(sha256).orElse(null);
+        if (blob == null || !blob.getFileSize().equals(attachment.getFileSize())) {
+            return false;
+        }
+
+        blob.setRefCount(blob.getRefCount() + 1);
+        blobRepository.save(blob);
+        attachment.setBlob(blob);
+        attachment.setS3ObjectKey(blob.getS3ObjectKey());
+        attachment.setState(AttachmentState.ACTIVE);
+        Attachment saved = attachmentRepository.save(attachment);
+        afterCommit(() -> thumbnailService.enqueue(saved));
+        meterRegistry.counter("attachments.dedup", "result", "upload_skipped").increment();
+        return true;
+    }
+
+    /**
+     * Drops {@code count} references from a blob. The last reference deletes the
+     * blob row and, after commit, the shared object. Callers must delete the
+     * referencing attachment rows first.
+     */
+    private void releaseBlobReferences(String sha256, int count) {
+        blobRepository.findBySha256ForUpdate(sha256).ifPresent(blob -> {
+            int remaining = blob.getRefCount() - count;
+            if (remaining > 0) {
+                blob.setRefCount(remaining);
+                blobRepository.save(blob);
+                return;
+            }
+            String objectKey = blob.getS3ObjectKey();
+            blobRepository.delete(blob);
+            afterCommit(() -> deleteStoredObjectBestEffort(objectKey, null, null));
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void deleteManyAttachmentsWithBestEffortStorage(List<Attachment> attachments) {
         if (attachments.isEmpty()) {
             return;
         }
 
+        Map<String, Integer> blobReferences = new LinkedHashMap<>();
         for (Attachment attachment : attachments) {
-            deleteS3ObjectBestEffort(attachment.getS3ObjectKey(), attachment.getId());
+            if (attachment.getBlob() != null) {
+                blobReferences.merge(attachment.getBlob().getSha256(), 1, Integer::sum);
+            } else {
+                deleteStoredObjectBestEffort(attachment);
+            }
+            deleteThumbnailBestEffort(attachment);
+            evictCachedContent(attachment);
         }
+        deleteExtractedContent(attachments);
         attachmentRepository.deleteAllInBatch(attachments);
+        blobReferences.forEach(this::releaseBlobReferences);
     }
 
-    private void deleteSingleAttachmentWithBestEffortS3(Attachment attachment) {
-        deleteS3ObjectBestEffort(attachment.getS3ObjectKey(), attachment.getId());
+    private void deleteSingleAttachmentWithBestEffortStorage(Attachment attachment) {
+        AttachmentBlob blob = attachment.getBlob();
+        if (blob == null) {
+            deleteStoredObjectBestEffort(attachment);
+        }
+        deleteThumbnailBestEffort(attachment);
+        evictCachedContent(attachment);
+        deleteExtractedContent(List.of(attachment));
         attachmentRepository.delete(attachment);
+        if (blob != null) {
+            releaseBlobReferences(blob.getSha256(), 1);
+        }
+    }
+
+    /**
+     * Forgets the signed URL now and removes the node-local copy of the body once the
+     * delete commits, so bytes of a deleted attachment do not linger on disk.
+     */
+    private void evictCachedContent(Attachment attachment) {
+        Long attachmentId = attachment.getId();
+        downloadUrlCache.evict(attachmentId);
+        afterCommit(() -> diskCache.evict(attachmentId));
     }
 
-    private void deleteS3ObjectBestEffort(String objectKey, Long attachmentId) {
+    /**
+     * Drops the AI-derived content of attachments about to be deleted.
+     */
+    private void deleteExtractedContent(List<Attachment> attachments) {
+        extractedContentRepository.deleteByAttachmentIds(attachments.stream().map(Attachment::getId).toList());
+    }
+
+    private void deleteThumbnailBestEffort(Attachment attachment) {
+        if (attachment.getThumbnailKey() != null) {
+            deleteStoredObjectBestEffort(attachment.getThumbnailKey(), null, attachment.getId());
+        }
+    }
+
+    private boolean deleteStoredObjectBestEffort(Attachment attachment) {
+        return deleteStoredObjectBestEffort(attachment.getS3ObjectKey(), attachment.getMultipartUploadId(),
+                attachment.getId());
+    }
+
+    private boolean deleteStoredObjectBestEffort(String objectKey, String multipartUploadId, Long attachmentId) {
         int maxAttempts = attachmentProperties.getS3DeleteMaxAttempts();
         for (int attempt = 1; attempt <= maxAttempts; attempt++) {
             try {
-                s3Client.deleteObject(DeleteObjectRequest.builder()
-                        .bucket(attachmentProperties.getBucketName())
-                        .key(objectKey)
-                        .build());
-                return;
-            } catch (NoSuchKeyException ex) {
-                return;
-            } catch (S3Exception ex) {
-                if (ex.statusCode() == 404) {
-                    return;
-                }
-                if (attempt == maxAttempts) {
-                    log.warn("Failed to delete attachment object from S3 after {} attempts for attachmentId={}",
-                            maxAttempts, attachmentId);
+                if (multipartUploadId != null) {
+                    attachmentStorage.abortMultipartUpload(objectKey, multipartUploadId);
                 }
+                attachmentStorage.delete(objectKey);
+                return true;
             } catch (Exception ex) {
                 if (attempt == maxAttempts) {
-                    log.warn("Unexpected error deleting attachment object from S3 for attachmentId={}", attachmentId);
+                    log.warn("Failed to delete attachment object from storage after {} attempts for "
+                            + "attachmentId={}, key={}", maxAttempts, attachmentId, objectKey);
                 }
             }
         }
+        return false;
     }
 
     private AttachmentDownloadUrlResponseDto toDownloadUrlResponse(Attachment attachment) {
@@ -351,26 +911,53 @@ public class AttachmentService {
             throw new BadRequestException("Attachment is not ready for download");
         }
 
-        PresignedGetObjectRequest presignedRequest = s3Presigner.presignGetObject(GetObjectPresignRequest.builder()
-                .signatureDuration(attachmentProperties.getDownloadUrlTtl())
-                .getObjectRequest(GetObjectRequest.builder()
-                        .bucket(attachmentProperties.getBucketName())
-                        .key(attachment.getS3ObjectKey())
-                        .responseContentType(attachment.getContentType())
-                        .build())
-                .build());
+        AttachmentDownloadUrlCache.DownloadUrl downloadUrl = downloadUrlCache.urlFor(attachment);
 
         return AttachmentDownloadUrlResponseDto.builder()
                 .attachmentId(attachment.getId())
-                .downloadUrl(presignedRequest.url().toString())
-                .expiresAt(Instant.now().plus(attachmentProperties.getDownloadUrlTtl()))
+                .downloadUrl(downloadUrl.url())
+                .expiresAt(downloadUrl.expiresAt())
                 .build();
     }
 
-    private String validateUploadRequest(AttachmentUploadUrlRequestDto dto) {
-        if (dto.getFileSize() > attachmentProperties.getMaxFileSizeBytes()) {
-            throw new BadRequestException(
-                    "File exceeds max size of " + attachmentProperties.getMaxFileSizeBytes() + " bytes");
+    private AttachmentDto toListingDto(Attachment attachment, boolean includeDownloadUrl) {
+        AttachmentDto dto = toDto(attachment);
+        if (attachment.getState() != AttachmentState.ACTIVE) {
+            return dto;
+        }
+        if (includeDownloadUrl) {
+            AttachmentDownloadUrlCache.DownloadUrl downloadUrl = downloadUrlCache.urlFor(attachment);
+            dto.setDownloadUrl(downloadUrl.url());
+            dto.setDownloadUrlExpiresAt(downloadUrl.expiresAt());
+        }
+        // Previews are what a listing renders, so they are signed regardless of includeDownloadUrl.
+        if (attachment.getThumbnailKey() != null) {
+            AttachmentDownloadUrlCache.DownloadUrl thumbnailUrl = downloadUrlCache.thumbnailUrlFor(attachment);
+            dto.setThumbnailUrl(thumbnailUrl.url());
+            dto.setThumbnailUrlExpiresAt(thumbnailUrl.expiresAt());
+        }
+        return dto;
+    }
+
+    private String validateMultipartUploadRequest(AttachmentUploadUrlRequestDto dto) {
+        if (!attachmentStorage.supportsMultipartUpload()) {
+            throw new BadRequestException("Multipart upload is not supported by the configured attachment storage");
+        }
+        if (dto.getChecksumSha256() != null) {
+            throw new BadRequestException("Checksums are not supported for multipart uploads");
+        }
+        String contentType = validateUploadRequest(dto, attachmentProperties.getMultipartMaxFileSizeBytes());
+        long partSize = attachmentProperties.getMultipartPartSizeBytes();
+        if ((dto.getFileSize() + partSize - 1) / partSize > MAX_MULTIPART_PARTS) {
+            throw new BadRequestException("File needs more than " + MAX_MULTIPART_PARTS + " parts of "
+                    + partSize + " bytes");
+        }
+        return contentType;
+    }
+
+    private String validateUploadRequest(AttachmentUploadUrlRequestDto dto, long maxFileSizeBytes) {
+        if (dto.getFileSize() > maxFileSizeBytes) {
+            throw new BadRequestException("File exceeds max size of " + maxFileSizeBytes + " bytes");
         }
 
         String normalizedContentType = normalizeContentType(dto.getContentType());
@@ -392,17 +979,17 @@ public class AttachmentService {
         return mime.toLowerCase(Locale.ROOT);
     }
 
-    private void enforceRequestAttachmentLimit(Long requestId) {
+    private void enforceRequestAttachmentLimit(Long requestId, int additional) {
         long existing = attachmentRepository.countByRequest_IdAndStateIn(requestId, COUNTED_STATES);
-        if (existing >= attachmentProperties.getRequestMaxCount()) {
+        if (existing + additional > attachmentProperties.getRequestMaxCount()) {
             throw new BadRequestException(
                     "Request attachment limit exceeded (" + attachmentProperties.getRequestMaxCount() + ")");
         }
     }
 
-    private void enforceCommentAttachmentLimit(Long commentId) {
+    private void enforceCommentAttachmentLimit(Long commentId, int additional) {
         long existing = attachmentRepository.countByComment_IdAndStateIn(commentId, COUNTED_STATES);
-        if (existing >= attachmentProperties.getCommentMaxCount()) {
+        if (existing + additional > attachmentProperties.getCommentMaxCount()) {
             throw new BadRequestException(
                     "Comment attachment limit exceeded (" + attachmentProperties.getCommentMaxCount() + ")");
         }
@@ -435,6 +1022,13 @@ public class AttachmentService {
                 .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
     }
 
+    private Attachment requireActive(Attachment attachment) {
+        if (attachment.getState() != AttachmentState.ACTIVE) {
+            throw new BadRequestException("Attachment is not ready for download");
+        }
+        return attachment;
+    }
+
     private void markAsFailed(Attachment attachment) {
         attachment.setState(AttachmentState.FAILED);
         attachmentRepository.save(attachment);
@@ -507,4 +1101,10 @@ public class AttachmentService {
                         .collect(Collectors.toSet()))
                 .build();
     }
+
+    private record UploadedObject(Optional<Long> size, String checksumSha256) {
+    }
+
+    private record PendingCleanupChunk(int claimed, int deleteFailures, LocalDateTime lastCreatedAt, Long lastId) {
+    }
 }
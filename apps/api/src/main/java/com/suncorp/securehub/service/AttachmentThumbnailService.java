@@ -0,0 +1,230 @@
+package com.suncorp.securehub.service;
+
+import com.suncorp.securehub.config.AttachmentProperties;
+import com.suncorp.securehub.entity.Attachment;
+import com.suncorp.securehub.entity.AttachmentState;
+import com.suncorp.securehub.repository.AttachmentRepository;
+import com.suncorp.securehub.service.storage.AttachmentKeyLayout;
+import com.suncorp.securehub.service.storage.AttachmentStorage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates JPEG previews for image attachments once they become ACTIVE. Jobs run
+ * on a fixed worker pool behind a bounded queue; when the queue is full the job is
+ * dropped rather than blocking the confirm path. A periodic sweep re-queues ACTIVE
+ * images that still have no thumbnail, only up to the free queue capacity, so dropped
+ * and failed jobs and images uploaded before thumbnails existed eventually converge.
+ * The queue depth is published as {@code attachments.thumbnails.queue_depth}.
+ * <p>
+ * Thumbnails are derived objects owned by one attachment row and are deleted with it.
+ */
+@Slf4j
+@Component
+public class AttachmentThumbnailService {
+
+    private static final Set<String> SOURCE_CONTENT_TYPES = Set.of("image/png", "image/jpeg");
+
+    private final AttachmentRepository attachmentRepository;
+    private final AttachmentStorage attachmentStorage;
+    private final AttachmentKeyLayout keyLayout;
+    private final AttachmentProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor executor;
+    private final Timer renderTimer;
+    /** Attachments queued or rendering on this node, so enqueue and the sweep do not double up. */
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    /** Sweep cursor; wraps to the start once a pass comes back short. */
+    private volatile long sweepAfterId;
+
+    public AttachmentThumbnailService(
+            AttachmentRepository attachmentRepository,
+            AttachmentStorage attachmentStorage,
+            AttachmentKeyLayout keyLayout,
+            AttachmentProperties properties,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry) {
+        this.attachmentRepository = attachmentRepository;
+        this.attachmentStorage = attachmentStorage;
+        this.keyLayout = keyLayout;
+        this.properties = properties;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "attachment-thumbnail-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = new ThreadPoolExecutor(properties.getThumbnailWorkers(), properties.getThumbnailWorkers(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getThumbnailQueueCapacity()),
+                threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("attachments.thumbnails.queue_depth", executor, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+        this.renderTimer = meterRegistry.timer("attachments.thumbnails.render");
+    }
+
+    /**
+     * Queues a thumbnail job if the attachment is an image within the source limits.
+     * Never blocks; a full queue drops the job and leaves it to the sweep.
+     */
+    public void enqueue(Attachment attachment) {
+        if (!properties.isThumbnailsEnabled()
+                || !SOURCE_CONTENT_TYPES.contains(attachment.getContentType())
+                || attachment.getFileSize() > properties.getThumbnailMaxSourceBytes()
+                || attachment.getThumbnailKey() != null) {
+            return;
+        }
+        submit(attachment.getId());
+    }
+
+    /**
+     * Re-queues ACTIVE images without a thumbnail, walking the table by id a page at a
+     * time. Each pass takes at most the queue's free capacity, so it never displaces
+     * jobs from the confirm path and never trips the rejection counter.
+     */
+    @Scheduled(fixedDelayString = "${app.attachments.thumbnail-sweep-interval:PT5M}")
+    public void sweep() {
+        if (!properties.isThumbnailsEnabled()) {
+            return;
+        }
+        int capacity = executor.getQueue().remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        List<Attachment> missing = attachmentRepository.findMissingThumbnails(AttachmentState.ACTIVE,
+                SOURCE_CONTENT_TYPES, properties.getThumbnailMaxSourceBytes(), sweepAfterId,
+                PageRequest.of(0, capacity));
+        int queued = 0;
+        for (Attachment attachment : missing) {
+            if (!submit(attachment.getId())) {
+                return;
+            }
+            sweepAfterId = attachment.getId();
+            queued++;
+        }
+        if (missing.size() < capacity) {
+            // Reached the end; start over next time so failed images get another attempt.
+            sweepAfterId = 0;
+        }
+        if (queued > 0) {
+            log.debug("Thumbnail sweep queued {} attachment(s)", queued);
+        }
+    }
+
+    /**
+     * Returns {@code false} only when the queue is full; an attachment already queued
+     * or rendering on this node counts as submitted.
+     */
+    private boolean submit(Long attachmentId) {
+        if (!inFlight.add(attachmentId)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(attachmentId);
+                } finally {
+                    inFlight.remove(attachmentId);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException ex) {
+            inFlight.remove(attachmentId);
+            log.debug("Thumbnail queue is full; skipping attachmentId={}", attachmentId);
+            record("rejected");
+            return false;
+        }
+    }
+
+    void generate(Long attachmentId) {
+        ThumbnailSource source = transactionTemplate.execute(status -> attachmentRepository.findById(attachmentId)
+                .filter(attachment -> attachment.getState() == AttachmentState.ACTIVE)
+                .filter(attachment -> attachment.getThumbnailKey() == null)
+                .map(attachment -> new ThumbnailSource(attachment.getS3ObjectKey(),
+                        keyLayout.objectKey(attachmentId, thumbnailLogicalKey(attachment))))
+                .orElse(null));
+        if (source == null) {
+            record("skipped");
+            return;
+        }
+
+        try {
+            byte[] thumbnail = renderTimer.recordCallable(() -> {
+                try (InputStream in = attachmentStorage.openStream(source.objectKey(), 0, null)) {
+                    return ThumbnailRenderer.render(in, properties.getThumbnailMaxDimension(),
+                            properties.getThumbnailMaxSourcePixels());
+                }
+            });
+            attachmentStorage.store(source.thumbnailKey(), thumbnail, ThumbnailRenderer.CONTENT_TYPE);
+        } catch (Exception ex) {
+            log.warn("Failed to generate thumbnail for attachmentId={}: {}", attachmentId, ex.getMessage());
+            record("failed");
+            return;
+        }
+
+        Integer updated = transactionTemplate.execute(status -> attachmentRepository.setThumbnailKey(
+                attachmentId, source.thumbnailKey(), AttachmentState.ACTIVE));
+        if (updated == null || updated == 0) {
+            // Deleted, or thumbnailed by another node, while rendering. The thumbnail key is
+            // deterministic, so only delete the object if the row does not already point at it.
+            String current = transactionTemplate.execute(status -> attachmentRepository.findById(attachmentId)
+                    .map(Attachment::getThumbnailKey)
+                    .orElse(null));
+            if (!Objects.equals(current, source.thumbnailKey())) {
+                deleteBestEffort(source.thumbnailKey(), attachmentId);
+            }
+            record("skipped");
+            return;
+        }
+        record("generated");
+    }
+
+    private String thumbnailLogicalKey(Attachment attachment) {
+        Long requestId = attachment.getRequest() != null
+                ? attachment.getRequest().getId()
+                : attachment.getComment().getRequest().getId();
+        return "requests/" + requestId + "/thumbnails/" + attachment.getId() + ".jpg";
+    }
+
+    private void deleteBestEffort(String key, Long attachmentId) {
+        try {
+            attachmentStorage.delete(key);
+        } catch (Exception ex) {
+            log.warn("Failed to delete orphaned thumbnail for attachmentId={}, key={}", attachmentId, key);
+        }
+    }
+
+    private void record(String result) {
+        meterRegistry.counter("attachments.thumbnails", "result", result).increment();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private record ThumbnailSource(String objectKey, String thumbnailKey) {
+    }
+}
@@ -0,0 +1,194 @@
+package com.suncorp.securehub.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.suncorp.securehub.config.AttachmentProperties;
+import com.suncorp.securehub.entity.Attachment;
+import com.suncorp.securehub.entity.AttachmentState;
+import com.suncorp.securehub.repository.AttachmentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Confirms uploads from S3 {@code ObjectCreated} notifications delivered to an SQS
+ * queue, so attachments become ACTIVE even when the client never calls confirm.
+ * Each received batch is applied in one transaction using the same size check as
+ * confirm; once an event has landed, a client confirm is a plain read.
+ * <p>
+ * Messages are deleted only after the transaction commits. A failed batch becomes
+ * visible again after the queue's visibility timeout and is retried; replays are
+ * harmless because only PENDING rows are updated. Multipart uploads are skipped
+ * because their complete endpoint confirms them inline, and checksummed uploads
+ * because confirm verifies and deduplicates them.
+ * <p>
+ * The long poll runs on a dedicated thread rather than the shared {@code @Scheduled}
+ * pool, so a receive waiting for {@code upload-events-wait-time} never delays the
+ * scheduled jobs.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.attachments.upload-events-enabled", havingValue = "true")
+public class AttachmentUploadEventPoller {
+
+    private static final int MAX_MESSAGES_PER_RECEIVE = 10;
+
+    private final SqsClient sqsClient;
+    private final AttachmentRepository attachmentRepository;
+    private final AttachmentProperties attachmentProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final AttachmentThumbnailService thumbnailService;
+
+    private ScheduledExecutorService pollThread;
+
+    @PostConstruct
+    void start() {
+        if (!StringUtils.hasText(attachmentProperties.getUploadEventsQueueUrl())) {
+            throw new IllegalStateException(
+                    "app.attachments.upload-events-queue-url is required when upload events are enabled");
+        }
+        pollThread = Executors.newSingleThreadScheduledExecutor(runnable -> Thread.ofPlatform()
+                .name("attachment-upload-events")
+                .daemon()
+                .unstarted(runnable));
+        pollThread.scheduleWithFixedDelay(this::pollSafely, 0,
+                attachmentProperties.getUploadEventsPollInterval().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pollThread != null) {
+            pollThread.shutdownNow();
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (Exception ex) {
+            // An exception escaping the task would cancel every later poll
+            log.warn("Attachment upload event poll failed", ex);
+        }
+    }
+
+    public void poll() {
+        List<Message> messages = sqsClient.receiveMessage(ReceiveMessageRequest.builder()
+                        .queueUrl(attachmentProperties.getUploadEventsQueueUrl())
+                        .maxNumberOfMessages(MAX_MESSAGES_PER_RECEIVE)
+                        .waitTimeSeconds((int) Math.min(20, attachmentProperties.getUploadEventsWaitTime().toSeconds()))
+                        .build())
+                .messages();
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        Map<String, Long> uploadedSizes = new LinkedHashMap<>();
+        for (Message message : messages) {
+            try {
+                collectObjectCreatedRecords(message.body(), uploadedSizes);
+            } catch (JsonProcessingException ex) {
+                log.warn("Dropping unparseable attachment upload event messageId={}", message.messageId());
+                meterRegistry.counter("attachments.upload_events.records", "result", "unparseable").increment();
+            }
+        }
+
+        if (!uploadedSizes.isEmpty()) {
+            List<Attachment> activated = new ArrayList<>();
+            try {
+                transactionTemplate.executeWithoutResult(status -> applyUploadedSizes(uploadedSizes, activated));
+            } catch (Exception ex) {
+                log.warn("Failed to apply attachment upload events; {} messages will be redelivered",
+                        messages.size(), ex);
+                return;
+            }
+            activated.forEach(thumbnailService::enqueue);
+        }
+
+        deleteMessages(messages);
+    }
+
+    private void collectObjectCreatedRecords(String body, Map<String, Long> uploadedSizes)
+            throws JsonProcessingException {
+        JsonNode records = objectMapper.readTree(body).path("Records");
+        for (JsonNode record : records) {
+            if (!record.path("eventName").asText().startsWith("ObjectCreated:")) {
+                continue;
+            }
+            JsonNode s3 = record.path("s3");
+            if (!attachmentProperties.getBucketName().equals(s3.path("bucket").path("name").asText())) {
+                continue;
+            }
+            String key = URLDecoder.decode(s3.path("object").path("key").asText(), StandardCharsets.UTF_8);
+            uploadedSizes.put(key, s3.path("object").path("size").asLong(-1));
+        }
+    }
+
+    private void applyUploadedSizes(Map<String, Long> uploadedSizes, List<Attachment> activated) {
+        List<Attachment> pending = attachmentRepository.findByS3ObjectKeyInAndState(
+                uploadedSizes.keySet(), AttachmentState.PENDING);
+
+        List<Attachment> updated = new ArrayList<>(pending.size());
+        for (Attachment attachment : pending) {
+            if (attachment.getMultipartUploadId() != null || attachment.getChecksumSha256() != null) {
+                continue;
+            }
+            boolean sizeMatches = attachment.getFileSize().equals(uploadedSizes.get(attachment.getS3ObjectKey()));
+            attachment.setState(sizeMatches ? AttachmentState.ACTIVE : AttachmentState.FAILED);
+            updated.add(attachment);
+            if (sizeMatches) {
+                activated.add(attachment);
+            }
+            meterRegistry.counter("attachments.upload_events.records", "result",
+                    sizeMatches ? "activated" : "size_mismatch").increment();
+        }
+        attachmentRepository.saveAll(updated);
+
+        int ignored = uploadedSizes.size() - updated.size();
+        if (ignored > 0) {
+            meterRegistry.counter("attachments.upload_events.records", "result", "ignored").increment(ignored);
+        }
+    }
+
+    private void deleteMessages(List<Message> messages) {
+        List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            entries.add(DeleteMessageBatchRequestEntry.builder()
+                    .id(Integer.toString(i))
+                    .receiptHandle(messages.get(i).receiptHandle())
+                    .build());
+        }
+        var response = sqsClient.deleteMessageBatch(DeleteMessageBatchRequest.builder()
+                .queueUrl(attachmentProperties.getUploadEventsQueueUrl())
+                .entries(entries)
+                .build());
+        if (response.hasFailed() && !response.failed().isEmpty()) {
+            log.warn("Failed to delete {} attachment upload event messages; they will be redelivered",
+                    response.failed().size());
+        }
+    }
+}
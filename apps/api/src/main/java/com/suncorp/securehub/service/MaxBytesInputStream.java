@@ -0,0 +1,65 @@
+package com.suncorp.securehub.service;
+
+import software.amazon.awssdk.http.Abortable;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails the read once more than {@code maxBytes} have been consumed, aborting the
+ * underlying HTTP connection (when it supports it) instead of draining the rest of
+ * an oversized object.
+ */
+public class MaxBytesInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+    private long bytesRead;
+
+    public MaxBytesInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int n = super.read(buffer, offset, length);
+        if (n > 0) {
+            count(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        if (skipped > 0) {
+            count(skipped);
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(long n) throws IOException {
+        bytesRead += n;
+        if (bytesRead > maxBytes) {
+            if (in instanceof Abortable abortable) {
+                abortable.abort();
+            }
+            throw new IOException("Attachment stream exceeded max size of " + maxBytes + " bytes");
+        }
+    }
+}
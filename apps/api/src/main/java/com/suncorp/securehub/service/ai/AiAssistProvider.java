@@ -5,6 +5,10 @@ import com.suncorp.securehub.dto.AiDraftResponseDto;
 import com.suncorp.securehub.dto.AiSuggestTagsResponseDto;
 import com.suncorp.securehub.dto.AiSummarizeResponseDto;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
 public interface AiAssistProvider {
     AiSummarizeResponseDto summarize(AiContextDto context);
 
@@ -12,7 +16,54 @@ public interface AiAssistProvider {
 
     AiDraftResponseDto draftResponse(AiContextDto context);
 
+    /**
+     * Streaming variant of {@link #summarize(AiContextDto)}: text is passed to
+     * {@code onDelta} as the model generates it, and the complete response is
+     * returned at the end. Providers that cannot stream emit the summary as one delta.
+     */
+    default AiSummarizeResponseDto summarize(AiContextDto context, Consumer<String> onDelta) {
+        AiSummarizeResponseDto response = summarize(context);
+        onDelta.accept(response.getSummary());
+        return response;
+    }
+
+    /**
+     * Streaming variant of {@link #draftResponse(AiContextDto)}; see
+     * {@link #summarize(AiContextDto, Consumer)}.
+     */
+    default AiDraftResponseDto draftResponse(AiContextDto context, Consumer<String> onDelta) {
+        AiDraftResponseDto response = draftResponse(context);
+        onDelta.accept(response.getDraft());
+        return response;
+    }
+
+    /**
+     * Non-blocking variant of {@link #summarize(AiContextDto)}. The default runs the
+     * blocking call on a virtual thread; providers with an async client override it.
+     */
+    default CompletableFuture<AiSummarizeResponseDto> summarizeAsync(AiContextDto context) {
+        return onVirtualThread(() -> summarize(context));
+    }
+
+    /**
+     * Non-blocking variant of {@link #suggestTags(AiContextDto)}; see {@link #summarizeAsync}.
+     */
+    default CompletableFuture<AiSuggestTagsResponseDto> suggestTagsAsync(AiContextDto context) {
+        return onVirtualThread(() -> suggestTags(context));
+    }
+
+    /**
+     * Non-blocking variant of {@link #draftResponse(AiContextDto)}; see {@link #summarizeAsync}.
+     */
+    default CompletableFuture<AiDraftResponseDto> draftResponseAsync(AiContextDto context) {
+        return onVirtualThread(() -> draftResponse(context));
+    }
+
     String getProviderName();
 
     String getModelId();
+
+    private static <T> CompletableFuture<T> onVirtualThread(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(call, runnable -> Thread.ofVirtual().start(runnable));
+    }
 }
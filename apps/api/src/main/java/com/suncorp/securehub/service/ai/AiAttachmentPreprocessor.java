@@ -0,0 +1,184 @@
+package com.suncorp.securehub.service.ai;
+
+import com.suncorp.securehub.config.AiProperties;
+import com.suncorp.securehub.service.ThumbnailRenderer;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.stereotype.Component;
+
+import java.awt.Dimension;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Turns downloaded attachment bytes into what is sent to the model, keeping
+ * request size and model latency down:
+ * <ul>
+ * <li>text attachments are decoded as UTF-8;</li>
+ * <li>PDFs with a text layer are sent as their extracted text instead of the
+ * document; scanned PDFs, with little or no text, are sent as they are;</li>
+ * <li>PNG and JPEG images larger than {@code context-image-max-dimension} are
+ * downscaled and re-encoded as JPEG.</li>
+ * </ul>
+ * Content that cannot be processed is sent unchanged. Results are kept in a
+ * node-local LRU keyed by object key, bounded by
+ * {@code context-preprocess-cache-max-bytes}, so repeated AI runs on a request
+ * neither download nor process its attachments again. Object keys of stored
+ * content never change, and deduplicated attachments share theirs.
+ * <p>
+ * Publishes {@code ai.context.preprocessed} by result and
+ * {@code ai.context.preprocess_cache.requests} by hit or miss.
+ */
+@Slf4j
+@Component
+public class AiAttachmentPreprocessor {
+
+    static final String PDF = "application/pdf";
+    /**
+     * Extracted text shorter than this per page is taken to be a scanned PDF.
+     */
+    static final int MIN_TEXT_CHARS_PER_PAGE = 32;
+    private static final Set<String> DOWNSCALED_CONTENT_TYPES = Set.of("image/png", "image/jpeg");
+
+    private final AiProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final LinkedHashMap<String, PreparedContent> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+
+    public AiAttachmentPreprocessor(AiProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * The prepared content of the object at {@code objectKey}, if still cached.
+     */
+    public Optional<PreparedContent> cached(String objectKey) {
+        PreparedContent prepared;
+        synchronized (this) {
+            prepared = entries.get(objectKey);
+        }
+        meterRegistry.counter("ai.context.preprocess_cache.requests", "result", prepared != null ? "hit" : "miss")
+                .increment();
+        return Optional.ofNullable(prepared);
+    }
+
+    /**
+     * Prepares downloaded bytes for the model and caches the result under {@code objectKey}.
+     */
+    public PreparedContent prepare(String objectKey, String contentType, byte[] bytes) {
+        PreparedContent prepared;
+        if (isText(contentType)) {
+            prepared = PreparedContent.text(contentType, new String(bytes, StandardCharsets.UTF_8));
+            record("text");
+        } else if (contentType.equals(PDF)) {
+            prepared = preparePdf(contentType, bytes);
+        } else if (DOWNSCALED_CONTENT_TYPES.contains(contentType)) {
+            prepared = prepareImage(contentType, bytes);
+        } else {
+            prepared = PreparedContent.binary(contentType, bytes);
+            record("unchanged");
+        }
+        put(objectKey, prepared);
+        return prepared;
+    }
+
+    private PreparedContent preparePdf(String contentType, byte[] bytes) {
+        if (properties.isContextPdfTextEnabled()) {
+            try (PDDocument document = Loader.loadPDF(bytes)) {
+                String text = new PDFTextStripper().getText(document).strip();
+                long minChars = (long) MIN_TEXT_CHARS_PER_PAGE * document.getNumberOfPages();
+                if (!text.isEmpty() && text.length() >= minChars) {
+                    record("pdf_text");
+                    return PreparedContent.text(contentType, text);
+                }
+            } catch (IOException | RuntimeException ex) {
+                // Encrypted or malformed: the model may still read the document itself
+                log.debug("Could not extract text from PDF; sending the document", ex);
+            }
+        }
+        record("pdf_document");
+        return PreparedContent.binary(contentType, bytes);
+    }
+
+    private PreparedContent prepareImage(String contentType, byte[] bytes) {
+        int maxDimension = properties.getContextImageMaxDimension();
+        try {
+            Dimension size = ThumbnailRenderer.size(new ByteArrayInputStream(bytes));
+            if (Math.max(size.width, size.height) > maxDimension) {
+                byte[] scaled = ThumbnailRenderer.render(new ByteArrayInputStream(bytes), maxDimension,
+                        properties.getContextImageMaxPixels());
+                if (scaled.length < bytes.length) {
+                    record("image_downscaled");
+                    return PreparedContent.derived(ThumbnailRenderer.CONTENT_TYPE, scaled);
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            log.debug("Could not downscale image; sending it unchanged", ex);
+        }
+        record("unchanged");
+        return PreparedContent.binary(contentType, bytes);
+    }
+
+    /**
+     * Caches content prepared earlier, e.g. read from the {@link AiExtractedContentStore}.
+     */
+    synchronized void put(String objectKey, PreparedContent prepared) {
+        long maxBytes = properties.getContextPreprocessCacheMaxBytes();
+        if (prepared.size() > maxBytes) {
+            return;
+        }
+        PreparedContent previous = entries.put(objectKey, prepared);
+        cachedBytes += prepared.size() - (previous != null ? previous.size() : 0);
+        Iterator<Map.Entry<String, PreparedContent>> eldest = entries.entrySet().iterator();
+        while (cachedBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, PreparedContent> entry = eldest.next();
+            cachedBytes -= entry.getValue().size();
+            eldest.remove();
+        }
+    }
+
+    private void record(String result) {
+        meterRegistry.counter("ai.context.preprocessed", "result", result).increment();
+    }
+
+    static boolean isText(String contentType) {
+        return contentType.startsWith("text/") || contentType.equals("application/csv");
+    }
+
+    /**
+     * Attachment content ready for the model: either text or bytes of
+     * {@code contentType}, which differs from the stored type for downscaled images.
+     * {@code derived} is false when the bytes are the stored object itself.
+     */
+    public record PreparedContent(String contentType, String textContent, byte[] contentBytes, boolean derived) {
+
+        static PreparedContent text(String contentType, String text) {
+            return new PreparedContent(contentType, text, null, true);
+        }
+
+        static PreparedContent derived(String contentType, byte[] bytes) {
+            return new PreparedContent(contentType, null, bytes, true);
+        }
+
+        static PreparedContent binary(String contentType, byte[] bytes) {
+            return new PreparedContent(contentType, null, bytes, false);
+        }
+
+        /**
+         * Approximate heap size, counting two bytes per character of text.
+         */
+        public long size() {
+            return textContent != null ? 2L * textContent.length() : contentBytes.length;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.suncorp.securehub.service.ai;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for provider calls: while a call for a {@link AiResultCache.Key}
+ * is in flight, identical calls join it instead of starting their own, so a
+ * burst of clicks on the same unchanged request costs one provider call. Joined
+ * calls are counted as {@code ai.calls.coalesced} by action.
+ * <p>
+ * The key is dropped as soon as the call finishes; later callers are expected to
+ * find the result in the {@link AiResultCache}. Every participant receives the
+ * same response object and must copy it before changing it.
+ */
+@Component
+public class AiCallCoalescer {
+
+    private final ConcurrentHashMap<AiResultCache.Key, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public AiCallCoalescer(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Joins the call in flight for {@code key}, or starts one with {@code call}. A
+     * call that completes synchronously runs on the caller's thread while later
+     * callers wait for it.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Flight<T> join(AiResultCache.Key key, Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> shared = new CompletableFuture<>();
+        CompletableFuture<?> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            meterRegistry.counter("ai.calls.coalesced", "action", key.actionType()).increment();
+            return new Flight<>((CompletableFuture<T>) existing, false);
+        }
+
+        CompletableFuture<T> started;
+        try {
+            started = call.get();
+        } catch (RuntimeException ex) {
+            started = CompletableFuture.failedFuture(ex);
+        }
+        started.whenComplete((result, ex) -> {
+            inFlight.remove(key, shared);
+            if (ex != null) {
+                shared.completeExceptionally(ex);
+            } else {
+                shared.complete(result);
+            }
+        });
+        return new Flight<>(shared, true);
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * @param leader whether this caller started the call rather than joining one
+     */
+    public record Flight<T>(CompletableFuture<T> result, boolean leader) {
+    }
+}
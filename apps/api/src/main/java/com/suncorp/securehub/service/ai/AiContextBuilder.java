@@ -1,24 +1,47 @@
 package com.suncorp.securehub.service.ai;
 
+import com.suncorp.securehub.config.AiProperties;
 import com.suncorp.securehub.dto.AiContextDto;
 import com.suncorp.securehub.dto.AiContextDto.AttachmentContext;
 import com.suncorp.securehub.dto.AiContextDto.CommentContext;
 import com.suncorp.securehub.entity.Attachment;
+import com.suncorp.securehub.entity.AttachmentState;
 import com.suncorp.securehub.entity.Comment;
 import com.suncorp.securehub.entity.SupportRequest;
 import com.suncorp.securehub.exception.ResourceNotFoundException;
 import com.suncorp.securehub.repository.AttachmentRepository;
 import com.suncorp.securehub.repository.SupportRequestRepository;
+import com.suncorp.securehub.service.AttachmentContent;
 import com.suncorp.securehub.service.AttachmentService;
+import com.suncorp.securehub.service.ai.AiAttachmentPreprocessor.PreparedContent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -26,18 +49,88 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AiContextBuilder {
 
+    private static final String MEMORY_BUDGET_SKIP_REASON =
+            "AI context memory budget is exhausted; attachment left out.";
+
     private final SupportRequestRepository requestRepository;
     private final AttachmentRepository attachmentRepository;
     private final AttachmentService attachmentService;
+    private final AiContextMemoryBudget memoryBudget;
+    private final AiContextTokenBudget tokenBudget;
+    private final AiAttachmentPreprocessor preprocessor;
+    private final AiExtractedContentStore extractedContentStore;
+    private final AiProperties aiProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
 
-    @Transactional(readOnly = true)
+    /**
+     * Builds the provider input for a request. The database is read in one short
+     * transaction; attachments are downloaded after it commits, so no pooled
+     * connection is held while waiting on storage. The text is then cut to the
+     * {@link AiContextTokenBudget}.
+     */
     public AiContextDto buildContext(Long requestId, String userPrompt) {
+        return build(requestId, userPrompt, null, null, false);
+    }
+
+    /**
+     * Like {@link #buildContext}, except that a context over the token budget is
+     * returned whole with summary mode MAP_REDUCE, for
+     * {@link AiMapReduceSummarizer} to summarize in parts.
+     */
+    public AiContextDto buildSummaryContext(Long requestId, String userPrompt) {
+        return build(requestId, userPrompt, null, null, true);
+    }
+
+    /**
+     * Builds the input for an incremental summary: {@code priorSummary} covers
+     * the request as read at {@code since}, so only comments and attachments
+     * added or changed after it are included, and the description only if the
+     * request itself was updated.
+     */
+    public AiContextDto buildIncrementalSummaryContext(Long requestId, OffsetDateTime since, String priorSummary) {
+        return build(requestId, null, since, priorSummary, false);
+    }
+
+    private AiContextDto build(Long requestId, String userPrompt, OffsetDateTime since, String priorSummary,
+            boolean splitOverBudget) {
+        OffsetDateTime asOf = OffsetDateTime.now();
+        LocalDateTime changedAfter = since != null
+                ? since.atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime()
+                : null;
+        RequestSnapshot snapshot = transactionTemplate.execute(status -> loadSnapshot(requestId, changedAfter));
+        FetchedAttachments fetched = fetchAttachmentContexts(snapshot.attachments());
+
+        AiContextDto context = AiContextDto.builder()
+                .requestTitle(snapshot.title())
+                .requestDescription(snapshot.description())
+                .comments(snapshot.comments())
+                .attachments(fetched.contexts())
+                .userPrompt(userPrompt)
+                .priorSummary(priorSummary)
+                .summaryMode(since != null ? "INCREMENTAL" : "FULL")
+                .contextAsOf(asOf)
+                .reservedBytes(fetched.reservedBytes())
+                .build();
+        if (splitOverBudget && tokenBudget.exceeds(context)) {
+            context.setSummaryMode(AiMapReduceSummarizer.MAP_REDUCE);
+        } else {
+            tokenBudget.apply(context);
+        }
+        return context;
+    }
+
+    /**
+     * @param changedAfter if set, leave out everything not added or changed after it
+     */
+    private RequestSnapshot loadSnapshot(Long requestId, LocalDateTime changedAfter) {
         SupportRequest request = requestRepository.findById(requestId)
                 .orElseThrow(() -> new ResourceNotFoundException("SupportRequest", "id", requestId));
 
         List<CommentContext> commentContexts = new ArrayList<>();
         if (request.getComments() != null) {
             commentContexts = request.getComments().stream()
+                    .filter(c -> changedAfter == null || c.getCreatedAt().isAfter(changedAfter))
                     .sorted(Comparator.comparing(Comment::getCreatedAt))
                     .map(c -> CommentContext.builder()
                             .author(c.getAuthor().getUsername())
@@ -47,55 +140,218 @@ public class AiContextBuilder {
                     .collect(Collectors.toList());
         }
 
-        List<AttachmentContext> attachmentContexts = new ArrayList<>();
+        // Only basic columns of these rows are read once the transaction has ended.
+        List<Attachment> attachments = new ArrayList<>(
+                attachmentRepository.findByRequest_IdOrderByCreatedAtAsc(requestId));
+        attachments.addAll(attachmentRepository.findByComment_Request_IdOrderByCreatedAtAsc(requestId));
+        if (changedAfter != null) {
+            attachments.removeIf(a -> !a.getUpdatedAt().isAfter(changedAfter));
+        }
+        String description = changedAfter == null || request.getUpdatedAt().isAfter(changedAfter)
+                ? request.getDescription()
+                : null;
+        return new RequestSnapshot(request.getTitle(), description, commentContexts, attachments);
+    }
+
+    /**
+     * Drops the attachment bytes of a context and returns their reservation to the
+     * memory budget. Call once the provider no longer needs the bytes; repeated
+     * calls are harmless.
+     */
+    public void releaseContent(AiContextDto context) {
+        if (context == null) {
+            return;
+        }
+        if (context.getAttachments() != null) {
+            context.getAttachments().forEach(attachment -> attachment.setContentBytes(null));
+        }
+        memoryBudget.release(context.getReservedBytes());
+        context.setReservedBytes(0);
+    }
+
+    /**
+     * Downloads the attachments concurrently on virtual threads, at most
+     * {@code context-fetch-concurrency} at a time, and waits no longer than
+     * {@code context-fetch-timeout} in total, including preprocessing by the
+     * {@link AiAttachmentPreprocessor}. Deduplicated attachments share an object
+     * key, so each object is downloaded once, and objects whose prepared content
+     * is still cached, or kept in the {@link AiExtractedContentStore}, are not
+     * downloaded at all. Only basic columns of the loaded rows are read off the
+     * request thread.
+     * <p>
+     * Each download first reserves its size from the node-wide
+     * {@link AiContextMemoryBudget}; reservations of downloads that did not
+     * succeed are returned straight away, the rest stay with the context until
+     * {@link #releaseContent}.
+     */
+    private FetchedAttachments fetchAttachmentContexts(List<Attachment> attachments) {
+        long deadlineNanos = System.nanoTime() + aiProperties.getContextFetchTimeout().toNanos();
+        Semaphore permits = new Semaphore(aiProperties.getContextFetchConcurrency());
+        Map<String, Long> reservedByKey = new HashMap<>();
+        Map<String, Future<PreparedContent>> fetches = new HashMap<>();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            for (Attachment attachment : attachments) {
+                String key = attachment.getS3ObjectKey();
+                if (skipReason(attachment) != null || reservedByKey.containsKey(key)) {
+                    continue;
+                }
+                Optional<PreparedContent> cached = preprocessor.cached(key);
+                if (cached.isPresent()) {
+                    reservedByKey.put(key, 0L);
+                    fetches.put(key, CompletableFuture.completedFuture(cached.get()));
+                    continue;
+                }
+                if (!reserve(attachment, deadlineNanos)) {
+                    reservedByKey.put(key, 0L);
+                    continue;
+                }
+                reservedByKey.put(key, attachment.getFileSize());
+                fetches.put(key, executor.submit(() -> fetch(attachment, permits)));
+            }
+
+            List<AttachmentContext> contexts = new ArrayList<>(attachments.size());
+            for (Attachment attachment : attachments) {
+                contexts.add(buildAttachmentContext(attachment, fetches.get(attachment.getS3ObjectKey()),
+                        deadlineNanos));
+            }
+
+            long retained = 0;
+            for (Map.Entry<String, Future<PreparedContent>> fetch : fetches.entrySet()) {
+                long reserved = reservedByKey.remove(fetch.getKey());
+                if (fetch.getValue().state() == Future.State.SUCCESS) {
+                    retained += reserved;
+                } else {
+                    memoryBudget.release(reserved);
+                }
+            }
+            return new FetchedAttachments(contexts, retained);
+        } catch (RuntimeException | Error ex) {
+            reservedByKey.values().forEach(memoryBudget::release);
+            throw ex;
+        } finally {
+            // Interrupts downloads still running past the deadline.
+            executor.shutdownNow();
+        }
+    }
 
-        // Add request attachments
-        List<Attachment> reqAttachments = attachmentRepository.findByRequest_IdOrderByCreatedAtAsc(requestId);
-        for (Attachment att : reqAttachments) {
-            attachmentContexts.add(buildAttachmentContext(att));
+    private boolean reserve(Attachment attachment, long deadlineNanos) {
+        Duration wait = aiProperties.getContextMemoryWait();
+        Duration untilDeadline = Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+        try {
+            if (memoryBudget.tryReserve(attachment.getFileSize(),
+                    wait.compareTo(untilDeadline) < 0 ? wait : untilDeadline)) {
+                return true;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
         }
+        meterRegistry.counter("ai.context.memory.spills").increment();
+        log.warn("AI context memory budget exhausted; leaving out attachment id {} ({} bytes)",
+                attachment.getId(), attachment.getFileSize());
+        return false;
+    }
 
-        // Add comment attachments
-        List<Attachment> commentAttachments = attachmentRepository
-                .findByComment_Request_IdOrderByCreatedAtAsc(requestId);
-        for (Attachment att : commentAttachments) {
-            attachmentContexts.add(buildAttachmentContext(att));
+    private PreparedContent fetch(Attachment attachment, Semaphore permits) throws InterruptedException {
+        permits.acquire();
+        byte[] bytes;
+        try {
+            Optional<PreparedContent> stored = extractedContentStore.find(attachment);
+            if (stored.isPresent()) {
+                preprocessor.put(attachment.getS3ObjectKey(), stored.get());
+                return stored.get();
+            }
+            bytes = download(attachment);
+        } finally {
+            permits.release();
         }
+        PreparedContent prepared = preprocessor.prepare(attachment.getS3ObjectKey(), attachment.getContentType(),
+                bytes);
+        extractedContentStore.save(attachment, prepared);
+        return prepared;
+    }
 
-        return AiContextDto.builder()
-                .requestTitle(request.getTitle())
-                .requestDescription(request.getDescription())
-                .comments(commentContexts)
-                .attachments(attachmentContexts)
-                .userPrompt(userPrompt)
-                .build();
+    private byte[] download(Attachment attachment) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "failed";
+        try (AttachmentContent content = attachmentService.openAttachmentContent(attachment)) {
+            byte[] bytes = content.getStream().readAllBytes();
+            result = "success";
+            return bytes;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            sample.stop(meterRegistry.timer("ai.context.attachment_fetch", "result", result));
+        }
     }
 
-    private AttachmentContext buildAttachmentContext(Attachment attachment) {
+    private AttachmentContext buildAttachmentContext(Attachment attachment, Future<PreparedContent> fetch,
+            long deadlineNanos) {
         AttachmentContext context = AttachmentContext.builder()
                 .fileName(attachment.getFileName())
                 .contentType(attachment.getContentType())
+                .checksumSha256(attachment.getChecksumSha256())
                 .included(false)
                 .build();
 
+        if (fetch == null) {
+            String skipReason = skipReason(attachment);
+            context.setSkipReason(skipReason != null ? skipReason : MEMORY_BUDGET_SKIP_REASON);
+            return context;
+        }
+
+        PreparedContent prepared;
         try {
-            byte[] bytes = attachmentService.downloadAttachmentBytes(attachment.getId());
-            if (attachment.getContentType().startsWith("text/")
-                    || attachment.getContentType().equals("application/csv")) {
-                context.setTextContent(new String(bytes, StandardCharsets.UTF_8));
-                context.setIncluded(true);
-            } else if (attachment.getContentType().equals("application/pdf")
-                    || attachment.getContentType().startsWith("image/")) {
-                context.setContentBytes(bytes);
-                context.setIncluded(true);
-            } else {
-                context.setSkipReason("Unsupported content type for AI context.");
-            }
-        } catch (Exception e) {
-            log.warn("Failed to download bytes for attachment id {} in AI Context", attachment.getId(), e);
-            context.setSkipReason("Failed to extract content from S3: " + e.getMessage());
+            prepared = fetch.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | CancellationException e) {
+            // A cancelled fetch was abandoned at the deadline for an attachment sharing its object.
+            fetch.cancel(true);
+            meterRegistry.counter("ai.context.attachment_fetch.timeouts").increment();
+            log.warn("Timed out downloading attachment id {} for AI context", attachment.getId());
+            context.setSkipReason("Attachment download did not finish within the AI context deadline.");
+            return context;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            context.setSkipReason("Attachment download was interrupted.");
+            return context;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            log.warn("Failed to download bytes for attachment id {} in AI Context", attachment.getId(), cause);
+            context.setSkipReason("Failed to extract content from S3: " + cause.getMessage());
+            return context;
         }
 
+        context.setContentType(prepared.contentType());
+        context.setTextContent(prepared.textContent());
+        context.setContentBytes(prepared.contentBytes());
+        context.setIncluded(true);
         return context;
     }
+
+    /**
+     * Why an attachment is left out without being downloaded, or {@code null} if it is fetched.
+     */
+    private String skipReason(Attachment attachment) {
+        // PENDING and FAILED uploads may have no object behind them; skip them before any budget or fetch.
+        if (attachment.getState() != AttachmentState.ACTIVE) {
+            return "Attachment is not ready.";
+        }
+        String contentType = attachment.getContentType();
+        if (!AiAttachmentPreprocessor.isText(contentType) && !contentType.equals(AiAttachmentPreprocessor.PDF)
+                && !contentType.startsWith("image/")) {
+            return "Unsupported content type for AI context.";
+        }
+        if (attachment.getFileSize() > aiProperties.getContextAttachmentMaxBytes()) {
+            return "Attachment exceeds the AI context size limit of " + aiProperties.getContextAttachmentMaxBytes()
+                    + " bytes.";
+        }
+        return null;
+    }
+
+    private record RequestSnapshot(String title, String description, List<CommentContext> comments,
+            List<Attachment> attachments) {
+    }
+
+    private record FetchedAttachments(List<AttachmentContext> contexts, long reservedBytes) {
+    }
 }
@@ -0,0 +1,72 @@
+package com.suncorp.securehub.service.ai;
+
+import com.suncorp.securehub.config.AiProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node-wide cap on attachment bytes held by AI contexts between download and the
+ * end of the provider call. Reservations are counted in KiB permits so budgets
+ * above 2 GiB fit a {@link Semaphore}; the semaphore is fair, so a queued large
+ * reservation is not starved by a stream of small ones.
+ * <p>
+ * Published as {@code ai.context.memory.reserved_bytes} and
+ * {@code ai.context.memory.budget_bytes}.
+ */
+@Component
+public class AiContextMemoryBudget {
+
+    private static final long BYTES_PER_PERMIT = 1024;
+
+    private final Semaphore permits;
+    private final int totalPermits;
+
+    public AiContextMemoryBudget(AiProperties properties, MeterRegistry meterRegistry) {
+        long budgetPermits = toPermits(properties.getContextMemoryBudgetBytes());
+        if (budgetPermits > Integer.MAX_VALUE) {
+            throw new IllegalStateException("app.ai.context-memory-budget-bytes is too large");
+        }
+        this.totalPermits = (int) budgetPermits;
+        this.permits = new Semaphore(totalPermits, true);
+        Gauge.builder("ai.context.memory.reserved_bytes", this, AiContextMemoryBudget::reservedBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("ai.context.memory.budget_bytes", this, budget -> budget.totalPermits * BYTES_PER_PERMIT)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reserves {@code bytes}, waiting up to {@code wait} for other contexts to
+     * release theirs. Returns {@code false} if the budget stayed exhausted.
+     */
+    public boolean tryReserve(long bytes, Duration wait) throws InterruptedException {
+        long needed = toPermits(bytes);
+        if (needed > totalPermits) {
+            return false;
+        }
+        if (wait.isZero() || wait.isNegative()) {
+            return permits.tryAcquire((int) needed);
+        }
+        return permits.tryAcquire((int) needed, wait.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public void release(long bytes) {
+        if (bytes > 0) {
+            permits.release((int) toPermits(bytes));
+        }
+    }
+
+    long reservedBytes() {
+        return (totalPermits - permits.availablePermits()) * BYTES_PER_PERMIT;
+    }
+
+    private static long toPermits(long bytes) {
+        return (bytes + BYTES_PER_PERMIT - 1) / BYTES_PER_PERMIT;
+    }
+}
@@ -0,0 +1,207 @@
+package com.suncorp.securehub.service.ai;
+
+import com.suncorp.securehub.config.AiProperties;
+import com.suncorp.securehub.dto.AiContextDto;
+import com.suncorp.securehub.dto.AiContextDto.AttachmentContext;
+import com.suncorp.securehub.dto.AiContextDto.CommentContext;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Bounds the text of an AI context to a token budget per section, so prompt
+ * size and model latency stay bounded however long a thread grows:
+ * <ul>
+ * <li>the description is cut to {@code context-description-max-tokens};</li>
+ * <li>comments are kept newest first within {@code context-comments-max-tokens};
+ * the oldest comment kept may be cut, older ones are dropped and counted in
+ * {@link AiContextDto#getOmittedComments()};</li>
+ * <li>text attachments share {@code context-attachments-max-tokens} evenly,
+ * smaller ones keeping their full text; attachments with no share left are
+ * left out.</li>
+ * </ul>
+ * Tokens are estimated at {@value #CHARS_PER_TOKEN} characters each. Cut text
+ * ends in a fixed marker, so the same input always yields the same context and
+ * context hash. Binary attachments are not counted.
+ * <p>
+ * Publishes {@code ai.context.estimated_tokens} per context before and after
+ * truncation ({@code stage} raw or budgeted) and {@code ai.context.truncations},
+ * counting contexts cut per section.
+ */
+@Component
+public class AiContextTokenBudget {
+
+    static final int CHARS_PER_TOKEN = 4;
+    static final String TRUNCATION_MARKER = "\n[truncated: %d characters omitted]";
+    static final String BUDGET_SKIP_REASON = "AI context token budget is exhausted; attachment left out.";
+
+    private final AiProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary rawTokens;
+    private final DistributionSummary budgetedTokens;
+
+    public AiContextTokenBudget(AiProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.rawTokens = DistributionSummary.builder("ai.context.estimated_tokens")
+                .tag("stage", "raw")
+                .register(meterRegistry);
+        this.budgetedTokens = DistributionSummary.builder("ai.context.estimated_tokens")
+                .tag("stage", "budgeted")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether {@link #apply} would cut anything from {@code context}.
+     */
+    public boolean exceeds(AiContextDto context) {
+        long commentChars = 0;
+        if (context.getComments() != null) {
+            for (CommentContext comment : context.getComments()) {
+                commentChars += length(comment.getContent());
+            }
+        }
+        long attachmentChars = 0;
+        if (context.getAttachments() != null) {
+            for (AttachmentContext attachment : context.getAttachments()) {
+                attachmentChars += attachment.isIncluded() ? length(attachment.getTextContent()) : 0;
+            }
+        }
+        return length(context.getRequestDescription()) > chars(properties.getContextDescriptionMaxTokens())
+                || commentChars > chars(properties.getContextCommentsMaxTokens())
+                || attachmentChars > chars(properties.getContextAttachmentsMaxTokens());
+    }
+
+    /**
+     * Truncates {@code context} in place to the configured budgets.
+     */
+    public void apply(AiContextDto context) {
+        rawTokens.record(estimateTokens(context));
+
+        String description = context.getRequestDescription();
+        String cut = truncate(description, chars(properties.getContextDescriptionMaxTokens()));
+        if (cut != null && !cut.equals(description)) {
+            context.setRequestDescription(cut);
+            recordTruncation("description");
+        }
+        if (context.getComments() != null) {
+            applyToComments(context);
+        }
+        if (context.getAttachments() != null) {
+            applyToAttachments(context.getAttachments());
+        }
+
+        budgetedTokens.record(estimateTokens(context));
+    }
+
+    private void applyToComments(AiContextDto context) {
+        List<CommentContext> comments = context.getComments();
+        int remaining = chars(properties.getContextCommentsMaxTokens());
+        int kept = 0;
+        boolean truncated = false;
+        for (int i = comments.size() - 1; i >= 0 && remaining > 0; i--) {
+            CommentContext comment = comments.get(i);
+            int length = length(comment.getContent());
+            if (length > remaining) {
+                comment.setContent(truncate(comment.getContent(), remaining));
+                truncated = true;
+            }
+            remaining -= Math.min(length, remaining);
+            kept++;
+        }
+        int omitted = comments.size() - kept;
+        if (omitted > 0) {
+            context.setComments(new ArrayList<>(comments.subList(omitted, comments.size())));
+            context.setOmittedComments(context.getOmittedComments() + omitted);
+            truncated = true;
+        }
+        if (truncated) {
+            recordTruncation("comments");
+        }
+    }
+
+    /**
+     * Water-fills the budget over the text attachments, smallest first, so each
+     * gets an equal share of what the smaller ones leave unused.
+     */
+    private void applyToAttachments(List<AttachmentContext> attachments) {
+        List<AttachmentContext> texts = new ArrayList<>();
+        for (AttachmentContext attachment : attachments) {
+            if (attachment.isIncluded() && attachment.getTextContent() != null) {
+                texts.add(attachment);
+            }
+        }
+        // Stable sort: equal lengths keep their original order
+        texts.sort(Comparator.comparingInt(a -> a.getTextContent().length()));
+
+        int remaining = chars(properties.getContextAttachmentsMaxTokens());
+        boolean truncated = false;
+        for (int i = 0; i < texts.size(); i++) {
+            AttachmentContext attachment = texts.get(i);
+            int share = remaining / (texts.size() - i);
+            int length = attachment.getTextContent().length();
+            if (share == 0) {
+                attachment.setTextContent(null);
+                attachment.setIncluded(false);
+                attachment.setSkipReason(BUDGET_SKIP_REASON);
+                truncated = true;
+                continue;
+            }
+            if (length > share) {
+                attachment.setTextContent(truncate(attachment.getTextContent(), share));
+                truncated = true;
+            }
+            remaining -= Math.min(length, share);
+        }
+        if (truncated) {
+            recordTruncation("attachments");
+        }
+    }
+
+    /**
+     * {@code text} cut to {@code maxChars} followed by the truncation marker, or
+     * unchanged if it fits.
+     */
+    static String truncate(String text, int maxChars) {
+        if (text == null || text.length() <= maxChars) {
+            return text;
+        }
+        int end = maxChars;
+        if (end > 0 && Character.isHighSurrogate(text.charAt(end - 1))) {
+            end--; // do not split a surrogate pair
+        }
+        return text.substring(0, end) + TRUNCATION_MARKER.formatted(text.length() - end);
+    }
+
+    static long estimateTokens(AiContextDto context) {
+        long chars = length(context.getRequestTitle()) + length(context.getRequestDescription())
+                + length(context.getPriorSummary()) + length(context.getUserPrompt());
+        if (context.getComments() != null) {
+            for (CommentContext comment : context.getComments()) {
+                chars += length(comment.getContent());
+            }
+        }
+        if (context.getAttachments() != null) {
+            for (AttachmentContext attachment : context.getAttachments()) {
+                chars += length(attachment.getTextContent());
+            }
+        }
+        return (chars + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    static int chars(int tokens) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) tokens * CHARS_PER_TOKEN);
+    }
+
+    static int length(String text) {
+        return text != null ? text.length() : 0;
+    }
+
+    private void recordTruncation(String section) {
+        meterRegistry.counter("ai.context.truncations", "section", section).increment();
+    }
+}
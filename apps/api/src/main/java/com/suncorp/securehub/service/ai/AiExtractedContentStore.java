@@ -0,0 +1,86 @@
+package com.suncorp.securehub.service.ai;
+
+import com.suncorp.securehub.config.AiProperties;
+import com.suncorp.securehub.entity.Attachment;
+import com.suncorp.securehub.entity.AttachmentExtractedContent;
+import com.suncorp.securehub.repository.AttachmentExtractedContentRepository;
+import com.suncorp.securehub.service.ai.AiAttachmentPreprocessor.PreparedContent;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Persistent tier behind the {@link AiAttachmentPreprocessor} cache: derived
+ * content of each attachment (extracted text, downscaled images) is kept in
+ * {@code attachment_extracted_content}, so AI runs on any node read a small,
+ * ready-to-use payload instead of downloading and decoding the object again.
+ * <p>
+ * Rows are written lazily, the first time an AI context reads an attachment,
+ * and only for derived content of at most {@code context-extracted-content-max-bytes};
+ * content sent as stored is read from storage each time. A row is ignored once
+ * the attachment's checksum or object key change, and is deleted with the
+ * attachment by {@code AttachmentService}. The store is best effort: database
+ * errors fall back to downloading. Lookups are counted as
+ * {@code ai.context.extracted_store.requests} by result.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AiExtractedContentStore {
+
+    private final AttachmentExtractedContentRepository repository;
+    private final AiProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public Optional<PreparedContent> find(Attachment attachment) {
+        Optional<PreparedContent> found;
+        try {
+            found = repository.findById(attachment.getId())
+                    .filter(row -> matches(row, attachment))
+                    .map(row -> new PreparedContent(row.getContentType(), row.getTextContent(),
+                            row.getContentBytes(), true));
+        } catch (DataAccessException ex) {
+            log.warn("Failed to read extracted content of attachment id {}", attachment.getId(), ex);
+            record("error");
+            return Optional.empty();
+        }
+        record(found.isPresent() ? "hit" : "miss");
+        return found;
+    }
+
+    /**
+     * Keeps {@code prepared} for later runs if it is derived content within the size limit.
+     */
+    public void save(Attachment attachment, PreparedContent prepared) {
+        if (!prepared.derived() || prepared.size() > properties.getContextExtractedContentMaxBytes()) {
+            return;
+        }
+        try {
+            // Replaces a stale row; a concurrent save of the same attachment may win instead
+            repository.save(AttachmentExtractedContent.builder()
+                    .attachmentId(attachment.getId())
+                    .sourceChecksum(attachment.getChecksumSha256())
+                    .s3ObjectKey(attachment.getS3ObjectKey())
+                    .contentType(prepared.contentType())
+                    .textContent(prepared.textContent())
+                    .contentBytes(prepared.contentBytes())
+                    .build());
+        } catch (DataAccessException ex) {
+            log.debug("Did not store extracted content of attachment id {}", attachment.getId(), ex);
+        }
+    }
+
+    private static boolean matches(AttachmentExtractedContent row, Attachment attachment) {
+        return Objects.equals(row.getSourceChecksum(), attachment.getChecksumSha256())
+                && row.getS3ObjectKey().equals(attachment.getS3ObjectKey());
+    }
+
+    private void record(String result) {
+        meterRegistry.counter("ai.context.extracted_store.requests", "result", result).increment();
+    }
+}
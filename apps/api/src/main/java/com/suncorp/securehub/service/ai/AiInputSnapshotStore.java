@@ -0,0 +1,171 @@
+package com.suncorp.securehub.service.ai;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.suncorp.securehub.config.AiProperties;
+import com.suncorp.securehub.dto.AiContextDto;
+import com.suncorp.securehub.dto.AiContextDto.AttachmentContext;
+import com.suncorp.securehub.repository.AiInputSnapshotRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.OffsetDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the inputs of AI runs compact. The full context of a run is stored in
+ * {@code ai_input_snapshots} as gzip-compressed JSON keyed by its SHA-256, so
+ * repeated runs over an unchanged request share one row; the run itself keeps
+ * only a small JSON summary (counts, sizes, summary mode and the snapshot hash)
+ * in {@code input_snapshot}. The read time of the context is per run, so it is
+ * left out of the snapshot and kept in the summary.
+ * <p>
+ * Snapshots not used by any run for {@code input-snapshot-retention} are pruned
+ * by a scheduled job in batches of {@code input-snapshot-prune-batch-size}, each
+ * in its own transaction; the run summaries stay. Publishes
+ * {@code ai.input_snapshots.compressed_bytes} per stored snapshot and
+ * {@code ai.input_snapshots.pruned}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AiInputSnapshotStore {
+
+    private final AiInputSnapshotRepository repository;
+    private final ObjectMapper objectMapper;
+    private final AiProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Stores {@code context} unless an identical snapshot exists and returns the
+     * summary to keep on the run. If the snapshot cannot be written, the summary
+     * is returned without a hash.
+     */
+    public Snapshot store(AiContextDto context) throws JsonProcessingException {
+        ObjectNode full = objectMapper.valueToTree(context);
+        full.remove("contextAsOf");
+        byte[] json = objectMapper.writeValueAsBytes(full);
+        byte[] compressed = gzip(json);
+        String contentHash = sha256Hex(json);
+
+        String storedHash = null;
+        try {
+            transactionTemplate.execute(status -> repository.upsert(contentHash, compressed, json.length));
+            storedHash = contentHash;
+            meterRegistry.summary("ai.input_snapshots.compressed_bytes").record(compressed.length);
+        } catch (DataAccessException ex) {
+            log.warn("Failed to store AI input snapshot; keeping only its summary", ex);
+        }
+        return new Snapshot(storedHash, summary(context, storedHash, json.length, compressed.length));
+    }
+
+    /**
+     * The full context JSON stored under {@code contentHash}, unless pruned.
+     */
+    public Optional<String> load(String contentHash) {
+        return repository.findById(contentHash)
+                .map(snapshot -> new String(gunzip(snapshot.getCompressed()), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Deletes snapshots unused for {@code input-snapshot-retention}. Each batch
+     * commits on its own and locked rows are skipped, so nodes may run the job at
+     * once; a failed batch leaves the rest for the next run.
+     */
+    @Scheduled(cron = "${app.ai.input-snapshot-prune-cron:0 15 3 * * *}")
+    public void pruneUnusedSnapshots() {
+        OffsetDateTime cutoff = OffsetDateTime.now().minus(properties.getInputSnapshotRetention());
+        int batchSize = properties.getInputSnapshotPruneBatchSize();
+        long pruned = 0;
+        while (true) {
+            Integer deleted;
+            try {
+                deleted = transactionTemplate.execute(status -> repository.deleteUnusedBefore(cutoff, batchSize));
+            } catch (DataAccessException ex) {
+                log.warn("AI input snapshot prune batch failed; remaining rows are left for the next run", ex);
+                break;
+            }
+            if (deleted == null || deleted == 0) {
+                break;
+            }
+            pruned += deleted;
+            meterRegistry.counter("ai.input_snapshots.pruned").increment(deleted);
+            if (deleted < batchSize) {
+                break;
+            }
+        }
+        if (pruned > 0) {
+            log.info("Pruned {} AI input snapshots unused since {}", pruned, cutoff);
+        }
+    }
+
+    private String summary(AiContextDto context, String contentHash, int originalBytes, int compressedBytes)
+            throws JsonProcessingException {
+        List<AttachmentContext> attachments = context.getAttachments() != null ? context.getAttachments() : List.of();
+        ObjectNode summary = objectMapper.createObjectNode();
+        summary.put("snapshotHash", contentHash);
+        summary.put("summaryMode", context.getSummaryMode());
+        summary.set("contextAsOf", objectMapper.valueToTree(context.getContextAsOf()));
+        summary.put("incremental", context.getPriorSummary() != null);
+        summary.put("customPrompt", context.getUserPrompt() != null && !context.getUserPrompt().isBlank());
+        summary.put("commentCount", context.getComments() != null ? context.getComments().size() : 0);
+        summary.put("omittedComments", context.getOmittedComments());
+        summary.put("attachmentCount", attachments.size());
+        summary.put("includedAttachmentCount", attachments.stream().filter(AttachmentContext::isIncluded).count());
+        summary.put("estimatedTokens", AiContextTokenBudget.estimateTokens(context));
+        summary.put("originalBytes", originalBytes);
+        summary.put("compressedBytes", compressedBytes);
+        return objectMapper.writeValueAsString(summary);
+    }
+
+    static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] gunzip(byte[] data) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return gzip.readAllBytes();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static String sha256Hex(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    /**
+     * @param contentHash key of the stored snapshot, or {@code null} if it was not stored
+     * @param summaryJson what the run keeps in {@code input_snapshot}
+     */
+    public record Snapshot(String contentHash, String summaryJson) {
+    }
+}
@@ -0,0 +1,151 @@
+package com.suncorp.securehub.service.ai;
+
+import com.suncorp.securehub.config.AiProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded worker pool for async AI runs with per-user fair scheduling. Each user
+ * has a FIFO queue and workers take from the users in round-robin order, so one
+ * user submitting many runs delays their own runs rather than everyone else's.
+ * <p>
+ * Publishes {@code ai.jobs.queue_depth}, the {@code ai.jobs.wait} timer from
+ * submission to start, and {@code ai.jobs.run} for execution time.
+ */
+@Slf4j
+@Component
+public class AiJobScheduler {
+
+    private final AiProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Timer waitTimer;
+    private final Timer runTimer;
+    private final ExecutorService workers;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition jobAvailable = lock.newCondition();
+    private final Map<String, ArrayDeque<QueuedJob>> queuesByUser = new HashMap<>();
+    private final ArrayDeque<String> userRotation = new ArrayDeque<>();
+    private int queuedJobs;
+
+    public AiJobScheduler(AiProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.waitTimer = meterRegistry.timer("ai.jobs.wait");
+        this.runTimer = meterRegistry.timer("ai.jobs.run");
+        Gauge.builder("ai.jobs.queue_depth", this, AiJobScheduler::queueDepth).register(meterRegistry);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "ai-job-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.workers = Executors.newFixedThreadPool(properties.getAsyncWorkers(), threadFactory);
+        for (int i = 0; i < properties.getAsyncWorkers(); i++) {
+            workers.execute(this::workLoop);
+        }
+    }
+
+    /**
+     * Queues {@code job} for {@code username}. Returns {@code false} without
+     * queueing when the node queue or the user's share of it is full.
+     */
+    public boolean trySubmit(String username, Runnable job) {
+        lock.lock();
+        try {
+            ArrayDeque<QueuedJob> userQueue = queuesByUser.get(username);
+            int userQueued = userQueue != null ? userQueue.size() : 0;
+            if (queuedJobs >= properties.getAsyncQueueCapacity()
+                    || userQueued >= properties.getAsyncMaxQueuedPerUser()) {
+                meterRegistry.counter("ai.jobs.rejected").increment();
+                return false;
+            }
+            if (userQueue == null) {
+                userQueue = new ArrayDeque<>();
+                queuesByUser.put(username, userQueue);
+                userRotation.addLast(username);
+            }
+            userQueue.addLast(new QueuedJob(job, System.nanoTime()));
+            queuedJobs++;
+            jobAvailable.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int queueDepth() {
+        lock.lock();
+        try {
+            return queuedJobs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void workLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            QueuedJob job;
+            try {
+                job = take();
+            } catch (InterruptedException ex) {
+                return;
+            }
+            waitTimer.record(System.nanoTime() - job.queuedAtNanos(), TimeUnit.NANOSECONDS);
+            try {
+                runTimer.record(job.job());
+            } catch (RuntimeException ex) {
+                log.error("Async AI job failed unexpectedly", ex);
+            }
+        }
+    }
+
+    /**
+     * Takes the next job of the user at the head of the rotation; a user with
+     * more queued jobs goes back to the tail.
+     */
+    private QueuedJob take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (userRotation.isEmpty()) {
+                jobAvailable.await();
+            }
+            String username = userRotation.pollFirst();
+            ArrayDeque<QueuedJob> userQueue = queuesByUser.get(username);
+            QueuedJob job = userQueue.pollFirst();
+            if (userQueue.isEmpty()) {
+                queuesByUser.remove(username);
+            } else {
+                userRotation.addLast(username);
+            }
+            queuedJobs--;
+            return job;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private record QueuedJob(Runnable job, long queuedAtNanos) {
+    }
+}
@@ -0,0 +1,323 @@
+package com.suncorp.securehub.service.ai;
+
+import com.suncorp.securehub.config.AiProperties;
+import com.suncorp.securehub.dto.AiContextDto;
+import com.suncorp.securehub.dto.AiContextDto.AttachmentContext;
+import com.suncorp.securehub.dto.AiContextDto.CommentContext;
+import com.suncorp.securehub.dto.AiSummarizeResponseDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Summarizes requests too long for one model call without truncating them. A
+ * context built with summary mode {@value #MAP_REDUCE} (see
+ * {@link AiContextBuilder#buildSummaryContext}) is split into parts of at most
+ * {@code summary-part-max-tokens}: the description, then comments in order, then
+ * text attachments, long texts cut into consecutive pieces and every binary
+ * attachment in a part of its own. The parts are summarized in parallel, at most
+ * {@code summary-map-concurrency} calls at a time, and a final call combines the
+ * partial summaries, so a summary takes about as long as a few sequential calls
+ * however many parts there are. Partial summaries too long for one call are
+ * first combined in groups.
+ * <p>
+ * More than {@code summary-max-parts} parts are not summarized: the first part
+ * (with the description) and the newest ones are kept, and the final call is
+ * told how many comments were left out entirely; a long comment with any piece
+ * kept does not count. Other contexts are passed straight to
+ * the provider.
+ * <p>
+ * Publishes {@code ai.summary.map_reduce.parts} per summary and
+ * {@code ai.summary.map_reduce.calls} by phase (map or reduce).
+ */
+@Slf4j
+@Component
+public class AiMapReduceSummarizer {
+
+    public static final String MAP_REDUCE = "MAP_REDUCE";
+
+    private final AiAssistProvider provider;
+    private final AiProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+
+    public AiMapReduceSummarizer(AiAssistProvider provider, AiProperties properties, MeterRegistry meterRegistry) {
+        this.provider = provider;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public CompletableFuture<AiSummarizeResponseDto> summarizeAsync(AiContextDto context) {
+        if (!MAP_REDUCE.equals(context.getSummaryMode())) {
+            return provider.summarizeAsync(context);
+        }
+        return CompletableFuture.supplyAsync(() -> mapReduce(context, null), virtualThreads);
+    }
+
+    public AiSummarizeResponseDto summarize(AiContextDto context) {
+        return MAP_REDUCE.equals(context.getSummaryMode()) ? mapReduce(context, null) : provider.summarize(context);
+    }
+
+    /**
+     * Streaming variant: for a map-reduce summary only the final call streams.
+     */
+    public AiSummarizeResponseDto summarize(AiContextDto context, Consumer<String> onDelta) {
+        return MAP_REDUCE.equals(context.getSummaryMode())
+                ? mapReduce(context, onDelta)
+                : provider.summarize(context, onDelta);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        virtualThreads.shutdownNow();
+    }
+
+    private AiSummarizeResponseDto mapReduce(AiContextDto context, Consumer<String> onDelta) {
+        long startNanos = System.nanoTime();
+        int maxChars = AiContextTokenBudget.chars(properties.getSummaryPartMaxTokens());
+
+        Map<CommentContext, Integer> commentSources = new IdentityHashMap<>();
+        List<AiContextDto> parts = split(context, maxChars, commentSources);
+        meterRegistry.summary("ai.summary.map_reduce.parts").record(parts.size());
+        int omittedComments = context.getOmittedComments();
+        int maxParts = properties.getSummaryMaxParts();
+        if (parts.size() > maxParts) {
+            List<AiContextDto> dropped = parts.subList(1, parts.size() - (maxParts - 1));
+            Set<Integer> droppedComments = sourceComments(dropped, commentSources);
+            log.warn("Summarizing {} of {} parts of request '{}'; the rest exceed summary-max-parts",
+                    maxParts, parts.size(), context.getRequestTitle());
+            dropped.clear();
+            droppedComments.removeAll(sourceComments(parts, commentSources));
+            omittedComments += droppedComments.size();
+        }
+        for (int i = 0; i < parts.size(); i++) {
+            parts.get(i).setPart((i + 1) + "/" + parts.size());
+        }
+
+        List<String> partials = summarizeAll(parts, "map");
+        while (partials.size() > 2 && totalLength(partials) > maxChars) {
+            partials = summarizeAll(groups(context, partials, maxChars), "reduce");
+        }
+
+        AiContextDto combine = combineContext(context, partials);
+        combine.setUserPrompt(context.getUserPrompt());
+        combine.setOmittedComments(omittedComments);
+        meterRegistry.counter("ai.summary.map_reduce.calls", "phase", "reduce").increment();
+        AiSummarizeResponseDto response = onDelta != null
+                ? provider.summarize(combine, onDelta)
+                : provider.summarize(combine);
+        response.setLatencyMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return response;
+    }
+
+    /**
+     * Summarizes each context, at most {@code summary-map-concurrency} at once;
+     * the first failure fails the whole summary and stops calls not yet started.
+     */
+    private List<String> summarizeAll(List<AiContextDto> contexts, String phase) {
+        Semaphore permits = new Semaphore(properties.getSummaryMapConcurrency());
+        AtomicBoolean failed = new AtomicBoolean();
+        List<CompletableFuture<String>> calls = new ArrayList<>(contexts.size());
+        for (AiContextDto context : contexts) {
+            calls.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new CompletionException(ex);
+                }
+                try {
+                    if (failed.get()) {
+                        throw new IllegalStateException("Another part of the summary failed");
+                    }
+                    meterRegistry.counter("ai.summary.map_reduce.calls", "phase", phase).increment();
+                    return provider.summarize(context).getSummary();
+                } catch (RuntimeException ex) {
+                    failed.set(true);
+                    throw ex;
+                } finally {
+                    permits.release();
+                }
+            }, virtualThreads));
+        }
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).join();
+        return calls.stream().map(CompletableFuture::join).toList();
+    }
+
+    /**
+     * Splits the text of {@code context} into consecutive parts of at most
+     * {@code maxChars}, recording in {@code commentSources} the index of the
+     * comment each comment piece came from.
+     */
+    private static List<AiContextDto> split(AiContextDto context, int maxChars,
+            Map<CommentContext, Integer> commentSources) {
+        List<AiContextDto> parts = new ArrayList<>();
+        AiContextDto current = newPart(context, parts);
+        int used = 0;
+
+        for (String piece : pieces(context.getRequestDescription(), maxChars)) {
+            if (used > 0) {
+                current = newPart(context, parts);
+                used = 0;
+            }
+            current.setRequestDescription(piece);
+            used = piece.length();
+        }
+
+        List<CommentContext> comments = context.getComments() != null ? context.getComments() : List.of();
+        for (int i = 0; i < comments.size(); i++) {
+            CommentContext comment = comments.get(i);
+            for (String piece : pieces(comment.getContent(), maxChars)) {
+                if (used > 0 && used + piece.length() > maxChars) {
+                    current = newPart(context, parts);
+                    used = 0;
+                }
+                CommentContext commentPiece = CommentContext.builder()
+                        .author(comment.getAuthor())
+                        .createdAt(comment.getCreatedAt())
+                        .content(piece)
+                        .build();
+                current.getComments().add(commentPiece);
+                commentSources.put(commentPiece, i);
+                used += piece.length();
+            }
+        }
+
+        List<AttachmentContext> attachments = context.getAttachments() != null ? context.getAttachments() : List.of();
+        for (AttachmentContext attachment : attachments) {
+            if (!attachment.isIncluded()) {
+                continue;
+            }
+            if (attachment.getTextContent() == null) {
+                // Binary content cannot be measured in characters; give it a part of its own
+                if (used > 0) {
+                    current = newPart(context, parts);
+                }
+                current.getAttachments().add(attachment);
+                used = maxChars;
+                continue;
+            }
+            List<String> pieces = pieces(attachment.getTextContent(), maxChars);
+            for (int i = 0; i < pieces.size(); i++) {
+                String piece = pieces.get(i);
+                if (used > 0 && used + piece.length() > maxChars) {
+                    current = newPart(context, parts);
+                    used = 0;
+                }
+                current.getAttachments().add(AttachmentContext.builder()
+                        .fileName(pieces.size() > 1
+                                ? attachment.getFileName() + " (part " + (i + 1) + " of " + pieces.size() + ")"
+                                : attachment.getFileName())
+                        .contentType(attachment.getContentType())
+                        .checksumSha256(attachment.getChecksumSha256())
+                        .textContent(piece)
+                        .included(true)
+                        .build());
+                used += piece.length();
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * Indexes of the source comments with a piece in {@code parts}.
+     */
+    private static Set<Integer> sourceComments(List<AiContextDto> parts, Map<CommentContext, Integer> commentSources) {
+        Set<Integer> indexes = new HashSet<>();
+        for (AiContextDto part : parts) {
+            for (CommentContext piece : part.getComments()) {
+                indexes.add(commentSources.get(piece));
+            }
+        }
+        return indexes;
+    }
+
+    private static AiContextDto newPart(AiContextDto context, List<AiContextDto> parts) {
+        AiContextDto part = AiContextDto.builder()
+                .requestTitle(context.getRequestTitle())
+                .comments(new ArrayList<>())
+                .attachments(new ArrayList<>())
+                .build();
+        parts.add(part);
+        return part;
+    }
+
+    /**
+     * {@code text} in consecutive pieces of at most {@code maxChars}, never
+     * splitting a surrogate pair.
+     */
+    static List<String> pieces(String text, int maxChars) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        List<String> pieces = new ArrayList<>();
+        int start = 0;
+        while (start < text.length()) {
+            int end = Math.min(text.length(), start + maxChars);
+            if (end < text.length() && end - start > 1 && Character.isHighSurrogate(text.charAt(end - 1))) {
+                end--;
+            }
+            pieces.add(text.substring(start, end));
+            start = end;
+        }
+        return pieces;
+    }
+
+    /**
+     * Consecutive partial summaries grouped to at most {@code maxChars} each, with
+     * at least two per group so every round of combining shrinks the list.
+     */
+    private static List<AiContextDto> groups(AiContextDto context, List<String> partials, int maxChars) {
+        List<AiContextDto> groups = new ArrayList<>();
+        List<String> group = new ArrayList<>();
+        int used = 0;
+        for (String partial : partials) {
+            if (group.size() >= 2 && used + partial.length() > maxChars) {
+                groups.add(combineContext(context, group));
+                group = new ArrayList<>();
+                used = 0;
+            }
+            group.add(partial);
+            used += partial.length();
+        }
+        if (group.size() == 1 && !groups.isEmpty()) {
+            groups.get(groups.size() - 1).getPartialSummaries().add(group.get(0));
+        } else {
+            groups.add(combineContext(context, group));
+        }
+        return groups;
+    }
+
+    private static AiContextDto combineContext(AiContextDto context, List<String> partials) {
+        return AiContextDto.builder()
+                .requestTitle(context.getRequestTitle())
+                .comments(new ArrayList<>())
+                .attachments(new ArrayList<>())
+                .partialSummaries(new ArrayList<>(partials))
+                .build();
+    }
+
+    private static long totalLength(List<String> texts) {
+        long total = 0;
+        for (String text : texts) {
+            total += text != null ? text.length() : 0;
+        }
+        return total;
+    }
+}
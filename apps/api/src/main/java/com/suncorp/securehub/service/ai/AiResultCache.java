@@ -0,0 +1,185 @@
+package com.suncorp.securehub.service.ai;
+
+import com.suncorp.securehub.config.AiProperties;
+import com.suncorp.securehub.dto.AiContextDto;
+import com.suncorp.securehub.dto.AiContextDto.AttachmentContext;
+import com.suncorp.securehub.dto.AiContextDto.CommentContext;
+import com.suncorp.securehub.entity.AiAssistRun;
+import com.suncorp.securehub.repository.AiAssistRunRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.OffsetDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cache of AI action results, so repeating an action on an unchanged request
+ * reuses the earlier answer instead of paying for another provider call. Entries
+ * are keyed by request, action, prompt version, model and a SHA-256 of the AI
+ * context ({@link #contextHash}), which covers the text sent to the model and
+ * the checksum of every included attachment.
+ * <p>
+ * A node-local LRU of serialised responses sits in front of the SUCCESS rows in
+ * {@code ai_assist_runs}, which make results survive restarts and be shared
+ * across nodes. Lookups are counted as {@code ai.result_cache.requests} by
+ * action and result.
+ */
+@Component
+public class AiResultCache {
+
+    private final AiAssistRunRepository aiAssistRunRepository;
+    private final AiProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final LinkedHashMap<Key, CachedResult> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, CachedResult> eldest) {
+            return size() > properties.getResultCacheMaxEntries();
+        }
+    };
+
+    public AiResultCache(
+            AiAssistRunRepository aiAssistRunRepository,
+            AiProperties properties,
+            MeterRegistry meterRegistry) {
+        this.aiAssistRunRepository = aiAssistRunRepository;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Serialised response of an earlier run for {@code key} within the TTL, if any.
+     */
+    public Optional<String> get(Key key) {
+        if (!properties.isResultCacheEnabled()) {
+            return Optional.empty();
+        }
+        OffsetDateTime notBefore = OffsetDateTime.now().minus(properties.getResultCacheTtl());
+
+        CachedResult cached;
+        synchronized (this) {
+            cached = entries.get(key);
+        }
+        if (cached != null && cached.generatedAt().isAfter(notBefore)) {
+            record(key, "hit");
+            return Optional.of(cached.outputJson());
+        }
+
+        Optional<AiAssistRun> run = aiAssistRunRepository.findLatestSuccess(key.requestId(), key.actionType(),
+                        key.promptVersion(), key.modelId(), key.contextHash(), notBefore)
+                .filter(r -> r.getOutputPayload() != null);
+        if (run.isEmpty()) {
+            record(key, "miss");
+            return Optional.empty();
+        }
+        synchronized (this) {
+            entries.put(key, new CachedResult(run.get().getOutputPayload(), run.get().getCreatedAt()));
+        }
+        record(key, "persisted_hit");
+        return Optional.of(run.get().getOutputPayload());
+    }
+
+    /**
+     * Remembers a freshly generated result. The persistent tier is the run row
+     * the caller saves with {@code key.contextHash()}.
+     */
+    public void put(Key key, String outputJson) {
+        if (!properties.isResultCacheEnabled() || outputJson == null) {
+            return;
+        }
+        synchronized (this) {
+            entries.put(key, new CachedResult(outputJson, OffsetDateTime.now()));
+        }
+    }
+
+    public void recordBypass(String actionType) {
+        meterRegistry.counter("ai.result_cache.requests", "action", actionType, "result", "bypass").increment();
+    }
+
+    /**
+     * Hex SHA-256 over everything in {@code context} that reaches the model. An
+     * included attachment contributes its recorded checksum, or its content when
+     * none was recorded; a skipped one contributes only its name and type.
+     */
+    public static String contextHash(AiContextDto context) {
+        MessageDigest digest = sha256();
+        update(digest, context.getRequestTitle());
+        update(digest, context.getRequestDescription());
+        update(digest, context.getUserPrompt());
+
+        List<CommentContext> comments = context.getComments() != null ? context.getComments() : List.of();
+        update(digest, String.valueOf(comments.size()));
+        for (CommentContext comment : comments) {
+            update(digest, comment.getAuthor());
+            update(digest, comment.getCreatedAt());
+            update(digest, comment.getContent());
+        }
+
+        List<AttachmentContext> attachments = context.getAttachments() != null ? context.getAttachments() : List.of();
+        update(digest, String.valueOf(attachments.size()));
+        for (AttachmentContext attachment : attachments) {
+            update(digest, attachment.getFileName());
+            update(digest, attachment.getContentType());
+            update(digest, String.valueOf(attachment.isIncluded()));
+            if (!attachment.isIncluded()) {
+                continue;
+            }
+            if (attachment.getChecksumSha256() != null) {
+                update(digest, attachment.getChecksumSha256());
+            } else if (attachment.getTextContent() != null) {
+                update(digest, attachment.getTextContent());
+            } else {
+                update(digest, attachment.getContentBytes());
+            }
+        }
+        if (context.getPriorSummary() != null) {
+            // Appended only when present, so hashes of full contexts stay as they were
+            update(digest, context.getPriorSummary());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        update(digest, value != null ? value.getBytes(StandardCharsets.UTF_8) : null);
+    }
+
+    /**
+     * Length-prefixed, so adjacent fields cannot run into each other.
+     */
+    private static void update(MessageDigest digest, byte[] value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        digest.update((byte) 1);
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(value.length).array());
+        digest.update(value);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private void record(Key key, String result) {
+        meterRegistry.counter("ai.result_cache.requests", "action", key.actionType(), "result", result)
+                .increment();
+    }
+
+    public record Key(Long requestId, String actionType, String promptVersion, String modelId,
+            String contextHash) {
+    }
+
+    private record CachedResult(String outputJson, OffsetDateTime generatedAt) {
+    }
+}
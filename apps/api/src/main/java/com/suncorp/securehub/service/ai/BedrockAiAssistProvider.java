@@ -7,19 +7,25 @@ import com.suncorp.securehub.dto.AiDraftResponseDto;
 import com.suncorp.securehub.dto.AiSuggestTagsResponseDto;
 import com.suncorp.securehub.dto.AiSummarizeResponseDto;
 import com.suncorp.securehub.exception.BadRequestException;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.bedrockruntime.BedrockRuntimeClient;
+import software.amazon.awssdk.services.bedrockruntime.BedrockRuntimeAsyncClient;
 import software.amazon.awssdk.services.bedrockruntime.model.*;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
@@ -27,33 +33,102 @@ import java.util.UUID;
 public class BedrockAiAssistProvider implements AiAssistProvider {
 
     private final String modelId;
-    private final BedrockRuntimeClient bedrockClient;
+    private final BedrockRuntimeAsyncClient bedrockClient;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    /**
+     * All calls go through the async client on a Netty event loop, so an in-flight
+     * Bedrock call holds a pooled connection but no thread. The blocking methods
+     * join the async ones.
+     */
     public BedrockAiAssistProvider(
             @Value("${app.ai.bedrock.model-id:anthropic.claude-sonnet-4-6}") String modelId,
-            @Value("${app.ai.bedrock.aws-region:ap-southeast-2}") String regionStr) {
+            @Value("${app.ai.bedrock.aws-region:ap-southeast-2}") String regionStr,
+            @Value("${app.ai.bedrock.max-concurrency:200}") int maxConcurrency,
+            @Value("${app.ai.bedrock.max-pending-acquires:2000}") int maxPendingAcquires,
+            @Value("${app.ai.bedrock.connection-acquisition-timeout:PT10S}") Duration acquisitionTimeout,
+            @Value("${app.ai.bedrock.read-timeout:PT2M}") Duration readTimeout) {
         this.modelId = modelId;
-        this.bedrockClient = BedrockRuntimeClient.builder()
+        this.bedrockClient = BedrockRuntimeAsyncClient.builder()
                 .region(Region.of(regionStr))
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(maxConcurrency)
+                        .maxPendingConnectionAcquires(maxPendingAcquires)
+                        .connectionAcquisitionTimeout(acquisitionTimeout)
+                        // Non-streaming Converse sends nothing until the whole completion is ready
+                        .readTimeout(readTimeout)
+                        .tcpKeepAlive(true))
                 .build();
     }
 
+    @PreDestroy
+    public void close() {
+        bedrockClient.close();
+    }
+
     @Override
     public AiSummarizeResponseDto summarize(AiContextDto context) {
-        String prompt = "Please summarize the following support request. Respond only with the summary text, do not include any other markdown or pleasantries. If the request content is in Chinese, respond in Chinese; otherwise default to English.\n\n"
-                + buildXmlContext(context);
+        return join(summarizeAsync(context));
+    }
+
+    @Override
+    public CompletableFuture<AiSummarizeResponseDto> summarizeAsync(AiContextDto context) {
+        long start = System.currentTimeMillis();
+        return callConverse(summarizePrompt(context), context)
+                .thenApply(response -> summaryResponse(response, System.currentTimeMillis() - start));
+    }
+
+    @Override
+    public AiSummarizeResponseDto summarize(AiContextDto context, Consumer<String> onDelta) {
+        long start = System.currentTimeMillis();
+        String response = callConverseStream(summarizePrompt(context), context, onDelta);
+        return summaryResponse(response, System.currentTimeMillis() - start);
+    }
+
+    private String summarizePrompt(AiContextDto context) {
+        String rules = "Respond only with the summary text, do not include any other markdown or pleasantries. If the request content is in Chinese, respond in Chinese; otherwise default to English.\n\n";
+        String prompt;
+        if (context.getPartialSummaries() != null) {
+            prompt = combinePrompt(context, rules);
+        } else if (context.getPart() != null) {
+            prompt = "The following is part " + context.getPart() + " of a long support request. Summarize this "
+                    + "part only, keeping facts, decisions and open questions; the part summaries are combined "
+                    + "afterwards. " + rules + buildXmlContext(context);
+        } else {
+            prompt = context.getPriorSummary() != null
+                    ? "Below is an earlier summary of a support request, followed by the activity since it was "
+                            + "written (and the description, if it changed). Update the summary to reflect the new "
+                            + "activity. " + rules
+                            + "<previous_summary>" + context.getPriorSummary() + "</previous_summary>\n"
+                            + buildXmlContext(context)
+                    : "Please summarize the following support request. " + rules + buildXmlContext(context);
+        }
 
         if (context.getUserPrompt() != null && !context.getUserPrompt().isEmpty()) {
             prompt += "\nUser extra instructions: " + context.getUserPrompt();
         }
+        return prompt;
+    }
 
-        long start = System.currentTimeMillis();
-        String response = callConverse(prompt, context);
-        long latency = System.currentTimeMillis() - start;
+    private String combinePrompt(AiContextDto context, String rules) {
+        StringBuilder sb = new StringBuilder("The following are summaries of consecutive parts of one long support "
+                + "request, in order. Combine them into one summary of the whole request. " + rules);
+        sb.append("<request_title>").append(context.getRequestTitle()).append("</request_title>\n");
+        if (context.getOmittedComments() > 0) {
+            sb.append("<omitted_comments count=\"").append(context.getOmittedComments())
+                    .append("\">Comments between the first and the later parts were left out.</omitted_comments>\n");
+        }
+        List<String> partials = context.getPartialSummaries();
+        for (int i = 0; i < partials.size(); i++) {
+            sb.append("<part_summary index=\"").append(i + 1).append("\">").append(partials.get(i))
+                    .append("</part_summary>\n");
+        }
+        return sb.toString();
+    }
 
+    private AiSummarizeResponseDto summaryResponse(String summary, long latency) {
         return AiSummarizeResponseDto.builder()
-                .summary(response)
+                .summary(summary)
                 .runId(UUID.randomUUID().toString())
                 .provider(getProviderName())
                 .model(getModelId())
@@ -64,6 +139,11 @@ public class BedrockAiAssistProvider implements AiAssistProvider {
 
     @Override
     public AiSuggestTagsResponseDto suggestTags(AiContextDto context) {
+        return join(suggestTagsAsync(context));
+    }
+
+    @Override
+    public CompletableFuture<AiSuggestTagsResponseDto> suggestTagsAsync(AiContextDto context) {
         // Request strict JSON output from the model so we can parse reliably
         String prompt = "Suggest up to 3 short category tags for the following support request.\n"
                 + "Respond ONLY with valid JSON in this exact format, no other text:\n"
@@ -77,21 +157,22 @@ public class BedrockAiAssistProvider implements AiAssistProvider {
         }
 
         long start = System.currentTimeMillis();
-        String rawResponse = callConverse(prompt, context);
-        long latency = System.currentTimeMillis() - start;
-
-        // Provider returns raw name+reason only; AiAssistService will reconcile with
-        // dictionary
-        List<AiSuggestTagsResponseDto.TagSuggestion> tags = parseTagsFromResponse(rawResponse);
-
-        return AiSuggestTagsResponseDto.builder()
-                .tags(tags)
-                .runId(UUID.randomUUID().toString())
-                .provider(getProviderName())
-                .model(getModelId())
-                .latencyMs(latency)
-                .generatedAt(OffsetDateTime.now())
-                .build();
+        return callConverse(prompt, context).thenApply(rawResponse -> {
+            long latency = System.currentTimeMillis() - start;
+
+            // Provider returns raw name+reason only; AiAssistService will reconcile with
+            // dictionary
+            List<AiSuggestTagsResponseDto.TagSuggestion> tags = parseTagsFromResponse(rawResponse);
+
+            return AiSuggestTagsResponseDto.builder()
+                    .tags(tags)
+                    .runId(UUID.randomUUID().toString())
+                    .provider(getProviderName())
+                    .model(getModelId())
+                    .latencyMs(latency)
+                    .generatedAt(OffsetDateTime.now())
+                    .build();
+        });
     }
 
     /**
@@ -149,19 +230,36 @@ public class BedrockAiAssistProvider implements AiAssistProvider {
 
     @Override
     public AiDraftResponseDto draftResponse(AiContextDto context) {
+        return join(draftResponseAsync(context));
+    }
+
+    @Override
+    public CompletableFuture<AiDraftResponseDto> draftResponseAsync(AiContextDto context) {
+        long start = System.currentTimeMillis();
+        return callConverse(draftPrompt(context), context)
+                .thenApply(response -> draftResponse(response, System.currentTimeMillis() - start));
+    }
+
+    @Override
+    public AiDraftResponseDto draftResponse(AiContextDto context, Consumer<String> onDelta) {
+        long start = System.currentTimeMillis();
+        String response = callConverseStream(draftPrompt(context), context, onDelta);
+        return draftResponse(response, System.currentTimeMillis() - start);
+    }
+
+    private String draftPrompt(AiContextDto context) {
         String prompt = "Please draft a helpful support response to the following support request. Address the user directly and be polite. If the request content is in Chinese, write the response in Chinese. Do NOT provide translation notes, just the drafted response.\n\n"
                 + buildXmlContext(context);
 
         if (context.getUserPrompt() != null && !context.getUserPrompt().isEmpty()) {
             prompt += "\nUser extra instructions: " + context.getUserPrompt();
         }
+        return prompt;
+    }
 
-        long start = System.currentTimeMillis();
-        String response = callConverse(prompt, context);
-        long latency = System.currentTimeMillis() - start;
-
+    private AiDraftResponseDto draftResponse(String draft, long latency) {
         return AiDraftResponseDto.builder()
-                .draft(response)
+                .draft(draft)
                 .runId(UUID.randomUUID().toString())
                 .provider(getProviderName())
                 .model(getModelId())
@@ -183,8 +281,15 @@ public class BedrockAiAssistProvider implements AiAssistProvider {
     private String buildXmlContext(AiContextDto context) {
         StringBuilder sb = new StringBuilder();
         sb.append("<request_title>").append(context.getRequestTitle()).append("</request_title>\n");
-        sb.append("<request_description>").append(context.getRequestDescription()).append("</request_description>\n");
+        if (context.getRequestDescription() != null) {
+            sb.append("<request_description>").append(context.getRequestDescription())
+                    .append("</request_description>\n");
+        }
 
+        if (context.getOmittedComments() > 0) {
+            sb.append("<omitted_comments count=\"").append(context.getOmittedComments())
+                    .append("\">Older comments were left out to fit the context budget.</omitted_comments>\n");
+        }
         if (context.getComments() != null && !context.getComments().isEmpty()) {
             sb.append("<comments>\n");
             for (AiContextDto.CommentContext c : context.getComments()) {
@@ -211,7 +316,72 @@ public class BedrockAiAssistProvider implements AiAssistProvider {
         return sb.toString();
     }
 
-    private String callConverse(String prompt, AiContextDto context) {
+    private CompletableFuture<String> callConverse(String prompt, AiContextDto context) {
+        ConverseRequest request = ConverseRequest.builder()
+                .modelId(modelId)
+                .messages(buildMessage(prompt, context))
+                .build();
+
+        return mapProviderErrors(bedrockClient.converse(request)
+                .thenApply(response -> response.output().message().content().get(0).text()));
+    }
+
+    /**
+     * Blocks the calling thread until the stream ends, passing each text delta to
+     * {@code onDelta}.
+     */
+    private String callConverseStream(String prompt, AiContextDto context, Consumer<String> onDelta) {
+        ConverseStreamRequest request = ConverseStreamRequest.builder()
+                .modelId(modelId)
+                .messages(buildMessage(prompt, context))
+                .build();
+
+        StringBuilder text = new StringBuilder();
+        ConverseStreamResponseHandler handler = ConverseStreamResponseHandler.builder()
+                .subscriber(ConverseStreamResponseHandler.Visitor.builder()
+                        .onContentBlockDelta(event -> {
+                            String delta = event.delta().text();
+                            if (delta != null && !delta.isEmpty()) {
+                                text.append(delta);
+                                onDelta.accept(delta);
+                            }
+                        })
+                        .build())
+                .build();
+
+        join(mapProviderErrors(bedrockClient.converseStream(request, handler)));
+        return text.toString();
+    }
+
+    private <T> CompletableFuture<T> mapProviderErrors(CompletableFuture<T> call) {
+        return call.handle((result, ex) -> {
+            if (ex == null) {
+                return result;
+            }
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof BedrockRuntimeException) {
+                log.error("Bedrock API call failed: {}", cause.getMessage(), cause);
+                throw new BadRequestException("AI Provider Error: " + cause.getMessage());
+            }
+            throw cause instanceof RuntimeException runtime ? runtime : new CompletionException(cause);
+        });
+    }
+
+    /**
+     * Waits for {@code call}, rethrowing its failure as thrown by the blocking client.
+     */
+    private static <T> T join(CompletableFuture<T> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    private Message buildMessage(String prompt, AiContextDto context) {
         List<ContentBlock> contentBlocks = new ArrayList<>();
 
         // Add text prompt
@@ -245,24 +415,10 @@ public class BedrockAiAssistProvider implements AiAssistProvider {
             }
         }
 
-        Message message = Message.builder()
+        return Message.builder()
                 .role(ConversationRole.USER)
                 .content(contentBlocks)
                 .build();
-
-        ConverseRequest request = ConverseRequest.builder()
-                .modelId(modelId)
-                .messages(message)
-                .build();
-
-        try {
-            ConverseResponse response = bedrockClient.converse(request);
-            ContentBlock respBlock = response.output().message().content().get(0);
-            return respBlock.text();
-        } catch (BedrockRuntimeException e) {
-            log.error("Bedrock API call failed: {}", e.getMessage(), e);
-            throw new BadRequestException("AI Provider Error: " + e.getMessage());
-        }
     }
 
     private ImageFormat getImageFormat(String mimeType) {
@@ -4,12 +4,17 @@ import com.suncorp.securehub.dto.AiContextDto;
 import com.suncorp.securehub.dto.AiDraftResponseDto;
 import com.suncorp.securehub.dto.AiSuggestTagsResponseDto;
 import com.suncorp.securehub.dto.AiSummarizeResponseDto;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Stub AI provider used in tests (and by default when no 'bedrock' config is
@@ -23,12 +28,36 @@ import java.util.UUID;
 @ConditionalOnProperty(name = "app.ai.provider", havingValue = "stub", matchIfMissing = true)
 public class StubAiAssistProvider implements AiAssistProvider {
 
+        private static final Pattern STREAM_CHUNK = Pattern.compile("\\S+\\s*|\\s+");
+
+        private final Duration partLatency;
+
+        /**
+         * @param partLatency delay of each call for one part of a map-reduce summary,
+         *                    standing in for model latency
+         */
+        public StubAiAssistProvider(@Value("${app.ai.stub.part-latency:PT0S}") Duration partLatency) {
+                this.partLatency = partLatency;
+        }
+
         @Override
         public AiSummarizeResponseDto summarize(AiContextDto context) {
+                String summary = "This is a stub summary for request: " + context.getRequestTitle()
+                                + "\nAttachments included: " + context.getAttachments().size();
+                if (context.getPartialSummaries() != null) {
+                        summary = "Combined summary of " + context.getPartialSummaries().size() + " parts:\n"
+                                        + String.join("\n", context.getPartialSummaries());
+                } else if (context.getPart() != null) {
+                        simulatePartLatency();
+                        summary = "Part " + context.getPart() + ": " + context.getComments().size()
+                                        + " comment(s), " + context.getAttachments().size() + " attachment(s)";
+                } else if (context.getPriorSummary() != null) {
+                        summary = context.getPriorSummary() + "\nUpdated with " + context.getComments().size()
+                                        + " new comment(s) and " + context.getAttachments().size()
+                                        + " new attachment(s)";
+                }
                 return AiSummarizeResponseDto.builder()
-                                .summary("This is a stub summary for request: " + context.getRequestTitle()
-                                                + "\nAttachments included: "
-                                                + context.getAttachments().size())
+                                .summary(summary)
                                 .runId(UUID.randomUUID().toString())
                                 .provider(getProviderName())
                                 .model(getModelId())
@@ -73,6 +102,39 @@ public class StubAiAssistProvider implements AiAssistProvider {
                                 .build();
         }
 
+        @Override
+        public AiSummarizeResponseDto summarize(AiContextDto context, Consumer<String> onDelta) {
+                AiSummarizeResponseDto response = summarize(context);
+                emitChunks(response.getSummary(), onDelta);
+                return response;
+        }
+
+        @Override
+        public AiDraftResponseDto draftResponse(AiContextDto context, Consumer<String> onDelta) {
+                AiDraftResponseDto response = draftResponse(context);
+                emitChunks(response.getDraft(), onDelta);
+                return response;
+        }
+
+        private void simulatePartLatency() {
+                try {
+                        Thread.sleep(partLatency.toMillis());
+                } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                }
+        }
+
+        /**
+         * Emits the text word by word (each chunk keeps its trailing whitespace),
+         * like a model stream does.
+         */
+        private static void emitChunks(String text, Consumer<String> onDelta) {
+                Matcher chunk = STREAM_CHUNK.matcher(text);
+                while (chunk.find()) {
+                        onDelta.accept(chunk.group());
+                }
+        }
+
         @Override
         public String getProviderName() {
                 return "stub";
@@ -0,0 +1,18 @@
+package com.suncorp.securehub.service.storage;
+
+/**
+ * Maps an attachment's logical key ({@code requests/{requestId}/...}) to the key it
+ * is stored under. The resolved key is persisted on the attachment row, so objects
+ * written under an earlier layout stay readable after the layout changes.
+ * Selected with {@code app.attachments.object-key-layout}.
+ */
+public interface AttachmentKeyLayout {
+
+    String objectKey(Long attachmentId, String logicalKey);
+
+    /**
+     * Whether {@code objectKey} was produced by this layout; keys that were not are
+     * candidates for the key migration.
+     */
+    boolean isCurrentLayout(String objectKey);
+}
@@ -0,0 +1,130 @@
+package com.suncorp.securehub.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Object store holding attachment bodies. {@code AttachmentService} owns metadata,
+ * authorisation and quotas; implementations only move bytes and sign URLs.
+ * Selected with {@code app.attachments.storage} ({@code s3} by default, or
+ * {@code local} for on-prem deployments and network-free tests).
+ */
+public interface AttachmentStorage {
+
+    /**
+     * Returns a time-limited URL the browser can PUT exactly {@code contentLength}
+     * bytes of {@code contentType} to. When {@code checksumSha256} (base64) is set,
+     * backends that can enforce it reject a body with a different digest.
+     */
+    String createUploadUrl(String key, String contentType, long contentLength, String checksumSha256, Duration ttl);
+
+    /**
+     * Returns a time-limited URL the browser can GET the object from, served with
+     * {@code contentType}.
+     */
+    String createDownloadUrl(String key, String contentType, Duration ttl);
+
+    /**
+     * Makes a completed upload readable and returns its size, or empty when nothing
+     * has been uploaded under {@code key}. Safe to call more than once.
+     */
+    Optional<Long> confirmUpload(String key);
+
+    /**
+     * Returns the base64 SHA-256 of a confirmed object. The default reads the whole
+     * object; backends that store checksums should return theirs instead.
+     */
+    default String checksumSha256(String key) {
+        try (InputStream in = openStream(key, 0, null)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to read attachment object for checksum", ex);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is unavailable", ex);
+        }
+    }
+
+    /**
+     * Opens the object for incremental reading from {@code start}; a null
+     * {@code length} reads to the end. The caller must close the stream.
+     */
+    InputStream openStream(String key, long start, Long length) throws IOException;
+
+    /**
+     * Deletes the object. Deleting a missing object succeeds; any other failure is
+     * thrown so callers can retry.
+     */
+    void delete(String key);
+
+    /**
+     * Writes a server-generated object, such as a thumbnail, replacing any object
+     * already at {@code key}. The object is readable as soon as this returns.
+     */
+    void store(String key, byte[] body, String contentType);
+
+    /**
+     * Copies a readable object to {@code targetKey}, replacing any object already
+     * there. Used to move objects between key layouts.
+     */
+    void copy(String sourceKey, String targetKey);
+
+    /**
+     * Whether the backend supports browser-driven multipart uploads. The multipart
+     * methods below are only called when this returns true.
+     */
+    default boolean supportsMultipartUpload() {
+        return false;
+    }
+
+    /**
+     * Starts a multipart upload for {@code key} and returns its upload id.
+     */
+    default String initiateMultipartUpload(String key, String contentType) {
+        throw new UnsupportedOperationException("Multipart upload is not supported");
+    }
+
+    /**
+     * Returns a time-limited URL the browser can PUT exactly {@code partLength} bytes
+     * of part {@code partNumber} (1-based) to.
+     */
+    default String createUploadPartUrl(String key, String uploadId, int partNumber, long partLength, Duration ttl) {
+        throw new UnsupportedOperationException("Multipart upload is not supported");
+    }
+
+    /**
+     * Assembles every uploaded part into the final object. Completing an upload that
+     * no longer exists succeeds, so a retried complete falls through to
+     * {@link #confirmUpload(String)}.
+     */
+    default void completeMultipartUpload(String key, String uploadId) {
+        throw new UnsupportedOperationException("Multipart upload is not supported");
+    }
+
+    /**
+     * Aborts the upload and frees its stored parts. Aborting a missing upload succeeds.
+     */
+    default void abortMultipartUpload(String key, String uploadId) {
+        throw new UnsupportedOperationException("Multipart upload is not supported");
+    }
+
+    /**
+     * Aborts every multipart upload initiated before {@code cutoff}, including ones
+     * whose attachment row was never committed, and returns how many were aborted.
+     */
+    default int abortMultipartUploadsInitiatedBefore(Instant cutoff) {
+        return 0;
+    }
+}
@@ -0,0 +1,45 @@
+package com.suncorp.securehub.service.storage;
+
+import com.suncorp.securehub.config.AttachmentProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Fixed-size pool for fanning out independent storage calls, such as the
+ * per-object HEAD requests of a batch confirm. The pool size caps how many calls
+ * one node has in flight against the object store at once.
+ * <p>
+ * Deliberately not an {@link java.util.concurrent.Executor} bean, so it does not
+ * replace Spring Boot's auto-configured application task executor.
+ */
+@Component
+public class AttachmentStorageExecutor {
+
+    private final ExecutorService executor;
+
+    public AttachmentStorageExecutor(AttachmentProperties properties) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "attachment-storage-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = Executors.newFixedThreadPool(properties.getStorageCallParallelism(), threadFactory);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(call, executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
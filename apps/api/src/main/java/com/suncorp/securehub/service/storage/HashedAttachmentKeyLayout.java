@@ -0,0 +1,50 @@
+package com.suncorp.securehub.service.storage;
+
+import com.suncorp.securehub.config.AttachmentProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Prefixes the logical key with a short hex hash of the attachment id, e.g.
+ * {@code 3fa2/requests/42/attachments/1234/log.txt}. Sequential uploads then
+ * spread across {@code 16^n} key prefixes instead of one increasing range, so S3
+ * can partition the load instead of answering 503 SlowDown.
+ */
+@Component
+@ConditionalOnProperty(name = "app.attachments.object-key-layout", havingValue = "hashed")
+public class HashedAttachmentKeyLayout implements AttachmentKeyLayout {
+
+    private final int prefixLength;
+    private final Pattern currentLayout;
+
+    public HashedAttachmentKeyLayout(AttachmentProperties properties) {
+        this.prefixLength = properties.getObjectKeyHashPrefixLength();
+        this.currentLayout = Pattern.compile("^[0-9a-f]{" + prefixLength + "}/requests/.*");
+    }
+
+    @Override
+    public String objectKey(Long attachmentId, String logicalKey) {
+        return shard(attachmentId) + "/" + logicalKey;
+    }
+
+    @Override
+    public boolean isCurrentLayout(String objectKey) {
+        return currentLayout.matcher(objectKey).matches();
+    }
+
+    private String shard(Long attachmentId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(attachmentId.toString().getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest).substring(0, prefixLength);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is unavailable", ex);
+        }
+    }
+}
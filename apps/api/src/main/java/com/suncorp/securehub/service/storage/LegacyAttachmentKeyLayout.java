@@ -0,0 +1,22 @@
+package com.suncorp.securehub.service.storage;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stores objects under their logical key, {@code requests/{requestId}/...}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.attachments.object-key-layout", havingValue = "legacy", matchIfMissing = true)
+public class LegacyAttachmentKeyLayout implements AttachmentKeyLayout {
+
+    @Override
+    public String objectKey(Long attachmentId, String logicalKey) {
+        return logicalKey;
+    }
+
+    @Override
+    public boolean isCurrentLayout(String objectKey) {
+        return true;
+    }
+}
@@ -0,0 +1,327 @@
+package com.suncorp.securehub.service.storage;
+
+import com.suncorp.securehub.config.AttachmentProperties;
+import com.suncorp.securehub.exception.AccessDeniedException;
+import com.suncorp.securehub.exception.BadRequestException;
+import com.suncorp.securehub.exception.ResourceNotFoundException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Filesystem-backed storage for on-prem deployments and network-free tests.
+ * <p>
+ * Uploads land in a staging directory and are moved atomically into the object
+ * tree on confirm, so readers never see a partial file. Presigned S3 URLs are
+ * replaced by HMAC-signed URLs served by {@code LocalStorageController}; the
+ * signature covers the method, key, expiry and the upload length or response
+ * content type. Reads of small objects are memory-mapped; larger ones stream
+ * from a {@link FileChannel}.
+ */
+@Service
+@ConditionalOnProperty(name = "app.attachments.storage", havingValue = "local")
+public class LocalFileSystemAttachmentStorage implements AttachmentStorage {
+
+    public static final String URL_PATH = "/api/v1/storage/local/objects";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String STAGING_DIR = ".staging";
+
+    private final AttachmentProperties attachmentProperties;
+    private final Path root;
+    private final Path stagingRoot;
+    private final SecretKeySpec signingKey;
+
+    public LocalFileSystemAttachmentStorage(AttachmentProperties attachmentProperties) {
+        this.attachmentProperties = attachmentProperties;
+        this.root = Paths.get(attachmentProperties.getLocalStorageRoot()).toAbsolutePath().normalize();
+        this.stagingRoot = root.resolve(STAGING_DIR);
+        this.signingKey = new SecretKeySpec(
+                attachmentProperties.getLocalSigningSecret().getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        try {
+            Files.createDirectories(stagingRoot);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot create local attachment storage at " + root, ex);
+        }
+    }
+
+    @Override
+    public String createUploadUrl(String key, String contentType, long contentLength, String checksumSha256,
+            Duration ttl) {
+        long expires = Instant.now().plus(ttl).getEpochSecond();
+        String signature = sign("PUT", key, expires, Long.toString(contentLength));
+        return UriComponentsBuilder.fromHttpUrl(attachmentProperties.getLocalPublicBaseUrl())
+                .path(URL_PATH)
+                .queryParam("key", key)
+                .queryParam("expires", expires)
+                .queryParam("length", contentLength)
+                .queryParam("signature", signature)
+                .encode()
+                .toUriString();
+    }
+
+    @Override
+    public String createDownloadUrl(String key, String contentType, Duration ttl) {
+        long expires = Instant.now().plus(ttl).getEpochSecond();
+        String signature = sign("GET", key, expires, contentType);
+        return UriComponentsBuilder.fromHttpUrl(attachmentProperties.getLocalPublicBaseUrl())
+                .path(URL_PATH)
+                .queryParam("key", key)
+                .queryParam("expires", expires)
+                .queryParam("contentType", contentType)
+                .queryParam("signature", signature)
+                .encode()
+                .toUriString();
+    }
+
+    @Override
+    public Optional<Long> confirmUpload(String key) {
+        Path staged = resolve(stagingRoot, key);
+        Path target = resolve(root, key);
+        try {
+            if (Files.exists(staged)) {
+                Files.createDirectories(target.getParent());
+                Files.move(staged, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (!Files.exists(target)) {
+                return Optional.empty();
+            }
+            return Optional.of(Files.size(target));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to confirm local attachment upload", ex);
+        }
+    }
+
+    @Override
+    public InputStream openStream(String key, long start, Long length) throws IOException {
+        Path path = resolve(root, key);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            long count = length != null ? Math.min(length, size - start) : size - start;
+            if (start > size || count < 0) {
+                throw new IOException("Requested range is outside object " + key);
+            }
+            if (count <= attachmentProperties.getLocalMmapThresholdBytes()) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, count);
+                channel.close();
+                return new ByteBufferInputStream(mapped);
+            }
+            channel.position(start);
+            return new RangeInputStream(Channels.newInputStream(channel), count);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            Files.deleteIfExists(resolve(root, key));
+            Files.deleteIfExists(resolve(stagingRoot, key));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to delete local attachment object", ex);
+        }
+    }
+
+    @Override
+    public void store(String key, byte[] body, String contentType) {
+        Path target = resolve(root, key);
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), "store-", ".part");
+            try {
+                Files.write(temp, body);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to store local attachment object", ex);
+        }
+    }
+
+    @Override
+    public void copy(String sourceKey, String targetKey) {
+        Path source = resolve(root, sourceKey);
+        Path target = resolve(root, targetKey);
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), "copy-", ".part");
+            try {
+                Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to copy local attachment object", ex);
+        }
+    }
+
+    /**
+     * Streams an upload from a signed PUT URL into the staging area.
+     */
+    public void writeUpload(String key, long expires, long expectedLength, String signature, InputStream body)
+            throws IOException {
+        verify("PUT", key, expires, Long.toString(expectedLength), signature);
+        stage(key, expectedLength, body);
+    }
+
+    /**
+     * Writes at most {@code maxLength} bytes of {@code body} to the staging area.
+     * The file only appears under its staging name once fully written.
+     */
+    void stage(String key, long maxLength, InputStream body) throws IOException {
+        Path staged = resolve(stagingRoot, key);
+        Files.createDirectories(staged.getParent());
+        Path temp = Files.createTempFile(staged.getParent(), "upload-", ".part");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 ReadableByteChannel in = Channels.newChannel(body)) {
+                long written = 0;
+                long transferred;
+                while ((transferred = out.transferFrom(in, written, maxLength + 1 - written)) > 0) {
+                    written += transferred;
+                    if (written > maxLength) {
+                        throw new BadRequestException("Upload exceeds the signed content length");
+                    }
+                }
+            }
+            Files.move(temp, staged, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Opens an object behind a signed GET URL.
+     */
+    public InputStream openSignedDownload(String key, long expires, String contentType, String signature)
+            throws IOException {
+        verify("GET", key, expires, contentType, signature);
+        try {
+            return openStream(key, 0, null);
+        } catch (NoSuchFileException ex) {
+            throw new ResourceNotFoundException("Attachment object", "key", key);
+        }
+    }
+
+    private void verify(String method, String key, long expires, String scope, String signature) {
+        if (Instant.now().getEpochSecond() > expires) {
+            throw new AccessDeniedException("Signed URL has expired");
+        }
+        byte[] expected = sign(method, key, expires, scope).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = signature == null ? new byte[0] : signature.getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new AccessDeniedException("Invalid URL signature");
+        }
+    }
+
+    private String sign(String method, String key, long expires, String scope) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            String payload = method + "\n" + key + "\n" + expires + "\n" + (scope != null ? scope : "");
+            return HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("HMAC signing is unavailable", ex);
+        }
+    }
+
+    private Path resolve(Path base, String key) {
+        Path resolved = base.resolve(key).normalize();
+        if (!resolved.startsWith(base) || (base.equals(root) && resolved.startsWith(stagingRoot))) {
+            throw new BadRequestException("Invalid attachment object key");
+        }
+        return resolved;
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    private static final class RangeInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        private RangeInputStream(InputStream in, long remaining) {
+            super(in);
+            this.remaining = remaining;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b != -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(bytes, offset, (int) Math.min(length, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+    }
+}
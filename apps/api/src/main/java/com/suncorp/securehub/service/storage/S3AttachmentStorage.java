@@ -0,0 +1,275 @@
+package com.suncorp.securehub.service.storage;
+
+import com.suncorp.securehub.config.AttachmentProperties;
+import com.suncorp.securehub.exception.BadRequestException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.ChecksumMode;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListMultipartUploadsRequest;
+import software.amazon.awssdk.services.s3.model.ListPartsRequest;
+import software.amazon.awssdk.services.s3.model.MultipartUpload;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+@Service
+@ConditionalOnProperty(name = "app.attachments.storage", havingValue = "s3", matchIfMissing = true)
+@RequiredArgsConstructor
+public class S3AttachmentStorage implements AttachmentStorage {
+
+    /** Matches both legacy and hash-prefixed attachment keys. */
+    private static final Pattern ATTACHMENT_KEY = Pattern.compile("^(?:[0-9a-f]+/)?requests/.*");
+
+    private final S3Client s3Client;
+    private final S3Presigner s3Presigner;
+    private final AttachmentProperties attachmentProperties;
+
+    @Override
+    public String createUploadUrl(String key, String contentType, long contentLength, String checksumSha256,
+            Duration ttl) {
+        // A signed x-amz-checksum-sha256 header makes S3 reject a body with any other digest.
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                .bucket(attachmentProperties.getBucketName())
+                .key(key)
+                .contentType(contentType)
+                .contentLength(contentLength)
+                .checksumSHA256(checksumSha256)
+                .build();
+
+        return s3Presigner.presignPutObject(PutObjectPresignRequest.builder()
+                        .signatureDuration(ttl)
+                        .putObjectRequest(putObjectRequest)
+                        .build())
+                .url()
+                .toString();
+    }
+
+    @Override
+    public String createDownloadUrl(String key, String contentType, Duration ttl) {
+        return s3Presigner.presignGetObject(GetObjectPresignRequest.builder()
+                        .signatureDuration(ttl)
+                        .getObjectRequest(GetObjectRequest.builder()
+                                .bucket(attachmentProperties.getBucketName())
+                                .key(key)
+                                .responseContentType(contentType)
+                                .build())
+                        .build())
+                .url()
+                .toString();
+    }
+
+    @Override
+    public Optional<Long> confirmUpload(String key) {
+        try {
+            HeadObjectResponse response = s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(attachmentProperties.getBucketName())
+                    .key(key)
+                    .build());
+            return Optional.ofNullable(response.contentLength());
+        } catch (NoSuchKeyException ex) {
+            return Optional.empty();
+        } catch (S3Exception ex) {
+            if (ex.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the checksum S3 stored with a checksummed upload, falling back to
+     * reading the object when it has none.
+     */
+    @Override
+    public String checksumSha256(String key) {
+        HeadObjectResponse response = s3Client.headObject(HeadObjectRequest.builder()
+                .bucket(attachmentProperties.getBucketName())
+                .key(key)
+                .checksumMode(ChecksumMode.ENABLED)
+                .build());
+        if (response.checksumSHA256() != null && !response.checksumSHA256().contains("-")) {
+            return response.checksumSHA256();
+        }
+        return AttachmentStorage.super.checksumSha256(key);
+    }
+
+    @Override
+    public InputStream openStream(String key, long start, Long length) {
+        GetObjectRequest.Builder request = GetObjectRequest.builder()
+                .bucket(attachmentProperties.getBucketName())
+                .key(key);
+        if (length != null) {
+            request.range("bytes=" + start + "-" + (start + length - 1));
+        } else if (start > 0) {
+            request.range("bytes=" + start + "-");
+        }
+        return s3Client.getObject(request.build());
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            s3Client.deleteObject(DeleteObjectRequest.builder()
+                    .bucket(attachmentProperties.getBucketName())
+                    .key(key)
+                    .build());
+        } catch (NoSuchKeyException ex) {
+            // Already gone.
+        } catch (S3Exception ex) {
+            if (ex.statusCode() != 404) {
+                throw ex;
+            }
+        }
+    }
+
+    @Override
+    public void store(String key, byte[] body, String contentType) {
+        s3Client.putObject(PutObjectRequest.builder()
+                        .bucket(attachmentProperties.getBucketName())
+                        .key(key)
+                        .contentType(contentType)
+                        .build(),
+                RequestBody.fromBytes(body));
+    }
+
+    /**
+     * Server-side copy; the bytes never pass through the API. Single-request
+     * CopyObject covers objects up to 5 GiB, above the multipart upload limit.
+     */
+    @Override
+    public void copy(String sourceKey, String targetKey) {
+        s3Client.copyObject(CopyObjectRequest.builder()
+                .sourceBucket(attachmentProperties.getBucketName())
+                .sourceKey(sourceKey)
+                .destinationBucket(attachmentProperties.getBucketName())
+                .destinationKey(targetKey)
+                .build());
+    }
+
+    @Override
+    public boolean supportsMultipartUpload() {
+        return true;
+    }
+
+    @Override
+    public String initiateMultipartUpload(String key, String contentType) {
+        return s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                        .bucket(attachmentProperties.getBucketName())
+                        .key(key)
+                        .contentType(contentType)
+                        .build())
+                .uploadId();
+    }
+
+    @Override
+    public String createUploadPartUrl(String key, String uploadId, int partNumber, long partLength, Duration ttl) {
+        return s3Presigner.presignUploadPart(UploadPartPresignRequest.builder()
+                        .signatureDuration(ttl)
+                        .uploadPartRequest(UploadPartRequest.builder()
+                                .bucket(attachmentProperties.getBucketName())
+                                .key(key)
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .contentLength(partLength)
+                                .build())
+                        .build())
+                .url()
+                .toString();
+    }
+
+    /**
+     * Completes the upload with the parts S3 has actually received, so the browser
+     * does not need to read part ETags. A missing or short part is caught by the
+     * size check in confirm.
+     */
+    @Override
+    public void completeMultipartUpload(String key, String uploadId) {
+        try {
+            List<CompletedPart> parts = s3Client.listPartsPaginator(ListPartsRequest.builder()
+                            .bucket(attachmentProperties.getBucketName())
+                            .key(key)
+                            .uploadId(uploadId)
+                            .build())
+                    .parts()
+                    .stream()
+                    .map(part -> CompletedPart.builder()
+                            .partNumber(part.partNumber())
+                            .eTag(part.eTag())
+                            .build())
+                    .toList();
+            if (parts.isEmpty()) {
+                throw new BadRequestException("No parts have been uploaded for this attachment");
+            }
+
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(attachmentProperties.getBucketName())
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+        } catch (NoSuchUploadException ex) {
+            // Already completed or aborted; confirm decides which.
+        } catch (S3Exception ex) {
+            if (ex.statusCode() == 400) {
+                throw new BadRequestException("Multipart upload could not be completed: "
+                        + ex.awsErrorDetails().errorCode());
+            }
+            throw ex;
+        }
+    }
+
+    @Override
+    public void abortMultipartUpload(String key, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(attachmentProperties.getBucketName())
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (NoSuchUploadException ex) {
+            // Already completed or aborted.
+        }
+    }
+
+    @Override
+    public int abortMultipartUploadsInitiatedBefore(Instant cutoff) {
+        int aborted = 0;
+        for (MultipartUpload upload : s3Client.listMultipartUploadsPaginator(ListMultipartUploadsRequest.builder()
+                        .bucket(attachmentProperties.getBucketName())
+                        .build())
+                .uploads()) {
+            if (ATTACHMENT_KEY.matcher(upload.key()).matches()
+                    && upload.initiated() != null && upload.initiated().isBefore(cutoff)) {
+                abortMultipartUpload(upload.key(), upload.uploadId());
+                aborted++;
+            }
+        }
+        return aborted;
+    }
+}
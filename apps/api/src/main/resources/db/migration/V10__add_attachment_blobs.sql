@@ -0,0 +1,20 @@
+-- V10: Content-addressed attachment deduplication.
+-- attachment_blobs holds one row per distinct stored object, keyed by its base64
+-- SHA-256 and reference-counted by the ACTIVE attachments that point at it.
+-- Several attachments may now share one object key, so the key is no longer unique.
+
+CREATE TABLE attachment_blobs (
+    sha256        VARCHAR(44)   PRIMARY KEY,
+    s3_object_key VARCHAR(1024) NOT NULL UNIQUE,
+    file_size     BIGINT        NOT NULL CHECK (file_size > 0),
+    ref_count     INTEGER       NOT NULL CHECK (ref_count >= 0),
+    created_at    TIMESTAMP     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at    TIMESTAMP     NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+ALTER TABLE attachments ADD COLUMN checksum_sha256 VARCHAR(44);
+ALTER TABLE attachments ADD COLUMN blob_sha256 VARCHAR(44) REFERENCES attachment_blobs(sha256);
+
+ALTER TABLE attachments DROP CONSTRAINT attachments_s3_object_key_key;
+CREATE INDEX idx_attachments_s3_object_key ON attachments(s3_object_key);
+CREATE INDEX idx_attachments_blob_sha256   ON attachments(blob_sha256);
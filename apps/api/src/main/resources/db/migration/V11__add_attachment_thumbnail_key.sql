@@ -0,0 +1,4 @@
+-- V11: Object key of the generated JPEG preview for image attachments.
+-- Null until the background thumbnail job has produced one.
+
+ALTER TABLE attachments ADD COLUMN thumbnail_key VARCHAR(1024);
@@ -0,0 +1,9 @@
+-- V12: Async AI runs. Rows are inserted as PENDING and move through RUNNING to
+-- SUCCESS or FAILED; the timestamps back run polling and queue wait metrics.
+
+ALTER TABLE ai_assist_runs
+    ADD COLUMN started_at TIMESTAMP WITH TIME ZONE,
+    ADD COLUMN completed_at TIMESTAMP WITH TIME ZONE;
+
+CREATE INDEX idx_ai_assist_runs_unfinished ON ai_assist_runs(created_at)
+    WHERE status IN ('PENDING', 'RUNNING');
@@ -0,0 +1,8 @@
+-- V13: AI result cache. context_hash is the SHA-256 of the AI context a run was
+-- computed from; a SUCCESS run with the same request, action, prompt version,
+-- model and hash is reused instead of calling the provider again.
+
+ALTER TABLE ai_assist_runs ADD COLUMN context_hash VARCHAR(64);
+
+CREATE INDEX idx_ai_assist_runs_context_hash ON ai_assist_runs(request_id, context_hash)
+    WHERE status = 'SUCCESS';
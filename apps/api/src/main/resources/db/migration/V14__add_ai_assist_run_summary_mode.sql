@@ -0,0 +1,10 @@
+-- V14: Incremental summaries. summary_mode records whether a SUMMARIZE run saw
+-- the whole thread (FULL) or a previous summary plus newer activity
+-- (INCREMENTAL). context_as_of is when the request was read, so the next
+-- summary only needs what changed after it.
+
+ALTER TABLE ai_assist_runs ADD COLUMN summary_mode VARCHAR(16);
+ALTER TABLE ai_assist_runs ADD COLUMN context_as_of TIMESTAMPTZ;
+
+CREATE INDEX idx_ai_assist_runs_summary_base ON ai_assist_runs(request_id, context_as_of DESC)
+    WHERE status = 'SUCCESS' AND action_type = 'SUMMARIZE' AND context_as_of IS NOT NULL;
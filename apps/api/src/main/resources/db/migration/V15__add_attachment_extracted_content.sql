@@ -0,0 +1,15 @@
+-- V15: Derived attachment content for AI contexts: text extracted from PDFs and
+-- text files, or downscaled image bytes. One row per attachment, written the
+-- first time an AI context reads it; a row is stale once the attachment's
+-- checksum or object key no longer match the recorded ones.
+
+CREATE TABLE attachment_extracted_content (
+    attachment_id   BIGINT        PRIMARY KEY REFERENCES attachments(id),
+    source_checksum VARCHAR(44),
+    s3_object_key   VARCHAR(1024) NOT NULL,
+    content_type    VARCHAR(255)  NOT NULL,
+    text_content    TEXT,
+    content_bytes   BYTEA,
+    created_at      TIMESTAMP     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CHECK ((text_content IS NULL) <> (content_bytes IS NULL))
+);
@@ -0,0 +1,16 @@
+-- V16: Compact AI run inputs. The full AI context of a run is stored once per
+-- distinct content as a gzip blob keyed by the SHA-256 of its JSON; runs keep
+-- only a small JSON summary in input_snapshot plus the hash of their snapshot.
+-- Snapshots unused for the retention period are pruned, leaving the summary.
+
+CREATE TABLE ai_input_snapshots (
+    content_hash   VARCHAR(64) PRIMARY KEY,
+    compressed     BYTEA       NOT NULL,
+    original_bytes INTEGER     NOT NULL,
+    created_at     TIMESTAMPTZ NOT NULL DEFAULT now(),
+    last_used_at   TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_ai_input_snapshots_last_used_at ON ai_input_snapshots(last_used_at);
+
+ALTER TABLE ai_assist_runs ADD COLUMN input_snapshot_hash VARCHAR(64);
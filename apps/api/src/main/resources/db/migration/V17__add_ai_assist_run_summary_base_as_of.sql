@@ -0,0 +1,10 @@
+-- V17: Bound incremental summary chains. summary_base_as_of is when the full
+-- summary a chain started from read the request; incremental runs copy it
+-- forward, so summary-incremental-max-age applies to the whole chain rather
+-- than to its latest link. Existing incremental rows are left NULL and are
+-- no longer extended.
+
+ALTER TABLE ai_assist_runs ADD COLUMN summary_base_as_of TIMESTAMPTZ;
+
+UPDATE ai_assist_runs SET summary_base_as_of = context_as_of
+    WHERE context_as_of IS NOT NULL AND summary_mode <> 'INCREMENTAL';
@@ -0,0 +1,9 @@
+-- V18: Extracted content is written lazily by AI context fetches, outside any
+-- attachment delete transaction, so a row can appear after the delete removed
+-- the existing ones. Cascade from attachments, as attachments cascade from
+-- requests and comments in V5, so such a row never blocks the delete.
+
+ALTER TABLE attachment_extracted_content
+    DROP CONSTRAINT attachment_extracted_content_attachment_id_fkey,
+    ADD CONSTRAINT attachment_extracted_content_attachment_id_fkey
+        FOREIGN KEY (attachment_id) REFERENCES attachments(id) ON DELETE CASCADE;
@@ -0,0 +1,7 @@
+-- V8: Partial index backing the chunked PENDING-attachment cleanup job.
+-- Keyset pagination walks (created_at, id) and only PENDING rows are indexed,
+-- so the index stays small regardless of how many ACTIVE attachments exist.
+
+CREATE INDEX idx_attachments_pending_created_at_id
+    ON attachments (created_at, id)
+    WHERE state = 'PENDING';
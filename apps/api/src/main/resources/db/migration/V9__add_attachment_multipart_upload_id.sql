@@ -0,0 +1,5 @@
+-- V9: Track the in-flight S3 multipart upload for large attachments.
+-- Set while the attachment is PENDING and cleared once the upload is completed,
+-- so the cleanup job knows which uploads to abort along with their rows.
+
+ALTER TABLE attachments ADD COLUMN multipart_upload_id VARCHAR(1024);
@@ -0,0 +1,138 @@
+package com.suncorp.securehub.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.suncorp.securehub.dto.CreateRequestDto;
+import com.suncorp.securehub.dto.LoginRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for async AI runs: submit returns 202 with a PENDING run,
+ * and polling the run yields the action result. Uses the Stub provider.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+class AiAssistRunIT {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    private String userToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userToken = login("user", "password");
+    }
+
+    @Test
+    void submitRun_thenPoll_returnsSummaryOnceSucceeded() throws Exception {
+        Long requestId = createRequest(userToken);
+
+        MvcResult submitted = mockMvc.perform(post("/api/v1/requests/{id}/ai/runs", requestId)
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"actionType\":\"SUMMARIZE\"}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andReturn();
+        String runId = objectMapper.readTree(submitted.getResponse().getContentAsString()).get("runId").asText();
+
+        JsonNode run = null;
+        for (int attempt = 0; attempt < 100; attempt++) {
+            MvcResult polled = mockMvc.perform(get("/api/v1/requests/{id}/ai/runs/{runId}", requestId, runId)
+                            .header("Authorization", "Bearer " + userToken))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            run = objectMapper.readTree(polled.getResponse().getContentAsString());
+            if ("SUCCESS".equals(run.get("status").asText()) || "FAILED".equals(run.get("status").asText())) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+
+        assertThat(run.get("status").asText()).isEqualTo("SUCCESS");
+        assertThat(run.get("result").get("summary").asText()).isNotBlank();
+        assertThat(run.get("result").get("runId").asText()).isEqualTo(runId);
+        assertThat(run.get("startedAt").isNull()).isFalse();
+        assertThat(run.get("completedAt").isNull()).isFalse();
+    }
+
+    @Test
+    void submitRun_unknownActionType_returns400() throws Exception {
+        Long requestId = createRequest(userToken);
+
+        mockMvc.perform(post("/api/v1/requests/{id}/ai/runs", requestId)
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"actionType\":\"TRANSLATE\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getRun_unknownRunId_returns404() throws Exception {
+        Long requestId = createRequest(userToken);
+
+        mockMvc.perform(get("/api/v1/requests/{id}/ai/runs/{runId}", requestId, UUID.randomUUID())
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isNotFound());
+    }
+
+    // ── helpers ──────────────────────────────────────────────────────────────
+
+    private String login(String username, String password) throws Exception {
+        LoginRequest req = new LoginRequest();
+        req.setUsername(username);
+        req.setPassword(password);
+        MvcResult result = mockMvc.perform(post("/api/v1/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("accessToken").asText();
+    }
+
+    private Long createRequest(String token) throws Exception {
+        CreateRequestDto dto = new CreateRequestDto();
+        dto.setTitle("AI run test " + System.currentTimeMillis());
+        dto.setDescription("Test request for async AI run integration test");
+        MvcResult result = mockMvc.perform(post("/api/v1/requests")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+    }
+}
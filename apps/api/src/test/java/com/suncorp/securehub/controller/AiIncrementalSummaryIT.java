@@ -0,0 +1,188 @@
+package com.suncorp.securehub.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.suncorp.securehub.dto.CreateCommentDto;
+import com.suncorp.securehub.dto.CreateRequestDto;
+import com.suncorp.securehub.dto.LoginRequest;
+import com.suncorp.securehub.entity.AiAssistRun;
+import com.suncorp.securehub.repository.AiAssistRunRepository;
+import com.suncorp.securehub.service.ai.AiInputSnapshotStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for incremental summaries: once a request has a summary,
+ * the next one extends it with only the comments added since. Uses the Stub
+ * provider, which reports how many new comments an incremental summary saw.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+class AiIncrementalSummaryIT {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    AiAssistRunRepository aiAssistRunRepository;
+    @Autowired
+    AiInputSnapshotStore inputSnapshotStore;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private String userToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userToken = login("user", "password");
+    }
+
+    @Test
+    void summarize_afterNewComments_extendsPreviousSummaryWithOnlyThoseComments() throws Exception {
+        Long requestId = createRequest(userToken);
+        addComment(requestId, "First reply");
+
+        JsonNode full = summarize(requestId, "{}");
+        assertThat(full.get("summaryMode").asText()).isEqualTo("FULL");
+        assertThat(full.get("cached").asBoolean()).isFalse();
+
+        addComment(requestId, "Second reply");
+        addComment(requestId, "Third reply");
+        JsonNode incremental = summarize(requestId, "{}");
+
+        assertThat(incremental.get("summaryMode").asText()).isEqualTo("INCREMENTAL");
+        assertThat(incremental.get("cached").asBoolean()).isFalse();
+        assertThat(incremental.get("summary").asText())
+                .startsWith(full.get("summary").asText())
+                .endsWith("Updated with 2 new comment(s) and 0 new attachment(s)");
+
+        AiAssistRun fullRun =
+                aiAssistRunRepository.findById(UUID.fromString(full.get("runId").asText())).orElseThrow();
+        AiAssistRun incrementalRun =
+                aiAssistRunRepository.findById(UUID.fromString(incremental.get("runId").asText())).orElseThrow();
+        assertThat(fullRun.getSummaryMode()).isEqualTo("FULL");
+        assertThat(incrementalRun.getSummaryMode()).isEqualTo("INCREMENTAL");
+        assertThat(incrementalRun.getContextAsOf()).isAfter(fullRun.getContextAsOf());
+        assertThat(incrementalRun.getSummaryBaseAsOf()).isEqualTo(fullRun.getContextAsOf());
+        assertThat(inputSnapshotStore.load(incrementalRun.getInputSnapshotHash()).orElseThrow())
+                .doesNotContain("First reply").contains("Third reply");
+    }
+
+    @Test
+    void summarize_withNothingNew_reusesPreviousSummaryUnlessBypassed() throws Exception {
+        Long requestId = createRequest(userToken);
+        JsonNode first = summarize(requestId, "{}");
+
+        JsonNode unchanged = summarize(requestId, "{}");
+        assertThat(unchanged.get("summaryMode").asText()).isEqualTo("INCREMENTAL");
+        assertThat(unchanged.get("cached").asBoolean()).isTrue();
+        assertThat(unchanged.get("summary").asText()).isEqualTo(first.get("summary").asText());
+        assertThat(unchanged.get("runId").asText()).isNotEqualTo(first.get("runId").asText());
+
+        JsonNode bypassed = summarize(requestId, "{\"bypassCache\":true}");
+        assertThat(bypassed.get("summaryMode").asText()).isEqualTo("FULL");
+        assertThat(bypassed.get("cached").asBoolean()).isFalse();
+    }
+
+    @Test
+    void summarize_whenChainStartedBeforeMaxAge_rebuildsFromWholeThread() throws Exception {
+        Long requestId = createRequest(userToken);
+        summarize(requestId, "{}");
+        addComment(requestId, "Second reply");
+        assertThat(summarize(requestId, "{}").get("summaryMode").asText()).isEqualTo("INCREMENTAL");
+
+        // The latest link is fresh, but the full summary the chain started from is not
+        jdbcTemplate.update("UPDATE ai_assist_runs SET summary_base_as_of = ? WHERE request_id = ?",
+                Timestamp.from(Instant.now().minus(2, ChronoUnit.DAYS)), requestId);
+        addComment(requestId, "Third reply");
+        JsonNode rebuilt = summarize(requestId, "{}");
+
+        assertThat(rebuilt.get("summaryMode").asText()).isEqualTo("FULL");
+        AiAssistRun rebuiltRun =
+                aiAssistRunRepository.findById(UUID.fromString(rebuilt.get("runId").asText())).orElseThrow();
+        assertThat(rebuiltRun.getSummaryBaseAsOf()).isEqualTo(rebuiltRun.getContextAsOf());
+    }
+
+    // ── helpers ──────────────────────────────────────────────────────────────
+
+    private JsonNode summarize(Long requestId, String body) throws Exception {
+        MvcResult started = mockMvc.perform(post("/api/v1/requests/{id}/ai/summarize", requestId)
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private void addComment(Long requestId, String body) throws Exception {
+        CreateCommentDto dto = new CreateCommentDto();
+        dto.setBody(body);
+        mockMvc.perform(post("/api/v1/requests/{id}/comments", requestId)
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated());
+    }
+
+    private String login(String username, String password) throws Exception {
+        LoginRequest req = new LoginRequest();
+        req.setUsername(username);
+        req.setPassword(password);
+        MvcResult result = mockMvc.perform(post("/api/v1/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("accessToken").asText();
+    }
+
+    private Long createRequest(String token) throws Exception {
+        CreateRequestDto dto = new CreateRequestDto();
+        dto.setTitle("AI incremental summary test " + System.currentTimeMillis());
+        dto.setDescription("Test request for incremental summary integration test");
+        MvcResult result = mockMvc.perform(post("/api/v1/requests")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+    }
+}
@@ -0,0 +1,151 @@
+package com.suncorp.securehub.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.suncorp.securehub.config.AiProperties;
+import com.suncorp.securehub.dto.CreateRequestDto;
+import com.suncorp.securehub.dto.LoginRequest;
+import com.suncorp.securehub.entity.AiAssistRun;
+import com.suncorp.securehub.repository.AiAssistRunRepository;
+import com.suncorp.securehub.repository.AiInputSnapshotRepository;
+import com.suncorp.securehub.service.ai.AiInputSnapshotStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration test for compact run inputs: runs keep a summary inline, identical
+ * contexts share one compressed snapshot, and unused snapshots are pruned.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+class AiInputSnapshotIT {
+
+    private static final String DESCRIPTION = "Badge reader at the north entrance rejects every card since Monday";
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    AiAssistRunRepository aiAssistRunRepository;
+    @Autowired
+    AiInputSnapshotRepository snapshotRepository;
+    @Autowired
+    AiInputSnapshotStore snapshotStore;
+    @Autowired
+    AiProperties aiProperties;
+
+    private String userToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userToken = login("user", "password");
+    }
+
+    @Test
+    void draft_storesSummaryInlineAndSharesSnapshotOfIdenticalContext() throws Exception {
+        Long requestId = createRequest();
+
+        AiAssistRun first = run(draft(requestId));
+        AiAssistRun second = run(draft(requestId));
+
+        JsonNode summary = objectMapper.readTree(first.getInputSnapshot());
+        assertThat(first.getInputSnapshot()).doesNotContain(DESCRIPTION);
+        assertThat(summary.get("snapshotHash").asText()).isEqualTo(first.getInputSnapshotHash());
+        assertThat(summary.get("commentCount").asInt()).isZero();
+        assertThat(summary.get("compressedBytes").asInt()).isPositive();
+
+        assertThat(second.getInputSnapshotHash()).isEqualTo(first.getInputSnapshotHash());
+        assertThat(snapshotStore.load(first.getInputSnapshotHash()).orElseThrow()).contains(DESCRIPTION);
+    }
+
+    @Test
+    void pruneUnusedSnapshots_removesSnapshotsPastRetentionAndKeepsRunSummaries() throws Exception {
+        AiAssistRun run = run(draft(createRequest()));
+        Duration retention = aiProperties.getInputSnapshotRetention();
+        try {
+            aiProperties.setInputSnapshotRetention(Duration.ZERO);
+            snapshotStore.pruneUnusedSnapshots();
+        } finally {
+            aiProperties.setInputSnapshotRetention(retention);
+        }
+
+        assertThat(snapshotRepository.findById(run.getInputSnapshotHash())).isEmpty();
+        AiAssistRun reloaded = aiAssistRunRepository.findById(run.getId()).orElseThrow();
+        assertThat(objectMapper.readTree(reloaded.getInputSnapshot()).get("snapshotHash").asText())
+                .isEqualTo(run.getInputSnapshotHash());
+    }
+
+    // ── helpers ──────────────────────────────────────────────────────────────
+
+    private AiAssistRun run(JsonNode response) {
+        return aiAssistRunRepository.findById(UUID.fromString(response.get("runId").asText())).orElseThrow();
+    }
+
+    private JsonNode draft(Long requestId) throws Exception {
+        MvcResult started = mockMvc.perform(post("/api/v1/requests/{id}/ai/draft-response", requestId)
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"bypassCache\":true}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private String login(String username, String password) throws Exception {
+        LoginRequest req = new LoginRequest();
+        req.setUsername(username);
+        req.setPassword(password);
+        MvcResult result = mockMvc.perform(post("/api/v1/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("accessToken").asText();
+    }
+
+    private Long createRequest() throws Exception {
+        CreateRequestDto dto = new CreateRequestDto();
+        dto.setTitle("AI input snapshot test " + System.nanoTime());
+        dto.setDescription(DESCRIPTION);
+        MvcResult result = mockMvc.perform(post("/api/v1/requests")
+                .header("Authorization", "Bearer " + userToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+    }
+}
@@ -0,0 +1,128 @@
+package com.suncorp.securehub.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.suncorp.securehub.dto.CreateCommentDto;
+import com.suncorp.securehub.dto.CreateRequestDto;
+import com.suncorp.securehub.dto.LoginRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration test for map-reduce summaries: with tiny token budgets every
+ * comment becomes a part of its own, and the Stub provider delays each part so
+ * the test can tell parallel part calls from sequential ones.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+class AiMapReduceSummaryIT {
+
+    private static final int COMMENTS = 8;
+    private static final long PART_LATENCY_MILLIS = 500;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("app.ai.context-comments-max-tokens", () -> "10");
+        registry.add("app.ai.summary-part-max-tokens", () -> "10");
+        registry.add("app.ai.summary-map-concurrency", () -> "4");
+        registry.add("app.ai.stub.part-latency", () -> "PT" + PART_LATENCY_MILLIS / 1000.0 + "S");
+    }
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    private String userToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userToken = login("user", "password");
+    }
+
+    @Test
+    void summarize_overTokenBudget_summarizesPartsInParallelThenCombines() throws Exception {
+        Long requestId = createRequest(userToken);
+        for (int i = 0; i < COMMENTS; i++) {
+            addComment(requestId, "Comment " + i + " fills a part"); // 22 characters, two exceed a part
+        }
+
+        long start = System.nanoTime();
+        MvcResult started = mockMvc.perform(post("/api/v1/requests/{id}/ai/summarize", requestId)
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        JsonNode summary = objectMapper.readTree(result.getResponse().getContentAsString());
+        assertThat(summary.get("summaryMode").asText()).isEqualTo("MAP_REDUCE");
+        assertThat(summary.get("summary").asText())
+                .contains("Part 2/").contains("1 comment(s)").doesNotContain("truncated");
+        // One part per comment; sequential part calls would take COMMENTS * PART_LATENCY_MILLIS
+        assertThat(elapsedMillis).isLessThan(COMMENTS * PART_LATENCY_MILLIS / 2);
+    }
+
+    // ── helpers ──────────────────────────────────────────────────────────────
+
+    private void addComment(Long requestId, String body) throws Exception {
+        CreateCommentDto dto = new CreateCommentDto();
+        dto.setBody(body);
+        mockMvc.perform(post("/api/v1/requests/{id}/comments", requestId)
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated());
+    }
+
+    private String login(String username, String password) throws Exception {
+        LoginRequest req = new LoginRequest();
+        req.setUsername(username);
+        req.setPassword(password);
+        MvcResult result = mockMvc.perform(post("/api/v1/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("accessToken").asText();
+    }
+
+    private Long createRequest(String token) throws Exception {
+        CreateRequestDto dto = new CreateRequestDto();
+        dto.setTitle("AI map-reduce summary test " + System.currentTimeMillis());
+        dto.setDescription("Long thread");
+        MvcResult result = mockMvc.perform(post("/api/v1/requests")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+    }
+}
@@ -0,0 +1,211 @@
+package com.suncorp.securehub.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.suncorp.securehub.dto.AiContextDto;
+import com.suncorp.securehub.dto.AiDraftResponseDto;
+import com.suncorp.securehub.dto.AiSuggestTagsResponseDto;
+import com.suncorp.securehub.dto.AiSummarizeResponseDto;
+import com.suncorp.securehub.dto.CreateRequestDto;
+import com.suncorp.securehub.dto.LoginRequest;
+import com.suncorp.securehub.repository.AiAssistRunRepository;
+import com.suncorp.securehub.service.ai.AiAssistProvider;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Proves AI actions do not hold a pooled connection while the provider runs:
+ * more AI calls than pool connections are parked inside a slow provider at once,
+ * and ordinary endpoints keep being served meanwhile.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@Import(AiProviderConnectionPoolIT.SlowProviderConfig.class)
+class AiProviderConnectionPoolIT {
+
+    private static final int POOL_SIZE = 2;
+    private static final int CONCURRENT_AI_CALLS = POOL_SIZE * 2;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> String.valueOf(POOL_SIZE));
+        registry.add("spring.datasource.hikari.connection-timeout", () -> "1000");
+    }
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    SlowAiAssistProvider provider;
+
+    @Autowired
+    AiAssistRunRepository aiAssistRunRepository;
+
+    @Test
+    void summarize_whileProviderIsSlow_shouldNotHoldPooledConnections() throws Exception {
+        String token = login("user", "password");
+        Long requestId = createRequest(token);
+        long runsBefore = aiAssistRunRepository.count();
+
+        ExecutorService callers = Executors.newFixedThreadPool(CONCURRENT_AI_CALLS);
+        try {
+            List<Future<Integer>> calls = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_AI_CALLS; i++) {
+                // Distinct prompts, so identical calls are not coalesced into one provider call
+                String body = "{\"promptOverride\":\"call " + i + "\"}";
+                calls.add(callers.submit(() -> {
+                    MvcResult started = mockMvc.perform(post("/api/v1/requests/{id}/ai/summarize", requestId)
+                                    .header("Authorization", "Bearer " + token)
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(body))
+                            .andExpect(request().asyncStarted())
+                            .andReturn();
+                    return mockMvc.perform(asyncDispatch(started)).andReturn().getResponse().getStatus();
+                }));
+            }
+
+            // With a connection held per call, only POOL_SIZE calls could get this far.
+            assertThat(provider.entered.await(15, TimeUnit.SECONDS)).isTrue();
+            assertThat(((HikariDataSource) dataSource).getHikariPoolMXBean().getActiveConnections()).isZero();
+            mockMvc.perform(get("/api/v1/requests/{id}", requestId)
+                            .header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk());
+
+            provider.release.countDown();
+            for (Future<Integer> call : calls) {
+                assertThat(call.get(15, TimeUnit.SECONDS)).isEqualTo(200);
+            }
+        } finally {
+            provider.release.countDown();
+            callers.shutdownNow();
+        }
+        assertThat(aiAssistRunRepository.count()).isEqualTo(runsBefore + CONCURRENT_AI_CALLS);
+    }
+
+    private String login(String username, String password) throws Exception {
+        LoginRequest req = new LoginRequest();
+        req.setUsername(username);
+        req.setPassword(password);
+        MvcResult result = mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("accessToken").asText();
+    }
+
+    private Long createRequest(String token) throws Exception {
+        CreateRequestDto dto = new CreateRequestDto();
+        dto.setTitle("Slow AI provider");
+        dto.setDescription("Connection pool must stay free during provider calls");
+        MvcResult result = mockMvc.perform(post("/api/v1/requests")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+    }
+
+    @TestConfiguration
+    static class SlowProviderConfig {
+
+        @Bean
+        @Primary
+        SlowAiAssistProvider slowAiAssistProvider() {
+            return new SlowAiAssistProvider();
+        }
+    }
+
+    /**
+     * Parks every summarize call until {@link #release} opens, standing in for a slow Bedrock response.
+     */
+    static class SlowAiAssistProvider implements AiAssistProvider {
+
+        final CountDownLatch entered = new CountDownLatch(CONCURRENT_AI_CALLS);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public AiSummarizeResponseDto summarize(AiContextDto context) {
+            entered.countDown();
+            try {
+                release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return AiSummarizeResponseDto.builder()
+                    .summary("slow summary")
+                    .runId(UUID.randomUUID().toString())
+                    .provider(getProviderName())
+                    .model(getModelId())
+                    .latencyMs(0L)
+                    .generatedAt(OffsetDateTime.now())
+                    .build();
+        }
+
+        @Override
+        public AiSuggestTagsResponseDto suggestTags(AiContextDto context) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AiDraftResponseDto draftResponse(AiContextDto context) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getProviderName() {
+            return "slow-stub";
+        }
+
+        @Override
+        public String getModelId() {
+            return "slow-stub-model";
+        }
+    }
+}
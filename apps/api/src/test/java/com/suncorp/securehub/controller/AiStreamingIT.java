@@ -0,0 +1,128 @@
+package com.suncorp.securehub.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.suncorp.securehub.dto.CreateRequestDto;
+import com.suncorp.securehub.dto.LoginRequest;
+import com.suncorp.securehub.repository.AiAssistRunRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for the server-sent event endpoints. The Stub provider emits
+ * its text word by word, so a response arrives as several delta events.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+class AiStreamingIT {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    AiAssistRunRepository aiAssistRunRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private String userToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userToken = login("user", "password");
+    }
+
+    @Test
+    void streamDraftResponse_emitsDeltasThenDoneAndRecordsRun() throws Exception {
+        Long requestId = createRequest(userToken);
+
+        MvcResult result = mockMvc.perform(post("/api/v1/requests/{id}/ai/draft-response/stream", requestId)
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(10_000);
+
+        String body = result.getResponse().getContentAsString();
+        long deltas = Arrays.stream(body.split("\n")).filter("event:delta"::equals).count();
+        assertThat(deltas).isGreaterThan(1);
+        assertThat(body).contains("event:done");
+        assertThat(body).doesNotContain("event:error");
+        assertThat(aiAssistRunRepository.findByRequestId(requestId))
+                .singleElement()
+                .satisfies(run -> {
+                    assertThat(run.getActionType()).isEqualTo("DRAFT_RESPONSE");
+                    assertThat(run.getStatus()).isEqualTo("SUCCESS");
+                    assertThat(run.getOutputPayload()).contains("Support Team");
+                });
+        assertThat(meterRegistry.get("ai.stream.time_to_first_token").tag("action", "DRAFT_RESPONSE")
+                .timer().count()).isPositive();
+    }
+
+    @Test
+    void streamSummarize_unknownRequest_returns404BeforeStreaming() throws Exception {
+        mockMvc.perform(post("/api/v1/requests/{id}/ai/summarize/stream", Long.MAX_VALUE)
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isNotFound());
+    }
+
+    // ── helpers ──────────────────────────────────────────────────────────────
+
+    private String login(String username, String password) throws Exception {
+        LoginRequest req = new LoginRequest();
+        req.setUsername(username);
+        req.setPassword(password);
+        MvcResult result = mockMvc.perform(post("/api/v1/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("accessToken").asText();
+    }
+
+    private Long createRequest(String token) throws Exception {
+        CreateRequestDto dto = new CreateRequestDto();
+        dto.setTitle("AI stream test " + System.currentTimeMillis());
+        dto.setDescription("Test request for streamed AI integration test");
+        MvcResult result = mockMvc.perform(post("/api/v1/requests")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+    }
+}
@@ -96,10 +96,17 @@ class AiSuggestTagsIT {
     }
 
     private JsonNode suggestTags(Long requestId, String token) throws Exception {
-        MvcResult result = mockMvc.perform(post("/api/v1/requests/{id}/ai/suggest-tags", requestId)
+        return suggestTags(requestId, token, "{}");
+    }
+
+    private JsonNode suggestTags(Long requestId, String token, String body) throws Exception {
+        MvcResult started = mockMvc.perform(post("/api/v1/requests/{id}/ai/suggest-tags", requestId)
                 .header("Authorization", "Bearer " + token)
                 .contentType(MediaType.APPLICATION_JSON)
-                .content("{}"))
+                .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
                 .andExpect(status().isOk())
                 .andReturn();
         return objectMapper.readTree(result.getResponse().getContentAsString());
@@ -231,4 +238,23 @@ class AiSuggestTagsIT {
         assertThat(response.has("model")).isTrue();
         assertThat(response.get("tags").isArray()).isTrue();
     }
+
+    /**
+     * A repeat on an unchanged request is served from the result cache under a new
+     * runId; bypassCache forces a new provider call.
+     */
+    @Test
+    void suggestTags_repeatOnUnchangedRequest_isCachedUnlessBypassed() throws Exception {
+        Long requestId = createRequest(userToken);
+
+        JsonNode first = suggestTags(requestId, userToken);
+        JsonNode second = suggestTags(requestId, userToken);
+        JsonNode bypassed = suggestTags(requestId, userToken, "{\"bypassCache\":true}");
+
+        assertThat(first.get("cached").asBoolean()).isFalse();
+        assertThat(second.get("cached").asBoolean()).isTrue();
+        assertThat(second.get("runId").asText()).isNotEqualTo(first.get("runId").asText());
+        assertThat(second.get("tags")).hasSameSizeAs(first.get("tags"));
+        assertThat(bypassed.get("cached").asBoolean()).isFalse();
+    }
 }
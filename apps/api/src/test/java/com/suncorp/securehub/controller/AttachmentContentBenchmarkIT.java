@@ -0,0 +1,200 @@
+package com.suncorp.securehub.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.suncorp.securehub.dto.CreateRequestDto;
+import com.suncorp.securehub.dto.LoginRequest;
+import com.suncorp.securehub.repository.AttachmentRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.localstack.LocalStackContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Throughput comparison for the proxy content endpoint: an attachment served from
+ * the local disk cache vs one just over the cache entry limit, which is streamed
+ * from S3 (LocalStack) on every request. Only runs when RUN_BENCHMARKS=true, e.g.
+ * {@code RUN_BENCHMARKS=true ./gradlew test --tests '*AttachmentContentBenchmarkIT'}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@EnabledIfEnvironmentVariable(named = "RUN_BENCHMARKS", matches = "true")
+class AttachmentContentBenchmarkIT {
+
+    private static final String BUCKET = "securehub-bench-" + UUID.randomUUID().toString().replace("-", "");
+    private static final int CACHED_SIZE = 4 * 1024 * 1024;
+    private static final int UNCACHED_SIZE = CACHED_SIZE + 1;
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 50;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Container
+    static LocalStackContainer localStack = new LocalStackContainer(DockerImageName.parse("localstack/localstack:3.4"))
+            .withServices(LocalStackContainer.Service.S3);
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) throws Exception {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+
+        registry.add("app.attachments.bucket-name", () -> BUCKET);
+        registry.add("app.attachments.aws-region", localStack::getRegion);
+        registry.add("app.attachments.aws-s3-endpoint",
+                () -> localStack.getEndpointOverride(LocalStackContainer.Service.S3).toString());
+        registry.add("app.attachments.aws-access-key-id", localStack::getAccessKey);
+        registry.add("app.attachments.aws-secret-access-key", localStack::getSecretKey);
+
+        Path cacheDir = Files.createTempDirectory("attachment-cache-bench");
+        registry.add("app.attachments.content-cache-enabled", () -> "true");
+        registry.add("app.attachments.content-cache-dir", cacheDir::toString);
+        registry.add("app.attachments.content-cache-max-entry-bytes", () -> String.valueOf(CACHED_SIZE));
+    }
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    AttachmentRepository attachmentRepository;
+
+    @Test
+    void compareCachedAndUncachedContentThroughput() throws Exception {
+        S3Client adminS3Client = S3Client.builder()
+                .endpointOverride(localStack.getEndpointOverride(LocalStackContainer.Service.S3))
+                .region(Region.of(localStack.getRegion()))
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(localStack.getAccessKey(), localStack.getSecretKey())))
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+                .build();
+        adminS3Client.createBucket(CreateBucketRequest.builder().bucket(BUCKET).build());
+
+        String token = login("user", "password");
+        Long requestId = createRequest(token);
+        Long cachedId = createActiveAttachment(adminS3Client, token, requestId, CACHED_SIZE);
+        Long uncachedId = createActiveAttachment(adminS3Client, token, requestId, UNCACHED_SIZE);
+
+        double cachedMbPerSec = measure(token, requestId, cachedId, CACHED_SIZE);
+        double uncachedMbPerSec = measure(token, requestId, uncachedId, UNCACHED_SIZE);
+
+        System.out.printf("attachment content throughput: cached=%.1f MB/s, uncached(S3)=%.1f MB/s%n",
+                cachedMbPerSec, uncachedMbPerSec);
+        assertThat(cachedMbPerSec).isPositive();
+        assertThat(uncachedMbPerSec).isPositive();
+    }
+
+    private double measure(String token, Long requestId, Long attachmentId, int size) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            fetch(token, requestId, attachmentId, size);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            fetch(token, requestId, attachmentId, size);
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        return (double) size * ITERATIONS / (1024 * 1024) / seconds;
+    }
+
+    private void fetch(String token, Long requestId, Long attachmentId, int size) throws Exception {
+        MvcResult asyncResult = mockMvc.perform(get("/api/v1/requests/{requestId}/attachments/{attachmentId}/content",
+                        requestId, attachmentId)
+                        .header("Authorization", "Bearer " + token))
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertThat(result.getResponse().getContentAsByteArray()).hasSize(size);
+    }
+
+    private Long createActiveAttachment(S3Client adminS3Client, String token, Long requestId, int size)
+            throws Exception {
+        MvcResult uploadResult = mockMvc.perform(post("/api/v1/requests/{requestId}/attachments/upload-url", requestId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "fileName", "bench.txt",
+                                "contentType", "text/plain",
+                                "fileSize", size
+                        ))))
+                .andExpect(status().isCreated())
+                .andReturn();
+        Long attachmentId = readJson(uploadResult).get("attachmentId").asLong();
+
+        String objectKey = attachmentRepository.findById(attachmentId).orElseThrow().getS3ObjectKey();
+        adminS3Client.putObject(PutObjectRequest.builder().bucket(BUCKET).key(objectKey).build(),
+                RequestBody.fromBytes(new byte[size]));
+
+        mockMvc.perform(post("/api/v1/requests/{requestId}/attachments/{attachmentId}/confirm", requestId, attachmentId)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        return attachmentId;
+    }
+
+    private String login(String username, String password) throws Exception {
+        LoginRequest req = new LoginRequest();
+        req.setUsername(username);
+        req.setPassword(password);
+
+        MvcResult result = mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        return readJson(result).get("accessToken").asText();
+    }
+
+    private Long createRequest(String token) throws Exception {
+        CreateRequestDto dto = new CreateRequestDto();
+        dto.setTitle("Content benchmark");
+        dto.setDescription("Cached vs uncached proxy download throughput");
+
+        MvcResult result = mockMvc.perform(post("/api/v1/requests")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated())
+                .andReturn();
+
+        return readJson(result).get("id").asLong();
+    }
+
+    private JsonNode readJson(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+}
@@ -2,6 +2,7 @@ package com.suncorp.securehub.controller;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.suncorp.securehub.config.AttachmentProperties;
 import com.suncorp.securehub.dto.AttachmentUploadUrlRequestDto;
 import com.suncorp.securehub.dto.CreateCommentDto;
 import com.suncorp.securehub.dto.CreateRequestDto;
@@ -24,7 +25,11 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
@@ -32,16 +37,26 @@ import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequ
 import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
+import java.io.ByteArrayInputStream;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -58,6 +73,7 @@ class AttachmentControllerIT {
         registry.add("spring.datasource.username", postgres::getUsername);
         registry.add("spring.datasource.password", postgres::getPassword);
         registry.add("app.attachments.bucket-name", () -> "securehub-test-attachments");
+        registry.add("app.attachments.pending-cleanup-batch-size", () -> "2");
     }
 
     @Autowired
@@ -75,6 +91,9 @@ class AttachmentControllerIT {
     @Autowired
     JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    AttachmentProperties attachmentProperties;
+
     @MockBean
     S3Client s3Client;
 
@@ -139,6 +158,175 @@ class AttachmentControllerIT {
                 .andExpect(jsonPath("$.downloadUrl").value("https://example.com/download"));
     }
 
+    @Test
+    void requestAttachmentList_withDownloadUrls_shouldInlineCachedUrlsForActiveAttachments() throws Exception {
+        Long requestId = createRequest(userToken, "Inline URLs", "Thumbnails");
+        Long activeId = createAndConfirmRequestAttachment(requestId, userToken, "shot.png", "image/png");
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/v1/requests/{requestId}/attachments", requestId)
+                            .param("includeDownloadUrls", "true")
+                            .header("Authorization", "Bearer " + userToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].id").value(activeId))
+                    .andExpect(jsonPath("$[0].downloadUrl").value("https://example.com/download"))
+                    .andExpect(jsonPath("$[0].downloadUrlExpiresAt").isString());
+        }
+        mockMvc.perform(get("/api/v1/requests/{requestId}/attachments/{attachmentId}/download-url",
+                        requestId, activeId)
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk());
+
+        verify(s3Presigner, times(1)).presignGetObject(any(GetObjectPresignRequest.class));
+
+        mockMvc.perform(get("/api/v1/requests/{requestId}/attachments", requestId)
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].downloadUrl").doesNotExist());
+    }
+
+    @Test
+    void requestAttachmentBatchFlow_shouldCreateUrlsAndReturnPerItemConfirmResults() throws Exception {
+        Long requestId = createRequest(userToken, "Batch attachments", "Several screenshots");
+
+        MvcResult uploadResult = mockMvc.perform(post("/api/v1/requests/{requestId}/attachments/batch/upload-url",
+                        requestId)
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("files", List.of(
+                                Map.of("fileName", "one.png", "contentType", "image/png", "fileSize", 1024),
+                                Map.of("fileName", "two.png", "contentType", "image/png", "fileSize", 1024),
+                                Map.of("fileName", "three.png", "contentType", "image/png", "fileSize", 2048)
+                        )))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].uploadUrl").value("https://example.com/upload"))
+                .andReturn();
+
+        JsonNode uploads = readJson(uploadResult);
+        List<Long> attachmentIds = new ArrayList<>();
+        uploads.forEach(upload -> attachmentIds.add(upload.get("attachmentId").asLong()));
+        attachmentIds.add(999_999L);
+
+        mockMvc.perform(post("/api/v1/requests/{requestId}/attachments/batch/confirm", requestId)
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("attachmentIds", attachmentIds))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(4))
+                .andExpect(jsonPath("$[0].confirmed").value(true))
+                .andExpect(jsonPath("$[0].attachment.state").value("ACTIVE"))
+                .andExpect(jsonPath("$[1].confirmed").value(true))
+                .andExpect(jsonPath("$[2].confirmed").value(false))
+                .andExpect(jsonPath("$[2].error").value("Uploaded file size does not match metadata"))
+                .andExpect(jsonPath("$[3].confirmed").value(false))
+                .andExpect(jsonPath("$[3].error").value("Attachment not found"));
+
+        mockMvc.perform(get("/api/v1/requests/{requestId}/attachments", requestId)
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].state").value("ACTIVE"))
+                .andExpect(jsonPath("$[1].state").value("ACTIVE"))
+                .andExpect(jsonPath("$[2].state").value("FAILED"));
+    }
+
+    @Test
+    void requestAttachmentBatchUpload_whenBatchExceedsQuota_shouldCreateNothing() throws Exception {
+        Long requestId = createRequest(userToken, "Batch quota", "Too many files");
+        List<Map<String, Object>> files = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            files.add(Map.of("fileName", "shot" + i + ".png", "contentType", "image/png", "fileSize", 1024));
+        }
+
+        mockMvc.perform(post("/api/v1/requests/{requestId}/attachments/batch/upload-url", requestId)
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("files", files))))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/v1/requests/{requestId}/attachments", requestId)
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void requestAttachmentContent_withRange_shouldStreamPartialContent() throws Exception {
+        byte[] body = new byte[1024];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) (i % 128);
+        }
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            byte[] slice = body;
+            if (request.range() != null) {
+                String[] bounds = request.range().substring("bytes=".length()).split("-");
+                slice = Arrays.copyOfRange(body, Integer.parseInt(bounds[0]), Integer.parseInt(bounds[1]) + 1);
+            }
+            return new ResponseInputStream<>(GetObjectResponse.builder().build(),
+                    AbortableInputStream.create(new ByteArrayInputStream(slice)));
+        });
+
+        Long requestId = createRequest(userToken, "Proxy download", "Proxy download");
+        Long attachmentId = createAndConfirmRequestAttachment(requestId, userToken, "trace.txt", "text/plain");
+
+        MvcResult asyncResult = mockMvc.perform(get("/api/v1/requests/{requestId}/attachments/{attachmentId}/content",
+                        requestId, attachmentId)
+                        .header("Authorization", "Bearer " + userToken)
+                        .header("Range", "bytes=10-19"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 10-19/1024"))
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(content().bytes(Arrays.copyOfRange(body, 10, 20)));
+
+        mockMvc.perform(get("/api/v1/requests/{requestId}/attachments/{attachmentId}/content",
+                        requestId, attachmentId)
+                        .header("Authorization", "Bearer " + userToken)
+                        .header("Range", "bytes=2048-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */1024"));
+    }
+
+    @Test
+    void requestAttachmentContent_overStreamMaxBytes_shouldReturn413BeforeStreaming() throws Exception {
+        byte[] body = new byte[1024];
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation ->
+                new ResponseInputStream<>(GetObjectResponse.builder().build(),
+                        AbortableInputStream.create(new ByteArrayInputStream(Arrays.copyOf(body, 10)))));
+
+        Long requestId = createRequest(userToken, "Oversize download", "Oversize download");
+        Long attachmentId = createAndConfirmRequestAttachment(requestId, userToken, "big.txt", "text/plain");
+
+        long maxBytes = attachmentProperties.getStreamMaxBytes();
+        try {
+            attachmentProperties.setStreamMaxBytes(512L);
+
+            mockMvc.perform(get("/api/v1/requests/{requestId}/attachments/{attachmentId}/content",
+                            requestId, attachmentId)
+                            .header("Authorization", "Bearer " + userToken))
+                    .andExpect(status().isPayloadTooLarge())
+                    .andExpect(header().doesNotExist("Content-Length"))
+                    .andExpect(content().bytes(new byte[0]));
+
+            // A range within the limit is still served
+            MvcResult asyncResult = mockMvc.perform(get(
+                            "/api/v1/requests/{requestId}/attachments/{attachmentId}/content", requestId, attachmentId)
+                            .header("Authorization", "Bearer " + userToken)
+                            .header("Range", "bytes=0-9"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(asyncResult))
+                    .andExpect(status().isPartialContent())
+                    .andExpect(header().string("Content-Range", "bytes 0-9/1024"));
+        } finally {
+            attachmentProperties.setStreamMaxBytes(maxBytes);
+        }
+    }
+
     @Test
     void requestAttachmentUpload_forAnotherUsersRequest_shouldReturn403() throws Exception {
         Long triageOwnedRequestId = createRequest(triageToken, "Triage request", "Owner should be triage");
@@ -290,6 +478,43 @@ class AttachmentControllerIT {
         verify(s3Client, atLeastOnce()).deleteObject(any(software.amazon.awssdk.services.s3.model.DeleteObjectRequest.class));
     }
 
+    @Test
+    void cleanupOrphanedPendingAttachments_shouldDrainBacklogAcrossChunksAndKeepFreshRows() throws Exception {
+        Long requestId = createRequest(userToken, "Chunked cleanup", "Chunked cleanup");
+
+        AttachmentUploadUrlRequestDto uploadDto = new AttachmentUploadUrlRequestDto();
+        uploadDto.setFileName("pending.txt");
+        uploadDto.setContentType("text/plain");
+        uploadDto.setFileSize(1024L);
+
+        java.util.List<Long> expiredIds = new java.util.ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            MvcResult uploadResult = mockMvc.perform(post("/api/v1/requests/{requestId}/attachments/upload-url", requestId)
+                            .header("Authorization", "Bearer " + userToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(uploadDto)))
+                    .andExpect(status().isCreated())
+                    .andReturn();
+            expiredIds.add(readJson(uploadResult).get("attachmentId").asLong());
+        }
+        for (Long id : expiredIds) {
+            jdbcTemplate.update("UPDATE attachments SET created_at = NOW() - INTERVAL '2 hours' WHERE id = ?", id);
+        }
+
+        MvcResult freshResult = mockMvc.perform(post("/api/v1/requests/{requestId}/attachments/upload-url", requestId)
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(uploadDto)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        Long freshId = readJson(freshResult).get("attachmentId").asLong();
+
+        attachmentService.cleanupOrphanedPendingAttachments();
+
+        org.assertj.core.api.Assertions.assertThat(attachmentRepository.findAllById(expiredIds)).isEmpty();
+        org.assertj.core.api.Assertions.assertThat(attachmentRepository.findById(freshId)).isPresent();
+    }
+
     private String login(String username, String password) throws Exception {
         LoginRequest req = new LoginRequest();
         req.setUsername(username);
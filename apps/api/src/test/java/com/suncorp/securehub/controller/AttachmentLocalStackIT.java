@@ -33,14 +33,20 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -48,6 +54,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @Testcontainers
 class AttachmentLocalStackIT {
 
+    private static final int MULTIPART_PART_SIZE = 5 * 1024 * 1024;
     private static final String ATTACHMENT_BUCKET_NAME = "securehub-it-" + UUID.randomUUID().toString().replace("-", "");
 
     @Container
@@ -69,6 +76,10 @@ class AttachmentLocalStackIT {
                 () -> localStack.getEndpointOverride(LocalStackContainer.Service.S3).toString());
         registry.add("app.attachments.aws-access-key-id", localStack::getAccessKey);
         registry.add("app.attachments.aws-secret-access-key", localStack::getSecretKey);
+        registry.add("app.attachments.multipart-part-size-bytes", () -> String.valueOf(MULTIPART_PART_SIZE));
+        // Multipart files below are larger than both a single PUT and an in-memory read may be
+        registry.add("app.attachments.max-file-size-bytes", () -> String.valueOf(MULTIPART_PART_SIZE));
+        registry.add("app.attachments.download-max-bytes", () -> String.valueOf(MULTIPART_PART_SIZE));
     }
 
     @Autowired
@@ -193,6 +204,69 @@ class AttachmentLocalStackIT {
         assertThat(countObjects(requestPrefix)).isEqualTo(0);
     }
 
+    @Test
+    void multipartUpload_withLocalStack_shouldUploadPartsInParallelCompleteAndReadBack() throws Exception {
+        Long requestId = createRequest(userToken, "Multipart flow", "Large log bundle upload");
+        int fileSize = MULTIPART_PART_SIZE + 1024 * 1024;
+        byte[] body = new byte[fileSize];
+        for (int i = 0; i < fileSize; i++) {
+            body[i] = (byte) (i % 251);
+        }
+
+        MvcResult initiateResult = mockMvc.perform(post("/api/v1/requests/{requestId}/attachments/multipart-upload",
+                        requestId)
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "fileName", "bundle.txt",
+                                "contentType", "text/plain",
+                                "fileSize", fileSize
+                        ))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.partSize").value(MULTIPART_PART_SIZE))
+                .andExpect(jsonPath("$.parts.length()").value(2))
+                .andReturn();
+
+        JsonNode initiateJson = readJson(initiateResult);
+        Long attachmentId = initiateJson.get("attachmentId").asLong();
+
+        List<CompletableFuture<HttpResponse<String>>> uploads = new ArrayList<>();
+        for (JsonNode part : initiateJson.get("parts")) {
+            int offset = (part.get("partNumber").asInt() - 1) * MULTIPART_PART_SIZE;
+            HttpRequest partRequest = HttpRequest.newBuilder(URI.create(part.get("uploadUrl").asText()))
+                    .PUT(HttpRequest.BodyPublishers.ofByteArray(body, offset, part.get("partSize").asInt()))
+                    .build();
+            uploads.add(httpClient.sendAsync(partRequest, HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> upload : uploads) {
+            assertThat(upload.get().statusCode()).isEqualTo(200);
+        }
+
+        mockMvc.perform(post("/api/v1/requests/{requestId}/attachments/{attachmentId}/multipart-upload/complete",
+                        requestId, attachmentId)
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("ACTIVE"))
+                .andExpect(jsonPath("$.fileSize").value(fileSize));
+
+        mockMvc.perform(post("/api/v1/requests/{requestId}/attachments/{attachmentId}/multipart-upload/complete",
+                        requestId, attachmentId)
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("ACTIVE"));
+
+        assertThat(countObjects("requests/" + requestId + "/")).isEqualTo(1);
+
+        MvcResult contentResult = mockMvc.perform(get("/api/v1/requests/{requestId}/attachments/{attachmentId}/content",
+                        requestId, attachmentId)
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(contentResult))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(body));
+    }
+
     private long countObjects(String prefix) {
         return adminS3Client.listObjectsV2(ListObjectsV2Request.builder()
                         .bucket(ATTACHMENT_BUCKET_NAME)
@@ -0,0 +1,211 @@
+package com.suncorp.securehub.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.suncorp.securehub.dto.CreateRequestDto;
+import com.suncorp.securehub.dto.LoginRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.localstack.LocalStackContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
+import software.amazon.awssdk.services.s3.model.Event;
+import software.amazon.awssdk.services.s3.model.NotificationConfiguration;
+import software.amazon.awssdk.services.s3.model.PutBucketNotificationConfigurationRequest;
+import software.amazon.awssdk.services.s3.model.QueueConfiguration;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.CreateQueueRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesRequest;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Uploads through a presigned URL and never calls confirm: the S3 ObjectCreated
+ * notification, delivered to SQS and consumed by the poller, must activate the
+ * attachment on its own.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+class AttachmentUploadEventsLocalStackIT {
+
+    private static final String BUCKET = "securehub-events-" + UUID.randomUUID().toString().replace("-", "");
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Container
+    static LocalStackContainer localStack = new LocalStackContainer(DockerImageName.parse("localstack/localstack:3.4"))
+            .withServices(LocalStackContainer.Service.S3, LocalStackContainer.Service.SQS);
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        String queueUrl = createBucketWithQueueNotifications();
+
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+
+        registry.add("app.attachments.bucket-name", () -> BUCKET);
+        registry.add("app.attachments.aws-region", localStack::getRegion);
+        registry.add("app.attachments.aws-s3-endpoint",
+                () -> localStack.getEndpointOverride(LocalStackContainer.Service.S3).toString());
+        registry.add("app.attachments.aws-sqs-endpoint",
+                () -> localStack.getEndpointOverride(LocalStackContainer.Service.SQS).toString());
+        registry.add("app.attachments.aws-access-key-id", localStack::getAccessKey);
+        registry.add("app.attachments.aws-secret-access-key", localStack::getSecretKey);
+        registry.add("app.attachments.upload-events-enabled", () -> "true");
+        registry.add("app.attachments.upload-events-queue-url", () -> queueUrl);
+        registry.add("app.attachments.upload-events-poll-interval", () -> "PT0.2S");
+        registry.add("app.attachments.upload-events-wait-time", () -> "PT1S");
+    }
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    void objectCreatedEvent_shouldActivateAttachmentWithoutClientConfirm() throws Exception {
+        String token = login("user", "password");
+        Long requestId = createRequest(token);
+
+        MvcResult uploadResult = mockMvc.perform(post("/api/v1/requests/{requestId}/attachments/upload-url", requestId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "fileName", "event.txt",
+                                "contentType", "text/plain",
+                                "fileSize", 12
+                        ))))
+                .andExpect(status().isCreated())
+                .andReturn();
+        JsonNode uploadJson = readJson(uploadResult);
+        Long attachmentId = uploadJson.get("attachmentId").asLong();
+
+        HttpResponse<String> uploadResponse = httpClient.send(
+                HttpRequest.newBuilder(URI.create(uploadJson.get("uploadUrl").asText()))
+                        .header("Content-Type", "text/plain")
+                        .PUT(HttpRequest.BodyPublishers.ofByteArray("hello world!".getBytes(StandardCharsets.UTF_8)))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(uploadResponse.statusCode()).isEqualTo(200);
+
+        String state = "PENDING";
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (!"ACTIVE".equals(state) && System.nanoTime() < deadline) {
+            Thread.sleep(200);
+            MvcResult listResult = mockMvc.perform(get("/api/v1/requests/{requestId}/attachments", requestId)
+                            .header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            state = readJson(listResult).get(0).get("state").asText();
+        }
+        assertThat(state).isEqualTo("ACTIVE");
+
+        mockMvc.perform(post("/api/v1/requests/{requestId}/attachments/{attachmentId}/confirm", requestId, attachmentId)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("ACTIVE"));
+    }
+
+    private static String createBucketWithQueueNotifications() {
+        StaticCredentialsProvider credentials = StaticCredentialsProvider.create(
+                AwsBasicCredentials.create(localStack.getAccessKey(), localStack.getSecretKey()));
+        try (S3Client s3 = S3Client.builder()
+                .endpointOverride(localStack.getEndpointOverride(LocalStackContainer.Service.S3))
+                .region(Region.of(localStack.getRegion()))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+                .build();
+             SqsClient sqs = SqsClient.builder()
+                     .endpointOverride(localStack.getEndpointOverride(LocalStackContainer.Service.SQS))
+                     .region(Region.of(localStack.getRegion()))
+                     .credentialsProvider(credentials)
+                     .build()) {
+            String queueUrl = sqs.createQueue(CreateQueueRequest.builder().queueName(BUCKET).build()).queueUrl();
+            String queueArn = sqs.getQueueAttributes(GetQueueAttributesRequest.builder()
+                            .queueUrl(queueUrl)
+                            .attributeNames(QueueAttributeName.QUEUE_ARN)
+                            .build())
+                    .attributes()
+                    .get(QueueAttributeName.QUEUE_ARN);
+
+            s3.createBucket(CreateBucketRequest.builder().bucket(BUCKET).build());
+            s3.putBucketNotificationConfiguration(PutBucketNotificationConfigurationRequest.builder()
+                    .bucket(BUCKET)
+                    .notificationConfiguration(NotificationConfiguration.builder()
+                            .queueConfigurations(QueueConfiguration.builder()
+                                    .queueArn(queueArn)
+                                    .events(Event.S3_OBJECT_CREATED)
+                                    .build())
+                            .build())
+                    .build());
+            return queueUrl;
+        }
+    }
+
+    private String login(String username, String password) throws Exception {
+        LoginRequest req = new LoginRequest();
+        req.setUsername(username);
+        req.setPassword(password);
+
+        MvcResult result = mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        return readJson(result).get("accessToken").asText();
+    }
+
+    private Long createRequest(String token) throws Exception {
+        CreateRequestDto dto = new CreateRequestDto();
+        dto.setTitle("Event driven confirm");
+        dto.setDescription("Upload without calling confirm");
+
+        MvcResult result = mockMvc.perform(post("/api/v1/requests")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated())
+                .andReturn();
+
+        return readJson(result).get("id").asLong();
+    }
+
+    private JsonNode readJson(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,147 @@
+package com.suncorp.securehub.service;
+
+import com.suncorp.securehub.config.AttachmentProperties;
+import com.suncorp.securehub.dto.AttachmentKeyMigrationStatusDto;
+import com.suncorp.securehub.entity.Attachment;
+import com.suncorp.securehub.entity.AttachmentState;
+import com.suncorp.securehub.exception.BadRequestException;
+import com.suncorp.securehub.repository.AttachmentBlobRepository;
+import com.suncorp.securehub.repository.AttachmentRepository;
+import com.suncorp.securehub.service.storage.AttachmentStorage;
+import com.suncorp.securehub.service.storage.HashedAttachmentKeyLayout;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AttachmentKeyMigrationServiceTest {
+
+    @Mock
+    private AttachmentRepository attachmentRepository;
+
+    @Mock
+    private AttachmentBlobRepository blobRepository;
+
+    @Mock
+    private AttachmentStorage attachmentStorage;
+
+    @Mock
+    private AttachmentDownloadUrlCache downloadUrlCache;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private AttachmentProperties properties;
+    private HashedAttachmentKeyLayout keyLayout;
+    private AttachmentKeyMigrationService migrationService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AttachmentProperties();
+        properties.setObjectKeyLayout("hashed");
+        properties.setKeyMigrationBatchSize(2);
+        keyLayout = new HashedAttachmentKeyLayout(properties);
+        migrationService = new AttachmentKeyMigrationService(attachmentRepository, blobRepository, attachmentStorage,
+                keyLayout, downloadUrlCache, properties, transactionTemplate, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void hashedLayout_shouldPrefixLogicalKeyWithStableShard() {
+        String key = keyLayout.objectKey(42L, "requests/1/attachments/42/log.txt");
+
+        assertThat(key).matches("[0-9a-f]{4}/requests/1/attachments/42/log\\.txt");
+        assertThat(keyLayout.objectKey(42L, "requests/1/attachments/42/log.txt")).isEqualTo(key);
+        assertThat(keyLayout.isCurrentLayout(key)).isTrue();
+        assertThat(keyLayout.isCurrentLayout("requests/1/attachments/42/log.txt")).isFalse();
+    }
+
+    @Test
+    void start_withLegacyLayout_shouldThrowBadRequest() {
+        properties.setObjectKeyLayout("legacy");
+
+        assertThatThrownBy(() -> migrationService.start()).isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(attachmentRepository, attachmentStorage);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void start_shouldCopyRepointAndDeleteLegacyObjects() throws Exception {
+        String legacyKey = "requests/1/attachments/10/log.txt";
+        String migratedKey = keyLayout.objectKey(10L, legacyKey);
+        String alreadyHashedKey = keyLayout.objectKey(11L, "requests/1/attachments/11/a.png");
+        String deletedKey = "requests/1/attachments/12/b.png";
+        String deletedTargetKey = keyLayout.objectKey(12L, deletedKey);
+
+        when(attachmentRepository.findByStateAndIdGreaterThanOrderByIdAsc(
+                eq(AttachmentState.ACTIVE), eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(attachment(10L, legacyKey), attachment(11L, alreadyHashedKey)));
+        when(attachmentRepository.findByStateAndIdGreaterThanOrderByIdAsc(
+                eq(AttachmentState.ACTIVE), eq(11L), any(Pageable.class)))
+                .thenReturn(List.of(attachment(12L, deletedKey)));
+        when(attachmentRepository.findByStateAndIdGreaterThanOrderByIdAsc(
+                eq(AttachmentState.ACTIVE), eq(12L), any(Pageable.class)))
+                .thenReturn(List.of());
+        doAnswer(invocation -> ((TransactionCallback<Integer>) invocation.getArgument(0))
+                .doInTransaction(mock(TransactionStatus.class)))
+                .when(transactionTemplate).execute(any());
+        when(blobRepository.findByS3ObjectKeyForUpdate(anyString())).thenReturn(Optional.empty());
+        when(attachmentRepository.updateObjectKey(legacyKey, migratedKey)).thenReturn(1);
+        when(attachmentRepository.updateObjectKey(deletedKey, deletedTargetKey)).thenReturn(0);
+        when(attachmentRepository.findById(12L)).thenReturn(Optional.empty());
+
+        migrationService.start();
+        AttachmentKeyMigrationStatusDto status = awaitFinished();
+
+        assertThat(status.getScanned()).isEqualTo(3);
+        assertThat(status.getMigrated()).isEqualTo(1);
+        assertThat(status.getSkipped()).isEqualTo(1);
+        assertThat(status.getFailed()).isZero();
+        verify(attachmentStorage).copy(legacyKey, migratedKey);
+        verify(attachmentStorage).delete(legacyKey);
+        verify(downloadUrlCache).evict(10L);
+        verify(attachmentStorage, never()).copy(eq(alreadyHashedKey), anyString());
+        verify(attachmentStorage).delete(deletedTargetKey);
+        verify(attachmentStorage, never()).delete(deletedKey);
+    }
+
+    private AttachmentKeyMigrationStatusDto awaitFinished() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            AttachmentKeyMigrationStatusDto status = migrationService.status();
+            if (!status.isRunning()) {
+                return status;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Key migration did not finish");
+    }
+
+    private Attachment attachment(Long id, String key) {
+        return Attachment.builder()
+                .id(id)
+                .state(AttachmentState.ACTIVE)
+                .s3ObjectKey(key)
+                .build();
+    }
+}
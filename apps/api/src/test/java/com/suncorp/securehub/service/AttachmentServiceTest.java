@@ -1,38 +1,72 @@
 package com.suncorp.securehub.service;
 
 import com.suncorp.securehub.config.AttachmentProperties;
+import com.suncorp.securehub.dto.AttachmentBatchConfirmRequestDto;
+import com.suncorp.securehub.dto.AttachmentBatchConfirmResultDto;
+import com.suncorp.securehub.dto.AttachmentBatchUploadUrlRequestDto;
+import com.suncorp.securehub.dto.AttachmentDto;
+import com.suncorp.securehub.dto.AttachmentMultipartUploadResponseDto;
+import com.suncorp.securehub.dto.AttachmentUploadPartUrlDto;
 import com.suncorp.securehub.dto.AttachmentUploadUrlRequestDto;
+import com.suncorp.securehub.dto.AttachmentUploadUrlResponseDto;
+import com.suncorp.securehub.entity.Attachment;
+import com.suncorp.securehub.entity.AttachmentBlob;
+import com.suncorp.securehub.entity.AttachmentState;
 import com.suncorp.securehub.entity.Role;
 import com.suncorp.securehub.entity.SupportRequest;
 import com.suncorp.securehub.entity.User;
 import com.suncorp.securehub.exception.AccessDeniedException;
 import com.suncorp.securehub.exception.BadRequestException;
+import com.suncorp.securehub.repository.AttachmentBlobRepository;
+import com.suncorp.securehub.repository.AttachmentExtractedContentRepository;
 import com.suncorp.securehub.repository.AttachmentRepository;
 import com.suncorp.securehub.repository.CommentRepository;
 import com.suncorp.securehub.repository.SupportRequestRepository;
 import com.suncorp.securehub.repository.UserRepository;
+import com.suncorp.securehub.service.storage.AttachmentStorage;
+import com.suncorp.securehub.service.storage.AttachmentStorageExecutor;
+import com.suncorp.securehub.service.storage.LegacyAttachmentKeyLayout;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class AttachmentServiceTest {
 
+    private static final String CHECKSUM = "n4bQgYhMfWWaL+qgxVrQFaO/TxsrC4Is0V1sFbDwCgg=";
+
     @Mock
     private AttachmentRepository attachmentRepository;
 
+    @Mock
+    private AttachmentBlobRepository blobRepository;
+
+    @Mock
+    private AttachmentExtractedContentRepository extractedContentRepository;
+
     @Mock
     private SupportRequestRepository requestRepository;
 
@@ -43,13 +77,20 @@ class AttachmentServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private S3Client s3Client;
+    private AttachmentStorage attachmentStorage;
 
     @Mock
-    private S3Presigner s3Presigner;
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private AttachmentThumbnailService thumbnailService;
+
+    @Mock
+    private AttachmentDiskCache diskCache;
 
     private AttachmentService attachmentService;
     private AttachmentProperties attachmentProperties;
+    private AttachmentStorageExecutor storageExecutor;
 
     private User ownerUser;
     private User otherUser;
@@ -59,15 +100,24 @@ class AttachmentServiceTest {
     void setUp() {
         attachmentProperties = new AttachmentProperties();
         attachmentProperties.setMaxFileSizeBytes(10 * 1024 * 1024L);
+        storageExecutor = new AttachmentStorageExecutor(attachmentProperties);
 
         attachmentService = new AttachmentService(
                 attachmentRepository,
+                blobRepository,
+                extractedContentRepository,
                 requestRepository,
                 commentRepository,
                 userRepository,
-                s3Client,
-                s3Presigner,
-                attachmentProperties
+                attachmentStorage,
+                new LegacyAttachmentKeyLayout(),
+                storageExecutor,
+                new AttachmentDownloadUrlCache(attachmentStorage, attachmentProperties, new SimpleMeterRegistry()),
+                diskCache,
+                thumbnailService,
+                attachmentProperties,
+                transactionTemplate,
+                new SimpleMeterRegistry()
         );
 
         Role userRole = Role.builder().id(1L).name(Role.RoleName.USER).build();
@@ -92,6 +142,11 @@ class AttachmentServiceTest {
                 .build();
     }
 
+    @AfterEach
+    void tearDown() {
+        storageExecutor.shutdown();
+    }
+
     @Test
     void createRequestUploadUrl_whenFileIsTooLarge_shouldThrowBadRequest() {
         AttachmentUploadUrlRequestDto dto = new AttachmentUploadUrlRequestDto();
@@ -152,4 +207,477 @@ class AttachmentServiceTest {
         verify(userRepository, never()).findByUsername("owner");
         verify(attachmentRepository, never()).save(org.mockito.ArgumentMatchers.any());
     }
+
+    @Test
+    void openAttachmentContent_shouldStreamObjectWithoutBuffering() throws Exception {
+        Attachment attachment = activeAttachment(5L);
+        when(attachmentRepository.findById(attachment.getId())).thenReturn(Optional.of(attachment));
+        when(attachmentStorage.openStream(attachment.getS3ObjectKey(), 0, null))
+                .thenReturn(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5}));
+
+        try (AttachmentContent content = attachmentService.openAttachmentContent(attachment.getId())) {
+            assertThat(content.getContentLength()).isEqualTo(5L);
+            assertThat(content.getStream().read()).isEqualTo(1);
+            assertThat(content.getStream().readAllBytes()).containsExactly(2, 3, 4, 5);
+        }
+    }
+
+    @Test
+    void openAttachmentContent_whenObjectExceedsMaxBytes_shouldFailRead() throws Exception {
+        attachmentProperties.setStreamMaxBytes(4L);
+        Attachment attachment = activeAttachment(4L);
+        when(attachmentRepository.findById(attachment.getId())).thenReturn(Optional.of(attachment));
+        when(attachmentStorage.openStream(attachment.getS3ObjectKey(), 0, null))
+                .thenReturn(new ByteArrayInputStream(new byte[8]));
+
+        assertThatThrownBy(() -> {
+            try (AttachmentContent content = attachmentService.openAttachmentContent(attachment.getId())) {
+                content.getStream().readAllBytes();
+            }
+        })
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("exceeded max size");
+    }
+
+    @Test
+    void openAttachmentContent_whenMetadataSizeExceedsMaxBytes_shouldNotReadStorage() throws Exception {
+        attachmentProperties.setStreamMaxBytes(4L);
+        Attachment attachment = activeAttachment(8L);
+        when(attachmentRepository.findById(attachment.getId())).thenReturn(Optional.of(attachment));
+
+        assertThatThrownBy(() -> attachmentService.openAttachmentContent(attachment.getId()))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("max download size");
+
+        verify(attachmentStorage, never()).openStream(any(), anyLong(), any());
+    }
+
+    @Test
+    void downloadAttachmentBytes_whenSizeExceedsInMemoryLimit_shouldNotReadStorage() throws Exception {
+        attachmentProperties.setDownloadMaxBytes(4L);
+        Attachment attachment = activeAttachment(8L);
+        when(attachmentRepository.findById(attachment.getId())).thenReturn(Optional.of(attachment));
+
+        assertThatThrownBy(() -> attachmentService.downloadAttachmentBytes(attachment.getId()))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("max download size");
+
+        verify(attachmentStorage, never()).openStream(any(), anyLong(), any());
+    }
+
+    @Test
+    void openAttachmentContent_aboveInMemoryLimit_shouldStreamUpToStreamLimit() throws Exception {
+        attachmentProperties.setDownloadMaxBytes(4L);
+        Attachment attachment = activeAttachment(8L);
+        when(attachmentStorage.openStream(attachment.getS3ObjectKey(), 0, null))
+                .thenReturn(new ByteArrayInputStream(new byte[8]));
+
+        try (AttachmentContent content = attachmentService.openAttachmentContent(attachment)) {
+            assertThat(content.getStream().readAllBytes()).hasSize(8);
+        }
+    }
+
+    @Test
+    void openAttachmentRange_withinMaxBytesOfLargerObject_shouldReadRange() throws Exception {
+        attachmentProperties.setStreamMaxBytes(4L);
+        Attachment attachment = activeAttachment(8L);
+        when(attachmentStorage.openStream(attachment.getS3ObjectKey(), 2, 3L))
+                .thenReturn(new ByteArrayInputStream(new byte[] {3, 4, 5}));
+
+        try (AttachmentContent content = attachmentService.openAttachmentRange(attachment, 2, 3)) {
+            assertThat(content.getStream().readAllBytes()).containsExactly(3, 4, 5);
+        }
+    }
+
+    @Test
+    void createRequestMultipartUpload_shouldPresignOneUrlPerPart() {
+        attachmentProperties.setMultipartPartSizeBytes(16 * 1024 * 1024L);
+        AttachmentUploadUrlRequestDto dto = new AttachmentUploadUrlRequestDto();
+        dto.setFileName("bundle.txt");
+        dto.setContentType("text/plain");
+        dto.setFileSize(40 * 1024 * 1024L);
+
+        when(requestRepository.findById(ownerRequest.getId())).thenReturn(Optional.of(ownerRequest));
+        when(userRepository.findByUsername("owner")).thenReturn(Optional.of(ownerUser));
+        when(attachmentStorage.supportsMultipartUpload()).thenReturn(true);
+        when(attachmentRepository.save(any(Attachment.class))).thenAnswer(invocation -> {
+            Attachment saved = invocation.getArgument(0);
+            saved.setId(10L);
+            return saved;
+        });
+        when(attachmentStorage.initiateMultipartUpload("requests/100/attachments/10/bundle.txt", "text/plain"))
+                .thenReturn("upload-1");
+        when(attachmentStorage.createUploadPartUrl(eq("requests/100/attachments/10/bundle.txt"), eq("upload-1"),
+                anyInt(), anyLong(), any()))
+                .thenAnswer(invocation -> "https://s3/part-" + invocation.getArgument(2));
+
+        AttachmentMultipartUploadResponseDto response = attachmentService.createRequestMultipartUpload(
+                ownerRequest.getId(), dto, "owner", Set.of("ROLE_USER"));
+
+        assertThat(response.getAttachmentId()).isEqualTo(10L);
+        assertThat(response.getParts())
+                .extracting(AttachmentUploadPartUrlDto::getPartNumber, AttachmentUploadPartUrlDto::getPartSize)
+                .containsExactly(
+                        tuple(1, 16 * 1024 * 1024L),
+                        tuple(2, 16 * 1024 * 1024L),
+                        tuple(3, 8 * 1024 * 1024L));
+        assertThat(response.getParts().get(2).getUploadUrl()).isEqualTo("https://s3/part-3");
+    }
+
+    @Test
+    void createRequestMultipartUpload_whenStorageHasNoMultipartSupport_shouldThrowBadRequest() {
+        AttachmentUploadUrlRequestDto dto = new AttachmentUploadUrlRequestDto();
+        dto.setFileName("bundle.txt");
+        dto.setContentType("text/plain");
+        dto.setFileSize(40 * 1024 * 1024L);
+
+        when(requestRepository.findById(ownerRequest.getId())).thenReturn(Optional.of(ownerRequest));
+        when(userRepository.findByUsername("owner")).thenReturn(Optional.of(ownerUser));
+
+        assertThatThrownBy(() -> attachmentService.createRequestMultipartUpload(
+                ownerRequest.getId(), dto, "owner", Set.of("ROLE_USER")))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("not supported");
+
+        verify(attachmentRepository, never()).save(any());
+    }
+
+    @Test
+    void completeRequestMultipartUpload_shouldCompleteThenApplyConfirmValidation() {
+        Attachment attachment = activeAttachment(40L);
+        attachment.setState(AttachmentState.PENDING);
+        attachment.setMultipartUploadId("upload-1");
+
+        when(requestRepository.findById(ownerRequest.getId())).thenReturn(Optional.of(ownerRequest));
+        when(attachmentRepository.findByIdAndRequest_Id(attachment.getId(), ownerRequest.getId()))
+                .thenReturn(Optional.of(attachment));
+        when(attachmentStorage.confirmUpload(attachment.getS3ObjectKey())).thenReturn(Optional.of(39L));
+
+        assertThatThrownBy(() -> attachmentService.completeRequestMultipartUpload(
+                ownerRequest.getId(), attachment.getId(), "owner", Set.of("ROLE_USER")))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("size does not match");
+
+        verify(attachmentStorage).completeMultipartUpload(attachment.getS3ObjectKey(), "upload-1");
+        assertThat(attachment.getState()).isEqualTo(AttachmentState.FAILED);
+    }
+
+    @Test
+    void cleanupOrphanedPendingAttachments_shouldAbortStaleMultipartUploads() {
+        when(attachmentStorage.supportsMultipartUpload()).thenReturn(true);
+        when(attachmentStorage.abortMultipartUploadsInitiatedBefore(any())).thenReturn(2);
+
+        attachmentService.cleanupOrphanedPendingAttachments();
+
+        verify(attachmentStorage).abortMultipartUploadsInitiatedBefore(any());
+    }
+
+    @Test
+    void createRequestUploadUrls_whenBatchExceedsQuota_shouldRejectWholeBatch() {
+        attachmentProperties.setRequestMaxCount(3);
+        AttachmentBatchUploadUrlRequestDto dto = new AttachmentBatchUploadUrlRequestDto();
+        dto.setFiles(List.of(uploadRequest("a.png"), uploadRequest("b.png")));
+
+        when(requestRepository.findById(ownerRequest.getId())).thenReturn(Optional.of(ownerRequest));
+        when(userRepository.findByUsername("owner")).thenReturn(Optional.of(ownerUser));
+        when(attachmentRepository.countByRequest_IdAndStateIn(eq(ownerRequest.getId()), any())).thenReturn(2L);
+
+        assertThatThrownBy(() -> attachmentService.createRequestUploadUrls(
+                ownerRequest.getId(), dto, "owner", Set.of("ROLE_USER")))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("attachment limit exceeded");
+
+        verify(attachmentRepository, never()).save(any());
+    }
+
+    @Test
+    void confirmRequestAttachments_shouldCheckStorageInParallelAndReportEachItem() {
+        Attachment uploaded = pendingAttachment(10L, 5L);
+        Attachment truncated = pendingAttachment(11L, 5L);
+        Attachment alreadyActive = activeAttachment(5L);
+        alreadyActive.setId(12L);
+        AttachmentBatchConfirmRequestDto dto = new AttachmentBatchConfirmRequestDto();
+        dto.setAttachmentIds(List.of(10L, 11L, 12L, 13L));
+
+        when(requestRepository.findById(ownerRequest.getId())).thenReturn(Optional.of(ownerRequest));
+        when(attachmentRepository.findByIdInAndRequest_Id(dto.getAttachmentIds(), ownerRequest.getId()))
+                .thenReturn(List.of(uploaded, truncated, alreadyActive));
+        when(attachmentStorage.confirmUpload(uploaded.getS3ObjectKey())).thenReturn(Optional.of(5L));
+        when(attachmentStorage.confirmUpload(truncated.getS3ObjectKey())).thenReturn(Optional.of(3L));
+        when(attachmentRepository.save(any(Attachment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<AttachmentBatchConfirmResultDto> results = attachmentService.confirmRequestAttachments(
+                ownerRequest.getId(), dto, "owner", Set.of("ROLE_USER"));
+
+        assertThat(results)
+                .extracting(AttachmentBatchConfirmResultDto::getAttachmentId,
+                        AttachmentBatchConfirmResultDto::isConfirmed,
+                        AttachmentBatchConfirmResultDto::getError)
+                .containsExactly(
+                        tuple(10L, true, null),
+                        tuple(11L, false, "Uploaded file size does not match metadata"),
+                        tuple(12L, true, null),
+                        tuple(13L, false, "Attachment not found"));
+        assertThat(uploaded.getState()).isEqualTo(AttachmentState.ACTIVE);
+        assertThat(truncated.getState()).isEqualTo(AttachmentState.FAILED);
+        verify(attachmentStorage, never()).confirmUpload(alreadyActive.getS3ObjectKey());
+    }
+
+    @Test
+    void listRequestAttachments_withDownloadUrls_shouldSignActiveAttachmentsOnceAndReuseUrls() {
+        Attachment active = activeAttachment(5L);
+        Attachment pending = pendingAttachment(11L, 5L);
+
+        when(requestRepository.findById(ownerRequest.getId())).thenReturn(Optional.of(ownerRequest));
+        when(attachmentRepository.findByRequest_IdOrderByCreatedAtAsc(ownerRequest.getId()))
+                .thenReturn(List.of(active, pending));
+        when(attachmentStorage.createDownloadUrl(eq(active.getS3ObjectKey()), eq("text/plain"), any()))
+                .thenReturn("https://s3/active");
+
+        List<AttachmentDto> first = attachmentService.listRequestAttachments(
+                ownerRequest.getId(), true, "owner", Set.of("ROLE_USER"));
+        List<AttachmentDto> second = attachmentService.listRequestAttachments(
+                ownerRequest.getId(), true, "owner", Set.of("ROLE_USER"));
+
+        assertThat(first.get(0).getDownloadUrl()).isEqualTo("https://s3/active");
+        assertThat(first.get(1).getDownloadUrl()).isNull();
+        assertThat(second.get(0).getDownloadUrl()).isEqualTo("https://s3/active");
+        assertThat(second.get(0).getDownloadUrlExpiresAt()).isEqualTo(first.get(0).getDownloadUrlExpiresAt());
+        verify(attachmentStorage, times(1)).createDownloadUrl(any(), any(), any());
+    }
+
+    @Test
+    void listRequestAttachments_withDownloadUrls_shouldSignThumbnailOnceAndReuseUrl() {
+        Attachment active = activeAttachment(5L);
+        active.setThumbnailKey("requests/100/thumbnails/10.jpg");
+
+        when(requestRepository.findById(ownerRequest.getId())).thenReturn(Optional.of(ownerRequest));
+        when(attachmentRepository.findByRequest_IdOrderByCreatedAtAsc(ownerRequest.getId()))
+                .thenReturn(List.of(active));
+        when(attachmentStorage.createDownloadUrl(eq(active.getS3ObjectKey()), eq("text/plain"), any()))
+                .thenReturn("https://s3/active");
+        when(attachmentStorage.createDownloadUrl(eq("requests/100/thumbnails/10.jpg"), eq("image/jpeg"), any()))
+                .thenReturn("https://s3/thumbnail");
+
+        List<AttachmentDto> listed = attachmentService.listRequestAttachments(
+                ownerRequest.getId(), true, "owner", Set.of("ROLE_USER"));
+        List<AttachmentDto> again = attachmentService.listRequestAttachments(
+                ownerRequest.getId(), true, "owner", Set.of("ROLE_USER"));
+
+        assertThat(listed.get(0).getThumbnailUrl()).isEqualTo("https://s3/thumbnail");
+        assertThat(listed.get(0).getDownloadUrl()).isEqualTo("https://s3/active");
+        assertThat(again.get(0).getThumbnailUrl()).isEqualTo("https://s3/thumbnail");
+        verify(attachmentStorage, times(2)).createDownloadUrl(any(), any(), any());
+    }
+
+    @Test
+    void listRequestAttachments_afterSharedKeyIsMigrated_shouldSignTheNewKeyForEveryRow() {
+        Attachment first = activeAttachment(5L);
+        Attachment sibling = activeAttachment(5L);
+        sibling.setId(11L);
+        when(requestRepository.findById(ownerRequest.getId())).thenReturn(Optional.of(ownerRequest));
+        when(attachmentRepository.findByRequest_IdOrderByCreatedAtAsc(ownerRequest.getId()))
+                .thenReturn(List.of(first, sibling));
+        when(attachmentStorage.createDownloadUrl(eq("requests/100/attachments/10/log.txt"), any(), any()))
+                .thenReturn("https://s3/old");
+        when(attachmentStorage.createDownloadUrl(eq("ab12/requests/100/attachments/10/log.txt"), any(), any()))
+                .thenReturn("https://s3/new");
+        attachmentService.listRequestAttachments(ownerRequest.getId(), true, "owner", Set.of("ROLE_USER"));
+
+        // The key migration repoints both deduplicated rows and evicts only one of them, on one node
+        first.setS3ObjectKey("ab12/requests/100/attachments/10/log.txt");
+        sibling.setS3ObjectKey("ab12/requests/100/attachments/10/log.txt");
+        List<AttachmentDto> listed = attachmentService.listRequestAttachments(
+                ownerRequest.getId(), true, "owner", Set.of("ROLE_USER"));
+
+        assertThat(listed).extracting(AttachmentDto::getDownloadUrl)
+                .containsExactly("https://s3/new", "https://s3/new");
+    }
+
+    @Test
+    void listRequestAttachments_withoutDownloadUrls_shouldNotSign() {
+        when(requestRepository.findById(ownerRequest.getId())).thenReturn(Optional.of(ownerRequest));
+        when(attachmentRepository.findByRequest_IdOrderByCreatedAtAsc(ownerRequest.getId()))
+                .thenReturn(List.of(activeAttachment(5L)));
+
+        List<AttachmentDto> listed = attachmentService.listRequestAttachments(
+                ownerRequest.getId(), false, "owner", Set.of("ROLE_USER"));
+
+        assertThat(listed.get(0).getDownloadUrl()).isNull();
+        verify(attachmentStorage, never()).createDownloadUrl(any(), any(), any());
+    }
+
+    @Test
+    void listRequestAttachments_withoutDownloadUrls_shouldStillSignThumbnails() {
+        Attachment active = activeAttachment(5L);
+        active.setThumbnailKey("requests/100/thumbnails/10.jpg");
+        when(requestRepository.findById(ownerRequest.getId())).thenReturn(Optional.of(ownerRequest));
+        when(attachmentRepository.findByRequest_IdOrderByCreatedAtAsc(ownerRequest.getId()))
+                .thenReturn(List.of(active));
+        when(attachmentStorage.createDownloadUrl(eq("requests/100/thumbnails/10.jpg"), eq("image/jpeg"), any()))
+                .thenReturn("https://s3/thumbnail");
+
+        List<AttachmentDto> listed = attachmentService.listRequestAttachments(
+                ownerRequest.getId(), false, "owner", Set.of("ROLE_USER"));
+
+        assertThat(listed.get(0).getDownloadUrl()).isNull();
+        assertThat(listed.get(0).getThumbnailUrl()).isEqualTo("https://s3/thumbnail");
+        assertThat(listed.get(0).getThumbnailUrlExpiresAt()).isNotNull();
+        verify(attachmentStorage, times(1)).createDownloadUrl(any(), any(), any());
+    }
+
+    @Test
+    void confirmRequestAttachment_withChecksumOfNewContent_shouldRegisterBlob() {
+        Attachment attachment = pendingAttachment(10L, 5L);
+        attachment.setChecksumSha256(CHECKSUM);
+        AttachmentBlob blob = AttachmentBlob.builder()
+                .sha256(CHECKSUM).s3ObjectKey(attachment.getS3ObjectKey()).fileSize(5L).refCount(0).build();
+        stubConfirm(attachment, CHECKSUM);
+        when(blobRepository.findBySha256ForUpdate(CHECKSUM)).thenReturn(Optional.of(blob));
+
+        attachmentService.confirmRequestAttachment(ownerRequest.getId(), 10L, "owner", Set.of("ROLE_USER"));
+
+        verify(blobRepository).insertIfAbsent(CHECKSUM, "requests/100/attachments/10/log.txt", 5L);
+        assertThat(blob.getRefCount()).isEqualTo(1);
+        assertThat(attachment.getBlob()).isSameAs(blob);
+        assertThat(attachment.getS3ObjectKey()).isEqualTo("requests/100/attachments/10/log.txt");
+        assertThat(attachment.getState()).isEqualTo(AttachmentState.ACTIVE);
+        verify(attachmentStorage, never()).delete(any());
+        verify(thumbnailService).enqueue(attachment);
+    }
+
+    @Test
+    void confirmRequestAttachment_withChecksumOfStoredContent_shouldShareObjectAndDeleteDuplicate() {
+        Attachment attachment = pendingAttachment(10L, 5L);
+        attachment.setChecksumSha256(CHECKSUM);
+        AttachmentBlob blob = AttachmentBlob.builder()
+                .sha256(CHECKSUM).s3ObjectKey("requests/7/attachments/3/log.txt").fileSize(5L).refCount(2).build();
+        stubConfirm(attachment, CHECKSUM);
+        when(blobRepository.findBySha256ForUpdate(CHECKSUM)).thenReturn(Optional.of(blob));
+
+        attachmentService.confirmRequestAttachment(ownerRequest.getId(), 10L, "owner", Set.of("ROLE_USER"));
+
+        assertThat(blob.getRefCount()).isEqualTo(3);
+        assertThat(attachment.getS3ObjectKey()).isEqualTo("requests/7/attachments/3/log.txt");
+        assertThat(attachment.getState()).isEqualTo(AttachmentState.ACTIVE);
+        verify(attachmentStorage).delete("requests/100/attachments/10/log.txt");
+    }
+
+    @Test
+    void confirmRequestAttachment_whenChecksumDiffers_shouldMarkFailed() {
+        Attachment attachment = pendingAttachment(10L, 5L);
+        attachment.setChecksumSha256(CHECKSUM);
+        stubConfirm(attachment, "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA=");
+
+        assertThatThrownBy(() -> attachmentService.confirmRequestAttachment(
+                ownerRequest.getId(), 10L, "owner", Set.of("ROLE_USER")))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("checksum does not match");
+
+        assertThat(attachment.getState()).isEqualTo(AttachmentState.FAILED);
+        verify(blobRepository, never()).insertIfAbsent(any(), any(), anyLong());
+    }
+
+    @Test
+    void createRequestUploadUrl_whenUploaderAlreadyStoredContent_shouldSkipUpload() {
+        AttachmentUploadUrlRequestDto dto = uploadRequest("log.png");
+        dto.setChecksumSha256(CHECKSUM);
+        AttachmentBlob blob = AttachmentBlob.builder()
+                .sha256(CHECKSUM).s3ObjectKey("requests/7/attachments/3/log.png").fileSize(1024L).refCount(1).build();
+
+        when(requestRepository.findById(ownerRequest.getId())).thenReturn(Optional.of(ownerRequest));
+        when(userRepository.findByUsername("owner")).thenReturn(Optional.of(ownerUser));
+        when(attachmentRepository.save(any(Attachment.class))).thenAnswer(invocation -> {
+            Attachment saved = invocation.getArgument(0);
+            saved.setId(20L);
+            return saved;
+        });
+        when(attachmentRepository.existsByUploadedBy_IdAndBlob_Sha256AndState(
+                ownerUser.getId(), CHECKSUM, AttachmentState.ACTIVE)).thenReturn(true);
+        when(blobRepository.findBySha256ForUpdate(CHECKSUM)).thenReturn(Optional.of(blob));
+
+        AttachmentUploadUrlResponseDto response = attachmentService.createRequestUploadUrl(
+                ownerRequest.getId(), dto, "owner", Set.of("ROLE_USER"));
+
+        assertThat(response.isDeduplicated()).isTrue();
+        assertThat(response.getUploadUrl()).isNull();
+        assertThat(blob.getRefCount()).isEqualTo(2);
+        verify(attachmentStorage, never()).createUploadUrl(any(), any(), anyLong(), any(), any());
+    }
+
+    @Test
+    void deleteRequestAttachment_whenBlobIsShared_shouldKeepObject() {
+        AttachmentBlob blob = AttachmentBlob.builder()
+                .sha256(CHECKSUM).s3ObjectKey("requests/100/attachments/10/log.txt").fileSize(5L).refCount(2).build();
+        Attachment attachment = activeAttachment(5L);
+        attachment.setBlob(blob);
+
+        when(requestRepository.findById(ownerRequest.getId())).thenReturn(Optional.of(ownerRequest));
+        when(attachmentRepository.findByIdAndRequest_Id(10L, ownerRequest.getId())).thenReturn(Optional.of(attachment));
+        when(blobRepository.findBySha256ForUpdate(CHECKSUM)).thenReturn(Optional.of(blob));
+
+        attachmentService.deleteRequestAttachment(ownerRequest.getId(), 10L, "owner", Set.of("ROLE_USER"));
+
+        assertThat(blob.getRefCount()).isEqualTo(1);
+        verify(extractedContentRepository).deleteByAttachmentIds(List.of(10L));
+        verify(attachmentRepository).delete(attachment);
+        verify(diskCache).evict(10L);
+        verify(attachmentStorage, never()).delete(any());
+    }
+
+    @Test
+    void deleteRequestAttachment_whenLastReference_shouldDeleteBlobAndObject() {
+        AttachmentBlob blob = AttachmentBlob.builder()
+                .sha256(CHECKSUM).s3ObjectKey("requests/7/attachments/3/log.txt").fileSize(5L).refCount(1).build();
+        Attachment attachment = activeAttachment(5L);
+        attachment.setBlob(blob);
+        attachment.setS3ObjectKey(blob.getS3ObjectKey());
+
+        when(requestRepository.findById(ownerRequest.getId())).thenReturn(Optional.of(ownerRequest));
+        when(attachmentRepository.findByIdAndRequest_Id(10L, ownerRequest.getId())).thenReturn(Optional.of(attachment));
+        when(blobRepository.findBySha256ForUpdate(CHECKSUM)).thenReturn(Optional.of(blob));
+
+        attachmentService.deleteRequestAttachment(ownerRequest.getId(), 10L, "owner", Set.of("ROLE_USER"));
+
+        verify(blobRepository).delete(blob);
+        verify(attachmentStorage).delete("requests/7/attachments/3/log.txt");
+    }
+
+    private void stubConfirm(Attachment attachment, String storedChecksum) {
+        when(requestRepository.findById(ownerRequest.getId())).thenReturn(Optional.of(ownerRequest));
+        when(attachmentRepository.findByIdAndRequest_Id(attachment.getId(), ownerRequest.getId()))
+                .thenReturn(Optional.of(attachment));
+        when(attachmentStorage.confirmUpload(attachment.getS3ObjectKey())).thenReturn(Optional.of(5L));
+        when(attachmentStorage.checksumSha256(attachment.getS3ObjectKey())).thenReturn(storedChecksum);
+        when(attachmentRepository.save(any(Attachment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private AttachmentUploadUrlRequestDto uploadRequest(String fileName) {
+        AttachmentUploadUrlRequestDto dto = new AttachmentUploadUrlRequestDto();
+        dto.setFileName(fileName);
+        dto.setContentType("image/png");
+        dto.setFileSize(1024L);
+        return dto;
+    }
+
+    private Attachment pendingAttachment(Long id, long fileSize) {
+        Attachment attachment = activeAttachment(fileSize);
+        attachment.setId(id);
+        attachment.setState(AttachmentState.PENDING);
+        attachment.setS3ObjectKey("requests/100/attachments/" + id + "/log.txt");
+        return attachment;
+    }
+
+    private Attachment activeAttachment(long fileSize) {
+        return Attachment.builder()
+                .id(10L)
+                .request(ownerRequest)
+                .fileName("log.txt")
+                .contentType("text/plain")
+                .fileSize(fileSize)
+                .state(AttachmentState.ACTIVE)
+                .uploadedBy(ownerUser)
+                .s3ObjectKey("requests/100/attachments/10/log.txt")
+                .build();
+    }
 }
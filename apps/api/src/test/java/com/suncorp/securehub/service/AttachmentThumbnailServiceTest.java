@@ -0,0 +1,107 @@
+package com.suncorp.securehub.service;
+
+import com.suncorp.securehub.config.AttachmentProperties;
+import com.suncorp.securehub.entity.Attachment;
+import com.suncorp.securehub.entity.AttachmentState;
+import com.suncorp.securehub.repository.AttachmentRepository;
+import com.suncorp.securehub.service.storage.AttachmentKeyLayout;
+import com.suncorp.securehub.service.storage.AttachmentStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AttachmentThumbnailServiceTest {
+
+    @Mock
+    private AttachmentRepository attachmentRepository;
+
+    @Mock
+    private AttachmentStorage attachmentStorage;
+
+    @Mock
+    private AttachmentKeyLayout keyLayout;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private AttachmentProperties properties;
+    private AttachmentThumbnailService thumbnailService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AttachmentProperties();
+        properties.setThumbnailWorkers(1);
+        properties.setThumbnailQueueCapacity(2);
+        thumbnailService = new AttachmentThumbnailService(attachmentRepository, attachmentStorage, keyLayout,
+                properties, transactionTemplate, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        thumbnailService.shutdown();
+    }
+
+    @Test
+    void sweep_shouldQueueImagesWithoutThumbnailsUpToTheFreeQueueCapacity() {
+        when(attachmentRepository.findMissingThumbnails(eq(AttachmentState.ACTIVE),
+                eq(Set.of("image/png", "image/jpeg")), eq(properties.getThumbnailMaxSourceBytes()), eq(0L),
+                eq(PageRequest.of(0, 2))))
+                .thenReturn(List.of(activeImage(1L), activeImage(2L)));
+
+        thumbnailService.sweep();
+
+        // Each queued job starts by re-reading its row in a transaction.
+        verify(transactionTemplate, timeout(1000).times(2)).execute(any());
+    }
+
+    @Test
+    void sweep_whenThumbnailsDisabled_shouldNotQuery() {
+        properties.setThumbnailsEnabled(false);
+
+        thumbnailService.sweep();
+
+        verifyNoInteractions(attachmentRepository);
+    }
+
+    @Test
+    void sweep_afterShortPage_shouldStartOverFromTheFirstId() {
+        when(attachmentRepository.findMissingThumbnails(eq(AttachmentState.ACTIVE), any(), anyLong(), eq(0L), any()))
+                .thenReturn(List.of(activeImage(7L)));
+
+        thumbnailService.sweep();
+        verify(transactionTemplate, timeout(1000)).execute(any());
+        thumbnailService.sweep();
+
+        verify(attachmentRepository, timeout(1000).times(2))
+                .findMissingThumbnails(eq(AttachmentState.ACTIVE), any(), anyLong(), eq(0L), any());
+    }
+
+    private static Attachment activeImage(Long id) {
+        return Attachment.builder()
+                .id(id)
+                .fileName("photo.png")
+                .contentType("image/png")
+                .fileSize(10L)
+                .state(AttachmentState.ACTIVE)
+                .s3ObjectKey("requests/1/attachments/" + id + "/photo.png")
+                .build();
+    }
+}
@@ -0,0 +1,147 @@
+package com.suncorp.securehub.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.suncorp.securehub.config.AttachmentProperties;
+import com.suncorp.securehub.entity.Attachment;
+import com.suncorp.securehub.entity.AttachmentState;
+import com.suncorp.securehub.repository.AttachmentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AttachmentUploadEventPollerTest {
+
+    private static final String QUEUE_URL = "http://localhost:4566/000000000000/uploads";
+
+    @Mock
+    private SqsClient sqsClient;
+
+    @Mock
+    private AttachmentRepository attachmentRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private AttachmentThumbnailService thumbnailService;
+
+    private AttachmentUploadEventPoller poller;
+
+    @BeforeEach
+    void setUp() {
+        AttachmentProperties properties = new AttachmentProperties();
+        properties.setBucketName("attachments");
+        properties.setUploadEventsQueueUrl(QUEUE_URL);
+        poller = new AttachmentUploadEventPoller(sqsClient, attachmentRepository, properties, transactionTemplate,
+                new ObjectMapper(), new SimpleMeterRegistry(), thumbnailService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void poll_shouldActivateMatchingUploadsFailMismatchesAndDeleteMessages() {
+        Attachment matching = pendingAttachment(1L, "requests/1/attachments/1/a.png", 10L);
+        Attachment truncated = pendingAttachment(2L, "requests/1/attachments/2/b.png", 10L);
+        receive(
+                message("m1", event("attachments", "requests/1/attachments/1/a.png", 10)),
+                message("m2", event("attachments", "requests/1/attachments/2/b.png", 4)),
+                message("m3", "not json"));
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(attachmentRepository.findByS3ObjectKeyInAndState(
+                eq(Set.of(matching.getS3ObjectKey(), truncated.getS3ObjectKey())), eq(AttachmentState.PENDING)))
+                .thenReturn(List.of(matching, truncated));
+        when(sqsClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+                .thenReturn(DeleteMessageBatchResponse.builder().build());
+
+        poller.poll();
+
+        assertThat(matching.getState()).isEqualTo(AttachmentState.ACTIVE);
+        assertThat(truncated.getState()).isEqualTo(AttachmentState.FAILED);
+        verify(attachmentRepository).saveAll(List.of(matching, truncated));
+        verify(thumbnailService).enqueue(matching);
+        verify(thumbnailService, never()).enqueue(truncated);
+        verify(sqsClient).deleteMessageBatch(argThat((DeleteMessageBatchRequest request) ->
+                request.entries().size() == 3));
+    }
+
+    @Test
+    void poll_whenApplyingFails_shouldLeaveMessagesForRedelivery() {
+        receive(message("m1", event("attachments", "requests/1/attachments/1/a.png", 10)));
+        doThrow(new IllegalStateException("database unavailable"))
+                .when(transactionTemplate).executeWithoutResult(any());
+
+        poller.poll();
+
+        verify(sqsClient, never()).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+    }
+
+    @Test
+    void poll_shouldIgnoreOtherBucketsAndEventTypes() {
+        receive(
+                message("m1", event("other-bucket", "requests/1/attachments/1/a.png", 10)),
+                message("m2", "{\"Event\":\"s3:TestEvent\"}"));
+        when(sqsClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+                .thenReturn(DeleteMessageBatchResponse.builder().build());
+
+        poller.poll();
+
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+        verify(sqsClient).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+    }
+
+    private void receive(Message... messages) {
+        when(sqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(ReceiveMessageResponse.builder().messages(messages).build());
+    }
+
+    private Message message(String id, String body) {
+        return Message.builder().messageId(id).receiptHandle("receipt-" + id).body(body).build();
+    }
+
+    private String event(String bucket, String key, long size) {
+        return """
+                {"Records":[{"eventName":"ObjectCreated:Put",
+                  "s3":{"bucket":{"name":"%s"},"object":{"key":"%s","size":%d}}}]}
+                """.formatted(bucket, key, size);
+    }
+
+    private Attachment pendingAttachment(Long id, String key, long fileSize) {
+        return Attachment.builder()
+                .id(id)
+                .fileName("file.png")
+                .contentType("image/png")
+                .fileSize(fileSize)
+                .state(AttachmentState.PENDING)
+                .s3ObjectKey(key)
+                .build();
+    }
+}
@@ -0,0 +1,102 @@
+package com.suncorp.securehub.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ThumbnailRendererTest {
+
+    @Test
+    void render_shouldFitLongerSideAndKeepAspectRatio() throws Exception {
+        byte[] png = image(1200, 600, "png");
+
+        byte[] thumbnail = ThumbnailRenderer.render(new ByteArrayInputStream(png), 256, 100_000_000L);
+
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(thumbnail));
+        assertThat(decoded.getWidth()).isEqualTo(256);
+        assertThat(decoded.getHeight()).isEqualTo(128);
+    }
+
+    @Test
+    void render_shouldNotUpscaleSmallImages() throws Exception {
+        byte[] jpeg = image(100, 40, "jpeg");
+
+        byte[] thumbnail = ThumbnailRenderer.render(new ByteArrayInputStream(jpeg), 256, 100_000_000L);
+
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(thumbnail));
+        assertThat(decoded.getWidth()).isEqualTo(100);
+        assertThat(decoded.getHeight()).isEqualTo(40);
+    }
+
+    @Test
+    void render_shouldRejectImagesAbovePixelLimitAndNonImages() throws Exception {
+        byte[] png = image(400, 400, "png");
+
+        assertThatThrownBy(() -> ThumbnailRenderer.render(new ByteArrayInputStream(png), 256, 1000L))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("pixel limit");
+        assertThatThrownBy(() -> ThumbnailRenderer.render(new ByteArrayInputStream(new byte[64]), 256, 1000L))
+                .isInstanceOf(IOException.class);
+    }
+
+    /**
+     * Thumbnails per second per core for a 12 MP photo. Only runs when
+     * RUN_BENCHMARKS=true, e.g. {@code RUN_BENCHMARKS=true ./gradlew test --tests '*ThumbnailRendererTest'}.
+     */
+    @Test
+    @EnabledIfEnvironmentVariable(named = "RUN_BENCHMARKS", matches = "true")
+    void renderThroughput() throws Exception {
+        byte[] jpeg = image(4000, 3000, "jpeg");
+        int cores = Runtime.getRuntime().availableProcessors();
+        int iterations = cores * 10;
+        for (int i = 0; i < 3; i++) {
+            ThumbnailRenderer.render(new ByteArrayInputStream(jpeg), 256, 100_000_000L);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(cores);
+        try {
+            long start = System.nanoTime();
+            List<Future<byte[]>> results = new ArrayList<>(iterations);
+            for (int i = 0; i < iterations; i++) {
+                results.add(pool.submit(() ->
+                        ThumbnailRenderer.render(new ByteArrayInputStream(jpeg), 256, 100_000_000L)));
+            }
+            for (Future<byte[]> result : results) {
+                assertThat(result.get()).isNotEmpty();
+            }
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            System.out.printf("thumbnail render: %.1f thumbnails/s/core (%d cores)%n",
+                    iterations / seconds / cores, cores);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static byte[] image(int width, int height, String format) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.ORANGE);
+        graphics.fillRect(0, 0, width / 2, height);
+        graphics.setColor(Color.BLUE);
+        graphics.fillOval(width / 2, 0, width / 2, height);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,147 @@
+package com.suncorp.securehub.service.ai;
+
+import com.suncorp.securehub.config.AiProperties;
+import com.suncorp.securehub.service.ai.AiAttachmentPreprocessor.PreparedContent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AiAttachmentPreprocessorTest {
+
+    private AiProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private AiAttachmentPreprocessor preprocessor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AiProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        preprocessor = new AiAttachmentPreprocessor(properties, meterRegistry);
+    }
+
+    @Test
+    void prepare_pdfWithTextLayer_shouldSendExtractedText() throws Exception {
+        byte[] pdf = pdf("The printer on level 3 caught fire during the quarterly report run.");
+
+        PreparedContent prepared = preprocessor.prepare("k/report.pdf", "application/pdf", pdf);
+
+        assertThat(prepared.textContent()).contains("printer on level 3 caught fire");
+        assertThat(prepared.contentBytes()).isNull();
+        assertThat(prepared.contentType()).isEqualTo("application/pdf");
+        assertThat(meterRegistry.get("ai.context.preprocessed").tag("result", "pdf_text").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void prepare_pdfWithoutText_shouldSendTheDocument() throws Exception {
+        byte[] scanned = pdf(null);
+        byte[] malformed = "not a pdf".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(preprocessor.prepare("k/scan.pdf", "application/pdf", scanned).contentBytes()).isEqualTo(scanned);
+        assertThat(preprocessor.prepare("k/bad.pdf", "application/pdf", malformed).contentBytes())
+                .isEqualTo(malformed);
+    }
+
+    @Test
+    void prepare_pdfTextDisabled_shouldSendTheDocument() throws Exception {
+        properties.setContextPdfTextEnabled(false);
+        byte[] pdf = pdf("The printer on level 3 caught fire during the quarterly report run.");
+
+        assertThat(preprocessor.prepare("k/report.pdf", "application/pdf", pdf).contentBytes()).isEqualTo(pdf);
+    }
+
+    @Test
+    void prepare_largeImage_shouldDownscaleToJpeg() throws Exception {
+        properties.setContextImageMaxDimension(200);
+        byte[] png = image(1000, 500);
+
+        PreparedContent prepared = preprocessor.prepare("k/shot.png", "image/png", png);
+
+        assertThat(prepared.contentType()).isEqualTo("image/jpeg");
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(prepared.contentBytes()));
+        assertThat(decoded.getWidth()).isEqualTo(200);
+        assertThat(decoded.getHeight()).isEqualTo(100);
+    }
+
+    @Test
+    void prepare_smallOrUnreadableImage_shouldSendItUnchanged() throws Exception {
+        byte[] png = image(100, 50);
+        byte[] broken = new byte[64];
+
+        assertThat(preprocessor.prepare("k/small.png", "image/png", png))
+                .isEqualTo(new PreparedContent("image/png", null, png, false));
+        assertThat(preprocessor.prepare("k/broken.png", "image/png", broken).contentBytes()).isEqualTo(broken);
+    }
+
+    @Test
+    void cached_shouldReturnPreparedContentWithinByteLimit() {
+        properties.setContextPreprocessCacheMaxBytes(20);
+
+        preprocessor.prepare("k/a.txt", "text/plain", "aaaa".getBytes(StandardCharsets.UTF_8)); // 8 bytes
+        preprocessor.prepare("k/b.txt", "text/plain", "bbbb".getBytes(StandardCharsets.UTF_8));
+        assertThat(preprocessor.cached("k/a.txt")).map(PreparedContent::textContent).contains("aaaa");
+
+        // Over the limit: the least recently used entry goes
+        preprocessor.prepare("k/c.txt", "text/plain", "cccc".getBytes(StandardCharsets.UTF_8));
+        assertThat(preprocessor.cached("k/b.txt")).isEmpty();
+        assertThat(preprocessor.cached("k/a.txt")).isPresent();
+        assertThat(preprocessor.cached("k/c.txt")).isPresent();
+
+        // Larger than the whole cache: not kept
+        preprocessor.prepare("k/d.bin", "application/pdf", new byte[64]);
+        assertThat(preprocessor.cached("k/d.bin")).isEmpty();
+        assertThat(meterRegistry.get("ai.context.preprocess_cache.requests").tag("result", "hit").counter().count())
+                .isEqualTo(3);
+    }
+
+    /**
+     * A one-page PDF, with {@code text} on it or blank.
+     */
+    private static byte[] pdf(String text) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            if (text != null) {
+                try (PDPageContentStream stream = new PDPageContentStream(document, page)) {
+                    stream.beginText();
+                    stream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                    stream.newLineAtOffset(50, 700);
+                    stream.showText(text);
+                    stream.endText();
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * A PNG with a per-pixel pattern, so it does not compress to almost nothing.
+     */
+    private static byte[] image(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, (x * 31 + y * 17) * (x ^ y));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
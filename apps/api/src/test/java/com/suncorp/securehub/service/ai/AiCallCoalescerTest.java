@@ -0,0 +1,93 @@
+package com.suncorp.securehub.service.ai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AiCallCoalescerTest {
+
+    private static final AiResultCache.Key KEY =
+            new AiResultCache.Key(100L, "SUMMARIZE", "v1", "model", "hash");
+
+    private SimpleMeterRegistry meterRegistry;
+    private AiCallCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new AiCallCoalescer(meterRegistry);
+    }
+
+    @Test
+    void join_whileCallInFlight_shouldShareItInsteadOfCallingAgain() {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> providerCall = new CompletableFuture<>();
+
+        AiCallCoalescer.Flight<String> first = coalescer.join(KEY, () -> {
+            calls.incrementAndGet();
+            return providerCall;
+        });
+        AiCallCoalescer.Flight<String> second = coalescer.join(KEY, () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+
+        assertThat(first.leader()).isTrue();
+        assertThat(second.leader()).isFalse();
+        assertThat(calls).hasValue(1);
+        assertThat(second.result()).isNotDone();
+
+        providerCall.complete("summary");
+
+        assertThat(first.result().join()).isEqualTo("summary");
+        assertThat(second.result().join()).isEqualTo("summary");
+        assertThat(meterRegistry.get("ai.calls.coalesced").tag("action", "SUMMARIZE").counter().count())
+                .isEqualTo(1);
+        assertThat(coalescer.inFlightCount()).isZero();
+    }
+
+    @Test
+    void join_afterCallFinished_orForOtherKey_shouldStartNewCall() {
+        AiCallCoalescer.Flight<String> done =
+                coalescer.join(KEY, () -> CompletableFuture.completedFuture("first"));
+        AiCallCoalescer.Flight<String> again =
+                coalescer.join(KEY, () -> CompletableFuture.completedFuture("second"));
+        AiResultCache.Key otherHash = new AiResultCache.Key(100L, "SUMMARIZE", "v1", "model", "other");
+        AiCallCoalescer.Flight<String> other =
+                coalescer.join(otherHash, () -> new CompletableFuture<>());
+
+        assertThat(done.leader()).isTrue();
+        assertThat(again.leader()).isTrue();
+        assertThat(again.result().join()).isEqualTo("second");
+        assertThat(other.leader()).isTrue();
+        assertThat(coalescer.inFlightCount()).isEqualTo(1);
+    }
+
+    @Test
+    void join_whenCallFails_shouldFailEveryParticipantAndForgetKey() {
+        CompletableFuture<String> providerCall = new CompletableFuture<>();
+        AiCallCoalescer.Flight<String> first = coalescer.join(KEY, () -> providerCall);
+        AiCallCoalescer.Flight<String> second = coalescer.join(KEY, () -> providerCall);
+
+        providerCall.completeExceptionally(new IllegalStateException("throttled"));
+
+        assertThatThrownBy(() -> first.result().join()).isInstanceOf(CompletionException.class)
+                .hasRootCauseMessage("throttled");
+        assertThatThrownBy(() -> second.result().join()).isInstanceOf(CompletionException.class)
+                .hasRootCauseMessage("throttled");
+        assertThat(coalescer.inFlightCount()).isZero();
+
+        AiCallCoalescer.Flight<String> thrown = coalescer.join(KEY, () -> {
+            throw new IllegalStateException("boom");
+        });
+        assertThat(thrown.result()).isCompletedExceptionally();
+        assertThat(coalescer.inFlightCount()).isZero();
+    }
+}
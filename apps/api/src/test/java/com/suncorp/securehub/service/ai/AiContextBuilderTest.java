@@ -0,0 +1,275 @@
+package com.suncorp.securehub.service.ai;
+
+import com.suncorp.securehub.config.AiProperties;
+import com.suncorp.securehub.dto.AiContextDto;
+import com.suncorp.securehub.dto.AiContextDto.AttachmentContext;
+import com.suncorp.securehub.entity.Attachment;
+import com.suncorp.securehub.entity.AttachmentState;
+import com.suncorp.securehub.entity.SupportRequest;
+import com.suncorp.securehub.repository.AttachmentRepository;
+import com.suncorp.securehub.repository.SupportRequestRepository;
+import com.suncorp.securehub.service.AttachmentContent;
+import com.suncorp.securehub.service.AttachmentService;
+import com.suncorp.securehub.service.ai.AiAttachmentPreprocessor.PreparedContent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AiContextBuilderTest {
+
+    private static final Long REQUEST_ID = 100L;
+
+    @Mock
+    private SupportRequestRepository requestRepository;
+
+    @Mock
+    private AttachmentRepository attachmentRepository;
+
+    @Mock
+    private AttachmentService attachmentService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private AiExtractedContentStore extractedContentStore;
+
+    private AiProperties aiProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private AiContextMemoryBudget memoryBudget;
+    private AiContextBuilder contextBuilder;
+
+    @BeforeEach
+    void setUp() {
+        aiProperties = new AiProperties();
+        createBuilder();
+        doAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0))
+                .doInTransaction(mock(TransactionStatus.class)))
+                .when(transactionTemplate).execute(any());
+        when(requestRepository.findById(REQUEST_ID)).thenReturn(Optional.of(SupportRequest.builder()
+                .id(REQUEST_ID).title("Printer on fire").description("Smoke everywhere").build()));
+    }
+
+    @Test
+    void buildContext_shouldFetchLoadedRowsConcurrentlyAndDownloadSharedObjectsOnce() throws Exception {
+        Attachment log = attachment(1L, "log.txt", "text/plain", "requests/100/attachments/1/log.txt");
+        Attachment shot = attachment(2L, "shot.png", "image/png", "requests/100/attachments/2/shot.png");
+        Attachment copy = attachment(3L, "copy.txt", "text/plain", log.getS3ObjectKey());
+        stubAttachments(List.of(log, shot), List.of(copy));
+
+        // Both distinct objects must be in flight at once for either download to finish.
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        when(attachmentService.openAttachmentContent(any(Attachment.class))).thenAnswer(invocation -> {
+            bothStarted.countDown();
+            assertThat(bothStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            Attachment attachment = invocation.getArgument(0);
+            return content(attachment, attachment.getFileName().getBytes(StandardCharsets.UTF_8));
+        });
+
+        AiContextDto context = contextBuilder.buildContext(REQUEST_ID, null);
+
+        List<AttachmentContext> attachments = context.getAttachments();
+        assertThat(attachments).extracting(AttachmentContext::getFileName)
+                .containsExactly("log.txt", "shot.png", "copy.txt");
+        assertThat(attachments).allMatch(AttachmentContext::isIncluded);
+        assertThat(attachments.get(0).getTextContent()).isEqualTo("log.txt");
+        assertThat(attachments.get(1).getContentBytes()).isEqualTo("shot.png".getBytes(StandardCharsets.UTF_8));
+        assertThat(attachments.get(2).getTextContent()).isEqualTo("log.txt");
+        verify(attachmentService, times(2)).openAttachmentContent(any(Attachment.class));
+        verify(attachmentService, never()).openAttachmentContent(anyLong());
+        assertThat(meterRegistry.get("ai.context.attachment_fetch").tag("result", "success").timer().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void buildContext_shouldReusePreparedContentWithoutDownloadingAgain() {
+        Attachment log = attachment(1L, "log.txt", "text/plain", "requests/100/attachments/1/log.txt");
+        stubAttachments(List.of(log), List.of());
+        when(attachmentService.openAttachmentContent(log)).thenAnswer(invocation ->
+                content(log, "disk full".getBytes(StandardCharsets.UTF_8)));
+
+        contextBuilder.buildContext(REQUEST_ID, null);
+        AiContextDto again = contextBuilder.buildContext(REQUEST_ID, null);
+
+        assertThat(again.getAttachments().get(0).getTextContent()).isEqualTo("disk full");
+        assertThat(again.getReservedBytes()).isZero();
+        verify(attachmentService, times(1)).openAttachmentContent(log);
+    }
+
+    @Test
+    void buildContext_shouldReadStoredContentAndStoreNewlyPreparedContent() {
+        Attachment report = attachment(1L, "report.pdf", "application/pdf", "requests/100/attachments/1/report.pdf");
+        Attachment log = attachment(2L, "log.txt", "text/plain", "requests/100/attachments/2/log.txt");
+        stubAttachments(List.of(report, log), List.of());
+        PreparedContent extracted = new PreparedContent("application/pdf", "Quarterly report", null, true);
+        when(extractedContentStore.find(any(Attachment.class))).thenAnswer(invocation ->
+                invocation.getArgument(0) == report ? Optional.of(extracted) : Optional.empty());
+        when(attachmentService.openAttachmentContent(log)).thenReturn(content(log, "ok".getBytes()));
+
+        AiContextDto context = contextBuilder.buildContext(REQUEST_ID, null);
+
+        assertThat(context.getAttachments()).extracting(AttachmentContext::getTextContent)
+                .containsExactly("Quarterly report", "ok");
+        verify(attachmentService, never()).openAttachmentContent(report);
+        verify(extractedContentStore, never()).save(eq(report), any());
+        verify(extractedContentStore).save(eq(log), any(PreparedContent.class));
+    }
+
+    @Test
+    void buildContext_whenDeadlinePasses_shouldSkipSlowAttachmentAndKeepOthers() throws Exception {
+        aiProperties.setContextFetchTimeout(Duration.ofMillis(200));
+        Attachment fast = attachment(1L, "fast.txt", "text/plain", "requests/100/attachments/1/fast.txt");
+        Attachment slow = attachment(2L, "slow.txt", "text/plain", "requests/100/attachments/2/slow.txt");
+        stubAttachments(List.of(fast, slow), List.of());
+
+        when(attachmentService.openAttachmentContent(fast)).thenReturn(content(fast, "ok".getBytes()));
+        when(attachmentService.openAttachmentContent(slow)).thenAnswer(invocation -> {
+            Thread.sleep(10_000);
+            return content(slow, "late".getBytes());
+        });
+
+        long start = System.nanoTime();
+        AiContextDto context = contextBuilder.buildContext(REQUEST_ID, null);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+        assertThat(context.getAttachments().get(0).isIncluded()).isTrue();
+        assertThat(context.getAttachments().get(1).isIncluded()).isFalse();
+        assertThat(context.getAttachments().get(1).getSkipReason()).contains("deadline");
+        assertThat(meterRegistry.get("ai.context.attachment_fetch.timeouts").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void buildContext_shouldSkipOversizedAndUnsupportedAttachmentsWithoutDownloading() {
+        aiProperties.setContextAttachmentMaxBytes(1024);
+        Attachment big = attachment(1L, "big.pdf", "application/pdf", "requests/100/attachments/1/big.pdf");
+        big.setFileSize(4096L);
+        Attachment zip = attachment(2L, "logs.zip", "application/zip", "requests/100/attachments/2/logs.zip");
+        stubAttachments(List.of(big, zip), List.of());
+
+        AiContextDto context = contextBuilder.buildContext(REQUEST_ID, null);
+
+        assertThat(context.getAttachments()).noneMatch(AttachmentContext::isIncluded);
+        assertThat(context.getAttachments().get(0).getSkipReason()).contains("size limit of 1024 bytes");
+        assertThat(context.getAttachments().get(1).getSkipReason()).contains("Unsupported content type");
+        verify(attachmentService, never()).openAttachmentContent(any(Attachment.class));
+    }
+
+    @Test
+    void buildContext_shouldSkipAttachmentsThatAreNotActiveWithoutReservingOrDownloading() {
+        Attachment pending = attachment(1L, "pending.pdf", "application/pdf", "requests/100/attachments/1/pending.pdf");
+        pending.setState(AttachmentState.PENDING);
+        Attachment failed = attachment(2L, "failed.txt", "text/plain", "requests/100/attachments/2/failed.txt");
+        failed.setState(AttachmentState.FAILED);
+        stubAttachments(List.of(pending), List.of(failed));
+
+        AiContextDto context = contextBuilder.buildContext(REQUEST_ID, null);
+
+        assertThat(context.getAttachments()).noneMatch(AttachmentContext::isIncluded);
+        assertThat(context.getAttachments()).extracting(AttachmentContext::getSkipReason)
+                .containsOnly("Attachment is not ready.");
+        assertThat(context.getReservedBytes()).isZero();
+        assertThat(meterRegistry.get("ai.context.memory.reserved_bytes").gauge().value()).isZero();
+        verify(extractedContentStore, never()).find(any(Attachment.class));
+        verify(attachmentService, never()).openAttachmentContent(any(Attachment.class));
+    }
+
+    @Test
+    void buildContext_whenMemoryBudgetIsExhausted_shouldSkipAttachmentUntilContentIsReleased() throws Exception {
+        aiProperties.setContextMemoryBudgetBytes(2048);
+        createBuilder();
+        Attachment first = attachment(1L, "first.pdf", "application/pdf", "requests/100/attachments/1/first.pdf");
+        first.setFileSize(1500L);
+        Attachment second = attachment(2L, "second.pdf", "application/pdf", "requests/100/attachments/2/second.pdf");
+        second.setFileSize(1500L);
+        stubAttachments(List.of(first, second), List.of());
+        when(attachmentService.openAttachmentContent(any(Attachment.class))).thenAnswer(invocation ->
+                content(invocation.getArgument(0), new byte[1500]));
+
+        AiContextDto context = contextBuilder.buildContext(REQUEST_ID, null);
+
+        assertThat(context.getAttachments().get(0).isIncluded()).isTrue();
+        assertThat(context.getAttachments().get(1).isIncluded()).isFalse();
+        assertThat(context.getAttachments().get(1).getSkipReason()).contains("memory budget");
+        assertThat(context.getReservedBytes()).isEqualTo(1500L);
+        assertThat(meterRegistry.get("ai.context.memory.reserved_bytes").gauge().value()).isEqualTo(2048.0);
+        assertThat(meterRegistry.get("ai.context.memory.spills").counter().count()).isEqualTo(1);
+
+        contextBuilder.releaseContent(context);
+        contextBuilder.releaseContent(context);
+
+        assertThat(context.getAttachments().get(0).getContentBytes()).isNull();
+        assertThat(meterRegistry.get("ai.context.memory.reserved_bytes").gauge().value()).isZero();
+    }
+
+    @Test
+    void buildContext_whenDownloadFails_shouldReturnItsReservation() {
+        Attachment broken = attachment(1L, "broken.pdf", "application/pdf", "requests/100/attachments/1/broken.pdf");
+        stubAttachments(List.of(broken), List.of());
+        when(attachmentService.openAttachmentContent(broken)).thenThrow(new IllegalStateException("S3 down"));
+
+        AiContextDto context = contextBuilder.buildContext(REQUEST_ID, null);
+
+        assertThat(context.getAttachments().get(0).getSkipReason()).contains("S3 down");
+        assertThat(context.getReservedBytes()).isZero();
+        assertThat(meterRegistry.get("ai.context.memory.reserved_bytes").gauge().value()).isZero();
+    }
+
+    private void createBuilder() {
+        meterRegistry = new SimpleMeterRegistry();
+        memoryBudget = new AiContextMemoryBudget(aiProperties, meterRegistry);
+        contextBuilder = new AiContextBuilder(requestRepository, attachmentRepository, attachmentService,
+                memoryBudget, new AiContextTokenBudget(aiProperties, meterRegistry),
+                new AiAttachmentPreprocessor(aiProperties, meterRegistry), extractedContentStore, aiProperties,
+                transactionTemplate, meterRegistry);
+    }
+
+    private void stubAttachments(List<Attachment> requestAttachments, List<Attachment> commentAttachments) {
+        when(attachmentRepository.findByRequest_IdOrderByCreatedAtAsc(REQUEST_ID)).thenReturn(requestAttachments);
+        when(attachmentRepository.findByComment_Request_IdOrderByCreatedAtAsc(REQUEST_ID))
+                .thenReturn(commentAttachments);
+    }
+
+    private static AttachmentContent content(Attachment attachment, byte[] body) {
+        InputStream stream = new ByteArrayInputStream(body);
+        return new AttachmentContent(attachment.getId(), attachment.getFileName(), attachment.getContentType(),
+                body.length, stream);
+    }
+
+    private static Attachment attachment(Long id, String fileName, String contentType, String objectKey) {
+        return Attachment.builder()
+                .id(id)
+                .fileName(fileName)
+                .contentType(contentType)
+                .fileSize(16L)
+                .state(AttachmentState.ACTIVE)
+                .s3ObjectKey(objectKey)
+                .build();
+    }
+}
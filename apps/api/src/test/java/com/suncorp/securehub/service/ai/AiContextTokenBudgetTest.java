@@ -0,0 +1,147 @@
+package com.suncorp.securehub.service.ai;
+
+import com.suncorp.securehub.config.AiProperties;
+import com.suncorp.securehub.dto.AiContextDto;
+import com.suncorp.securehub.dto.AiContextDto.AttachmentContext;
+import com.suncorp.securehub.dto.AiContextDto.CommentContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AiContextTokenBudgetTest {
+
+    private AiProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private AiContextTokenBudget budget;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AiProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        budget = new AiContextTokenBudget(properties, meterRegistry);
+    }
+
+    @Test
+    void apply_withinBudget_shouldLeaveContextUnchanged() {
+        AiContextDto context = context("Smoke everywhere", List.of("first", "second"), List.of("a,b\n1,2"));
+
+        budget.apply(context);
+
+        assertThat(context.getRequestDescription()).isEqualTo("Smoke everywhere");
+        assertThat(context.getComments()).extracting(CommentContext::getContent).containsExactly("first", "second");
+        assertThat(context.getOmittedComments()).isZero();
+        assertThat(context.getAttachments().get(0).getTextContent()).isEqualTo("a,b\n1,2");
+        assertThat(meterRegistry.find("ai.context.truncations").counters()).isEmpty();
+    }
+
+    @Test
+    void apply_shouldCutDescriptionWithMarker() {
+        properties.setContextDescriptionMaxTokens(2);
+        AiContextDto context = context("0123456789abcdef", List.of(), List.of());
+
+        budget.apply(context);
+
+        assertThat(context.getRequestDescription()).isEqualTo("01234567\n[truncated: 8 characters omitted]");
+        assertThat(meterRegistry.get("ai.context.truncations").tag("section", "description").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void apply_shouldKeepNewestCommentsAndCountDroppedOnes() {
+        properties.setContextCommentsMaxTokens(3); // 12 characters
+        AiContextDto context = context("desc", List.of("oldest comment", "older", "newest!"), List.of());
+
+        budget.apply(context);
+
+        // "newest!" (7) fits whole, "older" (5) exactly fills the budget, the oldest is dropped
+        assertThat(context.getComments()).extracting(CommentContext::getContent)
+                .containsExactly("older", "newest!");
+        assertThat(context.getOmittedComments()).isEqualTo(1);
+
+        properties.setContextCommentsMaxTokens(2); // 8 characters
+        AiContextDto cut = context("desc", List.of("oldest comment", "older", "newest!"), List.of());
+        budget.apply(cut);
+
+        assertThat(cut.getComments()).extracting(CommentContext::getContent)
+                .containsExactly("o\n[truncated: 4 characters omitted]", "newest!");
+        assertThat(cut.getOmittedComments()).isEqualTo(1);
+    }
+
+    @Test
+    void apply_shouldShareAttachmentBudgetSoSmallFilesStayWhole() {
+        properties.setContextAttachmentsMaxTokens(5); // 20 characters
+        AiContextDto context = context("desc", List.of(), List.of("x".repeat(30), "tiny", "y".repeat(30)));
+
+        budget.apply(context);
+
+        // "tiny" keeps its 4 characters, the two large files split the remaining 16
+        List<AttachmentContext> attachments = context.getAttachments();
+        assertThat(attachments.get(1).getTextContent()).isEqualTo("tiny");
+        assertThat(attachments.get(0).getTextContent())
+                .isEqualTo("x".repeat(8) + "\n[truncated: 22 characters omitted]");
+        assertThat(attachments.get(2).getTextContent())
+                .isEqualTo("y".repeat(8) + "\n[truncated: 22 characters omitted]");
+        assertThat(meterRegistry.get("ai.context.truncations").tag("section", "attachments").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void apply_withMoreTextAttachmentsThanBudget_shouldLeaveTheRestOut() {
+        properties.setContextAttachmentsMaxTokens(1); // 4 characters
+        AiContextDto context = context("desc", List.of(), List.of("aaaaaa", "bbbbbb", "cccccc", "dddddd", "eeeeee"));
+
+        budget.apply(context);
+
+        assertThat(context.getAttachments()).filteredOn(AttachmentContext::isIncluded).hasSize(4);
+        AttachmentContext leftOut = context.getAttachments().get(0);
+        assertThat(leftOut.isIncluded()).isFalse();
+        assertThat(leftOut.getTextContent()).isNull();
+        assertThat(leftOut.getSkipReason()).isEqualTo(AiContextTokenBudget.BUDGET_SKIP_REASON);
+    }
+
+    @Test
+    void apply_shouldRecordEstimatedTokensBeforeAndAfter() {
+        properties.setContextDescriptionMaxTokens(1);
+        AiContextDto context = context("x".repeat(400), List.of(), List.of());
+
+        budget.apply(context);
+
+        assertThat(meterRegistry.get("ai.context.estimated_tokens").tag("stage", "raw").summary().totalAmount())
+                .isEqualTo(101); // 4 title characters + 400 description characters
+        assertThat(meterRegistry.get("ai.context.estimated_tokens").tag("stage", "budgeted").summary()
+                .totalAmount()).isLessThan(20);
+    }
+
+    @Test
+    void truncate_shouldNotSplitSurrogatePairs() {
+        assertThat(AiContextTokenBudget.truncate("ab🔥cd", 3))
+                .isEqualTo("ab\n[truncated: 4 characters omitted]");
+    }
+
+    private static AiContextDto context(String description, List<String> comments, List<String> texts) {
+        List<CommentContext> commentContexts = new ArrayList<>();
+        for (String comment : comments) {
+            commentContexts.add(CommentContext.builder().author("alice").content(comment).build());
+        }
+        List<AttachmentContext> attachments = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            attachments.add(AttachmentContext.builder()
+                    .fileName("file" + i + ".csv")
+                    .contentType("text/csv")
+                    .textContent(texts.get(i))
+                    .included(true)
+                    .build());
+        }
+        return AiContextDto.builder()
+                .requestTitle("Fire")
+                .requestDescription(description)
+                .comments(commentContexts)
+                .attachments(attachments)
+                .build();
+    }
+}
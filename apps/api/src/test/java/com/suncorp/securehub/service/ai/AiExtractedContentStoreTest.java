@@ -0,0 +1,125 @@
+package com.suncorp.securehub.service.ai;
+
+import com.suncorp.securehub.config.AiProperties;
+import com.suncorp.securehub.entity.Attachment;
+import com.suncorp.securehub.entity.AttachmentExtractedContent;
+import com.suncorp.securehub.repository.AttachmentExtractedContentRepository;
+import com.suncorp.securehub.service.ai.AiAttachmentPreprocessor.PreparedContent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AiExtractedContentStoreTest {
+
+    private static final String CHECKSUM = "n4bQgYhMfWWaL+qgxVrQFaO/TxsrC4Is0V1sFbDwCgg=";
+
+    @Mock
+    private AttachmentExtractedContentRepository repository;
+
+    private AiProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private AiExtractedContentStore store;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AiProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        store = new AiExtractedContentStore(repository, properties, meterRegistry);
+    }
+
+    @Test
+    void find_whenChecksumAndKeyMatch_shouldReturnStoredContent() {
+        Attachment attachment = attachment("requests/1/attachments/7/report.pdf");
+        when(repository.findById(7L)).thenReturn(Optional.of(row(CHECKSUM, attachment.getS3ObjectKey())));
+
+        assertThat(store.find(attachment)).contains(new PreparedContent("application/pdf", "text", null, true));
+        assertThat(meterRegistry.get("ai.context.extracted_store.requests").tag("result", "hit").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void find_whenAttachmentChanged_shouldIgnoreStaleRow() {
+        Attachment attachment = attachment("blobs/ab/abcdef");
+        when(repository.findById(7L)).thenReturn(Optional.of(row(CHECKSUM, "requests/1/attachments/7/report.pdf")));
+
+        assertThat(store.find(attachment)).isEmpty();
+
+        when(repository.findById(7L)).thenReturn(Optional.of(row("other", attachment.getS3ObjectKey())));
+        assertThat(store.find(attachment)).isEmpty();
+    }
+
+    @Test
+    void find_whenDatabaseFails_shouldReturnEmpty() {
+        when(repository.findById(7L)).thenThrow(new QueryTimeoutException("slow"));
+
+        assertThat(store.find(attachment("k"))).isEmpty();
+        assertThat(meterRegistry.get("ai.context.extracted_store.requests").tag("result", "error").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void save_shouldStoreDerivedContentWithSourceIdentity() {
+        Attachment attachment = attachment("requests/1/attachments/7/shot.png");
+
+        store.save(attachment, new PreparedContent("image/jpeg", null, new byte[]{1, 2}, true));
+
+        ArgumentCaptor<AttachmentExtractedContent> saved = ArgumentCaptor.forClass(AttachmentExtractedContent.class);
+        verify(repository).save(saved.capture());
+        assertThat(saved.getValue().getAttachmentId()).isEqualTo(7L);
+        assertThat(saved.getValue().getSourceChecksum()).isEqualTo(CHECKSUM);
+        assertThat(saved.getValue().getS3ObjectKey()).isEqualTo(attachment.getS3ObjectKey());
+        assertThat(saved.getValue().getContentType()).isEqualTo("image/jpeg");
+    }
+
+    @Test
+    void save_shouldSkipUnchangedAndOversizedContent() {
+        properties.setContextExtractedContentMaxBytes(4);
+
+        store.save(attachment("k"), new PreparedContent("image/png", null, new byte[]{1}, false));
+        store.save(attachment("k"), new PreparedContent("text/plain", "too long", null, true));
+
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void save_whenConcurrentSaveWins_shouldNotFail() {
+        when(repository.save(any())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        store.save(attachment("k"), new PreparedContent("text/plain", "ok", null, true));
+    }
+
+    private static Attachment attachment(String objectKey) {
+        return Attachment.builder()
+                .id(7L)
+                .fileName("report.pdf")
+                .contentType("application/pdf")
+                .checksumSha256(CHECKSUM)
+                .s3ObjectKey(objectKey)
+                .build();
+    }
+
+    private static AttachmentExtractedContent row(String checksum, String objectKey) {
+        return AttachmentExtractedContent.builder()
+                .attachmentId(7L)
+                .sourceChecksum(checksum)
+                .s3ObjectKey(objectKey)
+                .contentType("application/pdf")
+                .textContent("text")
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+package com.suncorp.securehub.service.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.suncorp.securehub.config.AiProperties;
+import com.suncorp.securehub.dto.AiContextDto;
+import com.suncorp.securehub.dto.AiContextDto.CommentContext;
+import com.suncorp.securehub.entity.AiInputSnapshot;
+import com.suncorp.securehub.repository.AiInputSnapshotRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AiInputSnapshotStoreTest {
+
+    @Mock
+    private AiInputSnapshotRepository repository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private AiProperties properties;
+    private ObjectMapper objectMapper;
+    private AiInputSnapshotStore store;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AiProperties();
+        objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        store = new AiInputSnapshotStore(repository, objectMapper, properties, transactionTemplate,
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void store_shouldKeepOnlyASummaryInlineAndShareSnapshotsOfIdenticalContexts() throws Exception {
+        runTransactionsInline();
+        AiContextDto first = context(OffsetDateTime.parse("2026-01-05T10:00:00Z"));
+        AiContextDto second = context(OffsetDateTime.parse("2026-01-05T11:00:00Z"));
+
+        AiInputSnapshotStore.Snapshot firstSnapshot = store.store(first);
+        AiInputSnapshotStore.Snapshot secondSnapshot = store.store(second);
+
+        assertThat(secondSnapshot.contentHash()).isEqualTo(firstSnapshot.contentHash()).hasSize(64);
+        JsonNode summary = objectMapper.readTree(firstSnapshot.summaryJson());
+        assertThat(firstSnapshot.summaryJson()).doesNotContain("Smoke everywhere").doesNotContain("on it");
+        assertThat(summary.get("snapshotHash").asText()).isEqualTo(firstSnapshot.contentHash());
+        assertThat(summary.get("commentCount").asInt()).isEqualTo(1);
+        assertThat(summary.get("contextAsOf").asText()).startsWith("2026-01-05T10:00");
+        assertThat(summary.get("compressedBytes").asInt()).isLessThan(summary.get("originalBytes").asInt());
+
+        ArgumentCaptor<byte[]> compressed = ArgumentCaptor.forClass(byte[].class);
+        verify(repository, times(2)).upsert(eq(firstSnapshot.contentHash()), compressed.capture(), anyInt());
+        String json = new String(AiInputSnapshotStore.gunzip(compressed.getValue()), StandardCharsets.UTF_8);
+        assertThat(json).contains("Smoke everywhere").doesNotContain("contextAsOf");
+    }
+
+    @Test
+    void store_whenSnapshotCannotBeWritten_shouldReturnSummaryWithoutHash() throws Exception {
+        when(transactionTemplate.execute(any())).thenThrow(new QueryTimeoutException("slow"));
+
+        AiInputSnapshotStore.Snapshot snapshot = store.store(context(OffsetDateTime.now()));
+
+        assertThat(snapshot.contentHash()).isNull();
+        assertThat(objectMapper.readTree(snapshot.summaryJson()).get("snapshotHash").isNull()).isTrue();
+    }
+
+    @Test
+    void load_shouldDecompressStoredSnapshot() {
+        byte[] json = "{\"requestTitle\":\"Printer on fire\"}".getBytes(StandardCharsets.UTF_8);
+        when(repository.findById("abc")).thenReturn(Optional.of(AiInputSnapshot.builder()
+                .contentHash("abc").compressed(AiInputSnapshotStore.gzip(json)).originalBytes(json.length).build()));
+
+        assertThat(store.load("abc")).contains("{\"requestTitle\":\"Printer on fire\"}");
+    }
+
+    @Test
+    void pruneUnusedSnapshots_shouldDeleteInBatchesUntilAShortBatch() {
+        runTransactionsInline();
+        properties.setInputSnapshotPruneBatchSize(2);
+        when(repository.deleteUnusedBefore(any(OffsetDateTime.class), eq(2))).thenReturn(2, 2, 1);
+
+        store.pruneUnusedSnapshots();
+
+        ArgumentCaptor<OffsetDateTime> cutoff = ArgumentCaptor.forClass(OffsetDateTime.class);
+        verify(repository, times(3)).deleteUnusedBefore(cutoff.capture(), eq(2));
+        assertThat(cutoff.getValue()).isBefore(OffsetDateTime.now().minus(properties.getInputSnapshotRetention())
+                .plusMinutes(1));
+    }
+
+    private void runTransactionsInline() {
+        doAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0))
+                .doInTransaction(mock(TransactionStatus.class)))
+                .when(transactionTemplate).execute(any());
+    }
+
+    private static AiContextDto context(OffsetDateTime asOf) {
+        List<CommentContext> comments = new ArrayList<>();
+        comments.add(CommentContext.builder().author("alice").content("Facilities are on it").build());
+        return AiContextDto.builder()
+                .requestTitle("Printer on fire")
+                .requestDescription("Smoke everywhere, ".repeat(20))
+                .comments(comments)
+                .attachments(new ArrayList<>())
+                .summaryMode("FULL")
+                .contextAsOf(asOf)
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.suncorp.securehub.service.ai;
+
+import com.suncorp.securehub.config.AiProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AiJobSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AiJobScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void trySubmit_shouldAlternateBetweenUsersInsteadOfDrainingOneUserFirst() throws Exception {
+        AiProperties properties = new AiProperties();
+        properties.setAsyncWorkers(1);
+        scheduler = new AiJobScheduler(properties, meterRegistry);
+        CountDownLatch release = blockWorker("alice");
+
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(4);
+        for (String job : List.of("alice-1", "alice-2", "alice-3")) {
+            assertThat(scheduler.trySubmit("alice", record(order, job, done))).isTrue();
+        }
+        assertThat(scheduler.trySubmit("bob", record(order, "bob-1", done))).isTrue();
+        assertThat(scheduler.queueDepth()).isEqualTo(4);
+        assertThat(meterRegistry.get("ai.jobs.queue_depth").gauge().value()).isEqualTo(4.0);
+
+        release.countDown();
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(order).containsExactly("alice-1", "bob-1", "alice-2", "alice-3");
+        assertThat(meterRegistry.get("ai.jobs.wait").timer().count()).isEqualTo(5);
+    }
+
+    @Test
+    void trySubmit_whenUserShareOrQueueIsFull_shouldReject() throws Exception {
+        AiProperties properties = new AiProperties();
+        properties.setAsyncWorkers(1);
+        properties.setAsyncQueueCapacity(3);
+        properties.setAsyncMaxQueuedPerUser(2);
+        scheduler = new AiJobScheduler(properties, meterRegistry);
+        CountDownLatch release = blockWorker("alice");
+
+        assertThat(scheduler.trySubmit("alice", () -> { })).isTrue();
+        assertThat(scheduler.trySubmit("alice", () -> { })).isTrue();
+        assertThat(scheduler.trySubmit("alice", () -> { })).isFalse();
+        assertThat(scheduler.trySubmit("bob", () -> { })).isTrue();
+        assertThat(scheduler.trySubmit("carol", () -> { })).isFalse();
+
+        assertThat(meterRegistry.get("ai.jobs.rejected").counter().count()).isEqualTo(2);
+        release.countDown();
+    }
+
+    /**
+     * Occupies the only worker until the returned latch opens, so later jobs stay queued.
+     */
+    private CountDownLatch blockWorker(String username) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        assertThat(scheduler.trySubmit(username, () -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        })).isTrue();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        return release;
+    }
+
+    private static Runnable record(List<String> order, String job, CountDownLatch done) {
+        return () -> {
+            order.add(job);
+            done.countDown();
+        };
+    }
+}
@@ -0,0 +1,225 @@
+package com.suncorp.securehub.service.ai;
+
+import com.suncorp.securehub.config.AiProperties;
+import com.suncorp.securehub.dto.AiContextDto;
+import com.suncorp.securehub.dto.AiContextDto.AttachmentContext;
+import com.suncorp.securehub.dto.AiContextDto.CommentContext;
+import com.suncorp.securehub.dto.AiDraftResponseDto;
+import com.suncorp.securehub.dto.AiSuggestTagsResponseDto;
+import com.suncorp.securehub.dto.AiSummarizeResponseDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AiMapReduceSummarizerTest {
+
+    private AiProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private RecordingProvider provider;
+    private AiMapReduceSummarizer summarizer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AiProperties();
+        properties.setSummaryPartMaxTokens(5); // 20 characters
+        meterRegistry = new SimpleMeterRegistry();
+        provider = new RecordingProvider();
+        summarizer = new AiMapReduceSummarizer(provider, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        summarizer.shutdown();
+    }
+
+    @Test
+    void summarize_withoutMapReduceMode_shouldCallProviderOnce() {
+        AiContextDto context = context("desc", List.of("x".repeat(100)));
+        context.setSummaryMode("FULL");
+
+        assertThat(summarizer.summarize(context).getSummary()).isEqualTo("summary of whole request");
+        assertThat(provider.calls).containsExactly(context);
+    }
+
+    @Test
+    void summarize_shouldSplitIntoOrderedPartsAndCombineThem() {
+        AiContextDto context = context("description", List.of("c1 twelve ch", "c2 twelve ch", "c3 twelve ch"));
+        context.getAttachments().add(AttachmentContext.builder()
+                .fileName("big.csv").contentType("text/csv").textContent("y".repeat(30)).included(true).build());
+        context.getAttachments().add(AttachmentContext.builder()
+                .fileName("shot.png").contentType("image/png").contentBytes(new byte[]{1}).included(true).build());
+        context.setUserPrompt("Be brief");
+
+        AiSummarizeResponseDto response = summarizer.summarize(context);
+
+        List<AiContextDto> parts = provider.calls.stream().filter(c -> c.getPart() != null)
+                .sorted((a, b) -> a.getPart().compareTo(b.getPart())).toList();
+        // description (11) | c1 (12) | c2 (12) | c3 (12) | big.csv 20 | big.csv 10 | shot.png
+        assertThat(parts).extracting(AiContextDto::getPart)
+                .containsExactly("1/7", "2/7", "3/7", "4/7", "5/7", "6/7", "7/7");
+        assertThat(parts.get(0).getRequestDescription()).isEqualTo("description");
+        assertThat(parts.get(0).getComments()).isEmpty();
+        assertThat(parts.get(1).getComments()).extracting(CommentContext::getContent).containsExactly("c1 twelve ch");
+        assertThat(parts.get(4).getAttachments().get(0).getFileName()).isEqualTo("big.csv (part 1 of 2)");
+        assertThat(parts.get(5).getAttachments().get(0).getTextContent()).hasSize(10);
+        assertThat(parts.get(6).getAttachments().get(0).getFileName()).isEqualTo("shot.png");
+        assertThat(parts).allSatisfy(part -> assertThat(part.getUserPrompt()).isNull());
+
+        AiContextDto combine = provider.calls.get(provider.calls.size() - 1);
+        assertThat(combine.getPartialSummaries()).containsExactly("p1", "p2", "p3", "p4", "p5", "p6", "p7");
+        assertThat(combine.getUserPrompt()).isEqualTo("Be brief");
+        assertThat(response.getSummary()).isEqualTo("combined 7");
+        assertThat(meterRegistry.get("ai.summary.map_reduce.parts").summary().totalAmount()).isEqualTo(7);
+    }
+
+    @Test
+    void summarize_shouldRunPartsConcurrentlyUpToTheLimit() {
+        properties.setSummaryMapConcurrency(3);
+        provider.partLatencyMillis = 50;
+        List<String> comments = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            comments.add("comment number " + (char) ('a' + i));
+        }
+
+        summarizer.summarizeAsync(context("", comments)).join();
+
+        assertThat(provider.maxConcurrentParts.get()).isEqualTo(3);
+        assertThat(provider.calls.stream().filter(c -> c.getPart() != null)).hasSize(12);
+    }
+
+    @Test
+    void summarize_withLongPartialSummaries_shouldCombineInGroupsFirst() {
+        provider.partialSummaryLength = 15; // two partials per 20-character call at most
+        List<String> comments = Collections.nCopies(5, "a comment of 20 char");
+
+        AiSummarizeResponseDto response = summarizer.summarize(context("", comments));
+
+        List<AiContextDto> combines = provider.calls.stream().filter(c -> c.getPartialSummaries() != null).toList();
+        // 5 partials -> groups of 2, 3 -> 2 summaries -> final combine
+        assertThat(combines).hasSize(3);
+        assertThat(response.getSummary()).isEqualTo("combined 2");
+    }
+
+    @Test
+    void summarize_overMaxParts_shouldKeepFirstAndNewestParts() {
+        properties.setSummaryMaxParts(3);
+        List<String> comments = List.of("c1 twelve ch", "c2 twelve ch", "c3 twelve ch", "c4 twelve ch");
+
+        summarizer.summarize(context("description", comments));
+
+        List<String> partComments = provider.calls.stream().filter(c -> c.getPart() != null)
+                .flatMap(c -> c.getComments().stream()).map(CommentContext::getContent).sorted().toList();
+        assertThat(partComments).containsExactly("c3 twelve ch", "c4 twelve ch");
+        assertThat(provider.calls.get(provider.calls.size() - 1).getOmittedComments()).isEqualTo(2);
+    }
+
+    @Test
+    void summarize_overMaxParts_shouldNotCountPartlyKeptCommentsAsOmitted() {
+        properties.setSummaryMaxParts(3);
+        // description | c1 | long 1 of 2 | long 2 of 2 | c3; parts 2 and 3 are dropped
+        List<String> comments = List.of("c1 twelve ch", "y".repeat(40), "c3 twelve ch");
+
+        summarizer.summarize(context("description", comments));
+
+        assertThat(provider.calls.get(provider.calls.size() - 1).getOmittedComments()).isEqualTo(1);
+    }
+
+    @Test
+    void summarize_whenAPartFails_shouldFail() {
+        provider.failPart = "2/2";
+
+        assertThatThrownBy(() -> summarizer.summarizeAsync(context("description", List.of("c1 twelve ch"))).join())
+                .isInstanceOf(CompletionException.class)
+                .hasRootCauseMessage("model unavailable");
+    }
+
+    @Test
+    void pieces_shouldCoverTextInOrder() {
+        assertThat(AiMapReduceSummarizer.pieces("abcdefg", 3)).containsExactly("abc", "def", "g");
+        assertThat(AiMapReduceSummarizer.pieces("", 3)).isEmpty();
+    }
+
+    private static AiContextDto context(String description, List<String> comments) {
+        List<CommentContext> commentContexts = new ArrayList<>();
+        for (String comment : comments) {
+            commentContexts.add(CommentContext.builder().author("alice").content(comment).build());
+        }
+        return AiContextDto.builder()
+                .requestTitle("Printer on fire")
+                .requestDescription(description)
+                .comments(commentContexts)
+                .attachments(new ArrayList<>())
+                .summaryMode(AiMapReduceSummarizer.MAP_REDUCE)
+                .build();
+    }
+
+    /**
+     * Answers part calls with "p" + part number, combine calls with "combined N",
+     * and records every call.
+     */
+    static class RecordingProvider implements AiAssistProvider {
+
+        final List<AiContextDto> calls = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger concurrentParts = new AtomicInteger();
+        final AtomicInteger maxConcurrentParts = new AtomicInteger();
+        volatile long partLatencyMillis;
+        volatile int partialSummaryLength;
+        volatile String failPart;
+
+        @Override
+        public AiSummarizeResponseDto summarize(AiContextDto context) {
+            calls.add(context);
+            String summary;
+            if (context.getPartialSummaries() != null) {
+                summary = "combined " + context.getPartialSummaries().size();
+            } else if (context.getPart() != null) {
+                maxConcurrentParts.accumulateAndGet(concurrentParts.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(partLatencyMillis);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    concurrentParts.decrementAndGet();
+                }
+                if (context.getPart().equals(failPart)) {
+                    throw new IllegalStateException("model unavailable");
+                }
+                String index = context.getPart().substring(0, context.getPart().indexOf('/'));
+                summary = partialSummaryLength > 0 ? "s".repeat(partialSummaryLength) : "p" + index;
+            } else {
+                summary = "summary of whole request";
+            }
+            return AiSummarizeResponseDto.builder().summary(summary).build();
+        }
+
+        @Override
+        public AiSuggestTagsResponseDto suggestTags(AiContextDto context) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AiDraftResponseDto draftResponse(AiContextDto context) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getProviderName() {
+            return "recording";
+        }
+
+        @Override
+        public String getModelId() {
+            return "recording-model";
+        }
+    }
+}
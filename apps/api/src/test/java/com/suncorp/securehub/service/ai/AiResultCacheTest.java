@@ -0,0 +1,163 @@
+package com.suncorp.securehub.service.ai;
+
+import com.suncorp.securehub.config.AiProperties;
+import com.suncorp.securehub.dto.AiContextDto;
+import com.suncorp.securehub.dto.AiContextDto.AttachmentContext;
+import com.suncorp.securehub.dto.AiContextDto.CommentContext;
+import com.suncorp.securehub.entity.AiAssistRun;
+import com.suncorp.securehub.repository.AiAssistRunRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AiResultCacheTest {
+
+    private static final AiResultCache.Key KEY =
+            new AiResultCache.Key(100L, "SUMMARIZE", "v1", "model", "hash");
+
+    @Mock
+    private AiAssistRunRepository aiAssistRunRepository;
+
+    private AiProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private AiResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AiProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new AiResultCache(aiAssistRunRepository, properties, meterRegistry);
+    }
+
+    @Test
+    void contextHash_shouldDependOnContentAndAttachmentChecksumsOnly() {
+        AiContextDto context = context("checksum-a");
+        String hash = AiResultCache.contextHash(context);
+
+        assertThat(AiResultCache.contextHash(context("checksum-a"))).isEqualTo(hash).hasSize(64);
+        assertThat(AiResultCache.contextHash(context("checksum-b"))).isNotEqualTo(hash);
+
+        AiContextDto edited = context("checksum-a");
+        edited.getComments().get(0).setContent("Still broken?");
+        assertThat(AiResultCache.contextHash(edited)).isNotEqualTo(hash);
+
+        AiContextDto withPrompt = context("checksum-a");
+        withPrompt.setUserPrompt("Be brief");
+        assertThat(AiResultCache.contextHash(withPrompt)).isNotEqualTo(hash);
+
+        // Fields must not run into each other: "ab" + "c" differs from "a" + "bc"
+        AiContextDto shifted = context("checksum-a");
+        shifted.setRequestTitle(context.getRequestTitle() + context.getRequestDescription().charAt(0));
+        shifted.setRequestDescription(context.getRequestDescription().substring(1));
+        assertThat(AiResultCache.contextHash(shifted)).isNotEqualTo(hash);
+    }
+
+    @Test
+    void contextHash_withoutChecksum_shouldHashIncludedContent() {
+        AiContextDto first = context(null);
+        first.getAttachments().get(0).setContentBytes("one".getBytes(StandardCharsets.UTF_8));
+        AiContextDto second = context(null);
+        second.getAttachments().get(0).setContentBytes("two".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(AiResultCache.contextHash(first)).isNotEqualTo(AiResultCache.contextHash(second));
+    }
+
+    @Test
+    void get_shouldServeFromMemoryThenFallBackToPersistedRuns() {
+        cache.put(KEY, "{\"summary\":\"fresh\"}");
+
+        assertThat(cache.get(KEY)).contains("{\"summary\":\"fresh\"}");
+        verify(aiAssistRunRepository, never()).findLatestSuccess(any(), any(), any(), any(), any(), any());
+
+        AiResultCache.Key other = new AiResultCache.Key(100L, "SUMMARIZE", "v1", "model", "other");
+        when(aiAssistRunRepository.findLatestSuccess(eq(100L), eq("SUMMARIZE"), eq("v1"), eq("model"),
+                eq("other"), any(OffsetDateTime.class)))
+                .thenReturn(Optional.of(AiAssistRun.builder()
+                        .outputPayload("{\"summary\":\"stored\"}")
+                        .createdAt(OffsetDateTime.now().minusMinutes(5))
+                        .build()));
+
+        assertThat(cache.get(other)).contains("{\"summary\":\"stored\"}");
+        assertThat(cache.get(other)).contains("{\"summary\":\"stored\"}");
+
+        verify(aiAssistRunRepository).findLatestSuccess(any(), any(), any(), any(), any(), any());
+        assertThat(count("hit")).isEqualTo(2);
+        assertThat(count("persisted_hit")).isEqualTo(1);
+    }
+
+    @Test
+    void get_shouldIgnoreEntriesOlderThanTtlAndHonourDisable() {
+        properties.setResultCacheTtl(Duration.ZERO);
+        cache.put(KEY, "{}");
+        when(aiAssistRunRepository.findLatestSuccess(any(), any(), any(), any(), any(), any()))
+                .thenReturn(Optional.empty());
+
+        assertThat(cache.get(KEY)).isEmpty();
+        assertThat(count("miss")).isEqualTo(1);
+
+        properties.setResultCacheEnabled(false);
+        assertThat(cache.get(KEY)).isEmpty();
+        verify(aiAssistRunRepository).findLatestSuccess(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void put_shouldEvictLeastRecentlyUsedEntry() {
+        properties.setResultCacheMaxEntries(2);
+        AiResultCache.Key second = new AiResultCache.Key(100L, "SUMMARIZE", "v1", "model", "second");
+        AiResultCache.Key third = new AiResultCache.Key(100L, "SUMMARIZE", "v1", "model", "third");
+        cache.put(KEY, "first");
+        cache.put(second, "second");
+        cache.get(KEY);
+        cache.put(third, "third");
+        when(aiAssistRunRepository.findLatestSuccess(any(), any(), any(), any(), any(), any()))
+                .thenReturn(Optional.empty());
+
+        assertThat(cache.get(second)).isEmpty();
+        assertThat(cache.get(KEY)).contains("first");
+        assertThat(cache.get(third)).contains("third");
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("ai.result_cache.requests").tag("result", result).counter().count();
+    }
+
+    private static AiContextDto context(String checksum) {
+        List<CommentContext> comments = new ArrayList<>();
+        comments.add(CommentContext.builder()
+                .author("alice")
+                .content("Still broken")
+                .createdAt("2026-01-01")
+                .build());
+        List<AttachmentContext> attachments = new ArrayList<>();
+        attachments.add(AttachmentContext.builder()
+                .fileName("shot.png")
+                .contentType("image/png")
+                .checksumSha256(checksum)
+                .included(true)
+                .build());
+        return AiContextDto.builder()
+                .requestTitle("Printer on fire")
+                .requestDescription("Smoke everywhere")
+                .comments(comments)
+                .attachments(attachments)
+                .build();
+    }
+}
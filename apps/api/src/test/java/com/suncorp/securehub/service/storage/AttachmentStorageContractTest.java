@@ -0,0 +1,168 @@
+package com.suncorp.securehub.service.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Behaviour every {@link AttachmentStorage} implementation must share. Subclasses
+ * provide the storage under test and a way to simulate a browser upload.
+ */
+abstract class AttachmentStorageContractTest {
+
+    private static final int BENCHMARK_OBJECT_SIZE = 4 * 1024 * 1024;
+    private static final int BENCHMARK_ITERATIONS = 50;
+
+    protected AttachmentStorage storage;
+
+    protected abstract AttachmentStorage createStorage() throws Exception;
+
+    /**
+     * Places {@code body} under {@code key} the way a client holding an upload URL would.
+     */
+    protected abstract void upload(String key, byte[] body) throws Exception;
+
+    @BeforeEach
+    void setUpStorage() throws Exception {
+        storage = createStorage();
+    }
+
+    @Test
+    void confirmUpload_afterUpload_shouldReturnObjectSize() throws Exception {
+        String key = newKey();
+        upload(key, bytes(1024));
+
+        assertThat(storage.confirmUpload(key)).contains(1024L);
+        assertThat(storage.confirmUpload(key)).as("confirm is idempotent").contains(1024L);
+    }
+
+    @Test
+    void confirmUpload_withoutUpload_shouldReturnEmpty() {
+        assertThat(storage.confirmUpload(newKey())).isEmpty();
+    }
+
+    @Test
+    void openStream_shouldReturnWholeObjectAndRanges() throws Exception {
+        String key = newKey();
+        byte[] body = bytes(4096);
+        upload(key, body);
+        storage.confirmUpload(key);
+
+        try (InputStream in = storage.openStream(key, 0, null)) {
+            assertThat(in.readAllBytes()).isEqualTo(body);
+        }
+        try (InputStream in = storage.openStream(key, 100, 50L)) {
+            assertThat(in.readAllBytes()).isEqualTo(Arrays.copyOfRange(body, 100, 150));
+        }
+        try (InputStream in = storage.openStream(key, 4000, null)) {
+            assertThat(in.readAllBytes()).isEqualTo(Arrays.copyOfRange(body, 4000, 4096));
+        }
+    }
+
+    @Test
+    void delete_shouldRemoveObjectAndBeIdempotent() throws Exception {
+        String key = newKey();
+        upload(key, bytes(16));
+        storage.confirmUpload(key);
+
+        storage.delete(key);
+
+        assertThat(storage.confirmUpload(key)).isEmpty();
+        assertThatCode(() -> storage.delete(key)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void copy_shouldCreateReadableObjectAndKeepSource() throws Exception {
+        String source = newKey();
+        String target = "3fa2/" + newKey();
+        byte[] body = bytes(2048);
+        upload(source, body);
+        storage.confirmUpload(source);
+
+        storage.copy(source, target);
+
+        try (InputStream in = storage.openStream(target, 0, null)) {
+            assertThat(in.readAllBytes()).isEqualTo(body);
+        }
+        assertThat(storage.confirmUpload(source)).contains(2048L);
+    }
+
+    @Test
+    void store_shouldCreateReadableObjectAndReplaceExisting() throws Exception {
+        String key = "requests/1/thumbnails/" + UUID.randomUUID() + ".jpg";
+
+        storage.store(key, bytes(512), "image/jpeg");
+        storage.store(key, bytes(64), "image/jpeg");
+
+        try (InputStream in = storage.openStream(key, 0, null)) {
+            assertThat(in.readAllBytes()).isEqualTo(bytes(64));
+        }
+    }
+
+    @Test
+    void checksumSha256_shouldMatchContentDigest() throws Exception {
+        String key = newKey();
+        byte[] body = bytes(70_000);
+        upload(key, body);
+        storage.confirmUpload(key);
+
+        String expected = Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(body));
+        assertThat(storage.checksumSha256(key)).isEqualTo(expected);
+    }
+
+    @Test
+    void createUrls_shouldReturnAbsoluteUrls() {
+        String key = newKey();
+
+        assertThat(storage.createUploadUrl(key, "text/plain", 12, null, Duration.ofMinutes(5))).startsWith("http");
+        assertThat(storage.createDownloadUrl(key, "text/plain", Duration.ofMinutes(5))).startsWith("http");
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "RUN_BENCHMARKS", matches = "true")
+    void readThroughput() throws Exception {
+        String key = newKey();
+        upload(key, bytes(BENCHMARK_OBJECT_SIZE));
+        storage.confirmUpload(key);
+
+        for (int i = 0; i < 5; i++) {
+            drain(key);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            drain(key);
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        double mbPerSec = (double) BENCHMARK_OBJECT_SIZE * BENCHMARK_ITERATIONS / (1024 * 1024) / seconds;
+        System.out.printf("%s read throughput: %.1f MB/s%n", storage.getClass().getSimpleName(), mbPerSec);
+        assertThat(mbPerSec).isPositive();
+    }
+
+    private void drain(String key) throws Exception {
+        try (InputStream in = storage.openStream(key, 0, null)) {
+            in.transferTo(java.io.OutputStream.nullOutputStream());
+        }
+    }
+
+    protected String newKey() {
+        return "requests/1/attachments/" + UUID.randomUUID() + "/file.bin";
+    }
+
+    private byte[] bytes(int size) {
+        byte[] body = new byte[size];
+        for (int i = 0; i < size; i++) {
+            body[i] = (byte) (i % 251);
+        }
+        return body;
+    }
+}
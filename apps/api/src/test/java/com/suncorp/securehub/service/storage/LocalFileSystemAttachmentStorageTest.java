@@ -0,0 +1,77 @@
+package com.suncorp.securehub.service.storage;
+
+import com.suncorp.securehub.config.AttachmentProperties;
+import com.suncorp.securehub.exception.AccessDeniedException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalFileSystemAttachmentStorageTest extends AttachmentStorageContractTest {
+
+    @TempDir
+    Path root;
+
+    private LocalFileSystemAttachmentStorage localStorage;
+
+    @Override
+    protected AttachmentStorage createStorage() {
+        AttachmentProperties properties = new AttachmentProperties();
+        properties.setLocalStorageRoot(root.toString());
+        properties.setLocalSigningSecret("test-signing-secret");
+        properties.setLocalMmapThresholdBytes(1024);
+        localStorage = new LocalFileSystemAttachmentStorage(properties);
+        return localStorage;
+    }
+
+    @Override
+    protected void upload(String key, byte[] body) throws Exception {
+        localStorage.stage(key, body.length, new ByteArrayInputStream(body));
+    }
+
+    @Test
+    void signedUrls_shouldRoundTripAndRejectTampering() throws Exception {
+        String key = newKey();
+        byte[] body = "hello world!".getBytes(StandardCharsets.UTF_8);
+
+        UriComponents upload = UriComponentsBuilder
+                .fromUriString(storage.createUploadUrl(key, "text/plain", body.length, null, Duration.ofMinutes(5)))
+                .build();
+        long expires = Long.parseLong(upload.getQueryParams().getFirst("expires"));
+        String signature = upload.getQueryParams().getFirst("signature");
+
+        assertThatThrownBy(() -> localStorage.writeUpload(key, expires, body.length + 1, signature,
+                new ByteArrayInputStream(body)))
+                .isInstanceOf(AccessDeniedException.class);
+
+        localStorage.writeUpload(key, expires, body.length, signature, new ByteArrayInputStream(body));
+        assertThat(storage.confirmUpload(key)).contains((long) body.length);
+
+        UriComponents download = UriComponentsBuilder
+                .fromUriString(storage.createDownloadUrl(key, "text/plain", Duration.ofMinutes(5)))
+                .build();
+        try (InputStream in = localStorage.openSignedDownload(key,
+                Long.parseLong(download.getQueryParams().getFirst("expires")),
+                "text/plain",
+                download.getQueryParams().getFirst("signature"))) {
+            assertThat(in.readAllBytes()).isEqualTo(body);
+        }
+    }
+
+    @Test
+    void signedUpload_whenExpired_shouldBeRejected() {
+        assertThatThrownBy(() -> localStorage.writeUpload(newKey(), 1L, 4, "deadbeef",
+                new ByteArrayInputStream(new byte[4])))
+                .isInstanceOf(AccessDeniedException.class)
+                .hasMessageContaining("expired");
+    }
+}
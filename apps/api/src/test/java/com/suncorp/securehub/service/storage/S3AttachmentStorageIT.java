@@ -0,0 +1,71 @@
+package com.suncorp.securehub.service.storage;
+
+import com.suncorp.securehub.config.AttachmentProperties;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.testcontainers.containers.localstack.LocalStackContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.util.UUID;
+
+@Testcontainers
+class S3AttachmentStorageIT extends AttachmentStorageContractTest {
+
+    private static final String BUCKET = "securehub-storage-" + UUID.randomUUID().toString().replace("-", "");
+
+    @Container
+    static LocalStackContainer localStack = new LocalStackContainer(DockerImageName.parse("localstack/localstack:3.4"))
+            .withServices(LocalStackContainer.Service.S3);
+
+    private static S3Client s3Client;
+    private static S3Presigner s3Presigner;
+
+    @BeforeAll
+    static void createBucket() {
+        StaticCredentialsProvider credentials = StaticCredentialsProvider.create(
+                AwsBasicCredentials.create(localStack.getAccessKey(), localStack.getSecretKey()));
+        S3Configuration pathStyle = S3Configuration.builder().pathStyleAccessEnabled(true).build();
+        s3Client = S3Client.builder()
+                .endpointOverride(localStack.getEndpointOverride(LocalStackContainer.Service.S3))
+                .region(Region.of(localStack.getRegion()))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(pathStyle)
+                .build();
+        s3Presigner = S3Presigner.builder()
+                .endpointOverride(localStack.getEndpointOverride(LocalStackContainer.Service.S3))
+                .region(Region.of(localStack.getRegion()))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(pathStyle)
+                .build();
+        s3Client.createBucket(CreateBucketRequest.builder().bucket(BUCKET).build());
+    }
+
+    @AfterAll
+    static void closeClients() {
+        s3Presigner.close();
+        s3Client.close();
+    }
+
+    @Override
+    protected AttachmentStorage createStorage() {
+        AttachmentProperties properties = new AttachmentProperties();
+        properties.setBucketName(BUCKET);
+        return new S3AttachmentStorage(s3Client, s3Presigner, properties);
+    }
+
+    @Override
+    protected void upload(String key, byte[] body) {
+        s3Client.putObject(PutObjectRequest.builder().bucket(BUCKET).key(key).build(), RequestBody.fromBytes(body));
+    }
+}